@@ -19,6 +19,8 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 
@@ -28,6 +30,8 @@ import java.util.List;
 import java.util.Set;
 
 @SpringBootApplication
+@EnableScheduling
+@EnableAsync
 public class GesyApplication {
 	@Autowired
 	private RolesRepository rolesRepository;
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.backend.gesy.achat.dto.AchatPrixParProduitProjection;
 import com.backend.gesy.facture.Facture;
 import com.backend.gesy.transaction.Transaction;
 
@@ -119,5 +120,11 @@ public interface AchatRepository extends JpaRepository<Achat, Long> {
         @Param("endDate") LocalDateTime endDate,
         Pageable pageable
     );
-}
 
+    // Somme et nombre des prix unitaires par produit, pour les achats antérieurs à :fin (tous si null)
+    @Query("SELECT a.produit.id AS produitId, SUM(a.prixUnitaire) AS sommePrix, COUNT(a.id) AS nombre " +
+           "FROM Achat a WHERE a.produit IS NOT NULL AND a.prixUnitaire IS NOT NULL " +
+           "AND (:fin IS NULL OR a.dateAchat < :fin) " +
+           "GROUP BY a.produit.id")
+    List<AchatPrixParProduitProjection> sumPrixUnitaireGroupByProduit(@Param("fin") LocalDateTime fin);
+}
@@ -9,6 +9,7 @@ import com.backend.gesy.achat.dto.AchatMargeDTO;
 import com.backend.gesy.achat.dto.CreateAchatCessionDTO;
 import com.backend.gesy.achat.dto.CreateAchatWithFactureDTO;
 import com.backend.gesy.achat.dto.PayerAchatDTO;
+import com.backend.gesy.capitale.CapitaleModifieeEvent;
 import com.backend.gesy.client.Client;
 import com.backend.gesy.client.ClientRepository;
 import com.backend.gesy.client.Client.TypeClient;
@@ -18,18 +19,23 @@ import com.backend.gesy.depot.Depot;
 import com.backend.gesy.depot.DepotRepository;
 import com.backend.gesy.facture.Facture;
 import com.backend.gesy.facture.FactureRepository;
+import com.backend.gesy.facture.NumeroFactureGenerator;
 import com.backend.gesy.facture.LigneFacture;
 import com.backend.gesy.fournisseur.Fournisseur;
 import com.backend.gesy.fournisseur.FournisseurRepository;
 import com.backend.gesy.produit.Produit;
 import com.backend.gesy.produit.ProduitRepository;
+import com.backend.gesy.solde.SoldeUpdater;
+import com.backend.gesy.stock.MouvementStock;
 import com.backend.gesy.stock.Stock;
+import com.backend.gesy.stock.StockLedger;
 import com.backend.gesy.stock.StockRepository;
 import com.backend.gesy.transaction.Transaction;
 import com.backend.gesy.transaction.TransactionRepository;
 import com.backend.gesy.voyage.Voyage;
 import com.backend.gesy.voyage.VoyageRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -64,6 +70,10 @@ public class AchatServiceImpl implements AchatService {
     private final TransactionRepository transactionRepository;
     private final CompteBancaireRepository compteBancaireRepository;
     private final AlerteService alerteService;
+    private final NumeroFactureGenerator numeroFactureGenerator;
+    private final SoldeUpdater soldeUpdater;
+    private final StockLedger stockLedger;
+    private final ApplicationEventPublisher eventPublisher;
 
     /** Tri par plus récent (dateAchat DESC, id DESC) pour les listes d'achats */
     private static final Sort SORT_MOST_RECENT = Sort.by(Sort.Direction.DESC, "dateAchat")
@@ -137,6 +147,7 @@ public class AchatServiceImpl implements AchatService {
         }
 
         Achat savedAchat = achatRepository.save(achat);
+        eventPublisher.publishEvent(new CapitaleModifieeEvent(savedAchat.getDateAchat()));
         alerteService.creerAlerte(Alerte.TypeAlerte.ACHAT_ENREGISTRE,
                 "Achat enregistré : " + produit.getNom() + " - " + savedAchat.getQuantite() + " "
                         + (savedAchat.getUnite() != null ? savedAchat.getUnite() : ""),
@@ -146,10 +157,10 @@ public class AchatServiceImpl implements AchatService {
 
     @Override
     public void deleteById(Long id) {
-        if (!achatRepository.existsById(id)) {
-            throw new RuntimeException("Achat non trouvé avec l'id: " + id);
-        }
-        achatRepository.deleteById(id);
+        Achat achat = achatRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Achat non trouvé avec l'id: " + id));
+        achatRepository.delete(achat);
+        eventPublisher.publishEvent(new CapitaleModifieeEvent(achat.getDateAchat()));
     }
 
     @Override
@@ -539,14 +550,8 @@ public class AchatServiceImpl implements AchatService {
                 .orElseThrow(() -> new RuntimeException(
                         "Compte bancaire non trouvé avec l'id: " + dto.getCompteBancaireId()));
 
-        // Vérifier que le compte a suffisamment de fonds
-        if (compte.getSolde().compareTo(transaction.getMontant()) < 0) {
-            throw new RuntimeException("Solde insuffisant sur le compte bancaire");
-        }
-
-        // Débiter le compte bancaire
-        compte.setSolde(compte.getSolde().subtract(transaction.getMontant()));
-        compteBancaireRepository.save(compte);
+        // Débiter le compte bancaire (contrôle du solde suffisant dans le même UPDATE)
+        soldeUpdater.debiter(compte, transaction.getMontant(), "Solde insuffisant sur le compte bancaire");
 
         // Mettre à jour la transaction (lier au compte et valider)
         transaction.setCompte(compte);
@@ -562,28 +567,25 @@ public class AchatServiceImpl implements AchatService {
         if (stockOpt.isPresent()) {
             // Mettre à jour le stock existant
             stock = stockOpt.get();
-            stock.setQuantite(stock.getQuantite() + achat.getQuantite());
             // Mettre à jour le prix unitaire si nécessaire
             if (achat.getPrixUnitaire() != null) {
                 stock.setPrixUnitaire(achat.getPrixUnitaire().doubleValue());
             }
         } else {
-            // Créer un nouveau stock
+            // Créer un nouveau stock (vide : la quantité arrive par l'entrée ci-dessous)
             stock = new Stock();
             stock.setDepot(achat.getDepot());
             stock.setProduit(achat.getProduit());
-            stock.setQuantite(achat.getQuantite());
+            stock.setQuantite(0.0);
             stock.setPrixUnitaire(achat.getPrixUnitaire() != null ? achat.getPrixUnitaire().doubleValue() : null);
             stock.setUnite(achat.getUnite() != null ? achat.getUnite() : "L"); // Unité par défaut
         }
-        stock.setDateDerniereMiseAJour(LocalDateTime.now());
         stockRepository.save(stock);
 
-        // Mettre à jour la capacité utilisée du dépôt
-        Depot depot = achat.getDepot();
-        Double capaciteUtilisee = depot.getCapaciteUtilisee() != null ? depot.getCapaciteUtilisee() : 0.0;
-        depot.setCapaciteUtilisee(capaciteUtilisee + achat.getQuantite());
-        depotRepository.save(depot);
+        // Entrée en stock et capacité utilisée du dépôt (UPDATE relatifs)
+        stockLedger.enregistrer(LocalDateTime.now(), MouvementStock.entree(stock, achat.getQuantite(),
+                "Approvisionnement achat " + achat.getId() + " - " + achat.getProduit().getNom()
+                        + " dans " + achat.getDepot().getNom()));
 
         return achatMapper.toDTO(achat);
     }
@@ -721,27 +723,20 @@ public class AchatServiceImpl implements AchatService {
         Achat savedAchat = achatRepository.save(achat);
 
         Optional<Stock> stockOpt = stockRepository.findByDepotIdAndProduitId(depot.getId(), produit.getId());
-        Stock stock;
-        if (stockOpt.isPresent()) {
-            stock = stockOpt.get();
-            stock.setQuantityCession(
-                    (stock.getQuantityCession() != null ? stock.getQuantityCession() : 0.0) + dto.getQuantite());
-        } else {
-            stock = new Stock();
-            stock.setDepot(depot);
-            stock.setProduit(produit);
-            stock.setQuantite(0.0);
-            stock.setQuantityCession(dto.getQuantite());
-            stock.setUnite(achat.getUnite() != null ? achat.getUnite() : "L");
-        }
-        stock.setDateDerniereMiseAJour(LocalDateTime.now());
-        stockRepository.save(stock);
-
-        // Mettre à jour la capacité utilisée du dépôt (stock en cession occupe la
-        // capacité)
-        Double capaciteUtilisee = depot.getCapaciteUtilisee() != null ? depot.getCapaciteUtilisee() : 0.0;
-        depot.setCapaciteUtilisee(capaciteUtilisee + dto.getQuantite());
-        depotRepository.save(depot);
+        Stock stock = stockOpt.orElseGet(() -> {
+            Stock nouveau = new Stock();
+            nouveau.setDepot(depot);
+            nouveau.setProduit(produit);
+            nouveau.setQuantite(0.0);
+            nouveau.setQuantityCession(0.0);
+            nouveau.setUnite(achat.getUnite() != null ? achat.getUnite() : "L");
+            return stockRepository.save(nouveau);
+        });
+
+        // Entrée en quantité cession ; le stock en cession occupe aussi la capacité du dépôt
+        stockLedger.enregistrer(LocalDateTime.now(), MouvementStock.entreeCession(stock, dto.getQuantite(),
+                "Entrée stock cession (achat " + savedAchat.getId() + ", client " + client.getNom() + ") dans "
+                        + depot.getNom()));
 
         alerteService.creerAlerte(Alerte.TypeAlerte.ACHAT_ENREGISTRE,
                 "Achat de cession : " + produit.getNom() + " - " + savedAchat.getQuantite() + " "
@@ -804,26 +799,6 @@ public class AchatServiceImpl implements AchatService {
     }
 
     private String generateUniqueNumeroFacture() {
-        int currentYear = LocalDate.now().getYear();
-        String prefix = "FAC-ACHAT-" + currentYear + "-";
-
-        List<Facture> factures = factureRepository.findAll();
-        int nextNumber = 1;
-
-        for (Facture f : factures) {
-            if (f.getNumero() != null && f.getNumero().startsWith(prefix)) {
-                try {
-                    String numberPart = f.getNumero().substring(prefix.length());
-                    int num = Integer.parseInt(numberPart);
-                    if (num >= nextNumber) {
-                        nextNumber = num + 1;
-                    }
-                } catch (NumberFormatException e) {
-                    // Ignorer les numéros qui ne correspondent pas au format
-                }
-            }
-        }
-
-        return prefix + String.format("%04d", nextNumber);
+        return numeroFactureGenerator.prochainNumero(NumeroFactureGenerator.TYPE_ACHAT);
     }
 }
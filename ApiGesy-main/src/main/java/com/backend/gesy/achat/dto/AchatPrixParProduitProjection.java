@@ -0,0 +1,12 @@
+package com.backend.gesy.achat.dto;
+
+import java.math.BigDecimal;
+
+/** Projection d'agrégat : somme et nombre des prix unitaires d'achat par produit (moyenne calculée côté service). */
+public interface AchatPrixParProduitProjection {
+    Long getProduitId();
+
+    BigDecimal getSommePrix();
+
+    Long getNombre();
+}
@@ -0,0 +1,56 @@
+package com.backend.gesy.analyse;
+
+import jakarta.persistence.Tuple;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Agrégats d'une période d'analyse, lus tels quels dans la ligne de la période renvoyée par les requêtes
+ * groupées par période (ventes, clients et camions distincts, voyages et temps de livraison). Une période
+ * absente des résultats garde ses valeurs à zéro.
+ */
+@Getter
+public class AgregatPeriode {
+    private final PeriodeAnalyse periode;
+    private BigDecimal ventes = BigDecimal.ZERO;
+    private long nombreFactures;
+    private long facturesPayeesATemps;
+    private int nombreClients;
+    private long voyages;
+    private long voyagesDecharges;
+    private int nombreCamions;
+    private long joursLivraison;
+    private long voyagesLivresDates;
+
+    AgregatPeriode(PeriodeAnalyse periode) {
+        this.periode = periode;
+    }
+
+    void appliquerVentes(Tuple ligne) {
+        BigDecimal total = ligne.get("ventes", BigDecimal.class);
+        ventes = total != null ? total : BigDecimal.ZERO;
+        nombreFactures = valeur(ligne, "nombre");
+        facturesPayeesATemps = valeur(ligne, "payeesATemps");
+        nombreClients = (int) valeur(ligne, "clients");
+    }
+
+    void appliquerVoyages(Tuple ligne) {
+        voyages = valeur(ligne, "nombre");
+        voyagesDecharges = valeur(ligne, "decharges");
+        nombreCamions = (int) valeur(ligne, "camions");
+        // Temps de livraison : uniquement les voyages déchargés ayant une date d'arrivée
+        joursLivraison = valeur(ligne, "joursLivraison");
+        voyagesLivresDates = valeur(ligne, "livresDates");
+    }
+
+    /** Durée moyenne (en jours entiers) entre départ et arrivée des voyages déchargés. */
+    public long getTempsMoyenLivraison() {
+        return voyagesLivresDates > 0 ? joursLivraison / voyagesLivresDates : 0;
+    }
+
+    private static long valeur(Tuple ligne, String alias) {
+        Number nombre = ligne.get(alias, Number.class);
+        return nombre != null ? nombre.longValue() : 0L;
+    }
+}
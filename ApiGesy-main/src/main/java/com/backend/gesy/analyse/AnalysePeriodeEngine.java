@@ -0,0 +1,85 @@
+package com.backend.gesy.analyse;
+
+import com.backend.gesy.facture.Facture;
+import com.backend.gesy.facture.FactureRepository;
+import com.backend.gesy.voyage.VoyageRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Calcule les agrégats de plusieurs périodes d'analyse (période courante et précédente, semaines
+ * glissantes...). Une seule requête par entité : chaque période est une branche d'un UNION ALL bornée à ses
+ * propres dates, puis le tout est groupé par numéro de période. Les périodes peuvent se chevaucher (une semaine
+ * dans le mois courant) : les comptes distincts (clients, camions) restent exacts car chaque branche ne voit
+ * que sa période. Une période sans facture ni voyage ne renvoie aucune ligne et garde des agrégats à zéro.
+ */
+@Component
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class AnalysePeriodeEngine {
+    /** Factures comptées comme ventes dans les analyses. */
+    static final Set<Facture.StatutFacture> STATUTS_VENTE =
+            EnumSet.of(Facture.StatutFacture.PAYEE, Facture.StatutFacture.PARTIELLEMENT_PAYEE);
+
+    private static final String VENTES_PAR_PERIODE = "SELECT x.periode AS periode, " +
+            "COALESCE(SUM(x.montant), 0) AS ventes, COUNT(x.id) AS nombre, " +
+            "COALESCE(SUM(x.payeeATemps), 0) AS payeesATemps, COUNT(DISTINCT x.clientId) AS clients " +
+            "FROM (%s) x GROUP BY x.periode";
+
+    private static final String ACTIVITE_PAR_PERIODE = "SELECT x.periode AS periode, " +
+            "COUNT(x.id) AS nombre, COALESCE(SUM(x.decharge), 0) AS decharges, COUNT(DISTINCT x.camionId) AS camions, " +
+            "COALESCE(SUM(x.livreDate), 0) AS livresDates, COALESCE(SUM(x.joursLivraison), 0) AS joursLivraison " +
+            "FROM (%s) x GROUP BY x.periode";
+
+    private final EntityManager entityManager;
+
+    /**
+     * Retourne un agrégat par période, dans l'ordre des périodes fournies.
+     */
+    public List<AgregatPeriode> agreger(List<PeriodeAnalyse> periodes) {
+        List<AgregatPeriode> agregats = new ArrayList<>(periodes.size());
+        periodes.forEach(periode -> agregats.add(new AgregatPeriode(periode)));
+        if (periodes.isEmpty()) {
+            return agregats;
+        }
+
+        TypedQuery<Tuple> ventes = requeteParPeriode(VENTES_PAR_PERIODE, FactureRepository::lignesVentesPeriode, periodes.size());
+        ventes.setParameter("statuts", STATUTS_VENTE);
+        for (int i = 0; i < periodes.size(); i++) {
+            ventes.setParameter("debut" + i, periodes.get(i).debut());
+            ventes.setParameter("fin" + i, periodes.get(i).fin());
+        }
+        for (Tuple ligne : ventes.getResultList()) {
+            agregats.get(ligne.get("periode", Integer.class)).appliquerVentes(ligne);
+        }
+
+        TypedQuery<Tuple> voyages = requeteParPeriode(ACTIVITE_PAR_PERIODE, VoyageRepository::lignesActivitePeriode, periodes.size());
+        for (int i = 0; i < periodes.size(); i++) {
+            voyages.setParameter("debut" + i, periodes.get(i).debut().atStartOfDay());
+            voyages.setParameter("fin" + i, periodes.get(i).fin().plusDays(1).atStartOfDay());
+        }
+        for (Tuple ligne : voyages.getResultList()) {
+            agregats.get(ligne.get("periode", Integer.class)).appliquerVoyages(ligne);
+        }
+        return agregats;
+    }
+
+    private TypedQuery<Tuple> requeteParPeriode(String requete, IntFunction<String> lignesPeriode, int nombrePeriodes) {
+        String branches = IntStream.range(0, nombrePeriodes)
+                .mapToObj(lignesPeriode)
+                .collect(Collectors.joining(" UNION ALL "));
+        return entityManager.createQuery(requete.formatted(branches), Tuple.class);
+    }
+}
@@ -1,17 +1,7 @@
 package com.backend.gesy.analyse;
 
 import com.backend.gesy.analyse.dto.AnalyseDTO;
-import com.backend.gesy.camion.Camion;
-import com.backend.gesy.camion.CamionRepository;
-import com.backend.gesy.client.Client;
-import com.backend.gesy.depense.Depense;
-import com.backend.gesy.depense.DepenseRepository;
-import com.backend.gesy.facture.Facture;
 import com.backend.gesy.facture.FactureRepository;
-import com.backend.gesy.manquant.Manquant;
-import com.backend.gesy.manquant.ManquantRepository;
-import com.backend.gesy.transaction.Transaction;
-import com.backend.gesy.transaction.TransactionRepository;
 import com.backend.gesy.voyage.Voyage;
 import com.backend.gesy.voyage.VoyageRepository;
 import lombok.RequiredArgsConstructor;
@@ -21,9 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.format.TextStyle;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -31,10 +19,7 @@ import java.util.stream.Collectors;
 public class AnalyseServiceImpl implements AnalyseService {
     private final FactureRepository factureRepository;
     private final VoyageRepository voyageRepository;
-    private final CamionRepository camionRepository;
-    private final DepenseRepository depenseRepository;
-    private final ManquantRepository manquantRepository;
-    private final TransactionRepository transactionRepository;
+    private final AnalysePeriodeEngine analysePeriodeEngine;
 
     @Override
     public AnalyseDTO getAnalyse(String periode, Integer annee, LocalDate dateDebut, LocalDate dateFin) {
@@ -67,14 +52,24 @@ public class AnalyseServiceImpl implements AnalyseService {
             endDate = today;
         }
 
+        // Période courante, période précédente et 4 dernières semaines agrégées en une seule passe
+        PeriodeAnalyse periodeCourante = new PeriodeAnalyse("courante", startDate, endDate);
+        List<PeriodeAnalyse> periodes = new ArrayList<>();
+        periodes.add(periodeCourante);
+        periodes.add(periodeCourante.precedente("precedente"));
+        periodes.addAll(semainesGlissantes(4, today));
+        List<AgregatPeriode> agregats = analysePeriodeEngine.agreger(periodes);
+        AgregatPeriode courant = agregats.get(0);
+        AgregatPeriode precedent = agregats.get(1);
+
         // Calculer les KPIs
-        AnalyseDTO.KPIs kpis = calculerKPIs(startDate, endDate);
+        AnalyseDTO.KPIs kpis = calculerKPIs(courant, precedent);
         
         // Calculer les données hebdomadaires (4 dernières semaines)
-        List<AnalyseDTO.DonneeHebdomadaireDTO> donneesHebdomadaires = calculerDonneesHebdomadaires(4);
+        List<AnalyseDTO.DonneeHebdomadaireDTO> donneesHebdomadaires = calculerDonneesHebdomadaires(agregats.subList(2, agregats.size()));
         
         // Calculer les tendances
-        List<AnalyseDTO.TendanceDTO> tendances = calculerTendances(startDate, endDate);
+        List<AnalyseDTO.TendanceDTO> tendances = calculerTendances(courant, precedent);
         
         // Calculer les performances
         List<AnalyseDTO.PerformanceDTO> performances = calculerPerformances();
@@ -88,36 +83,10 @@ public class AnalyseServiceImpl implements AnalyseService {
         return analyse;
     }
 
-    private AnalyseDTO.KPIs calculerKPIs(LocalDate startDate, LocalDate endDate) {
-        // Période précédente pour les évolutions
-        long daysBetween = java.time.temporal.ChronoUnit.DAYS.between(startDate, endDate);
-        LocalDate previousStartDate = startDate.minusDays(daysBetween + 1);
-        LocalDate previousEndDate = startDate.minusDays(1);
-
+    private AnalyseDTO.KPIs calculerKPIs(AgregatPeriode courant, AgregatPeriode precedent) {
         // Croissance : taux de croissance des ventes (factures)
-        List<Facture> facturesActuelles = factureRepository.findAll().stream()
-            .filter(f -> f.getDate() != null &&
-                        !f.getDate().isBefore(startDate) &&
-                        !f.getDate().isAfter(endDate) &&
-                        (f.getStatut() == Facture.StatutFacture.PAYEE ||
-                         f.getStatut() == Facture.StatutFacture.PARTIELLEMENT_PAYEE))
-            .toList();
-
-        BigDecimal ventesActuelles = facturesActuelles.stream()
-            .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : f.getMontant())
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        List<Facture> facturesPrecedentes = factureRepository.findAll().stream()
-            .filter(f -> f.getDate() != null &&
-                        !f.getDate().isBefore(previousStartDate) &&
-                        !f.getDate().isAfter(previousEndDate) &&
-                        (f.getStatut() == Facture.StatutFacture.PAYEE ||
-                         f.getStatut() == Facture.StatutFacture.PARTIELLEMENT_PAYEE))
-            .toList();
-
-        BigDecimal ventesPrecedentes = facturesPrecedentes.stream()
-            .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : f.getMontant())
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal ventesActuelles = courant.getVentes();
+        BigDecimal ventesPrecedentes = precedent.getVentes();
 
         BigDecimal croissance = BigDecimal.ZERO;
         if (ventesPrecedentes.compareTo(BigDecimal.ZERO) > 0) {
@@ -131,74 +100,14 @@ public class AnalyseServiceImpl implements AnalyseService {
         String evolutionCroissance = calculerEvolution(ventesActuelles, ventesPrecedentes);
 
         // Efficacité : taux de voyages livrés vs total (hors cession)
-        List<Voyage> voyagesActuels = voyageRepository.findAll().stream()
-            .filter(v -> !v.isCession())
-            .filter(v -> v.getDateDepart() != null &&
-                        !v.getDateDepart().toLocalDate().isBefore(startDate) &&
-                        !v.getDateDepart().toLocalDate().isAfter(endDate))
-            .toList();
-
-        long voyagesTotal = voyagesActuels.size();
-        long voyagesLivre = voyagesActuels.stream()
-            .filter(v -> v.getStatut() == Voyage.StatutVoyage.DECHARGER)
-            .count();
-
-        BigDecimal efficacite = BigDecimal.ZERO;
-        if (voyagesTotal > 0) {
-            efficacite = BigDecimal.valueOf(voyagesLivre)
-                .divide(BigDecimal.valueOf(voyagesTotal), 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
-        }
-
-        List<Voyage> voyagesPrecedents = voyageRepository.findAll().stream()
-            .filter(v -> !v.isCession())
-            .filter(v -> v.getDateDepart() != null &&
-                        !v.getDateDepart().toLocalDate().isBefore(previousStartDate) &&
-                        !v.getDateDepart().toLocalDate().isAfter(previousEndDate))
-            .toList();
-
-        long voyagesTotalPrecedent = voyagesPrecedents.size();
-        long voyagesLivrePrecedent = voyagesPrecedents.stream()
-            .filter(v -> v.getStatut() == Voyage.StatutVoyage.DECHARGER)
-            .count();
-
-        BigDecimal efficacitePrecedente = BigDecimal.ZERO;
-        if (voyagesTotalPrecedent > 0) {
-            efficacitePrecedente = BigDecimal.valueOf(voyagesLivrePrecedent)
-                .divide(BigDecimal.valueOf(voyagesTotalPrecedent), 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
-        }
+        BigDecimal efficacite = calculerTaux(courant.getVoyagesDecharges(), courant.getVoyages());
+        BigDecimal efficacitePrecedente = calculerTaux(precedent.getVoyagesDecharges(), precedent.getVoyages());
 
         String evolutionEfficacite = calculerEvolution(efficacite, efficacitePrecedente);
 
         // Satisfaction : taux de factures payées à temps (dans les délais)
-        long facturesPayeesATemps = facturesActuelles.stream()
-            .filter(f -> f.getDateEcheance() != null &&
-                        f.getStatut() == Facture.StatutFacture.PAYEE &&
-                        (f.getDateEcheance().isAfter(f.getDate()) || 
-                         f.getDateEcheance().equals(f.getDate())))
-            .count();
-
-        BigDecimal satisfaction = BigDecimal.ZERO;
-        if (facturesActuelles.size() > 0) {
-            satisfaction = BigDecimal.valueOf(facturesPayeesATemps)
-                .divide(BigDecimal.valueOf(facturesActuelles.size()), 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
-        }
-
-        long facturesPayeesATempsPrecedent = facturesPrecedentes.stream()
-            .filter(f -> f.getDateEcheance() != null &&
-                        f.getStatut() == Facture.StatutFacture.PAYEE &&
-                        (f.getDateEcheance().isAfter(f.getDate()) || 
-                         f.getDateEcheance().equals(f.getDate())))
-            .count();
-
-        BigDecimal satisfactionPrecedente = BigDecimal.ZERO;
-        if (facturesPrecedentes.size() > 0) {
-            satisfactionPrecedente = BigDecimal.valueOf(facturesPayeesATempsPrecedent)
-                .divide(BigDecimal.valueOf(facturesPrecedentes.size()), 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
-        }
+        BigDecimal satisfaction = calculerTaux(courant.getFacturesPayeesATemps(), courant.getNombreFactures());
+        BigDecimal satisfactionPrecedente = calculerTaux(precedent.getFacturesPayeesATemps(), precedent.getNombreFactures());
 
         String evolutionSatisfaction = calculerEvolution(satisfaction, satisfactionPrecedente);
 
@@ -247,58 +156,28 @@ public class AnalyseServiceImpl implements AnalyseService {
         return kpis;
     }
 
-    private List<AnalyseDTO.DonneeHebdomadaireDTO> calculerDonneesHebdomadaires(int nombreSemaines) {
-        List<AnalyseDTO.DonneeHebdomadaireDTO> donnees = new ArrayList<>();
-        LocalDate today = LocalDate.now();
-        
+    /** Semaines du lundi au dimanche, la dernière se terminant aujourd'hui. */
+    private List<PeriodeAnalyse> semainesGlissantes(int nombreSemaines, LocalDate today) {
+        List<PeriodeAnalyse> semaines = new ArrayList<>();
         for (int i = nombreSemaines - 1; i >= 0; i--) {
             LocalDate semaineDate = today.minusWeeks(i);
             LocalDate startOfWeek = semaineDate.minusDays(semaineDate.getDayOfWeek().getValue() - 1);
-            final LocalDate endOfWeek;
-            
-            if (i == 0) {
-                endOfWeek = today;
-            } else {
-                endOfWeek = startOfWeek.plusDays(6);
-            }
-
-            // Ventes de la semaine (factures)
-            List<Facture> facturesSemaine = factureRepository.findAll().stream()
-                .filter(f -> f.getDate() != null &&
-                            !f.getDate().isBefore(startOfWeek) &&
-                            !f.getDate().isAfter(endOfWeek) &&
-                            (f.getStatut() == Facture.StatutFacture.PAYEE ||
-                             f.getStatut() == Facture.StatutFacture.PARTIELLEMENT_PAYEE))
-                .toList();
-
-            BigDecimal ventesSemaine = facturesSemaine.stream()
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : f.getMontant())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            // Clients actifs (clients uniques avec factures)
-            Set<Long> clientsUniques = facturesSemaine.stream()
-                .map(f -> f.getClient() != null ? f.getClient().getId() : null)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-
-            // Camions actifs (camions en route ou assignés, hors cession)
-            List<Voyage> voyagesSemaine = voyageRepository.findAll().stream()
-                .filter(v -> !v.isCession())
-                .filter(v -> v.getDateDepart() != null &&
-                            !v.getDateDepart().toLocalDate().isBefore(startOfWeek) &&
-                            !v.getDateDepart().toLocalDate().isAfter(endOfWeek))
-                .toList();
-
-            Set<Long> camionsActifs = voyagesSemaine.stream()
-                .map(v -> v.getCamion() != null ? v.getCamion().getId() : null)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
+            LocalDate endOfWeek = i == 0 ? today : startOfWeek.plusDays(6);
+            semaines.add(new PeriodeAnalyse("Sem " + (nombreSemaines - i), startOfWeek, endOfWeek));
+        }
+        return semaines;
+    }
 
+    private List<AnalyseDTO.DonneeHebdomadaireDTO> calculerDonneesHebdomadaires(List<AgregatPeriode> semaines) {
+        List<AnalyseDTO.DonneeHebdomadaireDTO> donnees = new ArrayList<>();
+        
+        // Ventes, clients uniques et camions actifs (hors cession) de chaque semaine
+        for (AgregatPeriode agregat : semaines) {
             AnalyseDTO.DonneeHebdomadaireDTO donnee = new AnalyseDTO.DonneeHebdomadaireDTO();
-            donnee.setSemaine("Sem " + (nombreSemaines - i));
-            donnee.setVentes(ventesSemaine);
-            donnee.setClients(clientsUniques.size());
-            donnee.setCamions(camionsActifs.size());
+            donnee.setSemaine(agregat.getPeriode().libelle());
+            donnee.setVentes(agregat.getVentes());
+            donnee.setClients(agregat.getNombreClients());
+            donnee.setCamions(agregat.getNombreCamions());
             
             donnees.add(donnee);
         }
@@ -306,38 +185,12 @@ public class AnalyseServiceImpl implements AnalyseService {
         return donnees;
     }
 
-    private List<AnalyseDTO.TendanceDTO> calculerTendances(LocalDate startDate, LocalDate endDate) {
+    private List<AnalyseDTO.TendanceDTO> calculerTendances(AgregatPeriode courant, AgregatPeriode precedent) {
         List<AnalyseDTO.TendanceDTO> tendances = new ArrayList<>();
-        
-        // Période précédente
-        long daysBetween = java.time.temporal.ChronoUnit.DAYS.between(startDate, endDate);
-        LocalDate previousStartDate = startDate.minusDays(daysBetween + 1);
-        LocalDate previousEndDate = startDate.minusDays(1);
 
         // Tendance Ventes
-        List<Facture> facturesActuelles = factureRepository.findAll().stream()
-            .filter(f -> f.getDate() != null &&
-                        !f.getDate().isBefore(startDate) &&
-                        !f.getDate().isAfter(endDate) &&
-                        (f.getStatut() == Facture.StatutFacture.PAYEE ||
-                         f.getStatut() == Facture.StatutFacture.PARTIELLEMENT_PAYEE))
-            .toList();
-
-        BigDecimal ventesActuelles = facturesActuelles.stream()
-            .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : f.getMontant())
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        List<Facture> facturesPrecedentes = factureRepository.findAll().stream()
-            .filter(f -> f.getDate() != null &&
-                        !f.getDate().isBefore(previousStartDate) &&
-                        !f.getDate().isAfter(previousEndDate) &&
-                        (f.getStatut() == Facture.StatutFacture.PAYEE ||
-                         f.getStatut() == Facture.StatutFacture.PARTIELLEMENT_PAYEE))
-            .toList();
-
-        BigDecimal ventesPrecedentes = facturesPrecedentes.stream()
-            .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : f.getMontant())
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal ventesActuelles = courant.getVentes();
+        BigDecimal ventesPrecedentes = precedent.getVentes();
 
         BigDecimal evolutionVentes = calculerEvolutionPourcentage(ventesActuelles, ventesPrecedentes);
         String tendanceVentes = determinerTendance(evolutionVentes);
@@ -350,19 +203,9 @@ public class AnalyseServiceImpl implements AnalyseService {
         tendances.add(tendanceV);
 
         // Tendance Clients actifs
-        Set<Long> clientsActuels = facturesActuelles.stream()
-            .map(f -> f.getClient() != null ? f.getClient().getId() : null)
-            .filter(Objects::nonNull)
-            .collect(Collectors.toSet());
-
-        Set<Long> clientsPrecedents = facturesPrecedentes.stream()
-            .map(f -> f.getClient() != null ? f.getClient().getId() : null)
-            .filter(Objects::nonNull)
-            .collect(Collectors.toSet());
-
         BigDecimal evolutionClients = calculerEvolutionPourcentage(
-            BigDecimal.valueOf(clientsActuels.size()),
-            BigDecimal.valueOf(clientsPrecedents.size())
+            BigDecimal.valueOf(courant.getNombreClients()),
+            BigDecimal.valueOf(precedent.getNombreClients())
         );
         String tendanceClients = determinerTendance(evolutionClients);
         
@@ -385,41 +228,8 @@ public class AnalyseServiceImpl implements AnalyseService {
         tendances.add(tendanceCo);
 
         // Tendance Temps de livraison (basé sur la différence moyenne entre dateDepart et dateArrivee, hors cession)
-        List<Voyage> voyagesActuels = voyageRepository.findAll().stream()
-            .filter(v -> !v.isCession())
-            .filter(v -> v.getDateDepart() != null &&
-                        v.getDateArrivee() != null &&
-                        !v.getDateDepart().toLocalDate().isBefore(startDate) &&
-                        !v.getDateDepart().toLocalDate().isAfter(endDate) &&
-                        (v.getStatut() == Voyage.StatutVoyage.DECHARGER))
-            .toList();
-
-        long tempsMoyenActuel = 0;
-        if (!voyagesActuels.isEmpty()) {
-            tempsMoyenActuel = voyagesActuels.stream()
-                .mapToLong(v -> java.time.temporal.ChronoUnit.DAYS.between(
-                    v.getDateDepart().toLocalDate(),
-                    v.getDateArrivee().toLocalDate()))
-                .sum() / voyagesActuels.size();
-        }
-
-        List<Voyage> voyagesPrecedents = voyageRepository.findAll().stream()
-            .filter(v -> !v.isCession())
-            .filter(v -> v.getDateDepart() != null &&
-                        v.getDateArrivee() != null &&
-                        !v.getDateDepart().toLocalDate().isBefore(previousStartDate) &&
-                        !v.getDateDepart().toLocalDate().isAfter(previousEndDate) &&
-                        (v.getStatut() == Voyage.StatutVoyage.DECHARGER))
-            .toList();
-
-        long tempsMoyenPrecedent = 0;
-        if (!voyagesPrecedents.isEmpty()) {
-            tempsMoyenPrecedent = voyagesPrecedents.stream()
-                .mapToLong(v -> java.time.temporal.ChronoUnit.DAYS.between(
-                    v.getDateDepart().toLocalDate(),
-                    v.getDateArrivee().toLocalDate()))
-                .sum() / voyagesPrecedents.size();
-        }
+        long tempsMoyenActuel = courant.getTempsMoyenLivraison();
+        long tempsMoyenPrecedent = precedent.getTempsMoyenLivraison();
 
         BigDecimal evolutionTemps = BigDecimal.ZERO;
         if (tempsMoyenPrecedent > 0) {
@@ -437,12 +247,6 @@ public class AnalyseServiceImpl implements AnalyseService {
         tendances.add(tendanceT);
 
         // Tendance Taux d'annulation (voyages annulés, hors cession)
-        long voyagesTotalActuels = voyageRepository.findAll().stream()
-            .filter(v -> !v.isCession())
-            .filter(v -> v.getDateDepart() != null &&
-                        !v.getDateDepart().toLocalDate().isBefore(startDate) &&
-                        !v.getDateDepart().toLocalDate().isAfter(endDate))
-            .count();
         // Note: Il n'y a pas de statut "ANNULE" dans StatutVoyage, donc on pourrait utiliser un autre critère
         BigDecimal tauxAnnulation = BigDecimal.ZERO;
         String tendanceAnnulation = "stable";
@@ -461,18 +265,8 @@ public class AnalyseServiceImpl implements AnalyseService {
         List<AnalyseDTO.PerformanceDTO> performances = new ArrayList<>();
 
         // Taux de remplissage (basé sur les voyages)
-        List<Voyage> voyages = voyageRepository.findAll();
-        long voyagesTotal = voyages.size();
-        long voyagesLivre = voyages.stream()
-            .filter(v -> v.getStatut() == Voyage.StatutVoyage.DECHARGER)
-            .count();
-
-        BigDecimal tauxRemplissage = BigDecimal.ZERO;
-        if (voyagesTotal > 0) {
-            tauxRemplissage = BigDecimal.valueOf(voyagesLivre)
-                .divide(BigDecimal.valueOf(voyagesTotal), 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
-        }
+        BigDecimal tauxRemplissage = calculerTaux(
+            voyageRepository.countByStatut(Voyage.StatutVoyage.DECHARGER), voyageRepository.count());
         BigDecimal cibleRemplissage = BigDecimal.valueOf(90);
         BigDecimal pourcentageRemplissage = tauxRemplissage.divide(cibleRemplissage, 4, RoundingMode.HALF_UP)
                                                           .multiply(BigDecimal.valueOf(100));
@@ -487,21 +281,7 @@ public class AnalyseServiceImpl implements AnalyseService {
         performances.add(perf1);
 
         // Ponctualité livraisons (factures payées à temps)
-        List<Facture> factures = factureRepository.findAll();
-        long facturesTotal = factures.size();
-        long facturesPonctuelles = factures.stream()
-            .filter(f -> f.getDateEcheance() != null &&
-                        f.getStatut() == Facture.StatutFacture.PAYEE &&
-                        (f.getDateEcheance().isAfter(f.getDate()) || 
-                         f.getDateEcheance().equals(f.getDate())))
-            .count();
-
-        BigDecimal ponctualite = BigDecimal.ZERO;
-        if (facturesTotal > 0) {
-            ponctualite = BigDecimal.valueOf(facturesPonctuelles)
-                .divide(BigDecimal.valueOf(facturesTotal), 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
-        }
+        BigDecimal ponctualite = calculerTaux(factureRepository.countPayeesDansLesDelais(), factureRepository.count());
         BigDecimal ciblePonctualite = BigDecimal.valueOf(95);
         BigDecimal pourcentagePonctualite = ponctualite.divide(ciblePonctualite, 4, RoundingMode.HALF_UP)
                                                       .multiply(BigDecimal.valueOf(100));
@@ -548,6 +328,16 @@ public class AnalyseServiceImpl implements AnalyseService {
         return performances;
     }
 
+    /** Pourcentage numerateur / total (échelle 4 avant arrondi d'affichage), 0 si le total est nul. */
+    private BigDecimal calculerTaux(long numerateur, long total) {
+        if (total <= 0) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(numerateur)
+            .divide(BigDecimal.valueOf(total), 4, RoundingMode.HALF_UP)
+            .multiply(BigDecimal.valueOf(100));
+    }
+
     private String calculerEvolution(BigDecimal current, BigDecimal previous) {
         if (previous.compareTo(BigDecimal.ZERO) == 0) {
             if (current.compareTo(BigDecimal.ZERO) > 0) {
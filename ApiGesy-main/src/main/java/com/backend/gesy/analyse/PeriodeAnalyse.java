@@ -0,0 +1,20 @@
+package com.backend.gesy.analyse;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Intervalle d'analyse [debut, fin], bornes incluses, avec le libellé affiché côté front.
+ */
+public record PeriodeAnalyse(String libelle, LocalDate debut, LocalDate fin) {
+
+    public boolean contient(LocalDate jour) {
+        return jour != null && !jour.isBefore(debut) && !jour.isAfter(fin);
+    }
+
+    /** Période de même durée qui précède immédiatement celle-ci. */
+    public PeriodeAnalyse precedente(String libelle) {
+        long jours = ChronoUnit.DAYS.between(debut, fin);
+        return new PeriodeAnalyse(libelle, debut.minusDays(jours + 1), debut.minusDays(1));
+    }
+}
@@ -1,13 +1,21 @@
 package com.backend.gesy.axe;
 
+import com.backend.gesy.pays.dto.TarifAxeProjection;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AxeRepository extends JpaRepository<Axe, Long> {
     Optional<Axe> findByNom(String nom);
     boolean existsByNom(String nom);
+
+    /** Tarif courant du pays de chaque axe, en une requête (cache des tarifs douaniers). */
+    @Query("SELECT a.id AS axeId, p.id AS paysId, p.nom AS paysNom, p.fraisParLitre AS fraisParLitre, " +
+           "p.fraisParLitreGasoil AS fraisParLitreGasoil, p.fraisT1 AS fraisT1 FROM Axe a JOIN a.pays p")
+    List<TarifAxeProjection> findTarifsParAxe();
 }
 
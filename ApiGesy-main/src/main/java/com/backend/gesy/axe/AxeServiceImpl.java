@@ -4,7 +4,9 @@ import com.backend.gesy.axe.dto.AxeDTO;
 import com.backend.gesy.axe.dto.AxeMapper;
 import com.backend.gesy.pays.Pays;
 import com.backend.gesy.pays.PaysRepository;
+import com.backend.gesy.pays.TarifPaysModifieEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +22,7 @@ public class AxeServiceImpl implements AxeService {
     private final AxeRepository axeRepository;
     private final PaysRepository paysRepository;
     private final AxeMapper axeMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional(readOnly = true)
@@ -57,7 +60,9 @@ public class AxeServiceImpl implements AxeService {
                     .orElseThrow(() -> new RuntimeException("Pays non trouvé avec l'id: " + dto.getPaysId()));
             entity.setPays(pays);
         }
-        return axeMapper.toDTO(axeRepository.save(entity));
+        AxeDTO saved = axeMapper.toDTO(axeRepository.save(entity));
+        eventPublisher.publishEvent(new TarifPaysModifieEvent());
+        return saved;
     }
 
     @Override
@@ -81,7 +86,10 @@ public class AxeServiceImpl implements AxeService {
             existing.setPays(null);
         }
 
-        return axeMapper.toDTO(axeRepository.save(existing));
+        AxeDTO updated = axeMapper.toDTO(axeRepository.save(existing));
+        // Le pays de l'axe détermine son tarif douanier
+        eventPublisher.publishEvent(new TarifPaysModifieEvent());
+        return updated;
     }
 
     @Override
@@ -90,5 +98,6 @@ public class AxeServiceImpl implements AxeService {
             throw new RuntimeException("Axe non trouvé avec l'id: " + id);
         }
         axeRepository.deleteById(id);
+        eventPublisher.publishEvent(new TarifPaysModifieEvent());
     }
 }
@@ -1,13 +1,41 @@
 package com.backend.gesy.caisse;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CaisseRepository extends JpaRepository<Caisse, Long> {
     Optional<Caisse> findByNom(String nom);
     boolean existsByNom(String nom);
+
+    @Query("SELECT COALESCE(SUM(c.solde), 0) FROM Caisse c")
+    BigDecimal sumSolde();
+
+    @Query("SELECT COALESCE(SUM(c.solde), 0) FROM Caisse c WHERE c.statut = :statut")
+    BigDecimal sumSoldeByStatut(@Param("statut") Caisse.StatutCaisse statut);
+
+    // Lecture avec verrou d'écriture (SELECT ... FOR UPDATE) : soldes figés pendant un rapprochement
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Caisse c ORDER BY c.id")
+    List<Caisse> findAllForUpdate();
+
+    // Mises à jour atomiques du solde (pas de lecture-modification-écriture côté Java)
+    @Modifying
+    @Query("UPDATE Caisse c SET c.solde = c.solde + :montant WHERE c.id = :id")
+    int crediter(@Param("id") Long id, @Param("montant") BigDecimal montant);
+
+    /** Débite seulement si le solde couvre le montant ; 0 ligne modifiée = solde insuffisant. */
+    @Modifying
+    @Query("UPDATE Caisse c SET c.solde = c.solde - :montant WHERE c.id = :id AND c.solde >= :montant")
+    int debiterSiSuffisant(@Param("id") Long id, @Param("montant") BigDecimal montant);
 }
 
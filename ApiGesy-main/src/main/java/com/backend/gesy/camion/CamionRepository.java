@@ -1,9 +1,14 @@
 package com.backend.gesy.camion;
 
+import com.backend.gesy.camion.dto.CamionStatutCountProjection;
 import com.backend.gesy.fournisseur.Fournisseur;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,5 +16,14 @@ import java.util.Optional;
 public interface CamionRepository extends JpaRepository<Camion, Long> {
     Optional<Camion> findByImmatriculation(String immatriculation);
     List<Camion> findByFournisseur(Fournisseur fournisseur);
+
+    /** Nombre de camions par statut (agrégat SQL, sans charger les entités). */
+    @Query("SELECT c.statut AS statut, COUNT(c) AS total FROM Camion c GROUP BY c.statut")
+    List<CamionStatutCountProjection> countGroupByStatut();
+
+    /** Passe en route les camions d'un lot, sauf ceux en maintenance ou hors service. */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Camion c SET c.statut = 'EN_ROUTE' WHERE c.id IN :ids AND c.statut NOT IN ('EN_MAINTENANCE', 'HORS_SERVICE')")
+    int mettreEnRouteByIdIn(@Param("ids") Collection<Long> ids);
 }
 
@@ -13,6 +13,7 @@ import com.backend.gesy.transaction.TransactionRepository;
 import com.backend.gesy.utilisateur.Utilisateur;
 import com.backend.gesy.utilisateur.UtilisateurService;
 import com.backend.gesy.voyage.VoyageRepository;
+import com.backend.gesy.voyage.dto.VoyageCamionStatutCountProjection;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
@@ -20,7 +21,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -124,11 +127,17 @@ public class CamionServiceImpl implements CamionService {
             .orElseThrow(() -> new RuntimeException("Fournisseur non trouvé avec l'id: " + fournisseurId));
         
         List<Camion> camions = camionRepository.findByFournisseur(fournisseur);
+        if (camions.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Comptages de voyages par camion et par statut en une seule requête groupée
+        Map<Long, List<VoyageCamionStatutCountProjection>> comptages = voyageRepository
+            .countByFournisseurGroupByCamionAndStatut(fournisseurId).stream()
+            .collect(Collectors.groupingBy(VoyageCamionStatutCountProjection::getCamionId));
         
         return camions.stream()
             .map(camion -> {
-                Long nombreVoyages = (long) voyageRepository.findByCamion(camion).size();
-                
                 CamionWithVoyagesCountDTO dto = new CamionWithVoyagesCountDTO();
                 dto.setId(camion.getId());
                 dto.setImmatriculation(camion.getImmatriculation());
@@ -138,6 +147,14 @@ public class CamionServiceImpl implements CamionService {
                 dto.setType(camion.getType());
                 dto.setCapacite(camion.getCapacite());
                 dto.setStatut(camion.getStatut() != null ? camion.getStatut().name() : null);
+
+                long nombreVoyages = 0L;
+                for (VoyageCamionStatutCountProjection comptage : comptages.getOrDefault(camion.getId(), List.of())) {
+                    nombreVoyages += comptage.getTotal();
+                    if (comptage.getStatut() != null) {
+                        dto.getVoyagesParStatut().put(comptage.getStatut().name(), comptage.getTotal());
+                    }
+                }
                 dto.setNombreVoyages(nombreVoyages);
                 
                 return dto;
@@ -0,0 +1,10 @@
+package com.backend.gesy.camion.dto;
+
+import com.backend.gesy.camion.Camion;
+
+/** Projection d'agrégat : nombre de camions par statut (une ligne par statut présent en base). */
+public interface CamionStatutCountProjection {
+    Camion.StatutCamion getStatut();
+
+    Long getTotal();
+}
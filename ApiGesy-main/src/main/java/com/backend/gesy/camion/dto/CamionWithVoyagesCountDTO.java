@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,5 +20,7 @@ public class CamionWithVoyagesCountDTO {
     private Double capacite;
     private String statut;
     private Long nombreVoyages;
+    /** Nombre de voyages par statut (seuls les statuts présents figurent) */
+    private Map<String, Long> voyagesParStatut = new LinkedHashMap<>();
 }
 
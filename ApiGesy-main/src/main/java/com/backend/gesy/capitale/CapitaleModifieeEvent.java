@@ -0,0 +1,11 @@
+package com.backend.gesy.capitale;
+
+import java.time.LocalDateTime;
+
+/**
+ * Événement publié quand un achat ou une dépense daté de {@code date} est créé, modifié ou supprimé.
+ * Traité après commit par {@link CapitaleServiceImpl}, qui oublie les composantes des mois clos
+ * concernés ({@code date} nulle : tous les mois).
+ */
+public record CapitaleModifieeEvent(LocalDateTime date) {
+}
@@ -1,25 +1,23 @@
 package com.backend.gesy.capitale;
 
-import com.backend.gesy.achat.Achat;
 import com.backend.gesy.achat.AchatRepository;
+import com.backend.gesy.achat.dto.AchatPrixParProduitProjection;
 import com.backend.gesy.caisse.Caisse;
 import com.backend.gesy.caisse.CaisseRepository;
-import com.backend.gesy.categoriedepense.CategorieDepense;
-import com.backend.gesy.categoriedepense.CategorieDepenseRepository;
 import com.backend.gesy.comptebancaire.CompteBancaire;
 import com.backend.gesy.comptebancaire.CompteBancaireRepository;
-import com.backend.gesy.depense.Depense;
 import com.backend.gesy.depense.DepenseRepository;
+import com.backend.gesy.depot.Depot;
 import com.backend.gesy.produit.Produit;
-import com.backend.gesy.stock.Stock;
 import com.backend.gesy.stock.StockRepository;
-import com.backend.gesy.voyage.Voyage;
 import com.backend.gesy.voyage.VoyageRepository;
 import com.backend.gesy.capitale.dto.CapitaleDTO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -28,7 +26,10 @@ import java.text.DecimalFormatSymbols;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -48,8 +49,14 @@ public class CapitaleServiceImpl implements CapitaleService {
     private AchatRepository achatRepository;
     @Autowired
     private DepenseRepository depenseRepository;
-    @Autowired
-    private CategorieDepenseRepository categorieDepenseRepository;
+
+    private static final String CATEGORIE_INVESTISSEMENT = "Investissement";
+
+    /** Composantes figées des mois clos, par mois (un mois terminé ne change plus). */
+    private final Map<YearMonth, ComposantesPeriode> composantesMoisClos = new ConcurrentHashMap<>();
+
+    /** Incrémenté à chaque invalidation : un calcul commencé avant n'est pas mis en cache. */
+    private final AtomicLong generationComposantes = new AtomicLong();
 
     private static final DecimalFormat DECIMAL_FORMAT;
 
@@ -64,32 +71,86 @@ public class CapitaleServiceImpl implements CapitaleService {
     @Override
     @Transactional(readOnly = true)
     public CapitaleDTO calculateCapitale() {
-        return calculateCapitaleInternal(null, null);
+        return calculateCapitaleInternal(null, null, null);
     }
 
     @Override
     @Transactional(readOnly = true)
     public CapitaleDTO calculateCapitaleByMonth(int year, int month) {
-        LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
-        return calculateCapitaleInternal(startDate, endDate);
+        YearMonth mois = YearMonth.of(year, month);
+        LocalDate startDate = mois.atDay(1);
+        LocalDate endDate = mois.atEndOfMonth();
+        // Mois clos : prix d'achat moyens et dépenses investissement gardés jusqu'à la prochaine modification
+        ComposantesPeriode composantes = mois.isBefore(YearMonth.now())
+                ? composantesMoisClos(mois, startDate, endDate)
+                : null;
+        return calculateCapitaleInternal(startDate, endDate, composantes);
+    }
+
+    private ComposantesPeriode composantesMoisClos(YearMonth mois, LocalDate startDate, LocalDate endDate) {
+        ComposantesPeriode composantes = composantesMoisClos.get(mois);
+        if (composantes == null) {
+            long generation = generationComposantes.get();
+            composantes = calculateComposantesPeriode(startDate, endDate);
+            if (generationComposantes.get() == generation) {
+                composantesMoisClos.putIfAbsent(mois, composantes);
+            }
+        }
+        return composantes;
+    }
+
+    /**
+     * Un achat ou une dépense a changé : les prix d'achat moyens étant cumulés jusqu'à la fin de
+     * chaque mois, le mois concerné et tous les mois suivants sont recalculés à la prochaine demande.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onCapitaleModifiee(CapitaleModifieeEvent event) {
+        generationComposantes.incrementAndGet();
+        if (event.date() == null) {
+            composantesMoisClos.clear();
+            return;
+        }
+        YearMonth moisModifie = YearMonth.from(event.date());
+        composantesMoisClos.keySet().removeIf(mois -> !mois.isBefore(moisModifie));
     }
 
     @Override
     @Transactional(readOnly = true)
     public CapitaleDTO calculateCapitaleByDateRange(LocalDate startDate, LocalDate endDate) {
-        return calculateCapitaleInternal(startDate, endDate);
+        return calculateCapitaleInternal(startDate, endDate, null);
     }
 
-    private CapitaleDTO calculateCapitaleInternal(LocalDate startDate, LocalDate endDate) {
+    /**
+     * Composantes du capital qui ne dépendent que de la période : prix d'achat moyens par produit
+     * jusqu'à la fin de période et total des dépenses investissement de la période.
+     */
+    private record ComposantesPeriode(Map<Long, BigDecimal> prixAchatMoyenParProduit, BigDecimal depensesInvestissement) {
+    }
+
+    private ComposantesPeriode calculateComposantesPeriode(LocalDate startDate, LocalDate endDate) {
+        return new ComposantesPeriode(
+                Map.copyOf(calculatePrixAchatMoyenParProduit(endDate)),
+                calculateTotalDepensesInvestissement(startDate, endDate));
+    }
+
+    private CapitaleDTO calculateCapitaleInternal(LocalDate startDate, LocalDate endDate, ComposantesPeriode composantes) {
+        if (composantes == null) {
+            composantes = calculateComposantesPeriode(startDate, endDate);
+        }
+
         // Calculer les fonds (toujours actuels, pas de filtre par date)
         CapitaleDTO.FondsDTO fonds = calculateFonds();
 
         // Calculer les stocks (avec filtre par date si fourni)
-        CapitaleDTO.StocksDTO stocks = calculateStocks(startDate, endDate);
+        CapitaleDTO.StocksDTO stocks = calculateStocks(endDate, composantes.prixAchatMoyenParProduit());
 
-        // Calculer les dépenses investissement (avec filtre par date si fourni)
-        CapitaleDTO.DepensesInvestissementDTO depensesInvestissement = calculateDepensesInvestissement(startDate, endDate);
+        // Dépenses investissement (avec filtre par date si fourni)
+        BigDecimal totalDepenses = composantes.depensesInvestissement();
+        CapitaleDTO.DepensesInvestissementDTO depensesInvestissement = CapitaleDTO.DepensesInvestissementDTO.builder()
+                .total(formatBigDecimal(totalDepenses))
+                .totalValue(totalDepenses)
+                .build();
 
         // Calculer le total capital
         BigDecimal totalCapital = fonds.getTotalGeneralValue()
@@ -107,16 +168,10 @@ public class CapitaleServiceImpl implements CapitaleService {
 
     private CapitaleDTO.FondsDTO calculateFonds() {
         // Total des comptes bancaires (la caisse = entité Caisse)
-        BigDecimal totalBanques = compteBancaireRepository.findAll().stream()
-                .filter(cb -> cb.getStatut() == CompteBancaire.StatutCompte.ACTIF)
-                .map(CompteBancaire::getSolde)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalBanques = compteBancaireRepository.sumSoldeByStatut(CompteBancaire.StatutCompte.ACTIF);
 
         // Total des caisses
-        BigDecimal totalCaisses = caisseRepository.findAll().stream()
-                .filter(c -> c.getStatut() == Caisse.StatutCaisse.ACTIF)
-                .map(Caisse::getSolde)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalCaisses = caisseRepository.sumSoldeByStatut(Caisse.StatutCaisse.ACTIF);
 
         // Total général
         BigDecimal totalGeneral = totalBanques.add(totalCaisses);
@@ -131,92 +186,28 @@ public class CapitaleServiceImpl implements CapitaleService {
                 .build();
     }
 
-    private CapitaleDTO.StocksDTO calculateStocks(LocalDate startDate, LocalDate endDate) {
-        // Stocks en dépôt par produit (toujours actuels, pas de filtre par date)
-        // Filtrer pour n'utiliser que les stocks des dépôts ACTIF
-        List<Stock> stocksDepot = stockRepository.findByDepotStatut(com.backend.gesy.depot.Depot.StatutDepot.ACTIF).stream()
-                .filter(s -> !s.isCiterne() && s.getDepot() != null)
-                .collect(Collectors.toList());
-
-        Map<Produit, List<Stock>> stocksParProduitDepot = stocksDepot.stream()
-                .collect(Collectors.groupingBy(Stock::getProduit));
-
-        List<CapitaleDTO.StockParProduitDTO> stocksDepotList = stocksParProduitDepot.entrySet().stream()
-                .map(entry -> {
-                    Produit produit = entry.getKey();
-                    List<Stock> stocks = entry.getValue();
-                    Double quantiteTotale = stocks.stream()
-                            .mapToDouble(s -> s.getQuantite() != null ? s.getQuantite() : 0.0)
-                            .sum();
-                    BigDecimal valeur = stocks.stream()
-                            .map(s -> {
-                                Double qte = s.getQuantite() != null ? s.getQuantite() : 0.0;
-                                Double prix = s.getPrixUnitaire() != null ? s.getPrixUnitaire() : 0.0;
-                                return BigDecimal.valueOf(qte).multiply(BigDecimal.valueOf(prix));
-                            })
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    return CapitaleDTO.StockParProduitDTO.builder()
-                            .produitId(produit.getId())
-                            .produitNom(produit.getNom())
-                            .typeProduit(produit.getTypeProduit() != null ? produit.getTypeProduit().name() : null)
-                            .quantite(quantiteTotale)
-                            .valeur(formatBigDecimal(valeur))
-                            .valeurValue(valeur)
-                            .build();
-                })
+    private CapitaleDTO.StocksDTO calculateStocks(LocalDate endDate, Map<Long, BigDecimal> prixAchatMoyenParProduit) {
+        // Stocks en dépôt par produit (toujours actuels, pas de filtre par date), dépôts ACTIF uniquement, hors citernes
+        List<CapitaleDTO.StockParProduitDTO> stocksDepotList = stockRepository
+                .sumValeurDepotGroupByProduit(Depot.StatutDepot.ACTIF).stream()
+                .map(ligne -> toStockParProduit(ligne.getProduitId(), ligne.getProduitNom(), ligne.getTypeProduit(),
+                        ligne.getQuantite(), BigDecimal.valueOf(ligne.getValeur())))
                 .collect(Collectors.toList());
 
         BigDecimal totalStocksDepot = stocksDepotList.stream()
                 .map(CapitaleDTO.StockParProduitDTO::getValeurValue)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        // Stocks en camion (voyages non livrés, hors cession) par produit
-        // Si une date de fin est fournie, on filtre les voyages créés avant cette date
-        List<Voyage> voyagesNonLivres = voyageRepository.findAll().stream()
-                .filter(v -> !v.isCession())
-                .filter(v -> v.getStatut() != Voyage.StatutVoyage.LIVRE)
-                .filter(v -> {
-                    // Si une date de fin est fournie, on ne prend que les voyages créés avant cette date
-                    if (endDate != null) {
-                        // Utiliser la date de départ si disponible, sinon la date de création (via l'ID ou autre)
-                        // Pour simplifier, on utilise la date de départ du voyage
-                        if (v.getDateDepart() != null) {
-                            LocalDate dateDepart = v.getDateDepart().toLocalDate();
-                            return dateDepart.isBefore(endDate) || dateDepart.isEqual(endDate);
-                        }
-                        // Si pas de date de départ, on inclut le voyage (cas par défaut)
-                        return true;
-                    }
-                    return true;
-                })
-                .collect(Collectors.toList());
-
-        Map<Produit, List<Voyage>> voyagesParProduit = voyagesNonLivres.stream()
-                .filter(v -> v.getProduit() != null)
-                .collect(Collectors.groupingBy(Voyage::getProduit));
-
-        // Calculer le prix d'achat moyen par produit depuis les achats (filtrés par date si fournie)
-        Map<Long, BigDecimal> prixAchatMoyenParProduit = calculatePrixAchatMoyenParProduit(endDate);
-
-        List<CapitaleDTO.StockParProduitDTO> stocksCamionList = voyagesParProduit.entrySet().stream()
-                .map(entry -> {
-                    Produit produit = entry.getKey();
-                    List<Voyage> voyages = entry.getValue();
-                    Double quantiteTotale = voyages.stream()
-                            .mapToDouble(v -> v.getQuantite() != null ? v.getQuantite() : 0.0)
-                            .sum();
-                    BigDecimal prixAchatMoyen = prixAchatMoyenParProduit.getOrDefault(produit.getId(), BigDecimal.ZERO);
-                    BigDecimal valeur = BigDecimal.valueOf(quantiteTotale).multiply(prixAchatMoyen);
-
-                    return CapitaleDTO.StockParProduitDTO.builder()
-                            .produitId(produit.getId())
-                            .produitNom(produit.getNom())
-                            .typeProduit(produit.getTypeProduit() != null ? produit.getTypeProduit().name() : null)
-                            .quantite(quantiteTotale)
-                            .valeur(formatBigDecimal(valeur))
-                            .valeurValue(valeur)
-                            .build();
+        // Stocks en camion (voyages non livrés, hors cession) par produit, valorisés au prix d'achat moyen.
+        // Si une date de fin est fournie, on ne prend que les voyages partis au plus tard ce jour-là (ou sans date de départ)
+        LocalDateTime fin = endDate != null ? endDate.plusDays(1).atStartOfDay() : null;
+        List<CapitaleDTO.StockParProduitDTO> stocksCamionList = voyageRepository
+                .sumQuantiteNonLivreeGroupByProduit(fin).stream()
+                .map(ligne -> {
+                    BigDecimal prixAchatMoyen = prixAchatMoyenParProduit.getOrDefault(ligne.getProduitId(), BigDecimal.ZERO);
+                    BigDecimal valeur = BigDecimal.valueOf(ligne.getQuantite()).multiply(prixAchatMoyen);
+                    return toStockParProduit(ligne.getProduitId(), ligne.getProduitNom(), ligne.getTypeProduit(),
+                            ligne.getQuantite(), valeur);
                 })
                 .collect(Collectors.toList());
 
@@ -238,64 +229,35 @@ public class CapitaleServiceImpl implements CapitaleService {
                 .build();
     }
 
-    private Map<Long, BigDecimal> calculatePrixAchatMoyenParProduit(LocalDate endDate) {
-        List<Achat> achats;
-        // Si une date de fin est fournie, on filtre les achats avant ou à cette date
-        if (endDate != null) {
-            LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
-            achats = achatRepository.findAll().stream()
-                    .filter(a -> a.getDateAchat() != null && 
-                                 (a.getDateAchat().isBefore(endDateTime) || 
-                                  a.getDateAchat().toLocalDate().isEqual(endDate)))
-                    .collect(Collectors.toList());
-        } else {
-            achats = achatRepository.findAll();
-        }
-        Map<Long, List<Achat>> achatsParProduit = achats.stream()
-                .filter(a -> a.getProduit() != null && a.getPrixUnitaire() != null)
-                .collect(Collectors.groupingBy(a -> a.getProduit().getId()));
+    private CapitaleDTO.StockParProduitDTO toStockParProduit(Long produitId, String produitNom, Produit.TypeProduit typeProduit,
+                                                             Double quantite, BigDecimal valeur) {
+        return CapitaleDTO.StockParProduitDTO.builder()
+                .produitId(produitId)
+                .produitNom(produitNom)
+                .typeProduit(typeProduit != null ? typeProduit.name() : null)
+                .quantite(quantite)
+                .valeur(formatBigDecimal(valeur))
+                .valeurValue(valeur)
+                .build();
+    }
 
+    private Map<Long, BigDecimal> calculatePrixAchatMoyenParProduit(LocalDate endDate) {
+        // Si une date de fin est fournie, on ne retient que les achats effectués au plus tard ce jour-là
+        LocalDateTime fin = endDate != null ? endDate.plusDays(1).atStartOfDay() : null;
         Map<Long, BigDecimal> prixMoyenParProduit = new HashMap<>();
-        for (Map.Entry<Long, List<Achat>> entry : achatsParProduit.entrySet()) {
-            List<Achat> achatsProduit = entry.getValue();
-            BigDecimal sommePrix = achatsProduit.stream()
-                    .map(a -> a.getPrixUnitaire())
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            BigDecimal prixMoyen = sommePrix.divide(BigDecimal.valueOf(achatsProduit.size()), 2, RoundingMode.HALF_UP);
-            prixMoyenParProduit.put(entry.getKey(), prixMoyen);
+        for (AchatPrixParProduitProjection ligne : achatRepository.sumPrixUnitaireGroupByProduit(fin)) {
+            BigDecimal prixMoyen = ligne.getSommePrix().divide(BigDecimal.valueOf(ligne.getNombre()), 2, RoundingMode.HALF_UP);
+            prixMoyenParProduit.put(ligne.getProduitId(), prixMoyen);
         }
-
         return prixMoyenParProduit;
     }
 
-    private CapitaleDTO.DepensesInvestissementDTO calculateDepensesInvestissement(LocalDate startDate, LocalDate endDate) {
-        Optional<CategorieDepense> categorieInvestissement = categorieDepenseRepository.findByNom("Investissement");
-        
-        if (categorieInvestissement.isEmpty()) {
-            return CapitaleDTO.DepensesInvestissementDTO.builder()
-                    .total(formatBigDecimal(BigDecimal.ZERO))
-                    .totalValue(BigDecimal.ZERO)
-                    .build();
-        }
-
-        List<Depense> depenses;
+    private BigDecimal calculateTotalDepensesInvestissement(LocalDate startDate, LocalDate endDate) {
         if (startDate != null && endDate != null) {
-            LocalDateTime startDateTime = startDate.atStartOfDay();
-            LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
-            depenses = depenseRepository.findByCategorieAndDateRangeList(
-                    categorieInvestissement.get(), startDateTime, endDateTime);
-        } else {
-            depenses = depenseRepository.findByCategorieOrderByDateDepenseDesc(categorieInvestissement.get());
+            return depenseRepository.sumByCategorieNomAndDateRange(CATEGORIE_INVESTISSEMENT,
+                    startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX));
         }
-
-        BigDecimal total = depenses.stream()
-                .map(Depense::getMontant)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        return CapitaleDTO.DepensesInvestissementDTO.builder()
-                .total(formatBigDecimal(total))
-                .totalValue(total)
-                .build();
+        return depenseRepository.sumByCategorieNomAndDateRange(CATEGORIE_INVESTISSEMENT, null, null);
     }
 
     private String formatBigDecimal(BigDecimal value) {
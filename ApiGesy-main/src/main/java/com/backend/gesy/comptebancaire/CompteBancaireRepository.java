@@ -1,11 +1,39 @@
 package com.backend.gesy.comptebancaire;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CompteBancaireRepository extends JpaRepository<CompteBancaire, Long> {
     Optional<CompteBancaire> findByNumero(String numero);
+
+    @Query("SELECT COALESCE(SUM(c.solde), 0) FROM CompteBancaire c")
+    BigDecimal sumSolde();
+
+    @Query("SELECT COALESCE(SUM(c.solde), 0) FROM CompteBancaire c WHERE c.statut = :statut")
+    BigDecimal sumSoldeByStatut(@Param("statut") CompteBancaire.StatutCompte statut);
+
+    // Lecture avec verrou d'écriture (SELECT ... FOR UPDATE) : soldes figés pendant un rapprochement
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM CompteBancaire c ORDER BY c.id")
+    List<CompteBancaire> findAllForUpdate();
+
+    // Mises à jour atomiques du solde (pas de lecture-modification-écriture côté Java)
+    @Modifying
+    @Query("UPDATE CompteBancaire c SET c.solde = c.solde + :montant WHERE c.id = :id")
+    int crediter(@Param("id") Long id, @Param("montant") BigDecimal montant);
+
+    /** Débite seulement si le solde couvre le montant ; 0 ligne modifiée = solde insuffisant. */
+    @Modifying
+    @Query("UPDATE CompteBancaire c SET c.solde = c.solde - :montant WHERE c.id = :id AND c.solde >= :montant")
+    int debiterSiSuffisant(@Param("id") Long id, @Param("montant") BigDecimal montant);
 }
@@ -0,0 +1,50 @@
+package com.backend.gesy.dashboard;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Événement publié par les services métier lorsqu'une donnée affichée sur le tableau de bord change.
+ * Traité après commit par {@link DashboardSnapshot} : seules les cartes concernées par la source
+ * sont marquées périmées dans {@link DashboardSnapshot}.
+ */
+public class DashboardChangeEvent {
+
+    public enum Source {
+        /** Changement de statut d'un voyage (statut camion, stock citerne/dépôt, déclaration). */
+        VOYAGE(EnumSet.of(DashboardSection.VOYAGES, DashboardSection.CAMIONS_ACTIFS,
+                DashboardSection.UNITES_STOCK, DashboardSection.DOUANE)),
+        /** Création d'une facture (chiffre d'affaires, factures en attente, créances). */
+        FACTURE(EnumSet.of(DashboardSection.CHIFFRE_AFFAIRES, DashboardSection.FACTURES_ATTENTE,
+                DashboardSection.FINANCES)),
+        /** Création d'une transaction (soldes banque / caisse, frais de douane). */
+        TRANSACTION(EnumSet.of(DashboardSection.FINANCES, DashboardSection.DOUANE,
+                DashboardSection.CHIFFRE_AFFAIRES, DashboardSection.FACTURES_ATTENTE)),
+        /** Création ou modification d'un stock. */
+        STOCK(EnumSet.of(DashboardSection.UNITES_STOCK));
+
+        private final Set<DashboardSection> sections;
+
+        Source(Set<DashboardSection> sections) {
+            this.sections = sections;
+        }
+
+        public Set<DashboardSection> getSections() {
+            return EnumSet.copyOf(sections);
+        }
+    }
+
+    private final Source source;
+
+    public DashboardChangeEvent(Source source) {
+        this.source = source;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public Set<DashboardSection> getSections() {
+        return source.getSections();
+    }
+}
@@ -0,0 +1,14 @@
+package com.backend.gesy.dashboard;
+
+/**
+ * Cartes du tableau de bord pouvant être recalculées indépendamment dans {@link DashboardSnapshot}.
+ */
+public enum DashboardSection {
+    CAMIONS_ACTIFS,
+    CHIFFRE_AFFAIRES,
+    FACTURES_ATTENTE,
+    UNITES_STOCK,
+    FINANCES,
+    VOYAGES,
+    DOUANE
+}
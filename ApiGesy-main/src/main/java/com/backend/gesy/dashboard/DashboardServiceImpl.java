@@ -2,24 +2,26 @@ package com.backend.gesy.dashboard;
 
 import com.backend.gesy.camion.Camion;
 import com.backend.gesy.camion.CamionRepository;
-import com.backend.gesy.caisse.Caisse;
+import com.backend.gesy.camion.dto.CamionStatutCountProjection;
 import com.backend.gesy.caisse.CaisseRepository;
-import com.backend.gesy.comptebancaire.CompteBancaire;
 import com.backend.gesy.comptebancaire.CompteBancaireRepository;
 import com.backend.gesy.dashboard.dto.DashboardDTO;
 import com.backend.gesy.depot.Depot;
 import com.backend.gesy.depot.DepotRepository;
 import com.backend.gesy.facture.Facture;
 import com.backend.gesy.facture.FactureRepository;
-import com.backend.gesy.produit.Produit;
-import com.backend.gesy.stock.Stock;
+import com.backend.gesy.facture.dto.FactureSoldeProjection;
 import com.backend.gesy.stock.StockRepository;
+import com.backend.gesy.stock.dto.StockParProduitProjection;
 import com.backend.gesy.transaction.Transaction;
 import com.backend.gesy.transaction.TransactionRepository;
+import com.backend.gesy.transaction.dto.TransactionTypeMontantProjection;
 import com.backend.gesy.voyage.ClientVoyage;
 import com.backend.gesy.voyage.Voyage;
 import com.backend.gesy.voyage.VoyageRepository;
+import com.backend.gesy.voyage.dto.VoyageStatutCountProjection;
 import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,11 +31,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -48,38 +50,115 @@ public class DashboardServiceImpl implements DashboardService {
         private final CompteBancaireRepository compteBancaireRepository;
         private final CaisseRepository caisseRepository;
         private final TransactionRepository transactionRepository;
+        private final DashboardSnapshot dashboardSnapshot;
+
+        /** Statuts de facture pris en compte dans le chiffre d'affaires encaissé. */
+        private static final Set<Facture.StatutFacture> STATUTS_FACTURE_ENCAISSEE = EnumSet.of(
+                        Facture.StatutFacture.PAYEE, Facture.StatutFacture.PARTIELLEMENT_PAYEE);
+
+        /** Statuts comptés comme « voyages en cours » sur le tableau de bord. */
+        private static final Set<Voyage.StatutVoyage> STATUTS_VOYAGE_EN_COURS = EnumSet.of(
+                        Voyage.StatutVoyage.EN_ATTENTE_CHARGEMENT,
+                        Voyage.StatutVoyage.CHARGE,
+                        Voyage.StatutVoyage.DEPART,
+                        Voyage.StatutVoyage.ARRIVER,
+                        Voyage.StatutVoyage.DOUANE);
 
         @Override
         public DashboardDTO getDashboardStats() {
-                return DashboardDTO.builder()
-                                .camionsActifs(calculateCamionsActifs())
-                                .chiffreAffaires(calculateChiffreAffaires())
-                                .facturesAttente(calculateFacturesAttente())
-                                .unitesStock(calculateUnitesStock())
-                                .finances(calculateFinances())
-                                .voyagesStats(calculateVoyagesStats())
-                                .douaneStats(calculateDouaneStats())
-                                .statutsVoyage(calculateStatutsVoyagePourDashboard())
-                                .build();
+                return dashboardSnapshot.lire(this::recalculerSections);
         }
 
-        private DashboardDTO.CamionsActifsDTO calculateCamionsActifs() {
-                List<Camion> allCamions = camionRepository.findAll();
+        /**
+         * Reconstruction complète périodique : corrige les dérives (écritures non couvertes par un
+         * événement, autre instance de l'API) et fait glisser les fenêtres « cette semaine » / « ce mois ».
+         */
+        @Scheduled(fixedDelayString = "${dashboard.snapshot.rebuild-interval-ms:300000}",
+                        initialDelayString = "${dashboard.snapshot.rebuild-interval-ms:300000}")
+        public void rebuildSnapshot() {
+                dashboardSnapshot.invaliderTout();
+                dashboardSnapshot.lire(this::recalculerSections);
+        }
 
-                long totalActifs = allCamions.stream()
-                                .filter(c -> c.getStatut() != Camion.StatutCamion.HORS_SERVICE)
-                                .count();
+        private DashboardDTO recalculerSections(DashboardDTO precedent, Set<DashboardSection> sections) {
+                DashboardDTO.DashboardDTOBuilder builder = precedent != null
+                                ? precedent.toBuilder()
+                                : DashboardDTO.builder();
 
-                long enRoute = allCamions.stream()
-                                .filter(c -> c.getStatut() == Camion.StatutCamion.EN_ROUTE)
-                                .count();
+                if (sections.contains(DashboardSection.CAMIONS_ACTIFS)) {
+                        builder.camionsActifs(calculateCamionsActifs());
+                }
+                if (sections.contains(DashboardSection.CHIFFRE_AFFAIRES)) {
+                        builder.chiffreAffaires(calculateChiffreAffaires());
+                }
+                if (sections.contains(DashboardSection.FACTURES_ATTENTE) || sections.contains(DashboardSection.FINANCES)) {
+                        FactureSoldeProjection facturesImpayees = factureRepository.summarizeUnpaidFactures();
+                        FactureSoldeProjection facturesEnRetard = factureRepository.summarizeOverdueFactures();
+                        if (sections.contains(DashboardSection.FACTURES_ATTENTE)) {
+                                builder.facturesAttente(calculateFacturesAttente(facturesImpayees, facturesEnRetard));
+                        }
+                        if (sections.contains(DashboardSection.FINANCES)) {
+                                builder.finances(calculateFinances(facturesImpayees, facturesEnRetard));
+                        }
+                }
+                if (sections.contains(DashboardSection.UNITES_STOCK)) {
+                        builder.unitesStock(calculateUnitesStock());
+                }
+                if (sections.contains(DashboardSection.VOYAGES)) {
+                        // Un seul GROUP BY statut alimente à la fois les stats voyages et les totaux par statut
+                        Map<Voyage.StatutVoyage, Long> voyagesParStatut = countVoyagesHorsCessionParStatut();
+                        builder.voyagesStats(calculateVoyagesStats(voyagesParStatut))
+                                        .statutsVoyage(calculateStatutsVoyagePourDashboard(voyagesParStatut));
+                }
+                if (sections.contains(DashboardSection.DOUANE)) {
+                        builder.douaneStats(calculateDouaneStats());
+                }
+                return builder.build();
+        }
 
-                long disponibles = allCamions.stream()
-                                .filter(c -> c.getStatut() == Camion.StatutCamion.DISPONIBLE)
-                                .count();
+        private Map<Voyage.StatutVoyage, Long> countVoyagesHorsCessionParStatut() {
+                Map<Voyage.StatutVoyage, Long> counts = new EnumMap<>(Voyage.StatutVoyage.class);
+                for (Voyage.StatutVoyage s : Voyage.StatutVoyage.values()) {
+                        counts.put(s, 0L);
+                }
+                for (VoyageStatutCountProjection row : voyageRepository.countHorsCessionGroupByStatut()) {
+                        counts.merge(row.getStatut(), row.getTotal(), Long::sum);
+                }
+                return counts;
+        }
+
+        private DashboardDTO.CamionsActifsDTO calculateCamionsActifs() {
+                Map<Camion.StatutCamion, Long> camionsParStatut = new EnumMap<>(Camion.StatutCamion.class);
+                for (CamionStatutCountProjection row : camionRepository.countGroupByStatut()) {
+                        if (row.getStatut() != null) {
+                                camionsParStatut.put(row.getStatut(), row.getTotal());
+                        }
+                }
 
-                // Calculer le changement (comparaison avec le mois dernier - simplifié)
-                String change = "+12%"; // TODO: Calculer réellement avec historique
+                long totalActifs = camionsParStatut.entrySet().stream()
+                                .filter(e -> e.getKey() != Camion.StatutCamion.HORS_SERVICE)
+                                .mapToLong(Map.Entry::getValue)
+                                .sum();
+
+                long enRoute = camionsParStatut.getOrDefault(Camion.StatutCamion.EN_ROUTE, 0L);
+
+                long disponibles = camionsParStatut.getOrDefault(Camion.StatutCamion.DISPONIBLE, 0L);
+
+                // Changement : camions engagés depuis le début du mois vs même période du mois dernier
+                LocalDateTime maintenant = LocalDateTime.now();
+                LocalDateTime debutMois = maintenant.toLocalDate().withDayOfMonth(1).atStartOfDay();
+                long engagesMois = voyageRepository.countCamionsDistinctsHorsCessionByDateDepartBetween(
+                                debutMois, maintenant);
+                long engagesMoisDernier = voyageRepository.countCamionsDistinctsHorsCessionByDateDepartBetween(
+                                debutMois.minusMonths(1), maintenant.minusMonths(1));
+
+                String change = "N/A";
+                if (engagesMoisDernier > 0) {
+                        BigDecimal percentChange = BigDecimal.valueOf(engagesMois - engagesMoisDernier)
+                                        .multiply(BigDecimal.valueOf(100))
+                                        .divide(BigDecimal.valueOf(engagesMoisDernier), 0, RoundingMode.HALF_UP);
+                        change = (percentChange.compareTo(BigDecimal.ZERO) >= 0 ? "+" : "") + percentChange + "%";
+                }
 
                 return DashboardDTO.CamionsActifsDTO.builder()
                                 .value((int) totalActifs)
@@ -91,29 +170,13 @@ public class DashboardServiceImpl implements DashboardService {
 
         private DashboardDTO.ChiffreAffairesDTO calculateChiffreAffaires() {
                 LocalDate startOfWeek = LocalDate.now().minusDays(7);
-                List<Facture> facturesSemaine = factureRepository.findAll().stream()
-                                .filter(f -> f.getDate() != null && f.getDate().isAfter(startOfWeek))
-                                .filter(f -> f.getStatut() == Facture.StatutFacture.PAYEE ||
-                                                f.getStatut() == Facture.StatutFacture.PARTIELLEMENT_PAYEE)
-                                .toList();
-
-                BigDecimal totalCA = facturesSemaine.stream()
-                                .map(f -> f.getMontantPaye() != null ? f.getMontantPaye() : BigDecimal.ZERO)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                BigDecimal totalCA = factureRepository.sumMontantPayeByStatutsAndDateAfter(
+                                STATUTS_FACTURE_ENCAISSEE, startOfWeek);
 
                 // Calculer la semaine précédente pour le changement
                 LocalDate startOfLastWeek = startOfWeek.minusDays(7);
-                List<Facture> facturesSemainePrecedente = factureRepository.findAll().stream()
-                                .filter(f -> f.getDate() != null &&
-                                                f.getDate().isAfter(startOfLastWeek) &&
-                                                f.getDate().isBefore(startOfWeek))
-                                .filter(f -> f.getStatut() == Facture.StatutFacture.PAYEE ||
-                                                f.getStatut() == Facture.StatutFacture.PARTIELLEMENT_PAYEE)
-                                .toList();
-
-                BigDecimal totalCAPrecedent = facturesSemainePrecedente.stream()
-                                .map(f -> f.getMontantPaye() != null ? f.getMontantPaye() : BigDecimal.ZERO)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                BigDecimal totalCAPrecedent = factureRepository.sumMontantPayeByStatutsAndDateBetweenExclusive(
+                                STATUTS_FACTURE_ENCAISSEE, startOfLastWeek, startOfWeek);
 
                 String change = "+8%";
                 if (totalCAPrecedent.compareTo(BigDecimal.ZERO) > 0) {
@@ -136,81 +199,44 @@ public class DashboardServiceImpl implements DashboardService {
                                 .build();
         }
 
-        private DashboardDTO.FacturesAttenteDTO calculateFacturesAttente() {
-                List<Facture> facturesNonPayees = factureRepository.findUnpaidFactures();
-                List<Facture> facturesEnRetard = factureRepository.findOverdueFactures();
-
-                BigDecimal montantTotal = facturesNonPayees.stream()
-                                .map(f -> {
-                                        BigDecimal reste = f.getMontantTTC().subtract(
-                                                        f.getMontantPaye() != null ? f.getMontantPaye()
-                                                                        : BigDecimal.ZERO);
-                                        return reste;
-                                })
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        private DashboardDTO.FacturesAttenteDTO calculateFacturesAttente(
+                        FactureSoldeProjection facturesNonPayees,
+                        FactureSoldeProjection facturesEnRetard) {
+                int nombreEnRetard = facturesEnRetard.getNombre().intValue();
 
                 return DashboardDTO.FacturesAttenteDTO.builder()
-                                .value(facturesNonPayees.size())
-                                .badge(facturesEnRetard.size())
-                                .montant(formatBigDecimal(montantTotal) + " F")
-                                .enRetard(facturesEnRetard.size())
+                                .value(facturesNonPayees.getNombre().intValue())
+                                .badge(nombreEnRetard)
+                                .montant(formatBigDecimal(facturesNonPayees.getMontantRestant()) + " F")
+                                .enRetard(nombreEnRetard)
                                 .build();
         }
 
         private DashboardDTO.UnitesStockDTO calculateUnitesStock() {
-                // Filtrer les stocks pour n'utiliser que ceux des dépôts ACTIF
-                List<Stock> allStocks = stockRepository.findByDepotStatut(Depot.StatutDepot.ACTIF);
+                // Agrégat par produit sur les stocks des dépôts ACTIF (déjà trié par quantité décroissante)
+                List<StockParProduitProjection> lignes = stockRepository
+                                .sumQuantiteGroupByProduitAndDepotStatut(Depot.StatutDepot.ACTIF);
 
                 // Calculer le total global (pour la compatibilité)
-                BigDecimal totalQuantite = allStocks.stream()
-                                .map(s -> BigDecimal.valueOf(s.getQuantite()))
+                BigDecimal totalQuantite = lignes.stream()
+                                .map(l -> BigDecimal.valueOf(l.getQuantiteTotale()))
                                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
                 String stockRestantFormate = formatBigDecimal(totalQuantite);
 
-                // Grouper les stocks par produit
-                Map<Produit, List<Stock>> stocksParProduitMap = allStocks.stream()
-                                .filter(s -> s.getProduit() != null)
-                                .collect(Collectors.groupingBy(Stock::getProduit));
-
-                // Calculer le stock par produit
-                List<DashboardDTO.StockParProduitDTO> stocksParProduit = stocksParProduitMap.entrySet().stream()
-                                .map(entry -> {
-                                        Produit produit = entry.getKey();
-                                        List<Stock> stocks = entry.getValue();
-
-                                        // Calculer la quantité totale pour ce produit
-                                        BigDecimal quantiteTotale = stocks.stream()
-                                                        .map(s -> BigDecimal.valueOf(s.getQuantite()))
-                                                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                                        // Vérifier si le stock est critique pour ce produit (seuil minimum)
-                                        boolean alert = stocks.stream()
-                                                        .anyMatch(s -> s.getSeuilMinimum() != null &&
-                                                                        s.getQuantite() < s.getSeuilMinimum());
-
-                                        // Compter le nombre de dépôts distincts ACTIF pour ce produit
-                                        long nombreDepots = stocks.stream()
-                                                        .filter(s -> s.getDepot() != null && 
-                                                                        s.getDepot().getStatut() == Depot.StatutDepot.ACTIF)
-                                                        .map(s -> s.getDepot().getId())
-                                                        .distinct()
-                                                        .count();
-
-                                        return DashboardDTO.StockParProduitDTO.builder()
-                                                        .produitId(produit.getId())
-                                                        .produitNom(produit.getNom())
-                                                        .typeProduit(produit.getTypeProduit() != null
-                                                                        ? produit.getTypeProduit().name()
-                                                                        : null)
-                                                        .quantiteTotale(formatBigDecimal(quantiteTotale))
-                                                        .quantiteTotaleValue(quantiteTotale.doubleValue())
-                                                        .alert(alert)
-                                                        .nombreDepots((int) nombreDepots)
-                                                        .build();
-                                })
-                                .sorted((s1, s2) -> Double.compare(s2.getQuantiteTotaleValue(),
-                                                s1.getQuantiteTotaleValue())) // Trier par quantité décroissante
+                List<DashboardDTO.StockParProduitDTO> stocksParProduit = lignes.stream()
+                                .map(l -> DashboardDTO.StockParProduitDTO.builder()
+                                                .produitId(l.getProduitId())
+                                                .produitNom(l.getProduitNom())
+                                                .typeProduit(l.getTypeProduit() != null
+                                                                ? l.getTypeProduit().name()
+                                                                : null)
+                                                .quantiteTotale(formatBigDecimal(BigDecimal.valueOf(l.getQuantiteTotale())))
+                                                .quantiteTotaleValue(l.getQuantiteTotale())
+                                                // Stock critique si au moins un stock du produit est sous son seuil minimum
+                                                .alert(l.getNombreStocksCritiques() != null && l.getNombreStocksCritiques() > 0)
+                                                .nombreDepots(l.getNombreDepots().intValue())
+                                                .build())
                                 .collect(Collectors.toList());
 
                 // Compter les produits en niveau critique
@@ -219,32 +245,30 @@ public class DashboardServiceImpl implements DashboardService {
                                 .count();
 
                 // Utiliser uniquement les dépôts ACTIF
-                List<Depot> allDepots = depotRepository.findByStatut(Depot.StatutDepot.ACTIF);
+                long nombreDepots = depotRepository.countByStatut(Depot.StatutDepot.ACTIF);
 
                 return DashboardDTO.UnitesStockDTO.builder()
                                 .value(formatBigDecimal(totalQuantite))
                                 .stockRestant(stockRestantFormate)
                                 .alert(niveauCritique > 0)
                                 .niveauCritique((int) niveauCritique)
-                                .depots(allDepots.size())
+                                .depots((int) nombreDepots)
                                 .stocksParProduit(stocksParProduit)
                                 .build();
         }
 
-        private DashboardDTO.FinancesDTO calculateFinances() {
+        private DashboardDTO.FinancesDTO calculateFinances(
+                        FactureSoldeProjection facturesNonPayees,
+                        FactureSoldeProjection facturesEnRetard) {
                 return DashboardDTO.FinancesDTO.builder()
                                 .soldeBanque(calculateSoldeBanque())
                                 .soldeCaisse(calculateSoldeCaisse())
-                                .creancesClients(calculateCreancesClients())
+                                .creancesClients(calculateCreancesClients(facturesNonPayees, facturesEnRetard))
                                 .build();
         }
 
         private DashboardDTO.SoldeBanqueDTO calculateSoldeBanque() {
-                List<CompteBancaire> comptes = compteBancaireRepository.findAll();
-
-                BigDecimal totalSolde = comptes.stream()
-                                .map(CompteBancaire::getSolde)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                BigDecimal totalSolde = compteBancaireRepository.sumSolde();
 
                 // Calculer le changement (simplifié)
                 String change = "+5.2% vs mois dernier"; // TODO: Calculer réellement
@@ -252,17 +276,13 @@ public class DashboardServiceImpl implements DashboardService {
                 return DashboardDTO.SoldeBanqueDTO.builder()
                                 .value(formatBigDecimal(totalSolde))
                                 .currency("F")
-                                .comptes(comptes.size())
+                                .comptes((int) compteBancaireRepository.count())
                                 .change(change)
                                 .build();
         }
 
         private DashboardDTO.SoldeCaisseDTO calculateSoldeCaisse() {
-                List<Caisse> caisses = caisseRepository.findAll();
-
-                BigDecimal totalSolde = caisses.stream()
-                                .map(Caisse::getSolde)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                BigDecimal totalSolde = caisseRepository.sumSolde();
 
                 // Calculer les entrées d'aujourd'hui (simplifié)
                 String entrees = "125,000 F"; // TODO: Calculer réellement depuis les transactions
@@ -275,77 +295,31 @@ public class DashboardServiceImpl implements DashboardService {
                                 .build();
         }
 
-        private DashboardDTO.CreancesClientsDTO calculateCreancesClients() {
-                List<Facture> facturesNonPayees = factureRepository.findUnpaidFactures();
-
-                BigDecimal totalCreances = facturesNonPayees.stream()
-                                .map(f -> {
-                                        BigDecimal reste = f.getMontantTTC().subtract(
-                                                        f.getMontantPaye() != null ? f.getMontantPaye()
-                                                                        : BigDecimal.ZERO);
-                                        return reste;
-                                })
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                List<Facture> facturesEnRetard = factureRepository.findOverdueFactures();
-                BigDecimal totalRetard = facturesEnRetard.stream()
-                                .map(f -> {
-                                        BigDecimal reste = f.getMontantTTC().subtract(
-                                                        f.getMontantPaye() != null ? f.getMontantPaye()
-                                                                        : BigDecimal.ZERO);
-                                        return reste;
-                                })
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                long clientsConcernes = facturesNonPayees.stream()
-                                .map(Facture::getClient)
-                                .filter(client -> client != null)
-                                .distinct()
-                                .count();
-
+        private DashboardDTO.CreancesClientsDTO calculateCreancesClients(
+                        FactureSoldeProjection facturesNonPayees,
+                        FactureSoldeProjection facturesEnRetard) {
                 return DashboardDTO.CreancesClientsDTO.builder()
-                                .value(formatBigDecimal(totalCreances))
+                                .value(formatBigDecimal(facturesNonPayees.getMontantRestant()))
                                 .currency("F")
-                                .clients((int) clientsConcernes)
-                                .retard(formatBigDecimal(totalRetard) + " F")
+                                .clients(facturesNonPayees.getClients().intValue())
+                                .retard(formatBigDecimal(facturesEnRetard.getMontantRestant()) + " F")
                                 .build();
         }
 
-        private DashboardDTO.VoyagesStatsDTO calculateVoyagesStats() {
+        private DashboardDTO.VoyagesStatsDTO calculateVoyagesStats(Map<Voyage.StatutVoyage, Long> voyagesParStatut) {
                 // Hors cession : les voyages de type cession ne sont pas comptés dans les stats
-                List<Voyage> allVoyages = voyageRepository.findAll().stream()
-                                .filter(v -> !v.isCession())
-                                .collect(Collectors.toList());
-
                 // Voyages en cours : EN_ATTENTE_CHARGEMENT, CHARGE, DEPART, ARRIVER, DOUANE
-                long voyagesEnCours = allVoyages.stream()
-                                .filter(v -> v.getStatut() == Voyage.StatutVoyage.EN_ATTENTE_CHARGEMENT ||
-                                                v.getStatut() == Voyage.StatutVoyage.CHARGE ||
-                                                v.getStatut() == Voyage.StatutVoyage.DEPART ||
-                                                v.getStatut() == Voyage.StatutVoyage.ARRIVER ||
-                                                v.getStatut() == Voyage.StatutVoyage.DOUANE)
-                                .count();
-
-                // Voyages arrivés : ARRIVER
-                long voyagesArrives = allVoyages.stream()
-                                .filter(v -> v.getStatut() == Voyage.StatutVoyage.ARRIVER)
-                                .count();
-
-                // Voyages à la douane : DOUANE
-                long voyagesALaDouane = allVoyages.stream()
-                                .filter(v -> v.getStatut() == Voyage.StatutVoyage.DOUANE)
-                                .count();
+                long voyagesEnCours = STATUTS_VOYAGE_EN_COURS.stream()
+                                .mapToLong(voyagesParStatut::get)
+                                .sum();
 
-                // Voyages livrés : LIVRE
-                long voyagesLivre = allVoyages.stream()
-                                .filter(v -> v.getStatut() == Voyage.StatutVoyage.LIVRE)
-                                .count();
+                long voyagesArrives = voyagesParStatut.get(Voyage.StatutVoyage.ARRIVER);
+                long voyagesALaDouane = voyagesParStatut.get(Voyage.StatutVoyage.DOUANE);
+                long voyagesLivre = voyagesParStatut.get(Voyage.StatutVoyage.LIVRE);
 
                 // Voyages récents (5 derniers)
-                List<DashboardDTO.VoyageDetailDTO> voyagesRecents = allVoyages.stream()
-                                .filter(v -> v.getDateDepart() != null)
-                                .sorted((v1, v2) -> v2.getDateDepart().compareTo(v1.getDateDepart()))
-                                .limit(5)
+                List<DashboardDTO.VoyageDetailDTO> voyagesRecents = voyageRepository
+                                .findTop5ByCessionFalseAndDateDepartIsNotNullOrderByDateDepartDesc().stream()
                                 .map(v -> DashboardDTO.VoyageDetailDTO.builder()
                                                 .id(v.getId())
                                                 .numeroVoyage(v.getNumeroVoyage())
@@ -384,15 +358,19 @@ public class DashboardServiceImpl implements DashboardService {
                 LocalDateTime startOfMonthDateTime = startOfMonth.atStartOfDay();
                 LocalDateTime endOfMonthDateTime = now.atTime(23, 59, 59);
 
-                BigDecimal montantFraisDouane = transactionRepository
-                                .sumMontantByTypeAndDateRange(Transaction.TypeTransaction.FRAIS_DOUANE,
-                                                startOfMonthDateTime, endOfMonthDateTime);
-                if (montantFraisDouane == null) montantFraisDouane = BigDecimal.ZERO;
+                Map<Transaction.TypeTransaction, BigDecimal> fraisParType = transactionRepository
+                                .sumMontantGroupByTypeAndDateRange(
+                                                EnumSet.of(Transaction.TypeTransaction.FRAIS_DOUANE,
+                                                                Transaction.TypeTransaction.FRAIS_T1),
+                                                startOfMonthDateTime, endOfMonthDateTime)
+                                .stream()
+                                .collect(Collectors.toMap(TransactionTypeMontantProjection::getType,
+                                                TransactionTypeMontantProjection::getMontant));
 
-                BigDecimal montantT1 = transactionRepository
-                                .sumMontantByTypeAndDateRange(Transaction.TypeTransaction.FRAIS_T1,
-                                                startOfMonthDateTime, endOfMonthDateTime);
-                if (montantT1 == null) montantT1 = BigDecimal.ZERO;
+                BigDecimal montantFraisDouane = fraisParType.getOrDefault(
+                                Transaction.TypeTransaction.FRAIS_DOUANE, BigDecimal.ZERO);
+                BigDecimal montantT1 = fraisParType.getOrDefault(
+                                Transaction.TypeTransaction.FRAIS_T1, BigDecimal.ZERO);
 
                 BigDecimal montantTotalFrais = montantFraisDouane.add(montantT1);
 
@@ -406,16 +384,9 @@ public class DashboardServiceImpl implements DashboardService {
                 }
 
                 // Compter les voyages non déclarés ce mois (voyages avec dateDepart ce mois et
-                // declarer = false ou null, hors cession)
-                long nombreCamionsNonDeclares = voyageRepository.findAll().stream()
-                                .filter(v -> v.getDateDepart() != null)
-                                .filter(v -> {
-                                        LocalDateTime dateDepart = v.getDateDepart();
-                                        return !dateDepart.isBefore(startOfMonthDateTime)
-                                                        && !dateDepart.isAfter(endOfMonthDateTime);
-                                })
-                                .filter(v -> v.getDeclarer() == null || !v.getDeclarer())
-                                .count();
+                // declarer = false ou null)
+                long nombreCamionsNonDeclares = voyageRepository
+                                .countNonDeclaresByDateDepartBetween(startOfMonthDateTime, endOfMonthDateTime);
 
                 return DashboardDTO.DouaneStatsDTO.builder()
                                 .nombreCamionsDeclares(nombreCamionsDeclares.intValue())
@@ -438,20 +409,16 @@ public class DashboardServiceImpl implements DashboardService {
          * </ul>
          * Retourne une entrée pour chaque valeur de {@link Voyage.StatutVoyage} (count 0 si aucun).
          */
-        private List<DashboardDTO.StatutVoyageCountDTO> calculateStatutsVoyagePourDashboard() {
+        private List<DashboardDTO.StatutVoyageCountDTO> calculateStatutsVoyagePourDashboard(
+                        Map<Voyage.StatutVoyage, Long> voyagesParStatut) {
                 LocalDate now = LocalDate.now();
                 LocalDate startOfMonth = now.withDayOfMonth(1);
                 LocalDateTime startOfMonthDateTime = startOfMonth.atStartOfDay();
                 LocalDateTime endOfMonthDateTime = now.atTime(23, 59, 59);
 
-                Map<Voyage.StatutVoyage, Long> counts = new EnumMap<>(Voyage.StatutVoyage.class);
-                for (Voyage.StatutVoyage s : Voyage.StatutVoyage.values()) {
-                        counts.put(s, 0L);
-                }
-
-                voyageRepository.findAll().stream()
-                                .filter(v -> isVoyageIncludedForStatutDashboard(v, startOfMonthDateTime, endOfMonthDateTime))
-                                .forEach(v -> counts.merge(v.getStatut(), 1L, Long::sum));
+                Map<Voyage.StatutVoyage, Long> counts = new EnumMap<>(voyagesParStatut);
+                counts.put(Voyage.StatutVoyage.DECHARGER, voyageRepository
+                                .countDechargesHorsCessionByDateWindow(startOfMonthDateTime, endOfMonthDateTime));
 
                 return counts.entrySet().stream()
                                 .sorted(Map.Entry.comparingByKey())
@@ -462,32 +429,6 @@ public class DashboardServiceImpl implements DashboardService {
                                 .collect(Collectors.toList());
         }
 
-        /**
-         * Règle : tous statuts sauf DECHARGER = tous les voyages (hors cession) ;
-         * DECHARGER = uniquement si une date clé tombe dans le mois en cours.
-         */
-        private boolean isVoyageIncludedForStatutDashboard(
-                        Voyage v,
-                        LocalDateTime startOfMonthDateTime,
-                        LocalDateTime endOfMonthDateTime) {
-                if (v == null || v.isCession() || v.getStatut() == null) {
-                        return false;
-                }
-                if (v.getStatut() == Voyage.StatutVoyage.DECHARGER) {
-                        return hasAnyVoyageDateInWindow(v, startOfMonthDateTime, endOfMonthDateTime);
-                }
-                return true;
-        }
-
-        private boolean hasAnyVoyageDateInWindow(
-                        Voyage v,
-                        LocalDateTime start,
-                        LocalDateTime end) {
-                return Stream.of(v.getDateCreation(), v.getDateDepart(), v.getDateArrivee())
-                                .filter(Objects::nonNull)
-                                .anyMatch(d -> !d.isBefore(start) && !d.isAfter(end));
-        }
-
         private String formatBigDecimal(BigDecimal value) {
                 if (value == null) {
                         return "0";
@@ -0,0 +1,84 @@
+package com.backend.gesy.dashboard;
+
+import com.backend.gesy.dashboard.dto.DashboardDTO;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Tableau de bord matérialisé en mémoire.
+ * <p>
+ * La lecture est O(1) tant qu'aucune carte n'est périmée. Les services métier invalident des cartes
+ * précises (voir {@link DashboardChangeEvent}) ; la lecture suivante ne recalcule que celles-ci et
+ * réutilise les autres. L'invalidation ne prend aucun verrou, le recalcul est sérialisé.
+ */
+@Component
+public class DashboardSnapshot {
+
+    private final Set<DashboardSection> sectionsPerimees = ConcurrentHashMap.newKeySet();
+    private final Object verrouRecalcul = new Object();
+
+    private volatile DashboardDTO courant;
+    private volatile LocalDateTime dateCalcul;
+
+    public DashboardSnapshot() {
+        sectionsPerimees.addAll(EnumSet.allOf(DashboardSection.class));
+    }
+
+    /**
+     * Retourne le tableau de bord courant, après recalcul des seules cartes périmées.
+     *
+     * @param recalcul reçoit le dernier tableau publié (null au premier appel) et les cartes à recalculer,
+     *                 retourne le nouveau tableau ; ne doit pas modifier l'instance reçue
+     */
+    public DashboardDTO lire(BiFunction<DashboardDTO, Set<DashboardSection>, DashboardDTO> recalcul) {
+        DashboardDTO snapshot = courant;
+        if (snapshot != null && sectionsPerimees.isEmpty()) {
+            return snapshot;
+        }
+        synchronized (verrouRecalcul) {
+            if (courant != null && sectionsPerimees.isEmpty()) {
+                return courant;
+            }
+            // Les invalidations reçues pendant le recalcul restent dans le set pour la lecture suivante
+            Set<DashboardSection> aRecalculer = EnumSet.noneOf(DashboardSection.class);
+            for (DashboardSection section : DashboardSection.values()) {
+                if (sectionsPerimees.remove(section)) {
+                    aRecalculer.add(section);
+                }
+            }
+            try {
+                courant = recalcul.apply(courant, aRecalculer);
+                dateCalcul = LocalDateTime.now();
+            } catch (RuntimeException e) {
+                sectionsPerimees.addAll(aRecalculer);
+                throw e;
+            }
+            return courant;
+        }
+    }
+
+    /** Marque périmées les cartes touchées par un changement métier, une fois la transaction validée. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDashboardChange(DashboardChangeEvent event) {
+        invalider(event.getSections());
+    }
+
+    public void invalider(Collection<DashboardSection> sections) {
+        sectionsPerimees.addAll(sections);
+    }
+
+    public void invaliderTout() {
+        sectionsPerimees.addAll(EnumSet.allOf(DashboardSection.class));
+    }
+
+    public LocalDateTime getDateCalcul() {
+        return dateCalcul;
+    }
+}
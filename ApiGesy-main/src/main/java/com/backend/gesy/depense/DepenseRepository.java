@@ -1,15 +1,22 @@
 package com.backend.gesy.depense;
 
 import com.backend.gesy.categoriedepense.CategorieDepense;
+import com.backend.gesy.depense.dto.DepenseMontantDateProjection;
+import com.backend.gesy.depense.dto.DepenseUnifieeLigneProjection;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface DepenseRepository extends JpaRepository<Depense, Long> {
@@ -43,6 +50,13 @@ public interface DepenseRepository extends JpaRepository<Depense, Long> {
     // Somme des dépenses par intervalle de dates
     @Query("SELECT SUM(d.montant) FROM Depense d WHERE d.dateDepense >= :startDate AND d.dateDepense <= :endDate")
     java.math.BigDecimal sumByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    // Somme des dépenses d'une catégorie (par nom), bornes de dates optionnelles
+    @Query("SELECT COALESCE(SUM(d.montant), 0) FROM Depense d JOIN d.categorie c WHERE c.nom = :nom " +
+           "AND (:startDate IS NULL OR d.dateDepense >= :startDate) AND (:endDate IS NULL OR d.dateDepense <= :endDate)")
+    java.math.BigDecimal sumByCategorieNomAndDateRange(@Param("nom") String nom,
+                                                       @Param("startDate") LocalDateTime startDate,
+                                                       @Param("endDate") LocalDateTime endDate);
     
     // Liste sans pagination
     List<Depense> findByOrderByDateDepenseDesc();
@@ -53,5 +67,44 @@ public interface DepenseRepository extends JpaRepository<Depense, Long> {
     // Liste par catégorie et intervalle de dates sans pagination
     @Query("SELECT d FROM Depense d WHERE d.categorie = :categorie AND d.dateDepense >= :startDate AND d.dateDepense <= :endDate ORDER BY d.dateDepense DESC")
     List<Depense> findByCategorieAndDateRangeList(@Param("categorie") CategorieDepense categorie, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
-}
 
+    // Dépenses dans [startDate, endDate[, triées par date, lues en flux
+    @Query("SELECT d.dateDepense AS dateDepense, d.montant AS montant FROM Depense d " +
+           "WHERE d.dateDepense >= :startDate AND d.dateDepense < :endDate ORDER BY d.dateDepense")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<DepenseMontantDateProjection> streamMontantsByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    /** Dépenses manuelles du flux unifié (catégorie et période facultatives, fin exclue). */
+    String LIGNES_DEPENSES_UNIFIEES =
+            "SELECT 'DEPENSE' AS type, 0 AS typeOrdre, d.id AS id, d.libelle AS libelle, d.montant AS montant, " +
+            "DATE(d.dateDepense) AS date, d.dateDepense AS horodatage, c.id AS categorieId, c.nom AS categorieNom, " +
+            "d.reference AS reference, CAST(NULL AS Long) AS voyageId, CAST(NULL AS String) AS numeroVoyage " +
+            "FROM Depense d LEFT JOIN d.categorie c " +
+            "WHERE (:categorieId IS NULL OR c.id = :categorieId) " +
+            "AND (:debut IS NULL OR d.dateDepense >= :debut) AND (:fin IS NULL OR d.dateDepense < :fin)";
+
+    /** Paiements catégorisés (coût transport, T1, douane) du flux unifié. */
+    String LIGNES_PAIEMENTS_UNIFIEES =
+            "SELECT 'PAIEMENT' AS type, 1 AS typeOrdre, p.id AS id, " +
+            "CASE WHEN p.notes IS NOT NULL AND TRIM(p.notes) <> '' THEN p.notes " +
+            "WHEN p.reference IS NOT NULL THEN CONCAT('Paiement ', p.reference) ELSE 'Paiement' END AS libelle, " +
+            "p.montant AS montant, p.date AS date, CAST(p.date AS LocalDateTime) AS horodatage, " +
+            "c.id AS categorieId, c.nom AS categorieNom, p.reference AS reference, v.id AS voyageId, v.numeroVoyage AS numeroVoyage " +
+            "FROM Paiement p JOIN p.categorieDepense c LEFT JOIN p.voyage v " +
+            "WHERE (:categorieId IS NULL OR c.id = :categorieId) " +
+            "AND (:dateDebut IS NULL OR p.date >= :dateDebut) AND (:dateFin IS NULL OR p.date <= :dateFin)";
+
+    // Flux unifié Dépenses : UNION ALL trié et paginé en base (plus récent d'abord, dépenses avant paiements le même jour)
+    @Query(value = "SELECT x.type AS type, x.id AS id, x.libelle AS libelle, x.montant AS montant, x.date AS date, " +
+                   "x.categorieId AS categorieId, x.categorieNom AS categorieNom, x.reference AS reference, " +
+                   "x.voyageId AS voyageId, x.numeroVoyage AS numeroVoyage " +
+                   "FROM (" + LIGNES_DEPENSES_UNIFIEES + " UNION ALL " + LIGNES_PAIEMENTS_UNIFIEES + ") x " +
+                   "ORDER BY x.date DESC NULLS LAST, x.typeOrdre, x.horodatage DESC, x.id DESC",
+           countQuery = "SELECT COUNT(x.id) FROM (" + LIGNES_DEPENSES_UNIFIEES + " UNION ALL " + LIGNES_PAIEMENTS_UNIFIEES + ") x")
+    Page<DepenseUnifieeLigneProjection> findLignesUnifiees(@Param("categorieId") Long categorieId,
+                                                          @Param("debut") LocalDateTime debut,
+                                                          @Param("fin") LocalDateTime fin,
+                                                          @Param("dateDebut") LocalDate dateDebut,
+                                                          @Param("dateFin") LocalDate dateFin,
+                                                          Pageable pageable);
+}
@@ -2,23 +2,25 @@ package com.backend.gesy.depense;
 
 import com.backend.gesy.caisse.Caisse;
 import com.backend.gesy.caisse.CaisseRepository;
+import com.backend.gesy.capitale.CapitaleModifieeEvent;
 import com.backend.gesy.categoriedepense.CategorieDepense;
 import com.backend.gesy.categoriedepense.CategorieDepenseRepository;
 import com.backend.gesy.comptebancaire.CompteBancaire;
 import com.backend.gesy.comptebancaire.CompteBancaireRepository;
+import com.backend.gesy.solde.SoldeUpdater;
 import com.backend.gesy.transaction.Transaction;
 import com.backend.gesy.transaction.TransactionRepository;
 import com.backend.gesy.depense.dto.DepenseDTO;
 import com.backend.gesy.depense.dto.DepenseMapper;
 import com.backend.gesy.depense.dto.DepensePageDTO;
 import com.backend.gesy.depense.dto.DepenseUnifiedPageDTO;
+import com.backend.gesy.depense.dto.DepenseUnifieeLigneProjection;
 import com.backend.gesy.depense.dto.UnifiedLigneDepenseDTO;
 import com.backend.gesy.finance.FinanceEntityAccessService;
-import com.backend.gesy.paiement.PaiementService;
-import com.backend.gesy.paiement.dto.PaiementDTO;
 import com.backend.gesy.transaction.TransactionService;
 import com.backend.gesy.transaction.dto.TransactionDTO;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -32,7 +34,6 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -49,8 +50,9 @@ public class DepenseServiceImpl implements DepenseService {
     private final TransactionRepository transactionRepository;
     private final DepenseMapper depenseMapper;
     private final TransactionService transactionService;
-    private final PaiementService paiementService;
     private final FinanceEntityAccessService financeEntityAccessService;
+    private final SoldeUpdater soldeUpdater;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public DepenseDTO save(DepenseDTO dto) {
@@ -81,6 +83,7 @@ public class DepenseServiceImpl implements DepenseService {
         }
 
         Depense saved = depenseRepository.save(entity);
+        eventPublisher.publishEvent(new CapitaleModifieeEvent(saved.getDateDepense()));
 
         TransactionDTO transactionDTO = new TransactionDTO();
         transactionDTO.setMontant(saved.getMontant());
@@ -116,6 +119,7 @@ public class DepenseServiceImpl implements DepenseService {
         Caisse oldCaisse = existing.getCaisse();
         BigDecimal oldMontantDepense = existing.getMontant() != null ? existing.getMontant() : BigDecimal.ZERO;
         Long txId = existing.getTransactionId();
+        LocalDateTime ancienneDate = existing.getDateDepense();
 
         if (oldCompte != null) {
             financeEntityAccessService.assertCanManageCompteBancaire(
@@ -191,6 +195,9 @@ public class DepenseServiceImpl implements DepenseService {
         }
 
         Depense saved = depenseRepository.save(existing);
+        // Date ou catégorie modifiée : le plus ancien des deux mois est invalidé (et les suivants)
+        eventPublisher.publishEvent(new CapitaleModifieeEvent(
+                ancienneDate != null && ancienneDate.isBefore(saved.getDateDepense()) ? ancienneDate : saved.getDateDepense()));
 
         if (txId != null) {
             Optional<Transaction> txOpt = transactionRepository.findById(txId);
@@ -232,13 +239,11 @@ public class DepenseServiceImpl implements DepenseService {
                             if (oldCompte != null) {
                                 CompteBancaire ancien = compteBancaireRepository.findById(oldCompte.getId())
                                         .orElseThrow(() -> new RuntimeException("Compte bancaire introuvable pour remboursement."));
-                                ancien.setSolde(ancien.getSolde().add(montantDejaDebite));
-                                compteBancaireRepository.save(ancien);
+                                soldeUpdater.crediter(ancien, montantDejaDebite);
                             } else if (oldCaisse != null) {
                                 Caisse ancienne = caisseRepository.findById(oldCaisse.getId())
                                         .orElseThrow(() -> new RuntimeException("Caisse introuvable pour remboursement."));
-                                ancienne.setSolde(ancienne.getSolde().add(montantDejaDebite));
-                                caisseRepository.save(ancienne);
+                                soldeUpdater.crediter(ancienne, montantDejaDebite);
                             }
                         }
                         if (newFromCompte) {
@@ -284,14 +289,10 @@ public class DepenseServiceImpl implements DepenseService {
             throw new RuntimeException("Le compte bancaire n'est pas actif");
         }
         if (delta.compareTo(BigDecimal.ZERO) > 0) {
-            if (compte.getSolde().compareTo(delta) < 0) {
-                throw new RuntimeException("Solde insuffisant dans le compte bancaire pour augmenter la dépense");
-            }
-            compte.setSolde(compte.getSolde().subtract(delta));
+            soldeUpdater.debiter(compte, delta, "Solde insuffisant dans le compte bancaire pour augmenter la dépense");
         } else {
-            compte.setSolde(compte.getSolde().add(delta.negate()));
+            soldeUpdater.crediter(compte, delta.negate());
         }
-        compteBancaireRepository.save(compte);
     }
 
     private void applyDeltaDepenseCaisse(Caisse caisse, BigDecimal delta) {
@@ -302,36 +303,24 @@ public class DepenseServiceImpl implements DepenseService {
             throw new RuntimeException("La caisse n'est pas active");
         }
         if (delta.compareTo(BigDecimal.ZERO) > 0) {
-            if (caisse.getSolde().compareTo(delta) < 0) {
-                throw new RuntimeException("Solde insuffisant dans la caisse pour augmenter la dépense");
-            }
-            caisse.setSolde(caisse.getSolde().subtract(delta));
+            soldeUpdater.debiter(caisse, delta, "Solde insuffisant dans la caisse pour augmenter la dépense");
         } else {
-            caisse.setSolde(caisse.getSolde().add(delta.negate()));
+            soldeUpdater.crediter(caisse, delta.negate());
         }
-        caisseRepository.save(caisse);
     }
 
     private void debitComptePourDepense(CompteBancaire compte, BigDecimal montant) {
         if (compte.getStatut() != CompteBancaire.StatutCompte.ACTIF) {
             throw new RuntimeException("Le compte bancaire n'est pas actif");
         }
-        if (compte.getSolde().compareTo(montant) < 0) {
-            throw new RuntimeException("Solde insuffisant dans le compte bancaire");
-        }
-        compte.setSolde(compte.getSolde().subtract(montant));
-        compteBancaireRepository.save(compte);
+        soldeUpdater.debiter(compte, montant, "Solde insuffisant dans le compte bancaire");
     }
 
     private void debitCaissePourDepense(Caisse caisse, BigDecimal montant) {
         if (caisse.getStatut() != Caisse.StatutCaisse.ACTIF) {
             throw new RuntimeException("La caisse n'est pas active");
         }
-        if (caisse.getSolde().compareTo(montant) < 0) {
-            throw new RuntimeException("Solde insuffisant dans la caisse");
-        }
-        caisse.setSolde(caisse.getSolde().subtract(montant));
-        caisseRepository.save(caisse);
+        soldeUpdater.debiter(caisse, montant, "Solde insuffisant dans la caisse");
     }
 
     @Override
@@ -349,19 +338,18 @@ public class DepenseServiceImpl implements DepenseService {
                     if (t.getCompte() != null) {
                         CompteBancaire compte = compteBancaireRepository.findById(t.getCompte().getId())
                                 .orElseThrow(() -> new RuntimeException("Compte bancaire introuvable pour remboursement."));
-                        compte.setSolde(compte.getSolde().add(t.getMontant()));
-                        compteBancaireRepository.save(compte);
+                        soldeUpdater.crediter(compte, t.getMontant());
                     } else if (t.getCaisse() != null) {
                         Caisse caisse = caisseRepository.findById(t.getCaisse().getId())
                                 .orElseThrow(() -> new RuntimeException("Caisse introuvable pour remboursement."));
-                        caisse.setSolde(caisse.getSolde().add(t.getMontant()));
-                        caisseRepository.save(caisse);
+                        soldeUpdater.crediter(caisse, t.getMontant());
                     }
                 }
                 transactionRepository.delete(t);
             });
         }
         depenseRepository.deleteById(id);
+        eventPublisher.publishEvent(new CapitaleModifieeEvent(depense.getDateDepense()));
     }
 
     @Override
@@ -447,69 +435,37 @@ public class DepenseServiceImpl implements DepenseService {
 
     @Override
     public DepenseUnifiedPageDTO findUnified(Long categorieId, LocalDate startDate, LocalDate endDate, int page, int size) {
-        List<DepenseDTO> depenses;
-        List<PaiementDTO> paiements;
         if (categorieId != null) {
-            CategorieDepense cat = getCategorieById(categorieId);
-            if (startDate != null && endDate != null) {
-                depenses = depenseRepository.findByCategorieAndDateRangeList(cat, startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX)).stream()
-                        .map(depenseMapper::toDTO).collect(Collectors.toList());
-                paiements = paiementService.findByCategorieIdAndDateRange(categorieId, startDate, endDate);
-            } else {
-                depenses = depenseRepository.findByCategorieOrderByDateDepenseDesc(cat).stream()
-                        .map(depenseMapper::toDTO).collect(Collectors.toList());
-                paiements = paiementService.findByCategorieId(categorieId);
-            }
-        } else {
-            if (startDate != null && endDate != null) {
-                depenses = depenseRepository.findByDateRange(startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX), PageRequest.of(0, Integer.MAX_VALUE))
-                        .getContent().stream().map(depenseMapper::toDTO).collect(Collectors.toList());
-                paiements = paiementService.findAllWithCategorie(startDate, endDate);
-            } else {
-                depenses = depenseRepository.findByOrderByDateDepenseDesc().stream().map(depenseMapper::toDTO).collect(Collectors.toList());
-                paiements = paiementService.findAllWithCategorie(null, null);
-            }
+            getCategorieById(categorieId);
         }
-        List<UnifiedLigneDepenseDTO> lignes = new ArrayList<>();
-        depenses.stream().map(this::toUnifiedLigneFromDepense).forEach(lignes::add);
-        paiements.stream().map(this::toUnifiedLigneFromPaiement).forEach(lignes::add);
-        lignes.sort(Comparator.comparing(UnifiedLigneDepenseDTO::getDate, Comparator.nullsLast(Comparator.reverseOrder())));
-        long total = lignes.size();
-        int from = Math.min(page * size, lignes.size());
-        int to = Math.min(from + size, lignes.size());
-        List<UnifiedLigneDepenseDTO> pageContent = from < lignes.size() ? lignes.subList(from, to) : new ArrayList<>();
-        int totalPages = size > 0 ? (int) Math.ceil((double) total / size) : 0;
-        return new DepenseUnifiedPageDTO(pageContent, page, size, total, totalPages);
-    }
-
-    private UnifiedLigneDepenseDTO toUnifiedLigneFromDepense(DepenseDTO d) {
-        UnifiedLigneDepenseDTO u = new UnifiedLigneDepenseDTO();
-        u.setType(UnifiedLigneDepenseDTO.TypeLigne.DEPENSE);
-        u.setId(d.getId());
-        u.setLibelle(d.getLibelle());
-        u.setMontant(d.getMontant());
-        u.setDate(d.getDateDepense() != null ? d.getDateDepense().toLocalDate() : null);
-        u.setCategorieId(d.getCategorieId());
-        u.setCategorieNom(d.getCategorieNom());
-        u.setReference(d.getReference());
-        u.setVoyageId(null);
-        u.setNumeroVoyage(null);
-        return u;
+        // Période appliquée seulement si les deux bornes sont fournies
+        boolean periode = startDate != null && endDate != null;
+        // Fusion, tri et pagination faits en base : seule la page demandée est lue
+        Page<DepenseUnifieeLigneProjection> lignes = depenseRepository.findLignesUnifiees(
+                categorieId,
+                periode ? startDate.atStartOfDay() : null,
+                periode ? endDate.plusDays(1).atStartOfDay() : null,
+                periode ? startDate : null,
+                periode ? endDate : null,
+                PageRequest.of(page, size));
+        List<UnifiedLigneDepenseDTO> pageContent = lignes.getContent().stream()
+                .map(this::toUnifiedLigne)
+                .collect(Collectors.toList());
+        return new DepenseUnifiedPageDTO(pageContent, page, size, lignes.getTotalElements(), lignes.getTotalPages());
     }
 
-    private UnifiedLigneDepenseDTO toUnifiedLigneFromPaiement(PaiementDTO p) {
-        UnifiedLigneDepenseDTO u = new UnifiedLigneDepenseDTO();
-        u.setType(UnifiedLigneDepenseDTO.TypeLigne.PAIEMENT);
-        u.setId(p.getId());
-        u.setLibelle(p.getNotes() != null && !p.getNotes().isBlank() ? p.getNotes() : (p.getReference() != null ? "Paiement " + p.getReference() : "Paiement"));
-        u.setMontant(p.getMontant());
-        u.setDate(p.getDate());
-        u.setCategorieId(p.getCategorieId());
-        u.setCategorieNom(p.getCategorieNom());
-        u.setReference(p.getReference());
-        u.setVoyageId(p.getVoyageId());
-        u.setNumeroVoyage(p.getNumeroVoyage());
-        return u;
+    private UnifiedLigneDepenseDTO toUnifiedLigne(DepenseUnifieeLigneProjection l) {
+        return new UnifiedLigneDepenseDTO(
+                UnifiedLigneDepenseDTO.TypeLigne.valueOf(l.getType()),
+                l.getId(),
+                l.getLibelle(),
+                l.getMontant(),
+                l.getDate(),
+                l.getCategorieId(),
+                l.getCategorieNom(),
+                l.getReference(),
+                l.getVoyageId(),
+                l.getNumeroVoyage());
     }
 
     private CategorieDepense getCategorieById(Long categorieId) {
@@ -0,0 +1,13 @@
+package com.backend.gesy.depense.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ligne minimale d'une dépense pour les rapports : date de dépense et montant.
+ */
+public interface DepenseMontantDateProjection {
+    LocalDateTime getDateDepense();
+
+    BigDecimal getMontant();
+}
@@ -0,0 +1,27 @@
+package com.backend.gesy.depense.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/** Ligne du flux unifié Dépenses calculé en base (dépense manuelle ou paiement catégorisé). */
+public interface DepenseUnifieeLigneProjection {
+    String getType();
+
+    Long getId();
+
+    String getLibelle();
+
+    BigDecimal getMontant();
+
+    LocalDate getDate();
+
+    Long getCategorieId();
+
+    String getCategorieNom();
+
+    String getReference();
+
+    Long getVoyageId();
+
+    String getNumeroVoyage();
+}
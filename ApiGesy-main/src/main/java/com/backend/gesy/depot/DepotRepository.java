@@ -1,6 +1,9 @@
 package com.backend.gesy.depot;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,5 +13,20 @@ import java.util.Optional;
 public interface DepotRepository extends JpaRepository<Depot, Long> {
     Optional<Depot> findByNom(String nom);
     List<Depot> findByStatut(Depot.StatutDepot statut);
+    long countByStatut(Depot.StatutDepot statut);
+
+    /**
+     * Ajuste la capacité utilisée d'un delta (borné à 0) ; un dépôt PLEIN repasse ACTIF s'il redescend sous sa capacité.
+     * Le statut est affecté en premier : MySQL évalue le SET dans l'ordre, les deux expressions lisent ainsi l'ancienne valeur.
+     */
+    @Modifying
+    @Query("UPDATE Depot d SET " +
+           "d.statut = CASE WHEN d.statut = com.backend.gesy.depot.Depot.StatutDepot.PLEIN " +
+           "AND COALESCE(d.capaciteUtilisee, 0) + :delta < d.capacite " +
+           "THEN com.backend.gesy.depot.Depot.StatutDepot.ACTIF ELSE d.statut END, " +
+           "d.capaciteUtilisee = CASE WHEN COALESCE(d.capaciteUtilisee, 0) + :delta > 0 " +
+           "THEN COALESCE(d.capaciteUtilisee, 0) + :delta ELSE 0.0 END " +
+           "WHERE d.id = :id")
+    int ajusterCapaciteUtilisee(@Param("id") Long id, @Param("delta") Double delta);
 }
 
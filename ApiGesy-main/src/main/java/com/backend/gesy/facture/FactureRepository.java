@@ -1,17 +1,31 @@
 package com.backend.gesy.facture;
 
 import com.backend.gesy.client.Client;
+import com.backend.gesy.facture.dto.FactureMontantJourProjection;
+import com.backend.gesy.facture.dto.FactureSoldeProjection;
+import com.backend.gesy.facture.dto.LigneVenteVoyageProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface FactureRepository extends JpaRepository<Facture, Long> {
     Optional<Facture> findByNumero(String numero);
+
+    boolean existsByNumero(String numero);
+
+    // Numéros d'un préfixe (ex. "INV-2026-"), le plus haut en premier : plus long d'abord, puis ordre lexical
+    @org.springframework.data.jpa.repository.Query("SELECT f.numero FROM Facture f WHERE f.numero LIKE CONCAT(:prefixe, '%') " +
+            "ORDER BY LENGTH(f.numero) DESC, f.numero DESC")
+    List<String> findNumerosByPrefixe(@org.springframework.data.repository.query.Param("prefixe") String prefixe, Pageable pageable);
     
     // Récupérer les factures d'un client triées par date décroissante
     @org.springframework.data.jpa.repository.Query("SELECT f FROM Facture f WHERE f.client = :client ORDER BY f.date DESC, f.id DESC")
@@ -40,5 +54,80 @@ public interface FactureRepository extends JpaRepository<Facture, Long> {
     /** Toutes les factures liées à un voyage (pour libérer la référence avant suppression du voyage). */
     @org.springframework.data.jpa.repository.Query("SELECT f FROM Facture f WHERE f.voyage.id = :voyageId")
     java.util.List<Facture> findByVoyageId(@org.springframework.data.repository.query.Param("voyageId") Long voyageId);
-}
 
+    /** Somme des montants encaissés pour les factures aux statuts donnés, datées strictement après {@code debut}. */
+    @org.springframework.data.jpa.repository.Query("SELECT COALESCE(SUM(f.montantPaye), 0) FROM Facture f WHERE f.statut IN :statuts AND f.date > :debut")
+    BigDecimal sumMontantPayeByStatutsAndDateAfter(
+            @org.springframework.data.repository.query.Param("statuts") Collection<Facture.StatutFacture> statuts,
+            @org.springframework.data.repository.query.Param("debut") LocalDate debut);
+
+    /** Somme des montants encaissés pour les factures aux statuts donnés, datées strictement entre {@code debut} et {@code fin}. */
+    @org.springframework.data.jpa.repository.Query("SELECT COALESCE(SUM(f.montantPaye), 0) FROM Facture f WHERE f.statut IN :statuts AND f.date > :debut AND f.date < :fin")
+    BigDecimal sumMontantPayeByStatutsAndDateBetweenExclusive(
+            @org.springframework.data.repository.query.Param("statuts") Collection<Facture.StatutFacture> statuts,
+            @org.springframework.data.repository.query.Param("debut") LocalDate debut,
+            @org.springframework.data.repository.query.Param("fin") LocalDate fin);
+
+    /** Agrégat des factures non payées (même périmètre que {@link #findUnpaidFactures()}). */
+    @org.springframework.data.jpa.repository.Query("SELECT COUNT(f) AS nombre, " +
+            "COALESCE(SUM(f.montantTTC - COALESCE(f.montantPaye, 0)), 0) AS montantRestant, " +
+            "COUNT(DISTINCT f.client.id) AS clients " +
+            "FROM Facture f WHERE f.montantPaye < f.montantTTC OR f.montantPaye IS NULL")
+    FactureSoldeProjection summarizeUnpaidFactures();
+
+    /** Agrégat des factures en retard (même périmètre que {@link #findOverdueFactures()}). */
+    @org.springframework.data.jpa.repository.Query("SELECT COUNT(f) AS nombre, " +
+            "COALESCE(SUM(f.montantTTC - COALESCE(f.montantPaye, 0)), 0) AS montantRestant, " +
+            "COUNT(DISTINCT f.client.id) AS clients " +
+            "FROM Facture f WHERE f.dateEcheance < CURRENT_DATE AND (f.montantPaye < f.montantTTC OR f.montantPaye IS NULL)")
+    FactureSoldeProjection summarizeOverdueFactures();
+
+    /**
+     * Factures d'une période d'analyse [:debutN, :finN] (bornes incluses) pour les statuts :statuts, étiquetées
+     * par le numéro de la période : une branche du UNION ALL groupé par période d'{@code AnalysePeriodeEngine}.
+     */
+    static String lignesVentesPeriode(int periode) {
+        return "SELECT " + periode + " AS periode, f.id AS id, COALESCE(f.montantTTC, f.montant) AS montant, " +
+                "CASE WHEN f.statut = 'PAYEE' AND f.dateEcheance IS NOT NULL AND f.dateEcheance >= f.date THEN 1 ELSE 0 END AS payeeATemps, " +
+                "f.client.id AS clientId " +
+                "FROM Facture f " +
+                "WHERE f.statut IN :statuts AND f.date >= :debut" + periode + " AND f.date <= :fin" + periode;
+    }
+
+    /** Factures payées dont l'échéance n'est pas antérieure à la date de facture. */
+    @org.springframework.data.jpa.repository.Query("SELECT COUNT(f) FROM Facture f WHERE f.statut = 'PAYEE' " +
+            "AND f.dateEcheance IS NOT NULL AND f.dateEcheance >= f.date")
+    long countPayeesDansLesDelais();
+
+    /** Chiffre d'affaires (montant TTC, à défaut HT) des factures des statuts donnés sur [debut, fin]. */
+    @org.springframework.data.jpa.repository.Query("SELECT COALESCE(SUM(COALESCE(f.montantTTC, f.montant)), 0) FROM Facture f " +
+            "WHERE f.statut IN :statuts AND f.date >= :debut AND f.date <= :fin")
+    BigDecimal sumMontantTTCByStatutsAndDateBetween(
+            @org.springframework.data.repository.query.Param("statuts") Collection<Facture.StatutFacture> statuts,
+            @org.springframework.data.repository.query.Param("debut") LocalDate debut,
+            @org.springframework.data.repository.query.Param("fin") LocalDate fin);
+
+    /**
+     * Factures des statuts donnés sur [debut, fin], triées par date, lues en flux (à consommer dans une transaction
+     * et à fermer après usage).
+     */
+    @org.springframework.data.jpa.repository.Query("SELECT f.date AS jour, COALESCE(f.montantTTC, f.montant) AS montant " +
+            "FROM Facture f WHERE f.statut IN :statuts AND f.date >= :debut AND f.date <= :fin ORDER BY f.date")
+    @org.springframework.data.jpa.repository.QueryHints(@jakarta.persistence.QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<FactureMontantJourProjection> streamMontantsByStatutsAndDateBetween(
+            @org.springframework.data.repository.query.Param("statuts") Collection<Facture.StatutFacture> statuts,
+            @org.springframework.data.repository.query.Param("debut") LocalDate debut,
+            @org.springframework.data.repository.query.Param("fin") LocalDate fin);
+
+    /**
+     * Lignes de la première facture (plus petit id) de chaque voyage du lot, dans l'ordre des lignes.
+     * Une facture sans ligne produit une ligne aux colonnes nulles.
+     */
+    @org.springframework.data.jpa.repository.Query("SELECT f.voyage.id AS voyageId, p.id AS produitId, " +
+            "l.prixUnitaire AS prixUnitaire, l.quantite AS quantite " +
+            "FROM Facture f LEFT JOIN f.lignes l LEFT JOIN l.produit p " +
+            "WHERE f.id IN (SELECT MIN(f2.id) FROM Facture f2 WHERE f2.voyage.id IN :voyageIds GROUP BY f2.voyage.id) " +
+            "ORDER BY f.id, l.id")
+    List<LigneVenteVoyageProjection> findLignesPremiereFactureByVoyageIds(
+            @org.springframework.data.repository.query.Param("voyageIds") Collection<Long> voyageIds);
+}
@@ -4,6 +4,7 @@ import com.backend.gesy.alerte.Alerte;
 import com.backend.gesy.alerte.AlerteService;
 import com.backend.gesy.client.Client;
 import com.backend.gesy.client.ClientRepository;
+import com.backend.gesy.dashboard.DashboardChangeEvent;
 import com.backend.gesy.paiement.Paiement;
 import com.backend.gesy.paiement.PaiementRepository;
 import com.backend.gesy.transaction.Transaction;
@@ -21,6 +22,7 @@ import com.backend.gesy.transaction.TransactionService;
 import com.backend.gesy.transaction.dto.TransactionDTO;
 import com.backend.gesy.voyage.Voyage;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -52,6 +54,8 @@ public class FactureServiceImpl implements FactureService {
     private final TransactionService transactionService;
     private final PdfFactureService pdfFactureService;
     private final AlerteService alerteService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NumeroFactureGenerator numeroFactureGenerator;
 
     @Override
     public List<FactureDTO> findAll() {
@@ -174,41 +178,13 @@ public class FactureServiceImpl implements FactureService {
             savedFacture = factureRepository.findById(savedFacture.getId())
                     .orElseThrow(() -> new RuntimeException("Facture introuvable après enregistrement"));
         }
-        
+
+        eventPublisher.publishEvent(new DashboardChangeEvent(DashboardChangeEvent.Source.FACTURE));
         return factureMapper.toDTO(savedFacture);
     }
     
     private String generateUniqueNumeroFacture() {
-        int currentYear = LocalDate.now().getYear();
-        String prefix = "INV-" + currentYear + "-";
-        
-        // Trouver le dernier numéro de facture de l'année
-        List<Facture> factures = factureRepository.findAll();
-        int nextNumber = 1;
-        
-        for (Facture facture : factures) {
-            if (facture.getNumero() != null && facture.getNumero().startsWith(prefix)) {
-                try {
-                    String numberPart = facture.getNumero().substring(prefix.length());
-                    int num = Integer.parseInt(numberPart);
-                    if (num >= nextNumber) {
-                        nextNumber = num + 1;
-                    }
-                } catch (NumberFormatException e) {
-                    // Ignorer les numéros mal formatés
-                }
-            }
-        }
-        
-        String numero = prefix + String.format("%04d", nextNumber);
-        
-        // Vérifier l'unicité
-        while (factureRepository.findByNumero(numero).isPresent()) {
-            nextNumber++;
-            numero = prefix + String.format("%04d", nextNumber);
-        }
-        
-        return numero;
+        return numeroFactureGenerator.prochainNumero(NumeroFactureGenerator.TYPE_VENTE);
     }
 
     @Override
@@ -0,0 +1,55 @@
+package com.backend.gesy.facture;
+
+import com.backend.gesy.numerotation.NumerotationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Numéros de facture au format {@code <TYPE>-YYYY-NNNN} (INV pour les ventes, FAC-ACHAT pour les achats),
+ * distribués par blocs via {@link NumerotationService}. Le plus haut numéro de l'année est relu une fois
+ * au démarrage ; ensuite aucune création de facture ne relit la table des factures.
+ */
+@Component
+@RequiredArgsConstructor
+@Order(20)
+@Slf4j
+public class NumeroFactureGenerator implements CommandLineRunner {
+    public static final String TYPE_VENTE = "INV";
+    public static final String TYPE_ACHAT = "FAC-ACHAT";
+
+    private final NumerotationService numerotationService;
+    private final FactureRepository factureRepository;
+
+    @Override
+    public void run(String... args) {
+        for (String type : List.of(TYPE_VENTE, TYPE_ACHAT)) {
+            String prefix = prefixe(type);
+            try {
+                numerotationService.recaler(prefix, pageable -> factureRepository.findNumerosByPrefixe(prefix, pageable));
+            } catch (RuntimeException e) {
+                // Non bloquant : le compteur sera initialisé au premier numéro demandé
+                log.warn("Recalage du compteur de factures {} impossible : {}", prefix, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Prochain numéro libre pour le type donné ; des trous sont possibles (bloc non épuisé à l'arrêt).
+     */
+    public String prochainNumero(String type) {
+        String prefix = prefixe(type);
+        return numerotationService.prochainNumero(prefix, 4,
+                pageable -> factureRepository.findNumerosByPrefixe(prefix, pageable),
+                factureRepository::existsByNumero);
+    }
+
+    private String prefixe(String type) {
+        return type + "-" + LocalDate.now().getYear() + "-";
+    }
+}
@@ -0,0 +1,13 @@
+package com.backend.gesy.facture.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Ligne minimale d'une facture pour les rapports : date de facture et montant retenu (TTC, à défaut montant).
+ */
+public interface FactureMontantJourProjection {
+    LocalDate getJour();
+
+    BigDecimal getMontant();
+}
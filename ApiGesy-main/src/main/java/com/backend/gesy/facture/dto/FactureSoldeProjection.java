@@ -0,0 +1,15 @@
+package com.backend.gesy.facture.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection d'agrégat sur un ensemble de factures non soldées :
+ * nombre de factures, reste à payer cumulé (TTC - payé) et nombre de clients distincts.
+ */
+public interface FactureSoldeProjection {
+    Long getNombre();
+
+    BigDecimal getMontantRestant();
+
+    Long getClients();
+}
@@ -0,0 +1,17 @@
+package com.backend.gesy.facture.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Ligne de la première facture d'un voyage (produit, prix unitaire, quantité).
+ * Les colonnes de ligne sont nulles si la facture n'a aucune ligne.
+ */
+public interface LigneVenteVoyageProjection {
+    Long getVoyageId();
+
+    Long getProduitId();
+
+    BigDecimal getPrixUnitaire();
+
+    Double getQuantite();
+}
@@ -24,6 +24,10 @@ public interface ManquantRepository extends JpaRepository<Manquant, Long> {
     @Query("SELECT m FROM Manquant m WHERE m.dateCreation >= :startDate AND m.dateCreation <= :endDate ORDER BY m.dateCreation DESC")
     Page<Manquant> findByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate, Pageable pageable);
     
+    // Quantité totale des manquants sur l'intervalle de dates
+    @Query("SELECT COALESCE(SUM(m.quantite), 0) FROM Manquant m WHERE m.dateCreation >= :startDate AND m.dateCreation <= :endDate")
+    java.math.BigDecimal sumQuantiteByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
     // Liste par voyage
     List<Manquant> findByVoyageIdOrderByDateCreationDesc(Long voyageId);
     
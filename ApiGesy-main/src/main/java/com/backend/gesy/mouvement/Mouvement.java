@@ -36,6 +36,13 @@ public class Mouvement {
     @Column(name = "date_mouvement", nullable = false)
     private LocalDateTime dateMouvement = LocalDateTime.now();
 
+    /**
+     * Renseigné par {@link com.backend.gesy.stock.StockLedger} pour les mouvements appliqués au stock : true sur la
+     * quantité en cession, false sur la quantité disponible. Null pour les mouvements antérieurs au registre
+     * (cession et disponible confondus) et les saisies manuelles, qui ne modifient pas le stock.
+     */
+    private Boolean cession;
+
     public enum TypeMouvement {
         ENTREE,
         SORTIE,
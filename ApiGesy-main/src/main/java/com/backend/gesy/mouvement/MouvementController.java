@@ -2,6 +2,7 @@ package com.backend.gesy.mouvement;
 
 import com.backend.gesy.mouvement.dto.MouvementDTO;
 import com.backend.gesy.mouvement.dto.MouvementPageDTO;
+import com.backend.gesy.pagination.CurseurPageDTO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -41,6 +42,15 @@ public class MouvementController {
         return ResponseEntity.ok(mouvementService.findAllPaginated(pageable));
     }
 
+    /** Journal par curseur : renvoyer {@code curseurSuivant} pour obtenir la page suivante. */
+    @GetMapping("/curseur")
+    public ResponseEntity<CurseurPageDTO<MouvementDTO>> getMouvementsParCurseur(
+        @RequestParam(required = false) String curseur,
+        @RequestParam(defaultValue = "10") int size
+    ) {
+        return ResponseEntity.ok(mouvementService.findJournalParCurseur(curseur, size));
+    }
+
     @GetMapping("/by-date")
     public ResponseEntity<MouvementPageDTO> getMouvementsByDate(
         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
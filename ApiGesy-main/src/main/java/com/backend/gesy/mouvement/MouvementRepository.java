@@ -1,5 +1,6 @@
 package com.backend.gesy.mouvement;
 
+import com.backend.gesy.mouvement.dto.MouvementNetJourProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -43,5 +44,27 @@ public interface MouvementRepository extends JpaRepository<Mouvement, Long> {
     
     @Query("SELECT m FROM Mouvement m ORDER BY m.dateMouvement DESC")
     Page<Mouvement> findAllOrderedByDate(Pageable pageable);
-}
 
+    // Défilement par curseur (dateMouvement, id) : première page puis lignes strictement après le curseur
+    @Query("SELECT m FROM Mouvement m ORDER BY m.dateMouvement DESC, m.id DESC")
+    List<Mouvement> findPremieresLignesJournal(Pageable pageable);
+
+    @Query("SELECT m FROM Mouvement m WHERE m.dateMouvement < :date OR (m.dateMouvement = :date AND m.id < :id) " +
+            "ORDER BY m.dateMouvement DESC, m.id DESC")
+    List<Mouvement> findLignesJournalApres(@Param("date") LocalDateTime date, @Param("id") Long id, Pageable pageable);
+
+    /** Date du premier mouvement appliqué par le registre de stock (null s'il n'y en a encore aucun). */
+    @Query("SELECT MIN(m.dateMouvement) FROM Mouvement m WHERE m.cession IS NOT NULL")
+    LocalDateTime findPremiereDateMouvementApplique();
+
+    /**
+     * Variation nette de la quantité disponible par stock et par jour depuis :debut : seuls les mouvements appliqués
+     * par le registre de stock comptent (ni cession, ni historique non qualifié, ni saisie manuelle).
+     */
+    @Query("SELECT m.stock.id AS stockId, CAST(m.dateMouvement AS LocalDate) AS jour, " +
+            "SUM(CASE WHEN m.typeMouvement = com.backend.gesy.mouvement.Mouvement.TypeMouvement.ENTREE THEN m.quantite " +
+            "WHEN m.typeMouvement = com.backend.gesy.mouvement.Mouvement.TypeMouvement.SORTIE THEN -m.quantite ELSE 0.0 END) AS net " +
+            "FROM Mouvement m WHERE m.dateMouvement >= :debut AND m.cession = false " +
+            "GROUP BY m.stock.id, CAST(m.dateMouvement AS LocalDate)")
+    List<MouvementNetJourProjection> sumNetGroupByStockAndJour(@Param("debut") LocalDateTime debut);
+}
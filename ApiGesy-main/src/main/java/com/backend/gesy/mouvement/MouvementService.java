@@ -2,6 +2,7 @@ package com.backend.gesy.mouvement;
 
 import com.backend.gesy.mouvement.dto.MouvementDTO;
 import com.backend.gesy.mouvement.dto.MouvementPageDTO;
+import com.backend.gesy.pagination.CurseurPageDTO;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
@@ -12,6 +13,8 @@ public interface MouvementService {
     List<MouvementDTO> findAll();
     List<MouvementDTO> findRecent(int limit);
     MouvementPageDTO findAllPaginated(Pageable pageable);
+    /** Journal par curseur (dateMouvement, id) : {@code curseur} null pour la première page. */
+    CurseurPageDTO<MouvementDTO> findJournalParCurseur(String curseur, int size);
     MouvementPageDTO findByDate(LocalDate date, Pageable pageable);
     MouvementPageDTO findByDateRange(LocalDate startDate, LocalDate endDate, Pageable pageable);
     Optional<MouvementDTO> findById(Long id);
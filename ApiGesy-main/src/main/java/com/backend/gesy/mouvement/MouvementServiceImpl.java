@@ -3,6 +3,8 @@ package com.backend.gesy.mouvement;
 import com.backend.gesy.mouvement.dto.MouvementDTO;
 import com.backend.gesy.mouvement.dto.MouvementMapper;
 import com.backend.gesy.mouvement.dto.MouvementPageDTO;
+import com.backend.gesy.pagination.Curseur;
+import com.backend.gesy.pagination.CurseurPageDTO;
 import com.backend.gesy.stock.Stock;
 import com.backend.gesy.stock.StockRepository;
 import lombok.RequiredArgsConstructor;
@@ -16,6 +18,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -58,6 +61,18 @@ public class MouvementServiceImpl implements MouvementService {
         return dto;
     }
 
+    @Override
+    public CurseurPageDTO<MouvementDTO> findJournalParCurseur(String curseur, int size) {
+        Curseur position = Curseur.decoder(curseur);
+        int taille = Math.max(size, 1);
+        // Une ligne de plus que demandé pour savoir s'il existe une suite
+        Pageable limite = PageRequest.of(0, taille + 1);
+        List<Mouvement> lignes = position == null
+            ? mouvementRepository.findPremieresLignesJournal(limite)
+            : mouvementRepository.findLignesJournalApres(position.date(), position.id(), limite);
+        return CurseurPageDTO.depuis(lignes, taille, m -> new Curseur(m.getDateMouvement(), m.getId()), mouvementMapper::toDTO);
+    }
+
     @Override
     public MouvementPageDTO findByDate(LocalDate date, Pageable pageable) {
         // Convertir LocalDate en LocalDateTime (début et fin de jour)
@@ -111,6 +126,7 @@ public class MouvementServiceImpl implements MouvementService {
             .collect(Collectors.toList());
     }
 
+    /** Saisie manuelle au journal : le stock n'est pas modifié (cession null, hors variations des clôtures). */
     @Override
     public MouvementDTO save(MouvementDTO mouvementDTO) {
         Mouvement mouvement = mouvementMapper.toEntity(mouvementDTO);
@@ -135,6 +151,8 @@ public class MouvementServiceImpl implements MouvementService {
         
         Mouvement mouvement = mouvementMapper.toEntity(mouvementDTO);
         mouvement.setId(existingMouvement.getId());
+        mouvement.setDateMouvement(existingMouvement.getDateMouvement());
+        mouvement.setCession(existingMouvement.getCession());
 
         // Récupérer le stock
         if (mouvementDTO.getStockId() != null) {
@@ -144,6 +162,10 @@ public class MouvementServiceImpl implements MouvementService {
         } else {
             mouvement.setStock(existingMouvement.getStock());
         }
+        if (existingMouvement.getCession() != null && modifieLeStock(existingMouvement, mouvement)) {
+            throw new RuntimeException("Le mouvement avec l'id: " + id
+                + " a été appliqué au stock : seuls l'unité et la description sont modifiables");
+        }
 
         Mouvement updatedMouvement = mouvementRepository.save(mouvement);
         return mouvementMapper.toDTO(updatedMouvement);
@@ -151,7 +173,19 @@ public class MouvementServiceImpl implements MouvementService {
 
     @Override
     public void deleteById(Long id) {
-        mouvementRepository.deleteById(id);
+        Mouvement mouvement = mouvementRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Mouvement non trouvé avec l'id: " + id));
+        // Les clôtures de stock remontent le temps avec ces mouvements : ils ne peuvent pas disparaître du journal
+        if (mouvement.getCession() != null) {
+            throw new RuntimeException("Le mouvement avec l'id: " + id + " a été appliqué au stock et ne peut pas être supprimé");
+        }
+        mouvementRepository.delete(mouvement);
+    }
+
+    private boolean modifieLeStock(Mouvement existant, Mouvement modifie) {
+        return !existant.getStock().getId().equals(modifie.getStock().getId())
+            || existant.getTypeMouvement() != modifie.getTypeMouvement()
+            || !Objects.equals(existant.getQuantite(), modifie.getQuantite());
     }
 }
 
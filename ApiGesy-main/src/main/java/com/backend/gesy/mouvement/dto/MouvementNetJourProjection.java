@@ -0,0 +1,12 @@
+package com.backend.gesy.mouvement.dto;
+
+import java.time.LocalDate;
+
+/** Projection d'agrégat : variation nette (entrées - sorties) de la quantité disponible d'un stock sur un jour. */
+public interface MouvementNetJourProjection {
+    Long getStockId();
+
+    LocalDate getJour();
+
+    Double getNet();
+}
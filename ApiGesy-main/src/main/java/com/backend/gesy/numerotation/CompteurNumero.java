@@ -0,0 +1,33 @@
+package com.backend.gesy.numerotation;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Compteur de numérotation partagé entre les instances de l'API.
+ * {@code valeur} est le dernier numéro réservé pour la clé (ex. "VOY-2026") : chaque instance
+ * réserve des blocs en verrouillant la ligne, puis distribue les numéros du bloc en mémoire.
+ */
+@Entity
+@Table(name = "compteurs_numero")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompteurNumero {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String cle;
+
+    @Column(nullable = false)
+    private Long valeur;
+
+    @Column(name = "date_modification")
+    private LocalDateTime dateModification;
+}
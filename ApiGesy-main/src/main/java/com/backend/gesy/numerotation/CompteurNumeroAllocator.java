@@ -0,0 +1,69 @@
+package com.backend.gesy.numerotation;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Réserve des blocs de numéros dans la table des compteurs, chacun dans sa propre transaction
+ * afin de relâcher le verrou immédiatement et de ne jamais rendre un bloc déjà distribué.
+ */
+@Component
+@RequiredArgsConstructor
+class CompteurNumeroAllocator {
+    private final CompteurNumeroRepository compteurNumeroRepository;
+
+    /**
+     * Crée le compteur s'il n'existe pas encore, initialisé au plus haut numéro déjà utilisé.
+     * Une violation d'unicité signifie qu'une autre instance l'a créé entre-temps.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void initialiserSiAbsent(String cle, LongSupplier plusHautExistant) {
+        if (compteurNumeroRepository.existsByCle(cle)) {
+            return;
+        }
+        CompteurNumero compteur = new CompteurNumero();
+        compteur.setCle(cle);
+        compteur.setValeur(Math.max(0L, plusHautExistant.getAsLong()));
+        compteur.setDateModification(LocalDateTime.now());
+        compteurNumeroRepository.saveAndFlush(compteur);
+    }
+
+    /**
+     * Réserve {@code taille} numéros consécutifs et retourne le premier, ou vide si le compteur n'existe pas.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public OptionalLong reserverBloc(String cle, int taille) {
+        Optional<CompteurNumero> existant = compteurNumeroRepository.findByCleForUpdate(cle);
+        if (existant.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        CompteurNumero compteur = existant.get();
+        long premier = compteur.getValeur() + 1;
+        compteur.setValeur(compteur.getValeur() + taille);
+        compteur.setDateModification(LocalDateTime.now());
+        compteurNumeroRepository.save(compteur);
+        return OptionalLong.of(premier);
+    }
+
+    /**
+     * Remonte le compteur existant au plus haut numéro existant s'il est en dessous ; la création
+     * éventuelle passe avant par {@link #initialiserSiAbsent}, dans sa propre transaction.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void recaler(String cle, long plusHautExistant) {
+        CompteurNumero compteur = compteurNumeroRepository.findByCleForUpdate(cle)
+                .orElseThrow(() -> new RuntimeException("Compteur de numérotation non trouvé avec la clé: " + cle));
+        if (compteur.getValeur() < plusHautExistant) {
+            compteur.setValeur(plusHautExistant);
+            compteur.setDateModification(LocalDateTime.now());
+            compteurNumeroRepository.save(compteur);
+        }
+    }
+}
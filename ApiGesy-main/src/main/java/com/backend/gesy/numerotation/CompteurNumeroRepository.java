@@ -0,0 +1,20 @@
+package com.backend.gesy.numerotation;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CompteurNumeroRepository extends JpaRepository<CompteurNumero, Long> {
+    boolean existsByCle(String cle);
+
+    // Lecture avec verrou d'écriture (SELECT ... FOR UPDATE) pour réserver un bloc sans concurrence
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM CompteurNumero c WHERE c.cle = :cle")
+    Optional<CompteurNumero> findByCleForUpdate(@Param("cle") String cle);
+}
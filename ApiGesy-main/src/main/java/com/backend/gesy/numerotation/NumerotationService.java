@@ -0,0 +1,54 @@
+package com.backend.gesy.numerotation;
+
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+public interface NumerotationService {
+    /**
+     * Prochain numéro pour la clé donnée (ex. "VOY-2026"). Les numéros sont uniques entre instances
+     * et croissants par instance ; des trous peuvent apparaître (bloc non épuisé à l'arrêt).
+     *
+     * @param plusHautExistant plus haut numéro déjà présent en base, appelé une seule fois
+     *                         à la création du compteur
+     */
+    long prochain(String cle, LongSupplier plusHautExistant);
+
+    /**
+     * Prochain numéro {@code prefixe + NNNN} (complété à {@code chiffres} chiffres), le préfixe servant de clé.
+     *
+     * @param numerosExistants numéros commençant par le préfixe, du plus haut au plus bas ; seule la
+     *                         première ligne est lue, une fois, à la création du compteur
+     * @param existe           écarte les numéros déjà créés hors compteur
+     */
+    String prochainNumero(String prefixe, int chiffres, Function<Pageable, List<String>> numerosExistants,
+                          Predicate<String> existe);
+
+    /**
+     * Prochain numéro {@code prefixe + NNNN} tiré du compteur {@code cle}, pour les numéros dont le préfixe
+     * ne sert pas de clé (ex. bons d'enlèvement, préfixe vide).
+     *
+     * @param plusHautExistant plus haut numéro déjà présent en base, appelé une seule fois
+     *                         à la création du compteur
+     * @param existe           écarte les numéros déjà créés hors compteur
+     */
+    String prochainNumero(String cle, String prefixe, int chiffres, LongSupplier plusHautExistant,
+                          Predicate<String> existe);
+
+    /**
+     * Garantit que le compteur du préfixe est au moins au plus haut numéro existant (création si absent)
+     * et abandonne le bloc local, par exemple au démarrage après des insertions hors compteur.
+     *
+     * @param numerosExistants numéros commençant par le préfixe, du plus haut au plus bas
+     */
+    void recaler(String prefixe, Function<Pageable, List<String>> numerosExistants);
+
+    /**
+     * Garantit que le compteur {@code cle} est au moins à {@code plusHautExistant} (création si absent)
+     * et abandonne le bloc local.
+     */
+    void recaler(String cle, LongSupplier plusHautExistant);
+}
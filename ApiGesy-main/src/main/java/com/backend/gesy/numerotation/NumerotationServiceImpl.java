@@ -0,0 +1,117 @@
+package com.backend.gesy.numerotation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Distribue les numéros à partir de blocs réservés en base : un aller-retour base tous les
+ * {@code numerotation.taille-bloc} numéros, aucune lecture des tables métier hors initialisation.
+ */
+@Service
+public class NumerotationServiceImpl implements NumerotationService {
+    private final CompteurNumeroAllocator allocator;
+    private final int tailleBloc;
+    private final Map<String, Bloc> blocs = new ConcurrentHashMap<>();
+
+    public NumerotationServiceImpl(CompteurNumeroAllocator allocator,
+                                   @Value("${numerotation.taille-bloc:10}") int tailleBloc) {
+        this.allocator = allocator;
+        this.tailleBloc = Math.max(1, tailleBloc);
+    }
+
+    @Override
+    public long prochain(String cle, LongSupplier plusHautExistant) {
+        Bloc bloc = blocs.computeIfAbsent(cle, k -> new Bloc());
+        synchronized (bloc) {
+            if (bloc.prochain > bloc.limite) {
+                long premier = reserver(cle, plusHautExistant);
+                bloc.prochain = premier;
+                bloc.limite = premier + tailleBloc - 1;
+            }
+            return bloc.prochain++;
+        }
+    }
+
+    @Override
+    public String prochainNumero(String prefixe, int chiffres, Function<Pageable, List<String>> numerosExistants,
+                                 Predicate<String> existe) {
+        return prochainNumero(prefixe, prefixe, chiffres, () -> plusHautNumero(prefixe, numerosExistants), existe);
+    }
+
+    @Override
+    public String prochainNumero(String cle, String prefixe, int chiffres, LongSupplier plusHautExistant,
+                                 Predicate<String> existe) {
+        String format = "%0" + chiffres + "d";
+        String numero;
+        // La vérification ne protège que des numéros créés hors compteur
+        do {
+            numero = prefixe + String.format(format, prochain(cle, plusHautExistant));
+        } while (existe.test(numero));
+        return numero;
+    }
+
+    @Override
+    public void recaler(String prefixe, Function<Pageable, List<String>> numerosExistants) {
+        recaler(prefixe, () -> plusHautNumero(prefixe, numerosExistants));
+    }
+
+    @Override
+    public void recaler(String cle, LongSupplier plusHautExistant) {
+        long plusHaut = plusHautExistant.getAsLong();
+        Bloc bloc = blocs.computeIfAbsent(cle, k -> new Bloc());
+        synchronized (bloc) {
+            try {
+                allocator.initialiserSiAbsent(cle, () -> plusHaut);
+            } catch (DataIntegrityViolationException dejaCree) {
+                // Créé par une autre instance entre-temps : le recalage passe alors par le compteur existant
+            }
+            allocator.recaler(cle, plusHaut);
+            bloc.prochain = 1;
+            bloc.limite = 0;
+        }
+    }
+
+    private long reserver(String cle, LongSupplier plusHautExistant) {
+        OptionalLong premier = allocator.reserverBloc(cle, tailleBloc);
+        if (premier.isPresent()) {
+            return premier.getAsLong();
+        }
+        try {
+            allocator.initialiserSiAbsent(cle, plusHautExistant);
+        } catch (DataIntegrityViolationException dejaCree) {
+            // Créé par une autre instance : on réserve simplement sur le compteur existant
+        }
+        return allocator.reserverBloc(cle, tailleBloc)
+                .orElseThrow(() -> new RuntimeException("Compteur de numérotation non trouvé avec la clé: " + cle));
+    }
+
+    /** Suffixe numérique du plus haut numéro existant, 0 si aucun (ou mal formaté). */
+    private long plusHautNumero(String prefixe, Function<Pageable, List<String>> numerosExistants) {
+        List<String> numeros = numerosExistants.apply(PageRequest.of(0, 1));
+        if (numeros.isEmpty() || numeros.get(0) == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(numeros.get(0).substring(prefixe.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            // Ignorer les numéros mal formatés
+            return 0;
+        }
+    }
+
+    private static final class Bloc {
+        private long prochain = 1;
+        private long limite = 0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.backend.gesy.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position dans un journal trié par (date DESC, id DESC) : la page suivante commence strictement
+ * après cette ligne. Transmise au client sous forme de jeton opaque (Base64 URL).
+ */
+public record Curseur(LocalDateTime date, Long id) {
+
+    private static final String SEPARATEUR = "|";
+
+    public String encoder() {
+        String brut = date + SEPARATEUR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(brut.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Décode un jeton reçu du client ; {@code null} ou vide = première page. */
+    public static Curseur decoder(String jeton) {
+        if (jeton == null || jeton.isBlank()) {
+            return null;
+        }
+        try {
+            String brut = new String(Base64.getUrlDecoder().decode(jeton), StandardCharsets.UTF_8);
+            int separateur = brut.lastIndexOf(SEPARATEUR);
+            return new Curseur(
+                LocalDateTime.parse(brut.substring(0, separateur)),
+                Long.valueOf(brut.substring(separateur + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Curseur de pagination invalide");
+        }
+    }
+}
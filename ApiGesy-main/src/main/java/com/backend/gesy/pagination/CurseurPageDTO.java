@@ -0,0 +1,34 @@
+package com.backend.gesy.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page d'un défilement par curseur : pas de total ni de numéro de page, seulement le jeton
+ * à renvoyer pour obtenir la suite ({@code null} en fin de journal).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurseurPageDTO<T> {
+    private List<T> elements;
+    private String curseurSuivant;
+    private boolean hasNext;
+    private int size;
+
+    /**
+     * Construit la page à partir de {@code size + 1} lignes lues en base : la ligne en trop
+     * indique seulement qu'une suite existe.
+     */
+    public static <E, T> CurseurPageDTO<T> depuis(List<E> lignes, int size,
+                                                 Function<E, Curseur> curseur, Function<E, T> mapper) {
+        boolean hasNext = lignes.size() > size;
+        List<E> page = hasNext ? lignes.subList(0, size) : lignes;
+        String curseurSuivant = hasNext ? curseur.apply(page.get(page.size() - 1)).encoder() : null;
+        return new CurseurPageDTO<>(page.stream().map(mapper).toList(), curseurSuivant, hasNext, size);
+    }
+}
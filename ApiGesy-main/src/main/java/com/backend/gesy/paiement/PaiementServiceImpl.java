@@ -7,6 +7,7 @@ import com.backend.gesy.facture.Facture;
 import com.backend.gesy.facture.FactureRepository;
 import com.backend.gesy.paiement.dto.PaiementDTO;
 import com.backend.gesy.paiement.dto.PaiementMapper;
+import com.backend.gesy.solde.SoldeUpdater;
 import com.backend.gesy.transaction.Transaction;
 import com.backend.gesy.transaction.TransactionRepository;
 import com.backend.gesy.comptebancaire.CompteBancaire;
@@ -59,6 +60,7 @@ public class PaiementServiceImpl implements PaiementService {
     private final VoyageRepository voyageRepository;
     private final FinanceEntityAccessService financeEntityAccessService;
     private final TransactionService transactionService;
+    private final SoldeUpdater soldeUpdater;
 
     /**
      * Au démarrage :
@@ -301,13 +303,11 @@ public class PaiementServiceImpl implements PaiementService {
                 
                 // Créditer le compte ou la caisse (paiement reçu = entrée d'argent)
                 if (compte != null) {
-                    compte.setSolde(compte.getSolde().add(transaction.getMontant()));
-                    compteBancaireRepository.save(compte);
+                    soldeUpdater.crediter(compte, transaction.getMontant());
                 }
                 
                 if (caisse != null) {
-                    caisse.setSolde(caisse.getSolde().add(transaction.getMontant()));
-                    caisseRepository.save(caisse);
+                    soldeUpdater.crediter(caisse, transaction.getMontant());
                 }
             }
         }
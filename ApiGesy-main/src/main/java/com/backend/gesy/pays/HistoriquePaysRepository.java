@@ -1,6 +1,7 @@
 package com.backend.gesy.pays;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -8,4 +9,8 @@ import java.util.List;
 @Repository
 public interface HistoriquePaysRepository extends JpaRepository<HistoriquePays, Long> {
     List<HistoriquePays> findByPaysIdOrderByDateModificationDesc(Long paysId);
+
+    // Historique complet en ordre chronologique (cache des tarifs, consultation à date)
+    @Query("SELECT h FROM HistoriquePays h JOIN FETCH h.pays ORDER BY h.dateModification, h.id")
+    List<HistoriquePays> findAllOrderByDateModification();
 }
@@ -3,10 +3,12 @@ package com.backend.gesy.pays;
 import com.backend.gesy.pays.dto.HistoriquePaysDTO;
 import com.backend.gesy.pays.dto.PaysDTO;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -62,4 +64,14 @@ public class PaysController {
     public ResponseEntity<List<HistoriquePaysDTO>> getHistorique(@PathVariable Long id) {
         return ResponseEntity.ok(paysService.getHistoriqueByPaysId(id));
     }
+
+    /** Tarif du pays de l'axe : courant, ou en vigueur à la date donnée. */
+    @GetMapping("/axes/{axeId}/tarif")
+    public ResponseEntity<TarifPays> getTarifAxe(
+            @PathVariable Long axeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date) {
+        return paysService.findTarifAxe(axeId, date)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 }
@@ -3,6 +3,7 @@ package com.backend.gesy.pays;
 import com.backend.gesy.pays.dto.HistoriquePaysDTO;
 import com.backend.gesy.pays.dto.PaysDTO;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +15,5 @@ public interface PaysService {
     PaysDTO update(Long id, PaysDTO dto);
     void deleteById(Long id);
     List<HistoriquePaysDTO> getHistoriqueByPaysId(Long paysId);
+    Optional<TarifPays> findTarifAxe(Long axeId, LocalDateTime date);
 }
@@ -6,6 +6,7 @@ import com.backend.gesy.pays.dto.HistoriquePaysDTO;
 import com.backend.gesy.pays.dto.PaysDTO;
 import com.backend.gesy.pays.dto.PaysMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -26,6 +27,8 @@ public class PaysServiceImpl implements PaysService {
     private final PaysMapper paysMapper;
     private final HistoriquePaysRepository historiquePaysRepository;
     private final AlerteRepository alerteRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TarifPaysCache tarifPaysCache;
 
     @Override
     @Transactional(readOnly = true)
@@ -60,7 +63,9 @@ public class PaysServiceImpl implements PaysService {
         entity.setFraisParLitre(dto.getFraisParLitre() != null ? dto.getFraisParLitre() : BigDecimal.ZERO);
         entity.setFraisParLitreGasoil(dto.getFraisParLitreGasoil() != null ? dto.getFraisParLitreGasoil() : BigDecimal.ZERO);
         entity.setFraisT1(dto.getFraisT1() != null ? dto.getFraisT1() : BigDecimal.ZERO);
-        return paysMapper.toDTO(paysRepository.save(entity));
+        PaysDTO saved = paysMapper.toDTO(paysRepository.save(entity));
+        eventPublisher.publishEvent(new TarifPaysModifieEvent());
+        return saved;
     }
 
     @Override
@@ -112,7 +117,10 @@ public class PaysServiceImpl implements PaysService {
         if (dto.getFraisParLitreGasoil() != null) existing.setFraisParLitreGasoil(dto.getFraisParLitreGasoil());
         if (dto.getFraisT1() != null) existing.setFraisT1(dto.getFraisT1());
 
-        return paysMapper.toDTO(paysRepository.save(existing));
+        PaysDTO updated = paysMapper.toDTO(paysRepository.save(existing));
+        // Nouvelle version du cache des tarifs après commit (nom et frais)
+        eventPublisher.publishEvent(new TarifPaysModifieEvent());
+        return updated;
     }
 
     @Override
@@ -121,6 +129,15 @@ public class PaysServiceImpl implements PaysService {
             throw new RuntimeException("Pays non trouvé avec l'id: " + id);
         }
         paysRepository.deleteById(id);
+        eventPublisher.publishEvent(new TarifPaysModifieEvent());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<TarifPays> findTarifAxe(Long axeId, LocalDateTime date) {
+        return Optional.ofNullable(date != null
+                ? tarifPaysCache.tarifAxeAu(axeId, date)
+                : tarifPaysCache.tarifAxe(axeId));
     }
 
     @Override
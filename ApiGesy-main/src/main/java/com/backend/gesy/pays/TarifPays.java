@@ -0,0 +1,17 @@
+package com.backend.gesy.pays;
+
+import java.math.BigDecimal;
+
+/**
+ * Tarif douanier d'un pays tel que lu dans {@link TarifPaysCache}.
+ *
+ * @param version version du cache au moment du chargement (incrémentée à chaque modification de tarif)
+ */
+public record TarifPays(Long paysId, String paysNom, BigDecimal fraisParLitre, BigDecimal fraisParLitreGasoil,
+                        BigDecimal fraisT1, long version) {
+
+    /** Frais au litre selon le produit : tarif gasoil pour le GAZOLE, tarif essence sinon. */
+    public BigDecimal fraisParLitre(boolean gasoil) {
+        return gasoil ? fraisParLitreGasoil : fraisParLitre;
+    }
+}
@@ -0,0 +1,136 @@
+package com.backend.gesy.pays;
+
+import com.backend.gesy.axe.AxeRepository;
+import com.backend.gesy.pays.dto.TarifAxeProjection;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tarifs douaniers (frais au litre essence / gasoil, frais T1) par axe, en mémoire.
+ * <p>
+ * Tous les tarifs et l'historique {@link HistoriquePays} sont chargés en deux requêtes, puis servis sans
+ * accès base jusqu'à la prochaine modification ({@link TarifPaysModifieEvent}). Chaque chargement porte
+ * la version courante : un chargement commencé avant une modification n'est jamais servi après elle.
+ * Le chargement se fait dans sa propre transaction : dans celle de l'appelant (REPEATABLE READ sous MySQL),
+ * l'instantané peut être antérieur à la modification et les anciens tarifs seraient mis en cache sous la
+ * nouvelle version.
+ */
+@Component
+public class TarifPaysCache {
+
+    private final AxeRepository axeRepository;
+    private final HistoriquePaysRepository historiquePaysRepository;
+    private final TransactionTemplate transactionChargement;
+
+    private final AtomicLong version = new AtomicLong();
+    private final Object verrouChargement = new Object();
+
+    private volatile Tarifs courant;
+
+    /** Changement de tarif d'un pays : valeurs en vigueur jusqu'à {@code date}. */
+    private record Changement(LocalDateTime date, TarifPays ancien) {
+    }
+
+    private record Tarifs(long version, Map<Long, TarifPays> parAxe, Map<Long, List<Changement>> historiqueParPays) {
+    }
+
+    public TarifPaysCache(AxeRepository axeRepository, HistoriquePaysRepository historiquePaysRepository,
+                          PlatformTransactionManager transactionManager) {
+        this.axeRepository = axeRepository;
+        this.historiquePaysRepository = historiquePaysRepository;
+        this.transactionChargement = new TransactionTemplate(transactionManager);
+        this.transactionChargement.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionChargement.setReadOnly(true);
+    }
+
+    /**
+     * Tarif courant du pays de l'axe, ou null si l'axe n'existe pas ou n'a pas de pays.
+     */
+    public TarifPays tarifAxe(Long axeId) {
+        if (axeId == null) {
+            return null;
+        }
+        return lire().parAxe().get(axeId);
+    }
+
+    /**
+     * Tarif du pays de l'axe en vigueur à une date, reconstitué depuis l'historique des modifications :
+     * ce sont les anciennes valeurs du premier changement postérieur à la date, ou le tarif courant s'il
+     * n'y en a pas. Le pays retenu est celui actuellement rattaché à l'axe.
+     */
+    public TarifPays tarifAxeAu(Long axeId, LocalDateTime date) {
+        Tarifs tarifs = lire();
+        TarifPays actuel = axeId != null ? tarifs.parAxe().get(axeId) : null;
+        if (actuel == null || date == null) {
+            return actuel;
+        }
+        for (Changement changement : tarifs.historiqueParPays().getOrDefault(actuel.paysId(), List.of())) {
+            if (changement.date().isAfter(date)) {
+                return changement.ancien();
+            }
+        }
+        return actuel;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTarifPaysModifie(TarifPaysModifieEvent event) {
+        invalider();
+    }
+
+    public void invalider() {
+        version.incrementAndGet();
+    }
+
+    private Tarifs lire() {
+        Tarifs tarifs = courant;
+        if (tarifs != null && tarifs.version() == version.get()) {
+            return tarifs;
+        }
+        synchronized (verrouChargement) {
+            long versionLue = version.get();
+            if (courant != null && courant.version() == versionLue) {
+                return courant;
+            }
+            courant = transactionChargement.execute(statut -> charger(versionLue));
+            return courant;
+        }
+    }
+
+    private Tarifs charger(long versionLue) {
+        Map<Long, TarifPays> parAxe = new HashMap<>();
+        for (TarifAxeProjection t : axeRepository.findTarifsParAxe()) {
+            parAxe.put(t.getAxeId(), new TarifPays(t.getPaysId(), t.getPaysNom(), montant(t.getFraisParLitre()),
+                    montant(t.getFraisParLitreGasoil()), montant(t.getFraisT1()), versionLue));
+        }
+
+        // Historique trié par date : la liste de chaque pays reste chronologique
+        Map<Long, List<Changement>> historiqueParPays = new HashMap<>();
+        for (HistoriquePays h : historiquePaysRepository.findAllOrderByDateModification()) {
+            Long paysId = h.getPays().getId();
+            TarifPays ancien = new TarifPays(paysId, h.getPays().getNom(), montant(h.getAncienFraisParLitre()),
+                    montant(h.getAncienFraisParLitreGasoil()), montant(h.getAncienFraisT1()), versionLue);
+            historiqueParPays.computeIfAbsent(paysId, id -> new ArrayList<>())
+                    .add(new Changement(h.getDateModification(), ancien));
+        }
+        return new Tarifs(versionLue, Map.copyOf(parAxe), Map.copyOf(historiqueParPays));
+    }
+
+    private static BigDecimal montant(BigDecimal valeur) {
+        return valeur != null ? valeur : BigDecimal.ZERO;
+    }
+}
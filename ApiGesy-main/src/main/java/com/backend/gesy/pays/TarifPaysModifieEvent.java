@@ -0,0 +1,8 @@
+package com.backend.gesy.pays;
+
+/**
+ * Événement publié lorsqu'un tarif pays ou le pays d'un axe change.
+ * Traité après commit par {@link TarifPaysCache}, qui passe à une nouvelle version.
+ */
+public class TarifPaysModifieEvent {
+}
@@ -0,0 +1,18 @@
+package com.backend.gesy.pays.dto;
+
+import java.math.BigDecimal;
+
+/** Tarif courant du pays rattaché à un axe (une ligne par axe ayant un pays). */
+public interface TarifAxeProjection {
+    Long getAxeId();
+
+    Long getPaysId();
+
+    String getPaysNom();
+
+    BigDecimal getFraisParLitre();
+
+    BigDecimal getFraisParLitreGasoil();
+
+    BigDecimal getFraisT1();
+}
@@ -0,0 +1,132 @@
+package com.backend.gesy.rapport;
+
+import com.backend.gesy.depense.DepenseRepository;
+import com.backend.gesy.depense.dto.DepenseMontantDateProjection;
+import com.backend.gesy.facture.Facture;
+import com.backend.gesy.facture.FactureRepository;
+import com.backend.gesy.facture.dto.FactureMontantJourProjection;
+import com.backend.gesy.rapport.dto.RapportFinancierDTO;
+import com.backend.gesy.transaction.Transaction;
+import com.backend.gesy.transaction.TransactionRepository;
+import com.backend.gesy.transaction.dto.TransactionMontantDateProjection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Construit la série mensuelle du rapport financier (chiffre d'affaires, dépenses, bénéfice).
+ * Factures, transactions et dépenses de la fenêtre sont lues une seule fois chacune, en flux trié par date,
+ * et cumulées dans un accumulateur par mois : la mémoire dépend du nombre de mois, pas de l'historique.
+ */
+@Component
+@RequiredArgsConstructor
+public class RapportMensuelBuilder {
+    /** Factures comptées dans le chiffre d'affaires. */
+    static final Set<Facture.StatutFacture> STATUTS_CHIFFRE_AFFAIRES =
+            EnumSet.of(Facture.StatutFacture.PAYEE, Facture.StatutFacture.PARTIELLEMENT_PAYEE);
+
+    /** Types de transaction comptés comme dépenses (FRAIS_DOUANE et FRAIS_T1 sont traités dans les frais douaniers). */
+    static final Set<Transaction.TypeTransaction> TYPES_DEPENSE = EnumSet.of(
+            Transaction.TypeTransaction.FRAIS,
+            Transaction.TypeTransaction.FRAIS_LOCATION,
+            Transaction.TypeTransaction.FRAIS_FRONTIERE,
+            Transaction.TypeTransaction.SALAIRE,
+            Transaction.TypeTransaction.TS_FRAIS_PRESTATIONS,
+            Transaction.TypeTransaction.FRAIS_REPERTOIRE,
+            Transaction.TypeTransaction.FRAIS_CHAMBRE_COMMERCE,
+            Transaction.TypeTransaction.INTERET);
+
+    private final FactureRepository factureRepository;
+    private final TransactionRepository transactionRepository;
+    private final DepenseRepository depenseRepository;
+
+    /**
+     * Données des {@code nombreMois} derniers mois, du plus ancien au mois en cours (limité à {@code today}).
+     */
+    @Transactional(readOnly = true)
+    public List<RapportFinancierDTO.DonneeMensuelleDTO> construire(int nombreMois, LocalDate today) {
+        Map<YearMonth, CumulMensuel> cumuls = new LinkedHashMap<>();
+        YearMonth moisCourant = YearMonth.from(today);
+        for (int i = nombreMois - 1; i >= 0; i--) {
+            YearMonth mois = moisCourant.minusMonths(i);
+            cumuls.put(mois, new CumulMensuel(mois));
+        }
+        if (cumuls.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        LocalDate debut = moisCourant.minusMonths(nombreMois - 1).atDay(1);
+        // Borne haute exclusive : lendemain d'aujourd'hui
+        LocalDate finExclusive = today.plusDays(1);
+
+        try (Stream<FactureMontantJourProjection> factures = factureRepository.streamMontantsByStatutsAndDateBetween(
+                STATUTS_CHIFFRE_AFFAIRES, debut, today)) {
+            factures.forEach(f -> cumul(cumuls, f.getJour()).ajouterChiffreAffaires(f.getMontant()));
+        }
+
+        try (Stream<TransactionMontantDateProjection> transactions = transactionRepository.streamMontantsByStatutAndTypesAndDateRange(
+                Transaction.StatutTransaction.VALIDE, TYPES_DEPENSE, debut.atStartOfDay(), finExclusive.atStartOfDay())) {
+            transactions.forEach(t -> cumul(cumuls, t.getDate().toLocalDate()).ajouterDepense(t.getMontant()));
+        }
+
+        try (Stream<DepenseMontantDateProjection> depenses = depenseRepository.streamMontantsByDateRange(
+                debut.atStartOfDay(), finExclusive.atStartOfDay())) {
+            depenses.forEach(d -> cumul(cumuls, d.getDateDepense().toLocalDate()).ajouterDepense(d.getMontant()));
+        }
+
+        List<RapportFinancierDTO.DonneeMensuelleDTO> donnees = new ArrayList<>(cumuls.size());
+        for (CumulMensuel cumul : cumuls.values()) {
+            donnees.add(cumul.toDto());
+        }
+        return donnees;
+    }
+
+    private static CumulMensuel cumul(Map<YearMonth, CumulMensuel> cumuls, LocalDate jour) {
+        // Les requêtes sont bornées à la fenêtre : le mois est toujours présent
+        return cumuls.get(YearMonth.from(jour));
+    }
+
+    private static final class CumulMensuel {
+        private final YearMonth mois;
+        private BigDecimal chiffreAffaires = BigDecimal.ZERO;
+        private BigDecimal depenses = BigDecimal.ZERO;
+
+        private CumulMensuel(YearMonth mois) {
+            this.mois = mois;
+        }
+
+        private void ajouterChiffreAffaires(BigDecimal montant) {
+            if (montant != null) {
+                chiffreAffaires = chiffreAffaires.add(montant);
+            }
+        }
+
+        private void ajouterDepense(BigDecimal montant) {
+            if (montant != null) {
+                depenses = depenses.add(montant);
+            }
+        }
+
+        private RapportFinancierDTO.DonneeMensuelleDTO toDto() {
+            RapportFinancierDTO.DonneeMensuelleDTO donnee = new RapportFinancierDTO.DonneeMensuelleDTO();
+            donnee.setMois(mois.getMonth().getDisplayName(TextStyle.SHORT, Locale.FRENCH));
+            donnee.setChiffreAffaires(chiffreAffaires);
+            donnee.setDepenses(depenses);
+            donnee.setBenefice(chiffreAffaires.subtract(depenses));
+            return donnee;
+        }
+    }
+}
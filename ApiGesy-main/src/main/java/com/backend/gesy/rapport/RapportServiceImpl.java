@@ -1,10 +1,7 @@
 package com.backend.gesy.rapport;
 
-import com.backend.gesy.depense.Depense;
 import com.backend.gesy.depense.DepenseRepository;
-import com.backend.gesy.facture.Facture;
 import com.backend.gesy.facture.FactureRepository;
-import com.backend.gesy.manquant.Manquant;
 import com.backend.gesy.manquant.ManquantRepository;
 import com.backend.gesy.rapport.dto.RapportFinancierDTO;
 import com.backend.gesy.transaction.Transaction;
@@ -16,7 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.format.TextStyle;
+import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,10 +21,14 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Transactional
 public class RapportServiceImpl implements RapportService {
+    /** Types lus pour le rapport : dépenses et frais douaniers (FRAIS_DOUANE, FRAIS_T1). */
+    private static final Set<Transaction.TypeTransaction> TYPES_RAPPORT = typesRapport();
+
     private final FactureRepository factureRepository;
     private final TransactionRepository transactionRepository;
     private final DepenseRepository depenseRepository;
     private final ManquantRepository manquantRepository;
+    private final RapportMensuelBuilder rapportMensuelBuilder;
 
     @Override
     public RapportFinancierDTO getRapportFinancier(String periode, Integer annee, LocalDate dateDebut, LocalDate dateFin) {
@@ -60,8 +61,11 @@ public class RapportServiceImpl implements RapportService {
             endDate = today;
         }
 
+        // Sommes des transactions validées par type : une requête groupée par période
+        Map<Transaction.TypeTransaction, BigDecimal> transactionsParType = sommerTransactionsParType(startDate, endDate);
+
         // Calculer les stats pour la période actuelle
-        RapportFinancierDTO.StatsFinancieres stats = calculerStatsFinancieres(startDate, endDate);
+        RapportFinancierDTO.StatsFinancieres stats = calculerStatsFinancieres(startDate, endDate, transactionsParType);
         
         // Calculer les stats pour la période précédente (pour l'évolution)
         LocalDate previousStartDate;
@@ -82,7 +86,8 @@ public class RapportServiceImpl implements RapportService {
             previousEndDate = startDate.minusDays(1);
         }
         
-        RapportFinancierDTO.StatsFinancieres previousStats = calculerStatsFinancieres(previousStartDate, previousEndDate);
+        Map<Transaction.TypeTransaction, BigDecimal> previousTransactionsParType = sommerTransactionsParType(previousStartDate, previousEndDate);
+        RapportFinancierDTO.StatsFinancieres previousStats = calculerStatsFinancieres(previousStartDate, previousEndDate, previousTransactionsParType);
         
         // Calculer les évolutions
         calculerEvolutions(stats, previousStats);
@@ -94,16 +99,16 @@ public class RapportServiceImpl implements RapportService {
         stats.getBenefice().setPeriode(periodeLabel);
 
         // Calculer les données mensuelles (6 derniers mois)
-        List<RapportFinancierDTO.DonneeMensuelleDTO> donneesMensuelles = calculerDonneesMensuelles(6);
+        List<RapportFinancierDTO.DonneeMensuelleDTO> donneesMensuelles = rapportMensuelBuilder.construire(6, today);
 
         // Calculer les catégories de dépenses
-        List<RapportFinancierDTO.CategorieDepenseDTO> categoriesDepenses = calculerCategoriesDepenses(startDate, endDate);
+        List<RapportFinancierDTO.CategorieDepenseDTO> categoriesDepenses = calculerCategoriesDepenses(transactionsParType);
 
         // Calculer les frais douaniers
-        RapportFinancierDTO.FraisDouaniers fraisDouaniers = calculerFraisDouaniers(startDate, endDate, periode, previousStartDate, previousEndDate);
+        RapportFinancierDTO.FraisDouaniers fraisDouaniers = calculerFraisDouaniers(transactionsParType, previousTransactionsParType);
 
         // Calculer les pertes (manquants)
-        RapportFinancierDTO.Pertes pertes = calculerPertes(startDate, endDate, periode, previousStartDate, previousEndDate);
+        RapportFinancierDTO.Pertes pertes = calculerPertes(startDate, endDate, previousStartDate, previousEndDate);
 
         RapportFinancierDTO rapport = new RapportFinancierDTO();
         rapport.setStats(stats);
@@ -115,43 +120,30 @@ public class RapportServiceImpl implements RapportService {
         return rapport;
     }
 
-    private RapportFinancierDTO.StatsFinancieres calculerStatsFinancieres(LocalDate startDate, LocalDate endDate) {
+    private Map<Transaction.TypeTransaction, BigDecimal> sommerTransactionsParType(LocalDate startDate, LocalDate endDate) {
+        Map<Transaction.TypeTransaction, BigDecimal> montants = new EnumMap<>(Transaction.TypeTransaction.class);
+        transactionRepository.sumMontantGroupByTypeAndStatutAndDateRange(Transaction.StatutTransaction.VALIDE,
+                TYPES_RAPPORT, startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX))
+            .forEach(ligne -> montants.put(ligne.getType(), ligne.getMontant()));
+        return montants;
+    }
+
+    private RapportFinancierDTO.StatsFinancieres calculerStatsFinancieres(LocalDate startDate, LocalDate endDate,
+                                                                          Map<Transaction.TypeTransaction, BigDecimal> transactionsParType) {
         // Chiffre d'affaires : somme des montants TTC des factures payées ou partiellement payées
-        List<Facture> factures = factureRepository.findAll().stream()
-            .filter(f -> f.getDate() != null && 
-                        !f.getDate().isBefore(startDate) && 
-                        !f.getDate().isAfter(endDate) &&
-                        (f.getStatut() == Facture.StatutFacture.PAYEE || 
-                         f.getStatut() == Facture.StatutFacture.PARTIELLEMENT_PAYEE))
-            .toList();
-
-        BigDecimal chiffreAffaires = factures.stream()
-            .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : f.getMontant())
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal chiffreAffaires = factureRepository.sumMontantTTCByStatutsAndDateBetween(
+                RapportMensuelBuilder.STATUTS_CHIFFRE_AFFAIRES, startDate, endDate);
 
         // Dépenses : somme des transactions de type dépense avec statut VALIDE + dépenses (Depense)
-        List<Transaction> transactions = transactionRepository.findAll().stream()
-            .filter(t -> t.getDate() != null &&
-                        !t.getDate().toLocalDate().isBefore(startDate) &&
-                        !t.getDate().toLocalDate().isAfter(endDate) &&
-                        t.getStatut() == Transaction.StatutTransaction.VALIDE &&
-                        isDepense(t.getType()))
-            .toList();
-
-        BigDecimal depensesTransactions = transactions.stream()
-            .map(Transaction::getMontant)
+        BigDecimal depensesTransactions = transactionsParType.entrySet().stream()
+            .filter(e -> isDepense(e.getKey()))
+            .map(Map.Entry::getValue)
             .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        // Ajouter les dépenses (Depense)
-        List<Depense> depensesList = depenseRepository.findAll().stream()
-            .filter(d -> d.getDateDepense() != null &&
-                        !d.getDateDepense().toLocalDate().isBefore(startDate) &&
-                        !d.getDateDepense().toLocalDate().isAfter(endDate))
-            .toList();
-
-        BigDecimal depensesMontant = depensesList.stream()
-            .map(Depense::getMontant)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal depensesMontant = depenseRepository.sumByDateRange(startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX));
+        if (depensesMontant == null) {
+            depensesMontant = BigDecimal.ZERO;
+        }
 
         BigDecimal depenses = depensesTransactions.add(depensesMontant);
 
@@ -220,91 +212,11 @@ public class RapportServiceImpl implements RapportService {
         return sign + pourcentage.setScale(1, RoundingMode.HALF_UP) + "%";
     }
 
-    private List<RapportFinancierDTO.DonneeMensuelleDTO> calculerDonneesMensuelles(int nombreMois) {
-        List<RapportFinancierDTO.DonneeMensuelleDTO> donnees = new ArrayList<>();
-        LocalDate today = LocalDate.now();
-        
-        for (int i = nombreMois - 1; i >= 0; i--) {
-            LocalDate moisDate = today.minusMonths(i);
-            LocalDate startOfMonth = moisDate.withDayOfMonth(1);
-            final LocalDate endOfMonth;
-            
-            // Si c'est le mois actuel, limiter à aujourd'hui
-            if (i == 0) {
-                endOfMonth = today;
-            } else {
-                endOfMonth = moisDate.withDayOfMonth(moisDate.lengthOfMonth());
-            }
-
-            // Chiffre d'affaires du mois
-            List<Facture> facturesMois = factureRepository.findAll().stream()
-                .filter(f -> f.getDate() != null &&
-                            !f.getDate().isBefore(startOfMonth) &&
-                            !f.getDate().isAfter(endOfMonth) &&
-                            (f.getStatut() == Facture.StatutFacture.PAYEE ||
-                             f.getStatut() == Facture.StatutFacture.PARTIELLEMENT_PAYEE))
-                .toList();
-
-            BigDecimal caMois = facturesMois.stream()
-                .map(f -> f.getMontantTTC() != null ? f.getMontantTTC() : f.getMontant())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            // Dépenses du mois : transactions + dépenses (Depense)
-            List<Transaction> transactionsMois = transactionRepository.findAll().stream()
-                .filter(t -> t.getDate() != null &&
-                            !t.getDate().toLocalDate().isBefore(startOfMonth) &&
-                            !t.getDate().toLocalDate().isAfter(endOfMonth) &&
-                            t.getStatut() == Transaction.StatutTransaction.VALIDE &&
-                            isDepense(t.getType()))
-                .toList();
-
-            BigDecimal depensesTransactionsMois = transactionsMois.stream()
-                .map(Transaction::getMontant)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            // Ajouter les dépenses (Depense) du mois
-            List<Depense> depensesListMois = depenseRepository.findAll().stream()
-                .filter(d -> d.getDateDepense() != null &&
-                            !d.getDateDepense().toLocalDate().isBefore(startOfMonth) &&
-                            !d.getDateDepense().toLocalDate().isAfter(endOfMonth))
-                .toList();
-
-            BigDecimal depensesMontantMois = depensesListMois.stream()
-                .map(Depense::getMontant)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal depensesMois = depensesTransactionsMois.add(depensesMontantMois);
-
-            BigDecimal beneficeMois = caMois.subtract(depensesMois);
-
-            RapportFinancierDTO.DonneeMensuelleDTO donnee = new RapportFinancierDTO.DonneeMensuelleDTO();
-            donnee.setMois(moisDate.getMonth().getDisplayName(TextStyle.SHORT, Locale.FRENCH));
-            donnee.setChiffreAffaires(caMois);
-            donnee.setDepenses(depensesMois);
-            donnee.setBenefice(beneficeMois);
-            
-            donnees.add(donnee);
-        }
-
-        return donnees;
-    }
-
-    private List<RapportFinancierDTO.CategorieDepenseDTO> calculerCategoriesDepenses(LocalDate startDate, LocalDate endDate) {
-        // Récupérer toutes les transactions de dépense
-        List<Transaction> transactions = transactionRepository.findAll().stream()
-            .filter(t -> t.getDate() != null &&
-                        !t.getDate().toLocalDate().isBefore(startDate) &&
-                        !t.getDate().toLocalDate().isAfter(endDate) &&
-                        t.getStatut() == Transaction.StatutTransaction.VALIDE &&
-                        isDepense(t.getType()))
-            .collect(Collectors.toList());
-
-        // Grouper par type de transaction
-        Map<Transaction.TypeTransaction, BigDecimal> depensesParType = transactions.stream()
-            .collect(Collectors.groupingBy(
-                Transaction::getType,
-                Collectors.reducing(BigDecimal.ZERO, Transaction::getMontant, BigDecimal::add)
-            ));
+    private List<RapportFinancierDTO.CategorieDepenseDTO> calculerCategoriesDepenses(Map<Transaction.TypeTransaction, BigDecimal> transactionsParType) {
+        // Transactions de dépense groupées par type
+        Map<Transaction.TypeTransaction, BigDecimal> depensesParType = transactionsParType.entrySet().stream()
+            .filter(e -> isDepense(e.getKey()))
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
 
         // Calculer le total des dépenses
         BigDecimal totalDepenses = depensesParType.values().stream()
@@ -356,57 +268,19 @@ public class RapportServiceImpl implements RapportService {
     }
 
     private boolean isDepense(Transaction.TypeTransaction type) {
-        return type == Transaction.TypeTransaction.FRAIS ||
-               type == Transaction.TypeTransaction.FRAIS_LOCATION ||
-               type == Transaction.TypeTransaction.FRAIS_FRONTIERE ||
-               type == Transaction.TypeTransaction.SALAIRE ||
-               type == Transaction.TypeTransaction.TS_FRAIS_PRESTATIONS ||
-               type == Transaction.TypeTransaction.FRAIS_REPERTOIRE ||
-               type == Transaction.TypeTransaction.FRAIS_CHAMBRE_COMMERCE ||
-               type == Transaction.TypeTransaction.INTERET;
-               // Note: FRAIS_DOUANE et FRAIS_T1 sont traités séparément dans fraisDouaniers
+        // Note: FRAIS_DOUANE et FRAIS_T1 sont traités séparément dans fraisDouaniers
+        return RapportMensuelBuilder.TYPES_DEPENSE.contains(type);
     }
 
-    private RapportFinancierDTO.FraisDouaniers calculerFraisDouaniers(LocalDate startDate, LocalDate endDate, String periode, LocalDate previousStartDate, LocalDate previousEndDate) {
-        // Récupérer les transactions de type FRAIS_DOUANE et FRAIS_T1
-        List<Transaction> fraisDouane = transactionRepository.findAll().stream()
-            .filter(t -> t.getDate() != null &&
-                        !t.getDate().toLocalDate().isBefore(startDate) &&
-                        !t.getDate().toLocalDate().isAfter(endDate) &&
-                        t.getStatut() == Transaction.StatutTransaction.VALIDE &&
-                        t.getType() == Transaction.TypeTransaction.FRAIS_DOUANE)
-            .toList();
-
-        List<Transaction> fraisT1 = transactionRepository.findAll().stream()
-            .filter(t -> t.getDate() != null &&
-                        !t.getDate().toLocalDate().isBefore(startDate) &&
-                        !t.getDate().toLocalDate().isAfter(endDate) &&
-                        t.getStatut() == Transaction.StatutTransaction.VALIDE &&
-                        t.getType() == Transaction.TypeTransaction.FRAIS_T1)
-            .toList();
-
-        BigDecimal totalFraisDouane = fraisDouane.stream()
-            .map(Transaction::getMontant)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalFraisT1 = fraisT1.stream()
-            .map(Transaction::getMontant)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
+    private RapportFinancierDTO.FraisDouaniers calculerFraisDouaniers(Map<Transaction.TypeTransaction, BigDecimal> transactionsParType,
+                                                                      Map<Transaction.TypeTransaction, BigDecimal> previousTransactionsParType) {
+        BigDecimal totalFraisDouane = transactionsParType.getOrDefault(Transaction.TypeTransaction.FRAIS_DOUANE, BigDecimal.ZERO);
+        BigDecimal totalFraisT1 = transactionsParType.getOrDefault(Transaction.TypeTransaction.FRAIS_T1, BigDecimal.ZERO);
         BigDecimal total = totalFraisDouane.add(totalFraisT1);
 
         // Calculer l'évolution
-        List<Transaction> previousFraisDouane = transactionRepository.findAll().stream()
-            .filter(t -> t.getDate() != null &&
-                        !t.getDate().toLocalDate().isBefore(previousStartDate) &&
-                        !t.getDate().toLocalDate().isAfter(previousEndDate) &&
-                        t.getStatut() == Transaction.StatutTransaction.VALIDE &&
-                        (t.getType() == Transaction.TypeTransaction.FRAIS_DOUANE || t.getType() == Transaction.TypeTransaction.FRAIS_T1))
-            .toList();
-
-        BigDecimal previousTotal = previousFraisDouane.stream()
-            .map(Transaction::getMontant)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal previousTotal = previousTransactionsParType.getOrDefault(Transaction.TypeTransaction.FRAIS_DOUANE, BigDecimal.ZERO)
+            .add(previousTransactionsParType.getOrDefault(Transaction.TypeTransaction.FRAIS_T1, BigDecimal.ZERO));
 
         String evolution = calculerEvolution(total, previousTotal);
 
@@ -419,31 +293,12 @@ public class RapportServiceImpl implements RapportService {
         return fraisDouaniers;
     }
 
-    private RapportFinancierDTO.Pertes calculerPertes(LocalDate startDate, LocalDate endDate, String periode, LocalDate previousStartDate, LocalDate previousEndDate) {
-        // Récupérer les manquants dans la période
-        List<Manquant> manquants = manquantRepository.findAll().stream()
-            .filter(m -> m.getDateCreation() != null &&
-                        !m.getDateCreation().toLocalDate().isBefore(startDate) &&
-                        !m.getDateCreation().toLocalDate().isAfter(endDate))
-            .toList();
-
-        // Calculer la quantité totale
-        BigDecimal quantiteTotale = manquants.stream()
-            .map(m -> m.getQuantite() != null ? m.getQuantite() : BigDecimal.ZERO)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Pour le total, on utilise la quantité totale (en litres)
+    private RapportFinancierDTO.Pertes calculerPertes(LocalDate startDate, LocalDate endDate, LocalDate previousStartDate, LocalDate previousEndDate) {
+        // Quantité totale des manquants de la période (en litres)
+        BigDecimal quantiteTotale = manquantRepository.sumQuantiteByDateRange(startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX));
 
         // Calculer l'évolution
-        List<Manquant> previousManquants = manquantRepository.findAll().stream()
-            .filter(m -> m.getDateCreation() != null &&
-                        !m.getDateCreation().toLocalDate().isBefore(previousStartDate) &&
-                        !m.getDateCreation().toLocalDate().isAfter(previousEndDate))
-            .toList();
-
-        BigDecimal previousQuantite = previousManquants.stream()
-            .map(m -> m.getQuantite() != null ? m.getQuantite() : BigDecimal.ZERO)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal previousQuantite = manquantRepository.sumQuantiteByDateRange(previousStartDate.atStartOfDay(), previousEndDate.atTime(LocalTime.MAX));
 
         String evolution = calculerEvolution(quantiteTotale, previousQuantite);
 
@@ -455,6 +310,13 @@ public class RapportServiceImpl implements RapportService {
         return pertes;
     }
 
+    private static Set<Transaction.TypeTransaction> typesRapport() {
+        Set<Transaction.TypeTransaction> types = EnumSet.copyOf(RapportMensuelBuilder.TYPES_DEPENSE);
+        types.add(Transaction.TypeTransaction.FRAIS_DOUANE);
+        types.add(Transaction.TypeTransaction.FRAIS_T1);
+        return types;
+    }
+
     private String getPeriodeLabel(String periode, LocalDate startDate, LocalDate endDate) {
         if (periode == null || periode.equals("mois")) {
             return "Ce mois";
@@ -2,6 +2,7 @@ package com.backend.gesy.security.filter;
 
 import com.backend.gesy.security.service.JwtTokenBlacklistService;
 import com.backend.gesy.security.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -40,7 +41,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             final String jwt = authHeader.substring(7);
-            final String username = jwtUtil.extractUsername(jwt);
 
             // Vérifier si le token est dans la blacklist
             if (tokenBlacklistService.isTokenBlacklisted(jwt)) {
@@ -48,14 +48,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 return;
             }
 
+            // Une seule vérification de signature par requête (claims mis en cache par JwtUtil)
+            final Claims claims = jwtUtil.parseClaims(jwt);
+            final String username = claims.getSubject();
+
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                if (jwtUtil.isTokenExpired(jwt)) {
+                if (jwtUtil.isExpired(claims)) {
                     filterChain.doFilter(request, response);
                     return;
                 }
 
                 // Extraire les rôles du token
-                List<String> roles = jwtUtil.extractRoles(jwt);
+                List<String> roles = jwtUtil.extractRoles(claims);
                 List<SimpleGrantedAuthority> authorities = roles.stream()
                         .map(SimpleGrantedAuthority::new)
                         .collect(Collectors.toList());
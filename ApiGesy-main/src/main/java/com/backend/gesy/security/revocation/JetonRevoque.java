@@ -0,0 +1,29 @@
+package com.backend.gesy.security.revocation;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Jeton JWT révoqué (déconnexion), partagé entre les instances de l'application.
+ * Seule l'empreinte SHA-256 du jeton est conservée, jusqu'à son expiration.
+ */
+@Entity
+@Table(name = "jetons_revoques")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JetonRevoque {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String empreinte;
+
+    @Column(name = "date_expiration", nullable = false)
+    private LocalDateTime dateExpiration;
+}
@@ -0,0 +1,19 @@
+package com.backend.gesy.security.revocation;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface JetonRevoqueRepository extends JpaRepository<JetonRevoque, Long> {
+    List<JetonRevoque> findByDateExpirationAfter(LocalDateTime date);
+
+    @Modifying
+    @Query("DELETE FROM JetonRevoque j WHERE j.dateExpiration < :date")
+    int deleteExpires(@Param("date") LocalDateTime date);
+}
@@ -1,25 +1,116 @@
 package com.backend.gesy.security.service;
 
+import com.backend.gesy.security.revocation.JetonRevoque;
+import com.backend.gesy.security.revocation.JetonRevoqueRepository;
+import com.backend.gesy.security.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Jetons JWT révoqués, indexés par empreinte SHA-256 avec leur date d'expiration.
+ * <p>
+ * La liste locale est concurrente et purgée à l'expiration des jetons (un jeton expiré est de toute façon refusé).
+ * Avec {@code jwt.blacklist.partagee=true}, les révocations sont aussi enregistrées en base et chaque instance
+ * recopie périodiquement en mémoire celles des autres ({@code jwt.blacklist.synchro-interval-ms}) : la
+ * vérification d'un jeton ne fait jamais d'accès base, une révocation faite ailleurs est vue au plus tard
+ * à la synchronisation suivante.
+ * <p>
+ * Une révocation est définitive jusqu'à l'expiration du jeton : la synchronisation ne fait qu'ajouter des
+ * entrées, une annulation de révocation ne pourrait donc pas se propager aux autres instances.
+ */
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class JwtTokenBlacklistService {
-    private final Set<String> blacklistedTokens = new HashSet<>();
+
+    private final JwtUtil jwtUtil;
+    private final JetonRevoqueRepository jetonRevoqueRepository;
+
+    @Value("${jwt.blacklist.partagee:false}")
+    private boolean partagee;
+
+    private final Map<String, Instant> blacklistedTokens = new ConcurrentHashMap<>();
 
     public void blacklistToken(String token) {
-        blacklistedTokens.add(token);
+        Instant expiration;
+        try {
+            expiration = jwtUtil.extractExpiration(token).toInstant();
+        } catch (JwtException | IllegalArgumentException e) {
+            // Jeton expiré ou invalide : déjà refusé par le filtre, inutile de le conserver
+            return;
+        }
+        String empreinte = empreinte(token);
+        blacklistedTokens.put(empreinte, expiration);
+        if (partagee) {
+            try {
+                jetonRevoqueRepository.save(new JetonRevoque(null, empreinte,
+                        LocalDateTime.ofInstant(expiration, ZoneId.systemDefault())));
+            } catch (DataIntegrityViolationException e) {
+                // Déjà révoqué (double déconnexion, autre instance) : contrainte d'unicité sur l'empreinte
+                log.debug("Jeton déjà révoqué en base");
+            }
+        }
     }
 
     public boolean isTokenBlacklisted(String token) {
-        return blacklistedTokens.contains(token);
+        String empreinte = empreinte(token);
+        Instant expiration = blacklistedTokens.get(empreinte);
+        if (expiration != null) {
+            if (expiration.isAfter(Instant.now())) {
+                return true;
+            }
+            blacklistedTokens.remove(empreinte, expiration);
+        }
+        return false;
     }
 
-    // Optionnel: Nettoyer périodiquement les tokens expirés de la blacklist
-    public void removeToken(String token) {
-        blacklistedTokens.remove(token);
+    /** Mode partagé : recopie en mémoire les révocations encore valides enregistrées par toutes les instances. */
+    @Scheduled(fixedDelayString = "${jwt.blacklist.synchro-interval-ms:5000}")
+    public void synchroniserRevocations() {
+        if (!partagee) {
+            return;
+        }
+        for (JetonRevoque jeton : jetonRevoqueRepository.findByDateExpirationAfter(LocalDateTime.now())) {
+            blacklistedTokens.put(jeton.getEmpreinte(), jeton.getDateExpiration().atZone(ZoneId.systemDefault()).toInstant());
+        }
     }
-}
 
+    /** Retire les jetons expirés de la liste locale et, en mode partagé, de la base. */
+    @Scheduled(fixedDelayString = "${jwt.blacklist.purge-interval-ms:600000}")
+    @Transactional
+    public void purgerJetonsExpires() {
+        Instant now = Instant.now();
+        blacklistedTokens.values().removeIf(expiration -> !expiration.isAfter(now));
+        if (partagee) {
+            int supprimes = jetonRevoqueRepository.deleteExpires(LocalDateTime.ofInstant(now, ZoneId.systemDefault()));
+            if (supprimes > 0) {
+                log.debug("{} jeton(s) révoqué(s) expiré(s) supprimé(s)", supprimes);
+            }
+        }
+    }
+
+    private static String empreinte(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.backend.gesy.security.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,8 +12,11 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -24,9 +29,30 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}") // 24 heures par défaut
     private Long expiration;
 
+    @Value("${jwt.claims-cache.taille:1000}")
+    private int tailleCacheClaims;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    /**
+     * Jetons récemment vérifiés, lus sans verrou global. Une entrée expire avec son jeton ; au-delà de la
+     * taille, les entrées expirées puis les plus proches de l'expiration sont évincées.
+     */
+    private final Map<String, Claims> claimsVerifies = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        // Clé et parseur construits une fois (le parseur est sans état et sûr entre threads)
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.tailleCacheClaims = Math.max(tailleCacheClaims, 1);
+    }
+
     private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -48,7 +74,10 @@ public class JwtUtil {
     }
 
     public List<String> extractRoles(String token) {
-        Claims claims = extractAllClaims(token);
+        return extractRoles(parseClaims(token));
+    }
+
+    public List<String> extractRoles(Claims claims) {
         @SuppressWarnings("unchecked")
         List<String> roles = (List<String>) claims.get("roles");
         return roles != null ? roles : List.of();
@@ -59,22 +88,57 @@ public class JwtUtil {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseClaims(token);
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Claims vérifiés du jeton (signature et expiration). Un jeton déjà vérifié et non expiré est servi
+     * depuis le cache sans nouvelle vérification cryptographique.
+     */
+    public Claims parseClaims(String token) {
+        Claims claims = claimsVerifies.get(token);
+        if (claims != null) {
+            if (!isExpired(claims)) {
+                return claims;
+            }
+            claimsVerifies.remove(token);
+        }
+        claims = parser.parseSignedClaims(token).getPayload();
+        if (claimsVerifies.size() >= tailleCacheClaims) {
+            evincer();
+        }
+        claimsVerifies.put(token, claims);
+        return claims;
+    }
+
+    /**
+     * Retire les entrées expirées puis, si le cache reste plein, les plus proches de l'expiration jusqu'à
+     * 90 % de la taille : l'éviction ne se répète qu'après une série d'ajouts.
+     */
+    private void evincer() {
+        claimsVerifies.values().removeIf(this::isExpired);
+        int surplus = claimsVerifies.size() - tailleCacheClaims * 9 / 10;
+        if (surplus <= 0) {
+            return;
+        }
+        claimsVerifies.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<String, Claims> e) -> e.getValue().getExpiration(),
+                        Comparator.nullsLast(Comparator.naturalOrder())))
+                .limit(surplus)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(claimsVerifies::remove);
     }
 
     public Boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
     }
 
+    public boolean isExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
+    }
+
     public Boolean validateToken(String token, UserDetails userDetails) {
         final String username = extractUsername(token);
         return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
@@ -0,0 +1,66 @@
+package com.backend.gesy.solde;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Point de contrôle d'un solde (compte bancaire ou caisse), en ajout seul : solde recalculé en base
+ * à partir des transactions validées, comparé au solde tenu au fil de l'eau. La suite des points
+ * permet de dater l'apparition d'un écart.
+ */
+@Entity
+@Table(name = "soldes_checkpoints", indexes = {
+    @Index(name = "idx_solde_checkpoint_compte", columnList = "nature, compte_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SoldeCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Nature nature;
+
+    /** Id du compte bancaire ou de la caisse selon {@link #nature} */
+    @Column(name = "compte_id", nullable = false)
+    private Long compteId;
+
+    /** Solde tenu au fil de l'eau au moment du point */
+    @Column(name = "solde_enregistre", precision = 15, scale = 2)
+    private BigDecimal soldeEnregistre;
+
+    /** Somme signée des transactions validées */
+    @Column(name = "solde_calcule", nullable = false, precision = 15, scale = 2)
+    private BigDecimal soldeCalcule;
+
+    /** Plus grand id de transaction pris en compte */
+    @Column(name = "dernier_transaction_id")
+    private Long dernierTransactionId;
+
+    @Column(name = "nombre_transactions", nullable = false)
+    private Long nombreTransactions;
+
+    /** Solde tenu et solde calculé concordaient au moment du point (avant toute correction) */
+    @Column(nullable = false)
+    private boolean coherent;
+
+    /** Montant crédité au solde tenu pour l'aligner sur le solde calculé, null si aucune correction */
+    @Column(precision = 15, scale = 2)
+    private BigDecimal correction;
+
+    @Column(name = "date_creation", nullable = false)
+    private LocalDateTime dateCreation;
+
+    public enum Nature {
+        COMPTE_BANCAIRE,
+        CAISSE
+    }
+}
@@ -0,0 +1,12 @@
+package com.backend.gesy.solde;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SoldeCheckpointRepository extends JpaRepository<SoldeCheckpoint, Long> {
+    /** Historique des points d'un compte ou d'une caisse, du plus récent au plus ancien. */
+    List<SoldeCheckpoint> findByNatureAndCompteIdOrderByIdDesc(SoldeCheckpoint.Nature nature, Long compteId);
+}
@@ -0,0 +1,20 @@
+package com.backend.gesy.solde;
+
+import com.backend.gesy.solde.dto.EcartSoldeDTO;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface SoldeReconciliationService {
+    /** Compare les soldes tenus à la somme des transactions validées (lecture seule). */
+    List<EcartSoldeDTO> verifier();
+
+    /** Corrige les soldes en écart et enregistre un point de contrôle par compte / caisse ; renvoie les écarts corrigés. */
+    List<EcartSoldeDTO> recalculer();
+
+    /** {@link #recalculer()} hors du thread appelant (POST /recalculer-soldes n'attend pas la fin). */
+    CompletableFuture<List<EcartSoldeDTO>> recalculerEnArrierePlan();
+
+    /** Enregistre un point de contrôle par compte / caisse sans corriger les soldes. */
+    List<EcartSoldeDTO> enregistrerCheckpoints();
+}
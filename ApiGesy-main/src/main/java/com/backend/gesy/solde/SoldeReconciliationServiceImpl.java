@@ -0,0 +1,185 @@
+package com.backend.gesy.solde;
+
+import com.backend.gesy.caisse.Caisse;
+import com.backend.gesy.caisse.CaisseRepository;
+import com.backend.gesy.comptebancaire.CompteBancaire;
+import com.backend.gesy.comptebancaire.CompteBancaireRepository;
+import com.backend.gesy.solde.dto.EcartSoldeDTO;
+import com.backend.gesy.transaction.TransactionRepository;
+import com.backend.gesy.transaction.dto.TransactionSoldeProjection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Rapprochement des soldes : le solde de chaque compte bancaire / caisse est tenu au fil de l'eau par
+ * les services métier ; ici il est comparé à une somme signée des transactions validées calculée en
+ * base (une requête groupée par nature de compte, aucune transaction chargée).
+ * <p>
+ * Pour une correction, les comptes et caisses sont d'abord verrouillés (SELECT ... FOR UPDATE) puis les
+ * transactions sommées : un débit / crédit concurrent attend la fin du rapprochement ou est déjà validé
+ * avant la somme, l'écart ne compte donc jamais un mouvement deux fois.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class SoldeReconciliationServiceImpl implements SoldeReconciliationService {
+    private final TransactionRepository transactionRepository;
+    private final CompteBancaireRepository compteBancaireRepository;
+    private final CaisseRepository caisseRepository;
+    private final SoldeCheckpointRepository soldeCheckpointRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean recalculEnCours = new AtomicBoolean();
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<EcartSoldeDTO> verifier() {
+        return rapprocher(false, false);
+    }
+
+    /**
+     * Un seul recalcul à la fois, validé avant de rendre la main : deux corrections relatives calculées sur
+     * les mêmes soldes créditeraient deux fois l'écart.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<EcartSoldeDTO> recalculer() {
+        if (!recalculEnCours.compareAndSet(false, true)) {
+            throw new RuntimeException("Un recalcul des soldes est déjà en cours");
+        }
+        try {
+            return transactionTemplate.execute(statut -> rapprocher(true, true));
+        } finally {
+            recalculEnCours.set(false);
+        }
+    }
+
+    @Override
+    @Async
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<List<EcartSoldeDTO>> recalculerEnArrierePlan() {
+        try {
+            List<EcartSoldeDTO> ecarts = recalculer();
+            log.info("Recalcul des soldes terminé : {} écart(s) corrigé(s)", ecarts.size());
+            return CompletableFuture.completedFuture(ecarts);
+        } catch (RuntimeException e) {
+            log.warn("Recalcul des soldes impossible : {}", e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Point de contrôle périodique : les écarts sont seulement journalisés, la correction reste
+     * une action explicite ({@link #recalculer()}).
+     */
+    @Override
+    @Scheduled(cron = "${soldes.checkpoint.cron:0 30 2 * * *}")
+    public List<EcartSoldeDTO> enregistrerCheckpoints() {
+        List<EcartSoldeDTO> ecarts = rapprocher(false, true);
+        ecarts.forEach(e -> log.warn("Écart de solde {} {} ({}) : enregistré {}, calculé {}",
+            e.getNature(), e.getCompteId(), e.getLibelle(), e.getSoldeEnregistre(), e.getSoldeCalcule()));
+        return ecarts;
+    }
+
+    private List<EcartSoldeDTO> rapprocher(boolean corriger, boolean enregistrer) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        List<EcartSoldeDTO> ecarts = new ArrayList<>();
+        List<SoldeCheckpoint> checkpoints = new ArrayList<>();
+
+        // Tous les soldes lus (et verrouillés pour une correction) avant la première somme : sous REPEATABLE READ
+        // (MySQL), l'instantané des sommes est pris à la première lecture non verrouillante
+        List<CompteBancaire> comptes = corriger ? compteBancaireRepository.findAllForUpdate() : compteBancaireRepository.findAll();
+        List<Caisse> caisses = corriger ? caisseRepository.findAllForUpdate() : caisseRepository.findAll();
+        Map<Long, TransactionSoldeProjection> soldesComptes = parCompte(transactionRepository.sumSoldesValidesGroupByCompte());
+        for (CompteBancaire compte : comptes) {
+            TransactionSoldeProjection calcule = soldesComptes.get(compte.getId());
+            EcartSoldeDTO ecart = comparer(SoldeCheckpoint.Nature.COMPTE_BANCAIRE, compte.getId(), compte.getNumero(),
+                compte.getSolde(), calcule);
+            BigDecimal correction = null;
+            if (ecart != null) {
+                ecarts.add(ecart);
+                if (corriger) {
+                    // Ligne verrouillée : aucun mouvement ne peut s'intercaler avant cette correction
+                    compteBancaireRepository.crediter(compte.getId(), ecart.getEcart());
+                    correction = ecart.getEcart();
+                }
+            }
+            checkpoints.add(checkpoint(SoldeCheckpoint.Nature.COMPTE_BANCAIRE, compte.getId(), compte.getSolde(),
+                calcule, ecart == null, correction, maintenant));
+        }
+
+        Map<Long, TransactionSoldeProjection> soldesCaisses = parCompte(transactionRepository.sumSoldesValidesGroupByCaisse());
+        for (Caisse caisse : caisses) {
+            TransactionSoldeProjection calcule = soldesCaisses.get(caisse.getId());
+            EcartSoldeDTO ecart = comparer(SoldeCheckpoint.Nature.CAISSE, caisse.getId(), caisse.getNom(),
+                caisse.getSolde(), calcule);
+            BigDecimal correction = null;
+            if (ecart != null) {
+                ecarts.add(ecart);
+                if (corriger) {
+                    caisseRepository.crediter(caisse.getId(), ecart.getEcart());
+                    correction = ecart.getEcart();
+                }
+            }
+            checkpoints.add(checkpoint(SoldeCheckpoint.Nature.CAISSE, caisse.getId(), caisse.getSolde(),
+                calcule, ecart == null, correction, maintenant));
+        }
+
+        if (enregistrer) {
+            soldeCheckpointRepository.saveAll(checkpoints);
+        }
+        return ecarts;
+    }
+
+    private static Map<Long, TransactionSoldeProjection> parCompte(List<TransactionSoldeProjection> soldes) {
+        return soldes.stream().collect(Collectors.toMap(TransactionSoldeProjection::getCompteId, Function.identity()));
+    }
+
+    /** Écart entre solde tenu et solde calculé, ou {@code null} si les deux concordent. */
+    private static EcartSoldeDTO comparer(SoldeCheckpoint.Nature nature, Long id, String libelle,
+                                          BigDecimal soldeEnregistre, TransactionSoldeProjection calcule) {
+        BigDecimal soldeCalcule = soldeCalcule(calcule);
+        if (soldeEnregistre != null && soldeEnregistre.compareTo(soldeCalcule) == 0) {
+            return null;
+        }
+        BigDecimal ecart = soldeCalcule.subtract(soldeEnregistre != null ? soldeEnregistre : BigDecimal.ZERO);
+        return new EcartSoldeDTO(nature, id, libelle, soldeEnregistre, soldeCalcule, ecart);
+    }
+
+    private static SoldeCheckpoint checkpoint(SoldeCheckpoint.Nature nature, Long id, BigDecimal soldeEnregistre,
+                                              TransactionSoldeProjection calcule, boolean coherent,
+                                              BigDecimal correction, LocalDateTime date) {
+        return new SoldeCheckpoint(
+            null,
+            nature,
+            id,
+            soldeEnregistre,
+            soldeCalcule(calcule),
+            calcule != null ? calcule.getDernierTransactionId() : null,
+            calcule != null ? calcule.getNombreTransactions() : 0L,
+            coherent,
+            correction,
+            date);
+    }
+
+    private static BigDecimal soldeCalcule(TransactionSoldeProjection calcule) {
+        return calcule != null && calcule.getSolde() != null ? calcule.getSolde() : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,59 @@
+package com.backend.gesy.solde;
+
+import com.backend.gesy.caisse.Caisse;
+import com.backend.gesy.caisse.CaisseRepository;
+import com.backend.gesy.comptebancaire.CompteBancaire;
+import com.backend.gesy.comptebancaire.CompteBancaireRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Seul point d'écriture des soldes lors des mouvements : chaque crédit / débit est un UPDATE relatif
+ * ({@code solde = solde ± montant}) exécuté par la base, le contrôle de solde suffisant fait partie du
+ * même ordre. Deux opérations de caisse concurrentes ne peuvent donc plus s'écraser.
+ * <p>
+ * L'entité passée est rafraîchie ensuite : elle reflète le solde en base et n'est pas réécrite au flush
+ * (entités en {@code @DynamicUpdate}).
+ */
+@Component
+@RequiredArgsConstructor
+public class SoldeUpdater {
+    private final CompteBancaireRepository compteBancaireRepository;
+    private final CaisseRepository caisseRepository;
+    private final EntityManager entityManager;
+
+    public void crediter(CompteBancaire compte, BigDecimal montant) {
+        compteBancaireRepository.crediter(compte.getId(), montant);
+        rafraichir(compte);
+    }
+
+    /** @throws RuntimeException avec {@code messageSoldeInsuffisant} si le solde ne couvre pas le montant */
+    public void debiter(CompteBancaire compte, BigDecimal montant, String messageSoldeInsuffisant) {
+        if (compteBancaireRepository.debiterSiSuffisant(compte.getId(), montant) == 0) {
+            throw new RuntimeException(messageSoldeInsuffisant);
+        }
+        rafraichir(compte);
+    }
+
+    public void crediter(Caisse caisse, BigDecimal montant) {
+        caisseRepository.crediter(caisse.getId(), montant);
+        rafraichir(caisse);
+    }
+
+    /** @throws RuntimeException avec {@code messageSoldeInsuffisant} si le solde ne couvre pas le montant */
+    public void debiter(Caisse caisse, BigDecimal montant, String messageSoldeInsuffisant) {
+        if (caisseRepository.debiterSiSuffisant(caisse.getId(), montant) == 0) {
+            throw new RuntimeException(messageSoldeInsuffisant);
+        }
+        rafraichir(caisse);
+    }
+
+    private void rafraichir(Object entite) {
+        if (entityManager.contains(entite)) {
+            entityManager.refresh(entite);
+        }
+    }
+}
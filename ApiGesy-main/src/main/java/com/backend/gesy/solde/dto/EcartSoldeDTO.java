@@ -0,0 +1,21 @@
+package com.backend.gesy.solde.dto;
+
+import com.backend.gesy.solde.SoldeCheckpoint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/** Écart entre le solde tenu d'un compte bancaire / d'une caisse et la somme de ses transactions validées. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EcartSoldeDTO {
+    private SoldeCheckpoint.Nature nature;
+    private Long compteId;
+    private String libelle;
+    private BigDecimal soldeEnregistre;
+    private BigDecimal soldeCalcule;
+    private BigDecimal ecart;
+}
@@ -0,0 +1,31 @@
+package com.backend.gesy.stock;
+
+import com.backend.gesy.mouvement.Mouvement;
+
+/**
+ * Événement de stock appliqué par {@link StockLedger} : un mouvement d'entrée ou de sortie sur la quantité
+ * disponible ou sur la quantité en cession d'un stock.
+ */
+public record MouvementStock(Stock stock, Mouvement.TypeMouvement type, double quantite, boolean cession, String description) {
+
+    public static MouvementStock entree(Stock stock, double quantite, String description) {
+        return new MouvementStock(stock, Mouvement.TypeMouvement.ENTREE, quantite, false, description);
+    }
+
+    public static MouvementStock sortie(Stock stock, double quantite, String description) {
+        return new MouvementStock(stock, Mouvement.TypeMouvement.SORTIE, quantite, false, description);
+    }
+
+    public static MouvementStock entreeCession(Stock stock, double quantite, String description) {
+        return new MouvementStock(stock, Mouvement.TypeMouvement.ENTREE, quantite, true, description);
+    }
+
+    public static MouvementStock sortieCession(Stock stock, double quantite, String description) {
+        return new MouvementStock(stock, Mouvement.TypeMouvement.SORTIE, quantite, true, description);
+    }
+
+    /** Variation signée appliquée au stock. */
+    double delta() {
+        return type == Mouvement.TypeMouvement.SORTIE ? -quantite : quantite;
+    }
+}
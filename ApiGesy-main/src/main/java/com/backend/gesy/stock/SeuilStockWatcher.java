@@ -0,0 +1,68 @@
+package com.backend.gesy.stock;
+
+import com.backend.gesy.alerte.Alerte;
+import com.backend.gesy.alerte.AlerteService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Surveillance du seuil minimum, stock par stock, à chaque mouvement validé (aucun parcours des stocks).
+ * <p>
+ * Hystérésis : l'alerte STOCK_FAIBLE est levée quand la quantité passe strictement sous le seuil (même règle
+ * que le compte des stocks critiques), puis l'indicateur {@link Stock#getAlerteSeuil()} reste posé tant que
+ * la quantité n'est pas remontée au-dessus du seuil majoré de {@code stock.alerte.marge-rearmement}. Les transitions sont des UPDATE
+ * conditionnels : une seule alerte par passage sous le seuil, même avec plusieurs instances.
+ * <p>
+ * La surveillance s'exécute dans sa propre transaction et ses erreurs sont interceptées hors de celle-ci :
+ * un échec annule la transaction de surveillance sans jamais remonter à l'appelant.
+ */
+@Slf4j
+@Component
+public class SeuilStockWatcher {
+    private final StockRepository stockRepository;
+    private final AlerteService alerteService;
+    private final TransactionTemplate transactionSurveillance;
+
+    @Value("${stock.alerte.marge-rearmement:0.10}")
+    private double margeRearmement;
+
+    public SeuilStockWatcher(StockRepository stockRepository, AlerteService alerteService,
+                             PlatformTransactionManager transactionManager) {
+        this.stockRepository = stockRepository;
+        this.alerteService = alerteService;
+        this.transactionSurveillance = new TransactionTemplate(transactionManager);
+        this.transactionSurveillance.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockModifie(StockModifieEvent event) {
+        try {
+            transactionSurveillance.executeWithoutResult(statut -> surveiller(event));
+        } catch (RuntimeException e) {
+            // Le mouvement est déjà validé : l'échec de la surveillance ne doit pas remonter à l'appelant
+            log.warn("Surveillance du seuil de stock impossible pour {} : {}", event.stockIds(), e.getMessage());
+        }
+    }
+
+    private void surveiller(StockModifieEvent event) {
+        stockRepository.rearmerAlerteSeuil(event.stockIds(), 1 + margeRearmement);
+        for (Long stockId : event.stockIds()) {
+            if (stockRepository.declencherAlerteSeuil(stockId) == 1) {
+                stockRepository.findById(stockId).ifPresent(this::alerter);
+            }
+        }
+    }
+
+    private void alerter(Stock stock) {
+        String emplacement = stock.getDepot() != null ? " dans " + stock.getDepot().getNom() : " (citerne)";
+        alerteService.creerAlerte(Alerte.TypeAlerte.STOCK_FAIBLE,
+                "Stock faible : " + stock.getProduit().getNom() + emplacement + " (quantité: " + stock.getQuantite()
+                        + ", seuil: " + stock.getSeuilMinimum() + ")",
+                Alerte.PrioriteAlerte.HAUTE, "Stock", stock.getId(), "/stocks/" + stock.getId());
+    }
+}
@@ -6,11 +6,14 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "stocks")
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -42,8 +45,18 @@ public class Stock {
     @Column(name = "prix_unitaire")
     private Double prixUnitaire;
 
+    /** Alerte de seuil minimum en cours (posée et levée par {@link SeuilStockWatcher}) */
+    @Column(name = "alerte_seuil")
+    private Boolean alerteSeuil;
+
     @Column(name = "date_derniere_mise_a_jour")
     private LocalDateTime dateDerniereMiseAJour = LocalDateTime.now();
 
     private String unite; // litres, kg, etc.
+
+    /** Incrémentée à chaque écriture (y compris les deltas de {@link StockLedger}) : une modification concurrente échoue au lieu d'écraser. */
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
 }
@@ -1,12 +1,15 @@
 package com.backend.gesy.stock;
 
 import com.backend.gesy.stock.dto.StockDTO;
+import com.backend.gesy.stock.dto.StockEvolutionDTO;
 import com.backend.gesy.stock.dto.StockStatsDTO;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -15,6 +18,7 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class StockController {
     private final StockService stockService;
+    private final StockJournalierService stockJournalierService;
 
     @GetMapping
     public ResponseEntity<List<StockDTO>> getAllStocks() {
@@ -26,6 +30,16 @@ public class StockController {
         return ResponseEntity.ok(stockService.getStats());
     }
 
+    /** Clôtures journalières cumulées (courbes d'évolution), filtres dépôt / produit optionnels. */
+    @GetMapping("/evolution")
+    public ResponseEntity<List<StockEvolutionDTO>> getEvolution(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @RequestParam(required = false) Long depotId,
+            @RequestParam(required = false) Long produitId) {
+        return ResponseEntity.ok(stockJournalierService.findEvolution(debut, fin, depotId, produitId));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<StockDTO> getStockById(@PathVariable Long id) {
         return stockService.findById(id)
@@ -0,0 +1,53 @@
+package com.backend.gesy.stock;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Clôture journalière d'un stock, en ajout seul : quantité disponible en fin de journée et sa valeur.
+ * Les évolutions (mois sur mois) et les courbes se lisent par intervalle de jours, sans rejouer les
+ * mouvements ni parcourir la table des stocks.
+ */
+@Entity
+@Table(name = "stocks_journaliers", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_stock_journalier_stock_jour", columnNames = {"stock_id", "jour"})
+}, indexes = {
+    @Index(name = "idx_stock_journalier_jour", columnList = "jour")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockJournalier {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "stock_id", nullable = false)
+    private Long stockId;
+
+    /** Null pour les stocks citerne */
+    @Column(name = "depot_id")
+    private Long depotId;
+
+    @Column(name = "produit_id", nullable = false)
+    private Long produitId;
+
+    @Column(nullable = false)
+    private LocalDate jour;
+
+    /** Quantité disponible en fin de journée */
+    @Column(nullable = false)
+    private Double quantite;
+
+    /** Quantité valorisée au prix unitaire du stock au moment de la clôture */
+    @Column(nullable = false)
+    private Double valeur;
+
+    @Column(name = "date_creation", nullable = false)
+    private LocalDateTime dateCreation;
+}
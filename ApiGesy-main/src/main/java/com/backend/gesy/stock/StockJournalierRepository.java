@@ -0,0 +1,36 @@
+package com.backend.gesy.stock;
+
+import com.backend.gesy.depot.Depot;
+import com.backend.gesy.stock.dto.StockJournalierTotalProjection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface StockJournalierRepository extends JpaRepository<StockJournalier, Long> {
+    @Query("SELECT MAX(j.jour) FROM StockJournalier j")
+    LocalDate findDernierJour();
+
+    /** Clôtures cumulées par jour sur l'intervalle, filtres dépôt / produit optionnels. */
+    @Query("SELECT j.jour AS jour, SUM(j.quantite) AS quantite, SUM(j.valeur) AS valeur " +
+           "FROM StockJournalier j " +
+           "WHERE j.jour >= :debut AND j.jour <= :fin " +
+           "AND (:depotId IS NULL OR j.depotId = :depotId) AND (:produitId IS NULL OR j.produitId = :produitId) " +
+           "GROUP BY j.jour ORDER BY j.jour")
+    List<StockJournalierTotalProjection> sumParJour(@Param("debut") LocalDate debut,
+                                                    @Param("fin") LocalDate fin,
+                                                    @Param("depotId") Long depotId,
+                                                    @Param("produitId") Long produitId);
+
+    /** Clôture d'un jour, même périmètre que {@link StockRepository#findByDepotStatut} (citernes comprises). */
+    @Query("SELECT j.jour AS jour, SUM(j.quantite) AS quantite, SUM(j.valeur) AS valeur " +
+           "FROM StockJournalier j WHERE j.jour = :jour " +
+           "AND (j.depotId IS NULL OR j.depotId IN (SELECT d.id FROM Depot d WHERE d.statut = :statut)) " +
+           "GROUP BY j.jour")
+    List<StockJournalierTotalProjection> sumByJourAndDepotStatut(@Param("jour") LocalDate jour,
+                                                                 @Param("statut") Depot.StatutDepot statut);
+}
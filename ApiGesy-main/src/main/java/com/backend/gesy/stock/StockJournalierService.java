@@ -0,0 +1,14 @@
+package com.backend.gesy.stock;
+
+import com.backend.gesy.stock.dto.StockEvolutionDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface StockJournalierService {
+    /** Enregistre les clôtures des jours manquants jusqu'à la veille ; renvoie le nombre de lignes créées. */
+    int cloturer();
+
+    /** Clôtures cumulées par jour sur l'intervalle (dépôt et produit optionnels). */
+    List<StockEvolutionDTO> findEvolution(LocalDate debut, LocalDate fin, Long depotId, Long produitId);
+}
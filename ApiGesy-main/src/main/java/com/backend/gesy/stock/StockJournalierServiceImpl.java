@@ -0,0 +1,97 @@
+package com.backend.gesy.stock;
+
+import com.backend.gesy.mouvement.MouvementRepository;
+import com.backend.gesy.mouvement.dto.MouvementNetJourProjection;
+import com.backend.gesy.stock.dto.StockEvolutionDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Clôtures journalières des stocks, alimentées de façon incrémentale : seuls les jours postérieurs à la
+ * dernière clôture sont calculés, en remontant depuis la quantité actuelle de chaque stock avec la
+ * variation nette de ses mouvements par jour (une requête groupée).
+ * <p>
+ * Cette remontée n'est juste que si toutes les variations postérieures au jour clôturé sont passées par
+ * {@link StockLedger} : la première exécution ne reconstitue donc pas de jour antérieur au premier mouvement
+ * du registre (avant, les mouvements ne distinguent pas la cession et les achats n'en écrivaient pas).
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class StockJournalierServiceImpl implements StockJournalierService {
+    private final StockRepository stockRepository;
+    private final MouvementRepository mouvementRepository;
+    private final StockJournalierRepository stockJournalierRepository;
+
+    /** Profondeur maximale reconstituée à la première exécution (table vide), bornée au début du registre */
+    @Value("${stock.journalier.historique-jours:62}")
+    private int historiqueJours;
+
+    @Override
+    @Scheduled(cron = "${stock.journalier.cron:0 5 0 * * *}")
+    public int cloturer() {
+        LocalDate aujourdhui = LocalDate.now();
+        LocalDate hier = aujourdhui.minusDays(1);
+        LocalDate dernierJour = stockJournalierRepository.findDernierJour();
+        LocalDate premierJour = dernierJour != null ? dernierJour.plusDays(1) : premierJourReconstituable(hier);
+        if (premierJour.isAfter(hier)) {
+            return 0;
+        }
+
+        Map<Long, Map<LocalDate, Double>> netsParStock = new HashMap<>();
+        for (MouvementNetJourProjection ligne : mouvementRepository.sumNetGroupByStockAndJour(premierJour.atStartOfDay())) {
+            netsParStock.computeIfAbsent(ligne.getStockId(), id -> new HashMap<>())
+                .merge(ligne.getJour(), ligne.getNet() != null ? ligne.getNet() : 0.0, Double::sum);
+        }
+
+        LocalDateTime maintenant = LocalDateTime.now();
+        List<StockJournalier> clotures = new ArrayList<>();
+        for (Stock stock : stockRepository.findAll()) {
+            Map<LocalDate, Double> nets = netsParStock.getOrDefault(stock.getId(), Map.of());
+            Long depotId = stock.getDepot() != null ? stock.getDepot().getId() : null;
+            double prix = stock.getPrixUnitaire() != null ? stock.getPrixUnitaire() : 0.0;
+            // clôture(j - 1) = clôture(j) - net(j), en partant de la quantité actuelle (clôture du jour en cours)
+            double quantite = stock.getQuantite() != null ? stock.getQuantite() : 0.0;
+            for (LocalDate jour = aujourdhui; !jour.isBefore(premierJour); jour = jour.minusDays(1)) {
+                if (!jour.isAfter(hier)) {
+                    clotures.add(new StockJournalier(null, stock.getId(), depotId, stock.getProduit().getId(),
+                        jour, quantite, quantite * prix, maintenant));
+                }
+                quantite -= nets.getOrDefault(jour, 0.0);
+            }
+        }
+
+        stockJournalierRepository.saveAll(clotures);
+        log.info("Clôtures de stock du {} au {} : {} lignes", premierJour, hier, clotures.size());
+        return clotures.size();
+    }
+
+    private LocalDate premierJourReconstituable(LocalDate hier) {
+        LocalDate premierJour = hier.minusDays(historiqueJours);
+        LocalDateTime debutRegistre = mouvementRepository.findPremiereDateMouvementApplique();
+        // Sans mouvement du registre, seule la veille est sûre ; sinon pas avant le jour de sa première écriture
+        LocalDate borne = debutRegistre != null ? debutRegistre.toLocalDate() : hier;
+        return premierJour.isBefore(borne) ? borne : premierJour;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StockEvolutionDTO> findEvolution(LocalDate debut, LocalDate fin, Long depotId, Long produitId) {
+        return stockJournalierRepository.sumParJour(debut, fin, depotId, produitId).stream()
+            .map(p -> new StockEvolutionDTO(p.getJour(), p.getQuantite(), p.getValeur()))
+            .collect(Collectors.toList());
+    }
+}
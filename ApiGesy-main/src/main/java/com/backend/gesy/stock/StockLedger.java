@@ -0,0 +1,121 @@
+package com.backend.gesy.stock;
+
+import com.backend.gesy.depot.Depot;
+import com.backend.gesy.depot.DepotRepository;
+import com.backend.gesy.mouvement.Mouvement;
+import com.backend.gesy.mouvement.MouvementRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Seul point d'écriture des quantités de stock : une opération (chargement, remise au dépôt, livraison…) est
+ * décrite par ses {@link MouvementStock}, appliqués ensemble.
+ * <ul>
+ *   <li>les variations sont cumulées par stock puis appliquées par UPDATE relatif ({@code quantite = quantite ± q}),
+ *   le contrôle de quantité suffisante fait partie du même ordre ;</li>
+ *   <li>la capacité utilisée de chaque dépôt concerné est ajustée une seule fois du cumul de ses stocks ;</li>
+ *   <li>les mouvements sont enregistrés en un seul {@code saveAll}.</li>
+ * </ul>
+ * Deux chargements concurrents au même dépôt ne peuvent donc plus perdre de litres. Comme pour
+ * {@link com.backend.gesy.solde.SoldeUpdater}, les entités passées sont rafraîchies ensuite (entités en
+ * {@code @DynamicUpdate}, version du stock incrémentée par l'UPDATE).
+ */
+@Component
+@RequiredArgsConstructor
+public class StockLedger {
+    /** Tolérance d'arrondi sur les retraits de quantité en cession. */
+    private static final double TOLERANCE_CESSION = 0.001;
+
+    private final StockRepository stockRepository;
+    private final DepotRepository depotRepository;
+    private final MouvementRepository mouvementRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void enregistrer(LocalDateTime date, MouvementStock... mouvements) {
+        enregistrer(date, List.of(mouvements));
+    }
+
+    /** @throws RuntimeException si un stock ne couvre pas le cumul de ses sorties (rien n'est alors appliqué pour ce stock) */
+    public void enregistrer(LocalDateTime date, List<MouvementStock> mouvements) {
+        // Cumuls indexés par id : l'equals/hashCode Lombok des entités parcourt leurs associations
+        Map<Long, Stock> stocks = new LinkedHashMap<>();
+        Map<Long, double[]> deltasParStock = new LinkedHashMap<>();
+        Map<Long, Depot> depots = new LinkedHashMap<>();
+        Map<Long, Double> deltasParDepot = new LinkedHashMap<>();
+        List<Mouvement> journal = new ArrayList<>();
+
+        for (MouvementStock m : mouvements) {
+            if (m.quantite() <= 0) {
+                continue;
+            }
+            Stock stock = m.stock();
+            stocks.putIfAbsent(stock.getId(), stock);
+            double[] deltas = deltasParStock.computeIfAbsent(stock.getId(), id -> new double[2]);
+            deltas[m.cession() ? 1 : 0] += m.delta();
+            if (stock.getDepot() != null && !stock.isCiterne()) {
+                depots.putIfAbsent(stock.getDepot().getId(), stock.getDepot());
+                deltasParDepot.merge(stock.getDepot().getId(), m.delta(), Double::sum);
+            }
+            journal.add(toMouvement(m, date));
+        }
+
+        deltasParStock.forEach((stockId, deltas) -> appliquer(stockId, deltas[0], deltas[1], date));
+        deltasParDepot.forEach((depotId, delta) -> {
+            if (delta != 0) {
+                depotRepository.ajusterCapaciteUtilisee(depotId, delta);
+            }
+        });
+        mouvementRepository.saveAll(journal);
+
+        stocks.values().forEach(this::rafraichir);
+        depots.values().forEach(this::rafraichir);
+
+        if (!stocks.isEmpty()) {
+            eventPublisher.publishEvent(new StockModifieEvent(Set.copyOf(stocks.keySet())));
+        }
+    }
+
+    private void appliquer(Long stockId, double delta, double deltaCession, LocalDateTime date) {
+        if (delta > 0) {
+            stockRepository.ajouterQuantite(stockId, delta, date);
+        } else if (delta < 0 && stockRepository.retirerQuantiteSiSuffisante(stockId, -delta, date) == 0) {
+            throw new RuntimeException("Quantité insuffisante dans le stock avec l'id: " + stockId
+                    + " (quantité demandée: " + (-delta) + ")");
+        }
+        if (deltaCession > 0) {
+            stockRepository.ajouterQuantiteCession(stockId, deltaCession, date);
+        } else if (deltaCession < 0 && stockRepository.retirerQuantiteCessionSiSuffisante(
+                stockId, -deltaCession, TOLERANCE_CESSION, date) == 0) {
+            throw new RuntimeException("Quantité cession insuffisante dans le stock avec l'id: " + stockId
+                    + " (quantité demandée: " + (-deltaCession) + ")");
+        }
+    }
+
+    private Mouvement toMouvement(MouvementStock m, LocalDateTime date) {
+        Mouvement mouvement = new Mouvement();
+        mouvement.setStock(m.stock());
+        mouvement.setTypeMouvement(m.type());
+        mouvement.setQuantite(m.quantite());
+        mouvement.setUnite(m.stock().getUnite());
+        mouvement.setDescription(m.description());
+        mouvement.setDateMouvement(date);
+        mouvement.setCession(m.cession());
+        return mouvement;
+    }
+
+    private void rafraichir(Object entite) {
+        if (entityManager.contains(entite)) {
+            entityManager.refresh(entite);
+        }
+    }
+}
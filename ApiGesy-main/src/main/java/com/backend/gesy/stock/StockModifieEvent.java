@@ -0,0 +1,10 @@
+package com.backend.gesy.stock;
+
+import java.util.Set;
+
+/**
+ * Événement publié par {@link StockLedger} (et la modification d'un stock) avec les stocks touchés.
+ * Traité après commit par {@link SeuilStockWatcher}, qui n'évalue que ces stocks.
+ */
+public record StockModifieEvent(Set<Long> stockIds) {
+}
@@ -1,11 +1,16 @@
 package com.backend.gesy.stock;
 
 import com.backend.gesy.depot.Depot;
+import com.backend.gesy.stock.dto.StockParProduitProjection;
+import com.backend.gesy.stock.dto.StockValeurParProduitProjection;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,5 +23,62 @@ public interface StockRepository extends JpaRepository<Stock, Long> {
    
    @Query("SELECT s FROM Stock s WHERE s.depot IS NULL OR s.depot.statut = :statut")
    List<Stock> findByDepotStatut(@Param("statut") Depot.StatutDepot statut);
-}
 
+   /** Stock cumulé par produit (même périmètre que {@link #findByDepotStatut}), trié par quantité décroissante. */
+   @Query("SELECT p.id AS produitId, p.nom AS produitNom, p.typeProduit AS typeProduit, " +
+          "COALESCE(SUM(s.quantite), 0) AS quantiteTotale, " +
+          "SUM(CASE WHEN s.seuilMinimum IS NOT NULL AND s.quantite < s.seuilMinimum THEN 1 ELSE 0 END) AS nombreStocksCritiques, " +
+          "COUNT(DISTINCT d.id) AS nombreDepots " +
+          "FROM Stock s JOIN s.produit p LEFT JOIN s.depot d " +
+          "WHERE d IS NULL OR d.statut = :statut " +
+          "GROUP BY p.id, p.nom, p.typeProduit " +
+          "ORDER BY COALESCE(SUM(s.quantite), 0) DESC")
+   List<StockParProduitProjection> sumQuantiteGroupByProduitAndDepotStatut(@Param("statut") Depot.StatutDepot statut);
+
+   /** Quantité et valeur du stock en dépôt (hors citernes) par produit, pour les dépôts au statut donné. */
+   @Query("SELECT p.id AS produitId, p.nom AS produitNom, p.typeProduit AS typeProduit, " +
+          "COALESCE(SUM(s.quantite), 0) AS quantite, " +
+          "COALESCE(SUM(COALESCE(s.quantite, 0) * COALESCE(s.prixUnitaire, 0)), 0) AS valeur " +
+          "FROM Stock s JOIN s.produit p JOIN s.depot d " +
+          "WHERE d.statut = :statut AND s.citerne = false " +
+          "GROUP BY p.id, p.nom, p.typeProduit")
+   List<StockValeurParProduitProjection> sumValeurDepotGroupByProduit(@Param("statut") Depot.StatutDepot statut);
+
+   // Deltas atomiques appliqués par StockLedger (la version est incrémentée comme pour une écriture d'entité)
+   @Modifying
+   @Query("UPDATE Stock s SET s.quantite = s.quantite + :quantite, s.dateDerniereMiseAJour = :date, " +
+          "s.version = s.version + 1 WHERE s.id = :id")
+   int ajouterQuantite(@Param("id") Long id, @Param("quantite") Double quantite, @Param("date") LocalDateTime date);
+
+   /** Retire seulement si la quantité couvre le retrait ; 0 ligne modifiée = stock insuffisant. */
+   @Modifying
+   @Query("UPDATE Stock s SET s.quantite = s.quantite - :quantite, s.dateDerniereMiseAJour = :date, " +
+          "s.version = s.version + 1 WHERE s.id = :id AND s.quantite >= :quantite")
+   int retirerQuantiteSiSuffisante(@Param("id") Long id, @Param("quantite") Double quantite, @Param("date") LocalDateTime date);
+
+   @Modifying
+   @Query("UPDATE Stock s SET s.quantityCession = COALESCE(s.quantityCession, 0) + :quantite, " +
+          "s.dateDerniereMiseAJour = :date, s.version = s.version + 1 WHERE s.id = :id")
+   int ajouterQuantiteCession(@Param("id") Long id, @Param("quantite") Double quantite, @Param("date") LocalDateTime date);
+
+   /** Retrait sur la quantité en cession, à la tolérance d'arrondi près (résultat borné à 0). */
+   @Modifying
+   @Query("UPDATE Stock s SET s.quantityCession = CASE WHEN COALESCE(s.quantityCession, 0) > :quantite " +
+          "THEN COALESCE(s.quantityCession, 0) - :quantite ELSE 0.0 END, " +
+          "s.dateDerniereMiseAJour = :date, s.version = s.version + 1 " +
+          "WHERE s.id = :id AND COALESCE(s.quantityCession, 0) + :tolerance >= :quantite")
+   int retirerQuantiteCessionSiSuffisante(@Param("id") Long id, @Param("quantite") Double quantite,
+                                          @Param("tolerance") Double tolerance, @Param("date") LocalDateTime date);
+
+   // Seuil minimum avec hystérésis (SeuilStockWatcher) : 1 ligne modifiée = passage sous le seuil à signaler
+   @Modifying
+   @Query("UPDATE Stock s SET s.alerteSeuil = true WHERE s.id = :id " +
+          "AND (s.alerteSeuil IS NULL OR s.alerteSeuil = false) AND s.quantite < s.seuilMinimum")
+   int declencherAlerteSeuil(@Param("id") Long id);
+
+   /** Lève l'indicateur des stocks remontés au-dessus du seuil multiplié par {@code facteur} (ou sans seuil). */
+   @Modifying
+   @Query("UPDATE Stock s SET s.alerteSeuil = false WHERE s.id IN :ids AND s.alerteSeuil = true " +
+          "AND (s.seuilMinimum IS NULL OR s.quantite > s.seuilMinimum * :facteur)")
+   int rearmerAlerteSeuil(@Param("ids") Collection<Long> ids, @Param("facteur") Double facteur);
+}
@@ -1,24 +1,27 @@
 package com.backend.gesy.stock;
 
-import com.backend.gesy.alerte.Alerte;
-import com.backend.gesy.alerte.AlerteService;
 import com.backend.gesy.achat.AchatService;
 import com.backend.gesy.achat.dto.AchatDTO;
+import com.backend.gesy.dashboard.DashboardChangeEvent;
 import com.backend.gesy.depot.Depot;
 import com.backend.gesy.depot.DepotRepository;
-import com.backend.gesy.mouvement.MouvementService;
-import com.backend.gesy.mouvement.dto.MouvementDTO;
 import com.backend.gesy.produit.Produit;
 import com.backend.gesy.produit.ProduitRepository;
 import com.backend.gesy.stock.dto.StockDTO;
+import com.backend.gesy.stock.dto.StockJournalierTotalProjection;
 import com.backend.gesy.stock.dto.StockMapper;
 import com.backend.gesy.stock.dto.StockStatsDTO;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -28,12 +31,14 @@ import java.util.stream.Collectors;
 @Transactional
 public class StockServiceImpl implements StockService {
     private final StockRepository stockRepository;
+    private final StockJournalierRepository stockJournalierRepository;
     private final DepotRepository depotRepository;
     private final ProduitRepository produitRepository;
     private final StockMapper stockMapper;
-    private final MouvementService mouvementService;
+    private final StockLedger stockLedger;
     private final AchatService achatService;
-    private final AlerteService alerteService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
 
     @Override
     public List<StockDTO> findAll() {
@@ -93,9 +98,7 @@ public class StockServiceImpl implements StockService {
         if (isUpdate) {
             // Mettre à jour le stock existant
             Stock existingStock = existingStockOpt.get();
-            Double ancienneQuantite = existingStock.getQuantite();
             quantiteAjoutee = stockDTO.getQuantite();
-            Double nouvelleQuantite = ancienneQuantite + quantiteAjoutee;
 
             // Vérifier la capacité disponible du dépôt
             Double capaciteUtilisee = depot.getCapaciteUtilisee() != null ? depot.getCapaciteUtilisee() : 0.0;
@@ -105,8 +108,7 @@ public class StockServiceImpl implements StockService {
                 throw new RuntimeException("Capacité insuffisante dans le dépôt. Capacité disponible: " + capaciteDisponible + " " + (stockDTO.getUnite() != null ? stockDTO.getUnite() : "L"));
             }
 
-            // Mettre à jour le stock existant
-            existingStock.setQuantite(nouvelleQuantite);
+            // Mettre à jour le stock existant (la quantité est ajoutée par le journal de stock)
             if (stockDTO.getSeuilMinimum() != null) {
                 existingStock.setSeuilMinimum(stockDTO.getSeuilMinimum());
             }
@@ -118,10 +120,6 @@ public class StockServiceImpl implements StockService {
             }
 
             savedStock = stockRepository.save(existingStock);
-
-            // Mettre à jour la capacité utilisée du dépôt
-            Double nouvelleCapaciteUtilisee = capaciteUtilisee + quantiteAjoutee;
-            depot.setCapaciteUtilisee(nouvelleCapaciteUtilisee);
         } else {
             // Créer un nouveau stock
             Stock stock = stockMapper.toEntity(stockDTO);
@@ -136,15 +134,18 @@ public class StockServiceImpl implements StockService {
                 throw new RuntimeException("Capacité insuffisante dans le dépôt. Capacité disponible: " + capaciteDisponible + " " + (stock.getUnite() != null ? stock.getUnite() : "L"));
             }
 
-            // Sauvegarder le nouveau stock
-            savedStock = stockRepository.save(stock);
+            // Sauvegarder le nouveau stock à vide : la quantité initiale est une entrée du journal
             quantiteAjoutee = stock.getQuantite();
-
-            // Mettre à jour la capacité utilisée du dépôt
-            Double nouvelleCapaciteUtilisee = capaciteUtilisee + stock.getQuantite();
-            depot.setCapaciteUtilisee(nouvelleCapaciteUtilisee);
+            stock.setQuantite(0.0);
+            savedStock = stockRepository.save(stock);
         }
 
+        // Entrée en stock : quantité, capacité utilisée du dépôt et mouvement appliqués ensemble
+        String description = isUpdate 
+            ? "Ajout de stock - " + produit.getNom() + " dans " + depot.getNom() + " (mise à jour)"
+            : "Ajout de stock - " + produit.getNom() + " dans " + depot.getNom() + " (nouveau)";
+        stockLedger.enregistrer(LocalDateTime.now(), MouvementStock.entree(savedStock, quantiteAjoutee, description));
+
         // Mettre à jour le statut du dépôt si nécessaire
         if (depot.getCapaciteUtilisee() >= depot.getCapacite()) {
             depot.setStatut(Depot.StatutDepot.PLEIN);
@@ -154,18 +155,6 @@ public class StockServiceImpl implements StockService {
         
         depotRepository.save(depot);
 
-        // Créer un mouvement d'entrée
-        MouvementDTO mouvementDTO = new MouvementDTO();
-        mouvementDTO.setStockId(savedStock.getId());
-        mouvementDTO.setTypeMouvement("ENTREE");
-        mouvementDTO.setQuantite(quantiteAjoutee);
-        mouvementDTO.setUnite(savedStock.getUnite());
-        String description = isUpdate 
-            ? "Ajout de stock - " + produit.getNom() + " dans " + depot.getNom() + " (mise à jour)"
-            : "Ajout de stock - " + produit.getNom() + " dans " + depot.getNom() + " (nouveau)";
-        mouvementDTO.setDescription(description);
-        mouvementService.save(mouvementDTO);
-
         // Créer un Achat pour cet approvisionnement
         AchatDTO achatDTO = new AchatDTO();
         achatDTO.setDepotId(depot.getId());
@@ -183,12 +172,7 @@ public class StockServiceImpl implements StockService {
         achatDTO.setDateAchat(java.time.LocalDateTime.now());
         achatService.save(achatDTO);
 
-        if (savedStock.getSeuilMinimum() != null && savedStock.getQuantite() != null
-                && savedStock.getQuantite() <= savedStock.getSeuilMinimum()) {
-            alerteService.creerAlerte(Alerte.TypeAlerte.STOCK_FAIBLE,
-                    "Stock faible : " + produit.getNom() + " dans " + depot.getNom() + " (quantité: " + savedStock.getQuantite() + ")",
-                    Alerte.PrioriteAlerte.HAUTE, "Stock", savedStock.getId(), "/stocks/" + savedStock.getId());
-        }
+        eventPublisher.publishEvent(new DashboardChangeEvent(DashboardChangeEvent.Source.STOCK));
         return stockMapper.toDTO(savedStock);
     }
 
@@ -197,11 +181,21 @@ public class StockServiceImpl implements StockService {
         Stock existingStock = stockRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Stock non trouvé avec l'id: " + id));
         
+        // Le client renvoie la version qu'il a affichée : un stock modifié depuis (mouvement, autre saisie) est refusé
+        if (stockDTO.getVersion() != null && stockDTO.getVersion() != existingStock.getVersion()) {
+            throw new RuntimeException("Le stock avec l'id: " + id + " a été modifié entre-temps, rechargez-le avant de le mettre à jour");
+        }
+        
         Depot ancienDepot = existingStock.getDepot();
         Double ancienneQuantite = existingStock.getQuantite();
         
         Stock stock = stockMapper.toEntity(stockDTO);
         stock.setId(existingStock.getId());
+        // Une écriture concurrente entre cette lecture et la sauvegarde fait échouer la mise à jour (@Version)
+        stock.setVersion(existingStock.getVersion());
+        stock.setAlerteSeuil(existingStock.getAlerteSeuil());
+        // La quantité en cession n'est modifiée que par le journal de stock
+        stock.setQuantityCession(existingStock.getQuantityCession());
 
         // Récupérer le produit
         if (stockDTO.getProduitId() != null) {
@@ -225,13 +219,11 @@ public class StockServiceImpl implements StockService {
 
         Double nouvelleQuantite = stock.getQuantite();
         Double differenceQuantite = nouvelleQuantite - ancienneQuantite;
+        // L'entité garde la quantité lue ; l'écart est appliqué par le journal de stock
+        stock.setQuantite(ancienneQuantite);
 
         // Si le dépôt a changé, ajuster les deux dépôts
         if (!ancienDepot.getId().equals(nouveauDepot.getId())) {
-            // Retirer la quantité de l'ancien dépôt
-            Double ancienneCapaciteUtilisee = ancienDepot.getCapaciteUtilisee() != null ? ancienDepot.getCapaciteUtilisee() : 0.0;
-            ancienDepot.setCapaciteUtilisee(Math.max(0.0, ancienneCapaciteUtilisee - ancienneQuantite));
-            
             // Vérifier la capacité disponible du nouveau dépôt
             Double capaciteUtilisee = nouveauDepot.getCapaciteUtilisee() != null ? nouveauDepot.getCapaciteUtilisee() : 0.0;
             Double capaciteDisponible = nouveauDepot.getCapacite() - capaciteUtilisee;
@@ -240,10 +232,11 @@ public class StockServiceImpl implements StockService {
                 throw new RuntimeException("Capacité insuffisante dans le nouveau dépôt. Capacité disponible: " + capaciteDisponible + " " + (stock.getUnite() != null ? stock.getUnite() : "L"));
             }
             
-            // Ajouter la quantité au nouveau dépôt
-            nouveauDepot.setCapaciteUtilisee(capaciteUtilisee + nouvelleQuantite);
-            
-            depotRepository.save(ancienDepot);
+            // Transférer la quantité lue au nouveau dépôt par UPDATE relatifs (l'écart suit avec le mouvement)
+            depotRepository.ajusterCapaciteUtilisee(ancienDepot.getId(), -ancienneQuantite);
+            depotRepository.ajusterCapaciteUtilisee(nouveauDepot.getId(), ancienneQuantite);
+            entityManager.refresh(ancienDepot);
+            entityManager.refresh(nouveauDepot);
         } else {
             // Même dépôt, ajuster la capacité utilisée
             Double capaciteUtilisee = nouveauDepot.getCapaciteUtilisee() != null ? nouveauDepot.getCapaciteUtilisee() : 0.0;
@@ -257,46 +250,36 @@ public class StockServiceImpl implements StockService {
             if (differenceQuantite > capaciteDisponible) {
                 throw new RuntimeException("Capacité insuffisante dans le dépôt. Capacité disponible: " + capaciteDisponible + " " + (stock.getUnite() != null ? stock.getUnite() : "L"));
             }
-            
-            nouveauDepot.setCapaciteUtilisee(nouvelleCapaciteUtilisee);
         }
 
-        // Mettre à jour le statut du dépôt si nécessaire
-        if (nouveauDepot.getCapaciteUtilisee() >= nouveauDepot.getCapacite()) {
-            nouveauDepot.setStatut(Depot.StatutDepot.PLEIN);
-        } else if (nouveauDepot.getStatut() == Depot.StatutDepot.PLEIN && nouveauDepot.getCapaciteUtilisee() < nouveauDepot.getCapacite()) {
-            nouveauDepot.setStatut(Depot.StatutDepot.ACTIF);
-        }
-        
-        depotRepository.save(nouveauDepot);
-
         Stock updatedStock = stockRepository.save(stock);
 
-        // Créer un mouvement selon la différence de quantité
+        // Appliquer l'écart de quantité (stock, capacité du dépôt et mouvement) par le journal de stock
         if (differenceQuantite != 0) {
-            MouvementDTO mouvementDTO = new MouvementDTO();
-            mouvementDTO.setStockId(updatedStock.getId());
-            mouvementDTO.setQuantite(Math.abs(differenceQuantite));
-            mouvementDTO.setUnite(updatedStock.getUnite());
-            
+            double ecart = Math.abs(differenceQuantite);
             if (differenceQuantite > 0) {
                 // Augmentation de stock = ENTREE
-                mouvementDTO.setTypeMouvement("ENTREE");
-                mouvementDTO.setDescription("Augmentation de stock de " + Math.abs(differenceQuantite) + " " + updatedStock.getUnite() + " de " + updatedStock.getProduit().getNom() + " au dépôt " + nouveauDepot.getNom());
+                stockLedger.enregistrer(LocalDateTime.now(), MouvementStock.entree(updatedStock, ecart,
+                        "Augmentation de stock de " + ecart + " " + updatedStock.getUnite() + " de " + updatedStock.getProduit().getNom() + " au dépôt " + nouveauDepot.getNom()));
             } else {
                 // Diminution de stock = SORTIE
-                mouvementDTO.setTypeMouvement("SORTIE");
-                mouvementDTO.setDescription("Sortie de stock de " + Math.abs(differenceQuantite) + " " + updatedStock.getUnite() + " de " + updatedStock.getProduit().getNom() + " du dépôt " + nouveauDepot.getNom());
+                stockLedger.enregistrer(LocalDateTime.now(), MouvementStock.sortie(updatedStock, ecart,
+                        "Sortie de stock de " + ecart + " " + updatedStock.getUnite() + " de " + updatedStock.getProduit().getNom() + " du dépôt " + nouveauDepot.getNom()));
             }
-            mouvementService.save(mouvementDTO);
         }
 
-        if (updatedStock.getSeuilMinimum() != null && updatedStock.getQuantite() != null
-                && updatedStock.getQuantite() <= updatedStock.getSeuilMinimum()) {
-            alerteService.creerAlerte(Alerte.TypeAlerte.STOCK_FAIBLE,
-                    "Stock faible : " + updatedStock.getProduit().getNom() + " dans " + nouveauDepot.getNom() + " (quantité: " + updatedStock.getQuantite() + ")",
-                    Alerte.PrioriteAlerte.HAUTE, "Stock", updatedStock.getId(), "/stocks/" + updatedStock.getId());
+        // Mettre à jour le statut du dépôt si nécessaire
+        if (nouveauDepot.getCapaciteUtilisee() >= nouveauDepot.getCapacite()) {
+            nouveauDepot.setStatut(Depot.StatutDepot.PLEIN);
+        } else if (nouveauDepot.getStatut() == Depot.StatutDepot.PLEIN && nouveauDepot.getCapaciteUtilisee() < nouveauDepot.getCapacite()) {
+            nouveauDepot.setStatut(Depot.StatutDepot.ACTIF);
         }
+        
+        depotRepository.save(nouveauDepot);
+
+        // Le seuil minimum peut avoir changé sans mouvement : faire réévaluer ce stock
+        eventPublisher.publishEvent(new StockModifieEvent(Set.of(updatedStock.getId())));
+        eventPublisher.publishEvent(new DashboardChangeEvent(DashboardChangeEvent.Source.STOCK));
         return stockMapper.toDTO(updatedStock);
     }
 
@@ -308,16 +291,8 @@ public class StockServiceImpl implements StockService {
         Depot depot = stock.getDepot();
         Double quantite = stock.getQuantite();
         
-        // Retirer la quantité de la capacité utilisée du dépôt
-        Double capaciteUtilisee = depot.getCapaciteUtilisee() != null ? depot.getCapaciteUtilisee() : 0.0;
-        depot.setCapaciteUtilisee(Math.max(0.0, capaciteUtilisee - quantite));
-        
-        // Mettre à jour le statut du dépôt si nécessaire
-        if (depot.getStatut() == Depot.StatutDepot.PLEIN && depot.getCapaciteUtilisee() < depot.getCapacite()) {
-            depot.setStatut(Depot.StatutDepot.ACTIF);
-        }
-        
-        depotRepository.save(depot);
+        // Retirer la quantité de la capacité utilisée du dépôt (UPDATE relatif, statut PLEIN → ACTIF si besoin)
+        depotRepository.ajusterCapaciteUtilisee(depot.getId(), -quantite);
         stockRepository.deleteById(id);
     }
 
@@ -363,19 +338,35 @@ public class StockServiceImpl implements StockService {
             })
             .sum();
         
+        // Évolution depuis la clôture du dernier jour du mois précédent (même périmètre)
+        LocalDate finMoisPrecedent = LocalDate.now().withDayOfMonth(1).minusDays(1);
+        StockJournalierTotalProjection cloture = stockJournalierRepository
+            .sumByJourAndDepotStatut(finMoisPrecedent, Depot.StatutDepot.ACTIF).stream()
+            .findFirst()
+            .orElse(null);
+
         StockStatsDTO stats = new StockStatsDTO();
         stats.setTotalUnites(totalUnites);
-        stats.setEvolutionTotalUnites("+5.2%"); // TODO: Calculer l'évolution réelle
+        stats.setEvolutionTotalUnites(formaterEvolution(totalUnites, cloture != null ? cloture.getQuantite() : null));
         stats.setPeriodeTotalUnites("ce mois");
         stats.setTotalDepots((int) totalDepots);
         stats.setVillesDepots(villesDepots);
         stats.setProduitsCritiques(produitsCritiques);
         stats.setUrgentProduitsCritiques(produitsCritiques > 0);
         stats.setValeurStock(valeurStock);
-        stats.setEvolutionValeurStock("+12.5%"); // TODO: Calculer l'évolution réelle
+        stats.setEvolutionValeurStock(formaterEvolution(valeurStock, cloture != null ? cloture.getValeur() : null));
         stats.setPeriodeValeurStock("ce mois");
         
         return stats;
     }
+
+    /** Évolution en pourcentage par rapport à la référence, « N/A » sans référence exploitable. */
+    private static String formaterEvolution(double actuel, Double reference) {
+        if (reference == null || reference == 0) {
+            return "N/A";
+        }
+        double pourcentage = (actuel - reference) * 100 / reference;
+        return (pourcentage >= 0 ? "+" : "") + String.format(Locale.ROOT, "%.1f", pourcentage) + "%";
+    }
 }
 
@@ -21,5 +21,7 @@ public class StockDTO {
     private Double prixUnitaire;
     private String unite;
     private String dateDerniereMiseAJour;
+    /** Version lue par le client : une mise à jour portant une version dépassée est refusée */
+    private Long version;
 }
 
@@ -0,0 +1,17 @@
+package com.backend.gesy.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/** Point journalier de l'évolution du stock : quantité et valeur de clôture. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockEvolutionDTO {
+    private LocalDate jour;
+    private Double quantite;
+    private Double valeur;
+}
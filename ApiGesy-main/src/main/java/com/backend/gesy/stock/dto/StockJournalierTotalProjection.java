@@ -0,0 +1,12 @@
+package com.backend.gesy.stock.dto;
+
+import java.time.LocalDate;
+
+/** Projection d'agrégat : quantité et valeur de clôture cumulées par jour. */
+public interface StockJournalierTotalProjection {
+    LocalDate getJour();
+
+    Double getQuantite();
+
+    Double getValeur();
+}
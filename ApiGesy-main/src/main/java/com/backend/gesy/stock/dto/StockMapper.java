@@ -29,6 +29,7 @@ public class StockMapper {
         dto.setUnite(stock.getUnite());
         dto.setDateDerniereMiseAJour(stock.getDateDerniereMiseAJour() != null 
             ? stock.getDateDerniereMiseAJour().format(DATE_FORMATTER) : null);
+        dto.setVersion(stock.getVersion());
         
         return dto;
     }
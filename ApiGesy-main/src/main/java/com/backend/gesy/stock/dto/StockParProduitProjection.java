@@ -0,0 +1,21 @@
+package com.backend.gesy.stock.dto;
+
+import com.backend.gesy.produit.Produit;
+
+/**
+ * Projection d'agrégat : stock cumulé par produit, nombre de stocks sous le seuil minimum
+ * et nombre de dépôts distincts concernés.
+ */
+public interface StockParProduitProjection {
+    Long getProduitId();
+
+    String getProduitNom();
+
+    Produit.TypeProduit getTypeProduit();
+
+    Double getQuantiteTotale();
+
+    Long getNombreStocksCritiques();
+
+    Long getNombreDepots();
+}
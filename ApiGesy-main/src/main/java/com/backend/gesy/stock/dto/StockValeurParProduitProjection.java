@@ -0,0 +1,16 @@
+package com.backend.gesy.stock.dto;
+
+import com.backend.gesy.produit.Produit;
+
+/** Projection d'agrégat : quantité et valeur (quantité × prix unitaire) du stock en dépôt, par produit. */
+public interface StockValeurParProduitProjection {
+    Long getProduitId();
+
+    String getProduitNom();
+
+    Produit.TypeProduit getTypeProduit();
+
+    Double getQuantite();
+
+    Double getValeur();
+}
@@ -1,5 +1,8 @@
 package com.backend.gesy.transaction;
 
+import com.backend.gesy.pagination.CurseurPageDTO;
+import com.backend.gesy.solde.SoldeReconciliationService;
+import com.backend.gesy.solde.dto.EcartSoldeDTO;
 import com.backend.gesy.transaction.dto.TransactionDTO;
 import com.backend.gesy.transaction.dto.TransactionFilterResultDTO;
 import com.backend.gesy.transaction.dto.TransactionPageDTO;
@@ -19,6 +22,7 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class TransactionController {
     private final TransactionService transactionService;
+    private final SoldeReconciliationService soldeReconciliationService;
 
     @GetMapping
     public ResponseEntity<List<TransactionDTO>> getAllTransactions(
@@ -92,6 +96,15 @@ public class TransactionController {
         return ResponseEntity.ok(transactionService.findAllPaginated(page, size, exclureVoyageEnAttenteChargement));
     }
 
+    /** Journal par curseur : renvoyer {@code curseurSuivant} pour obtenir la page suivante. */
+    @GetMapping("/curseur")
+    public ResponseEntity<CurseurPageDTO<TransactionDTO>> getTransactionsParCurseur(
+            @RequestParam(required = false) String curseur,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(name = TransactionApiQueryParams.EXCLURE_VOYAGE_EN_ATTENTE_CHARGEMENT, defaultValue = "false") boolean exclureVoyageEnAttenteChargement) {
+        return ResponseEntity.ok(transactionService.findJournalParCurseur(curseur, size, exclureVoyageEnAttenteChargement));
+    }
+
     @GetMapping("/paginated/date")
     public ResponseEntity<TransactionPageDTO> getTransactionsByDate(
             @RequestParam String date,
@@ -238,15 +251,22 @@ public class TransactionController {
     /**
      * Recalcule les soldes de tous les comptes bancaires et caisses à partir des transactions validées.
      * À appeler une fois pour corriger les soldes des transactions créées avant la mise à jour automatique.
+     * Le recalcul est lancé en arrière-plan (202) ; les écarts corrigés sont tracés dans les points de contrôle.
      */
     @PostMapping("/recalculer-soldes")
     public ResponseEntity<Void> recalculerSoldes() {
         try {
             transactionService.recalculerSoldesDepuisTransactions();
-            return ResponseEntity.ok().build();
+            return ResponseEntity.accepted().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    /** Écarts entre les soldes tenus et la somme des transactions validées, sans correction. */
+    @GetMapping("/verifier-soldes")
+    public ResponseEntity<List<EcartSoldeDTO>> verifierSoldes() {
+        return ResponseEntity.ok(soldeReconciliationService.verifier());
+    }
 }
 
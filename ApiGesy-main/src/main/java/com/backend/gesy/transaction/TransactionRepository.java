@@ -4,17 +4,27 @@ import com.backend.gesy.camion.Camion;
 import com.backend.gesy.caisse.Caisse;
 import com.backend.gesy.comptebancaire.CompteBancaire;
 import com.backend.gesy.facture.Facture;
+import com.backend.gesy.transaction.dto.TransactionMontantDateProjection;
+import com.backend.gesy.transaction.dto.TransactionSoldeProjection;
+import com.backend.gesy.transaction.dto.TransactionStatsAgregatProjection;
+import com.backend.gesy.transaction.dto.TransactionTypeMontantProjection;
+import com.backend.gesy.transaction.dto.TransactionVoyageMontantProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.backend.gesy.voyage.VoyagePaiementMenuRules;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
@@ -124,6 +134,18 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     @Query("SELECT COALESCE(SUM(t.montant), 0) FROM Transaction t WHERE t.type = :type AND t.date >= :startDate AND t.date <= :endDate")
     java.math.BigDecimal sumMontantByTypeAndDateRange(@Param("type") Transaction.TypeTransaction type, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
+    // Sommes des montants par type (une seule requête GROUP BY pour plusieurs types)
+    @Query("SELECT t.type AS type, COALESCE(SUM(t.montant), 0) AS montant FROM Transaction t WHERE t.type IN :types AND t.date >= :startDate AND t.date <= :endDate GROUP BY t.type")
+    List<TransactionTypeMontantProjection> sumMontantGroupByTypeAndDateRange(@Param("types") Collection<Transaction.TypeTransaction> types, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    // Même agrégat restreint à un statut (rapport financier : transactions validées)
+    @Query("SELECT t.type AS type, COALESCE(SUM(t.montant), 0) AS montant FROM Transaction t WHERE t.statut = :statut AND t.type IN :types " +
+           "AND t.date >= :startDate AND t.date <= :endDate GROUP BY t.type")
+    List<TransactionTypeMontantProjection> sumMontantGroupByTypeAndStatutAndDateRange(@Param("statut") Transaction.StatutTransaction statut,
+                                                                                     @Param("types") Collection<Transaction.TypeTransaction> types,
+                                                                                     @Param("startDate") LocalDateTime startDate,
+                                                                                     @Param("endDate") LocalDateTime endDate);
+
     /** Filtre « menu Paiements » : {@link VoyagePaiementMenuRules#JPQL_TRANSACTION_VISIBLE} */
 
     @Query("SELECT t FROM Transaction t WHERE " + VoyagePaiementMenuRules.JPQL_TRANSACTION_VISIBLE + " ORDER BY t.date DESC")
@@ -170,5 +192,66 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     @Query("SELECT COALESCE(SUM(t.montant), 0) FROM Transaction t WHERE t.type = :type AND t.date >= :startDate AND t.date <= :endDate AND " + VoyagePaiementMenuRules.JPQL_TRANSACTION_VISIBLE)
     java.math.BigDecimal sumMontantByTypeAndDateRangeExclureVoyageEnAttenteChargement(@Param("type") Transaction.TypeTransaction type, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
-}
 
+    // Transactions d'un statut et de types donnés dans [startDate, endDate[, triées par date, lues en flux
+    @Query("SELECT t.date AS date, t.montant AS montant FROM Transaction t " +
+           "WHERE t.statut = :statut AND t.type IN :types AND t.date >= :startDate AND t.date < :endDate ORDER BY t.date")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<TransactionMontantDateProjection> streamMontantsByStatutAndTypesAndDateRange(@Param("statut") Transaction.StatutTransaction statut,
+                                                                                         @Param("types") Collection<Transaction.TypeTransaction> types,
+                                                                                         @Param("startDate") LocalDateTime startDate,
+                                                                                         @Param("endDate") LocalDateTime endDate);
+
+    // Somme des transactions par voyage pour un lot de voyages (frais totaux des marges)
+    @Query("SELECT t.voyage.id AS voyageId, COALESCE(SUM(t.montant), 0) AS montant FROM Transaction t " +
+           "WHERE t.voyage.id IN :voyageIds GROUP BY t.voyage.id")
+    List<TransactionVoyageMontantProjection> sumMontantGroupByVoyageIds(@Param("voyageIds") Collection<Long> voyageIds);
+
+    /** Montant signé d'une transaction pour le solde : DEPOT et VIREMENT_ENTRANT créditent, le reste débite. */
+    String MONTANT_SIGNE = "CASE WHEN t.type IN ('DEPOT', 'VIREMENT_ENTRANT') THEN t.montant ELSE -t.montant END";
+
+    // Soldes recalculés en base (une ligne par compte / caisse ayant des transactions validées)
+    @Query("SELECT t.compte.id AS compteId, COALESCE(SUM(" + MONTANT_SIGNE + "), 0) AS solde, " +
+           "MAX(t.id) AS dernierTransactionId, COUNT(t) AS nombreTransactions FROM Transaction t " +
+           "WHERE t.compte IS NOT NULL AND t.statut = 'VALIDE' AND t.montant IS NOT NULL GROUP BY t.compte.id")
+    List<TransactionSoldeProjection> sumSoldesValidesGroupByCompte();
+
+    @Query("SELECT t.caisse.id AS compteId, COALESCE(SUM(" + MONTANT_SIGNE + "), 0) AS solde, " +
+           "MAX(t.id) AS dernierTransactionId, COUNT(t) AS nombreTransactions FROM Transaction t " +
+           "WHERE t.caisse IS NOT NULL AND t.statut = 'VALIDE' AND t.montant IS NOT NULL GROUP BY t.caisse.id")
+    List<TransactionSoldeProjection> sumSoldesValidesGroupByCaisse();
+
+    /** Période d'une transaction pour les statistiques : mois en cours [debutMois, finPeriode[, mois dernier [debutMoisDernier, debutMois[. */
+    String PERIODE_STATS = "CASE WHEN t.date >= :debutMois AND t.date < :finPeriode THEN 'MOIS' " +
+                           "WHEN t.date >= :debutMoisDernier AND t.date < :debutMois THEN 'MOIS_DERNIER' ELSE 'AUTRE' END";
+
+    // Statistiques : un seul passage groupé par statut et période
+    @Query("SELECT x.statut AS statut, x.periode AS periode, COUNT(x.id) AS total, COALESCE(SUM(x.montant), 0) AS montant " +
+           "FROM (SELECT t.id AS id, t.statut AS statut, t.montant AS montant, " + PERIODE_STATS + " AS periode FROM Transaction t) x " +
+           "GROUP BY x.statut, x.periode")
+    List<TransactionStatsAgregatProjection> aggregateStatsGroupByStatutAndPeriode(@Param("debutMoisDernier") LocalDateTime debutMoisDernier,
+                                                                                 @Param("debutMois") LocalDateTime debutMois,
+                                                                                 @Param("finPeriode") LocalDateTime finPeriode);
+
+    @Query("SELECT x.statut AS statut, x.periode AS periode, COUNT(x.id) AS total, COALESCE(SUM(x.montant), 0) AS montant " +
+           "FROM (SELECT t.id AS id, t.statut AS statut, t.montant AS montant, " + PERIODE_STATS + " AS periode FROM Transaction t " +
+           "WHERE " + VoyagePaiementMenuRules.JPQL_TRANSACTION_VISIBLE + ") x " +
+           "GROUP BY x.statut, x.periode")
+    List<TransactionStatsAgregatProjection> aggregateStatsGroupByStatutAndPeriodeExclureVoyageEnAttenteChargement(@Param("debutMoisDernier") LocalDateTime debutMoisDernier,
+                                                                                                                 @Param("debutMois") LocalDateTime debutMois,
+                                                                                                                 @Param("finPeriode") LocalDateTime finPeriode);
+
+    // Défilement par curseur (date, id) : première page puis lignes strictement après le curseur
+    @Query("SELECT t FROM Transaction t ORDER BY t.date DESC, t.id DESC")
+    List<Transaction> findPremieresLignesJournal(Pageable pageable);
+
+    @Query("SELECT t FROM Transaction t WHERE t.date < :date OR (t.date = :date AND t.id < :id) ORDER BY t.date DESC, t.id DESC")
+    List<Transaction> findLignesJournalApres(@Param("date") LocalDateTime date, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT t FROM Transaction t WHERE " + VoyagePaiementMenuRules.JPQL_TRANSACTION_VISIBLE + " ORDER BY t.date DESC, t.id DESC")
+    List<Transaction> findPremieresLignesJournalExclureVoyageEnAttenteChargement(Pageable pageable);
+
+    @Query("SELECT t FROM Transaction t WHERE (t.date < :date OR (t.date = :date AND t.id < :id)) AND " +
+           VoyagePaiementMenuRules.JPQL_TRANSACTION_VISIBLE + " ORDER BY t.date DESC, t.id DESC")
+    List<Transaction> findLignesJournalApresExclureVoyageEnAttenteChargement(@Param("date") LocalDateTime date, @Param("id") Long id, Pageable pageable);
+}
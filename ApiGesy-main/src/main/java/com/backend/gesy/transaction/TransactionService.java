@@ -1,5 +1,6 @@
 package com.backend.gesy.transaction;
 
+import com.backend.gesy.pagination.CurseurPageDTO;
 import com.backend.gesy.transaction.dto.TransactionDTO;
 import com.backend.gesy.transaction.dto.TransactionFilterResultDTO;
 import com.backend.gesy.transaction.dto.TransactionPageDTO;
@@ -32,6 +33,8 @@ public interface TransactionService {
     // Méthodes de pagination
     List<TransactionDTO> findRecentTransactions(int limit);
     TransactionPageDTO findAllPaginated(int page, int size, boolean exclureVoyageEnAttenteChargement);
+    /** Journal par curseur (date, id) : {@code curseur} null pour la première page. */
+    CurseurPageDTO<TransactionDTO> findJournalParCurseur(String curseur, int size, boolean exclureVoyageEnAttenteChargement);
     TransactionPageDTO findByDate(LocalDate date, int page, int size, boolean exclureVoyageEnAttenteChargement);
     TransactionPageDTO findByDateRange(LocalDate startDate, LocalDate endDate, int page, int size, boolean exclureVoyageEnAttenteChargement);
     
@@ -61,6 +64,7 @@ public interface TransactionService {
     /**
      * Recalcule les soldes de tous les comptes bancaires et caisses à partir des transactions validées.
      * À utiliser une fois pour corriger les soldes des transactions créées avant la mise à jour automatique.
+     * Le recalcul est lancé en arrière-plan.
      */
     void recalculerSoldesDepuisTransactions();
 
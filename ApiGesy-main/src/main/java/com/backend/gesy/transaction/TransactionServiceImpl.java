@@ -6,21 +6,26 @@ import com.backend.gesy.caisse.Caisse;
 import com.backend.gesy.caisse.CaisseRepository;
 import com.backend.gesy.comptebancaire.CompteBancaire;
 import com.backend.gesy.comptebancaire.CompteBancaireRepository;
+import com.backend.gesy.dashboard.DashboardChangeEvent;
 import com.backend.gesy.facture.Facture;
 import com.backend.gesy.facture.FactureRepository;
+import com.backend.gesy.pagination.Curseur;
+import com.backend.gesy.pagination.CurseurPageDTO;
+import com.backend.gesy.solde.SoldeReconciliationService;
+import com.backend.gesy.solde.SoldeUpdater;
 import com.backend.gesy.voyage.Voyage;
 import com.backend.gesy.voyage.VoyagePaiementMenuRules;
 import com.backend.gesy.voyage.VoyageRepository;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Sort;
 import com.backend.gesy.transaction.dto.TransactionDTO;
 import com.backend.gesy.transaction.dto.TransactionFilterResultDTO;
 import com.backend.gesy.transaction.dto.TransactionMapper;
 import com.backend.gesy.transaction.dto.TransactionPageDTO;
+import com.backend.gesy.transaction.dto.TransactionStatsAgregatProjection;
 import com.backend.gesy.transaction.dto.TransactionStatsDTO;
 import com.backend.gesy.transaction.dto.VirementRequestDTO;
 import com.backend.gesy.finance.FinanceEntityAccessService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -51,6 +56,9 @@ public class TransactionServiceImpl implements TransactionService {
     private final CaisseRepository caisseRepository;
     private final TransactionMapper transactionMapper;
     private final FinanceEntityAccessService financeEntityAccessService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SoldeReconciliationService soldeReconciliationService;
+    private final SoldeUpdater soldeUpdater;
 
     private List<Transaction> applyVoyageFilter(List<Transaction> list, boolean exclure) {
         if (!exclure) return list;
@@ -59,18 +67,12 @@ public class TransactionServiceImpl implements TransactionService {
             .collect(Collectors.toList());
     }
 
-    private Page<Transaction> applyVoyageFilterPaginated(List<Transaction> allFiltered, Pageable pageable) {
-        int total = allFiltered.size();
-        int start = (int) pageable.getOffset();
-        int end = Math.min(start + pageable.getPageSize(), total);
-        List<Transaction> pageContent = start >= total ? List.of() : allFiltered.subList(start, end);
-        return new PageImpl<>(pageContent, pageable, total);
-    }
-
     @Override
     public List<TransactionDTO> findAll(boolean exclureVoyageEnAttenteChargement) {
-        List<Transaction> list = transactionRepository.findAll();
-        return applyVoyageFilter(list, exclureVoyageEnAttenteChargement).stream()
+        List<Transaction> list = exclureVoyageEnAttenteChargement
+            ? transactionRepository.findAllExclureVoyageEnAttenteChargement()
+            : transactionRepository.findAll();
+        return list.stream()
             .map(transactionMapper::toDTO)
             .collect(Collectors.toList());
     }
@@ -130,17 +132,13 @@ public class TransactionServiceImpl implements TransactionService {
             // Mettre à jour le solde du compte si la transaction est validée
             if (transaction.getStatut() == Transaction.StatutTransaction.VALIDE && transaction.getMontant() != null) {
                 if (isTransactionEntrante(transaction.getType())) {
-                    compte.setSolde(compte.getSolde().add(transaction.getMontant()));
+                    soldeUpdater.crediter(compte, transaction.getMontant());
                 } else {
                     if (compte.getStatut() != CompteBancaire.StatutCompte.ACTIF) {
                         throw new RuntimeException("Le compte bancaire n'est pas actif");
                     }
-                    if (compte.getSolde().compareTo(transaction.getMontant()) < 0) {
-                        throw new RuntimeException("Solde insuffisant sur le compte bancaire");
-                    }
-                    compte.setSolde(compte.getSolde().subtract(transaction.getMontant()));
+                    soldeUpdater.debiter(compte, transaction.getMontant(), "Solde insuffisant sur le compte bancaire");
                 }
-                compteBancaireRepository.save(compte);
             }
         }
         if (transactionDTO.getFactureId() != null) {
@@ -164,14 +162,10 @@ public class TransactionServiceImpl implements TransactionService {
                     throw new RuntimeException("La caisse n'est pas active");
                 }
                 if (isTransactionEntrante(transaction.getType())) {
-                    caisse.setSolde(caisse.getSolde().add(transaction.getMontant()));
+                    soldeUpdater.crediter(caisse, transaction.getMontant());
                 } else {
-                    if (caisse.getSolde().compareTo(transaction.getMontant()) < 0) {
-                        throw new RuntimeException("Solde insuffisant dans la caisse");
-                    }
-                    caisse.setSolde(caisse.getSolde().subtract(transaction.getMontant()));
+                    soldeUpdater.debiter(caisse, transaction.getMontant(), "Solde insuffisant dans la caisse");
                 }
-                caisseRepository.save(caisse);
             }
         }
         if (transactionDTO.getTransactionLieeId() != null) {
@@ -184,6 +178,7 @@ public class TransactionServiceImpl implements TransactionService {
         if (savedTransaction.getFacture() != null && savedTransaction.getFacture().getId() != null) {
             syncFactureMontantPayeFromTransactions(savedTransaction.getFacture().getId());
         }
+        eventPublisher.publishEvent(new DashboardChangeEvent(DashboardChangeEvent.Source.TRANSACTION));
         return transactionMapper.toDTO(savedTransaction);
     }
 
@@ -302,6 +297,18 @@ public class TransactionServiceImpl implements TransactionService {
                 throw new RuntimeException("Solde insuffisant sur le compte source");
             }
 
+            // Mettre à jour les soldes uniquement si la transaction est validée, avant les insertions et dans
+            // l'ordre des identifiants : deux virements croisés verrouillent les comptes dans le même ordre
+            if (statut == Transaction.StatutTransaction.VALIDE) {
+                if (compteSource.getId() < compteDestination.getId()) {
+                    soldeUpdater.debiter(compteSource, request.getMontant(), "Solde insuffisant sur le compte source");
+                    soldeUpdater.crediter(compteDestination, request.getMontant());
+                } else {
+                    soldeUpdater.crediter(compteDestination, request.getMontant());
+                    soldeUpdater.debiter(compteSource, request.getMontant(), "Solde insuffisant sur le compte source");
+                }
+            }
+
             // Créer la transaction sortante
             Transaction transactionSortante = new Transaction();
             transactionSortante.setType(Transaction.TypeTransaction.VIREMENT_SORTANT);
@@ -336,14 +343,6 @@ public class TransactionServiceImpl implements TransactionService {
             transactionRepository.save(savedSortante);
             transactionRepository.save(savedEntrante);
 
-            // Mettre à jour les soldes uniquement si la transaction est validée
-            if (statut == Transaction.StatutTransaction.VALIDE) {
-                compteSource.setSolde(compteSource.getSolde().subtract(request.getMontant()));
-                compteDestination.setSolde(compteDestination.getSolde().add(request.getMontant()));
-                compteBancaireRepository.save(compteSource);
-                compteBancaireRepository.save(compteDestination);
-            }
-
             transactionsCreees.add(transactionMapper.toDTO(savedSortante));
             transactionsCreees.add(transactionMapper.toDTO(savedEntrante));
 
@@ -371,6 +370,13 @@ public class TransactionServiceImpl implements TransactionService {
                 throw new RuntimeException("Solde insuffisant dans la caisse");
             }
 
+            // Mettre à jour les soldes uniquement si la transaction est validée, avant les insertions et
+            // toujours le compte bancaire avant la caisse (même ordre de verrouillage que les retraits)
+            if (statut == Transaction.StatutTransaction.VALIDE) {
+                soldeUpdater.crediter(compteDestination, request.getMontant());
+                soldeUpdater.debiter(caisse, request.getMontant(), "Solde insuffisant dans la caisse");
+            }
+
             // Créer la transaction sortante (caisse)
             Transaction transactionSortante = new Transaction();
             transactionSortante.setType(Transaction.TypeTransaction.RETRAIT);
@@ -405,14 +411,6 @@ public class TransactionServiceImpl implements TransactionService {
             transactionRepository.save(savedSortante);
             transactionRepository.save(savedEntrante);
 
-            // Mettre à jour les soldes uniquement si la transaction est validée
-            if (statut == Transaction.StatutTransaction.VALIDE) {
-                caisse.setSolde(caisse.getSolde().subtract(request.getMontant()));
-                compteDestination.setSolde(compteDestination.getSolde().add(request.getMontant()));
-                caisseRepository.save(caisse);
-                compteBancaireRepository.save(compteDestination);
-            }
-
             transactionsCreees.add(transactionMapper.toDTO(savedSortante));
             transactionsCreees.add(transactionMapper.toDTO(savedEntrante));
 
@@ -440,6 +438,13 @@ public class TransactionServiceImpl implements TransactionService {
                 throw new RuntimeException("Solde insuffisant sur le compte bancaire");
             }
 
+            // Mettre à jour les soldes uniquement si la transaction est validée, avant les insertions et
+            // toujours le compte bancaire avant la caisse (même ordre de verrouillage que les dépôts)
+            if (statut == Transaction.StatutTransaction.VALIDE) {
+                soldeUpdater.debiter(compteSource, request.getMontant(), "Solde insuffisant sur le compte bancaire");
+                soldeUpdater.crediter(caisse, request.getMontant());
+            }
+
             // Créer la transaction sortante (banque)
             Transaction transactionSortante = new Transaction();
             transactionSortante.setType(Transaction.TypeTransaction.RETRAIT);
@@ -474,14 +479,6 @@ public class TransactionServiceImpl implements TransactionService {
             transactionRepository.save(savedSortante);
             transactionRepository.save(savedEntrante);
 
-            // Mettre à jour les soldes uniquement si la transaction est validée
-            if (statut == Transaction.StatutTransaction.VALIDE) {
-                compteSource.setSolde(compteSource.getSolde().subtract(request.getMontant()));
-                caisse.setSolde(caisse.getSolde().add(request.getMontant()));
-                compteBancaireRepository.save(compteSource);
-                caisseRepository.save(caisse);
-            }
-
             transactionsCreees.add(transactionMapper.toDTO(savedSortante));
             transactionsCreees.add(transactionMapper.toDTO(savedEntrante));
 
@@ -507,8 +504,7 @@ public class TransactionServiceImpl implements TransactionService {
                     // Mettre à jour le solde uniquement si la transaction est validée et le compte existe
                     if (statut == Transaction.StatutTransaction.VALIDE && 
                         compteDestination.getStatut() == CompteBancaire.StatutCompte.ACTIF) {
-                        compteDestination.setSolde(compteDestination.getSolde().add(request.getMontant()));
-                        compteBancaireRepository.save(compteDestination);
+                        soldeUpdater.crediter(compteDestination, request.getMontant());
                     }
                 }
             }
@@ -522,8 +518,7 @@ public class TransactionServiceImpl implements TransactionService {
                     // Mettre à jour le solde uniquement si la transaction est validée et la caisse existe
                     if (statut == Transaction.StatutTransaction.VALIDE && 
                         caisse.getStatut() == Caisse.StatutCaisse.ACTIF) {
-                        caisse.setSolde(caisse.getSolde().add(request.getMontant()));
-                        caisseRepository.save(caisse);
+                        soldeUpdater.crediter(caisse, request.getMontant());
                     }
                 }
             }
@@ -553,9 +548,26 @@ public class TransactionServiceImpl implements TransactionService {
         if (!exclureVoyageEnAttenteChargement) {
             return mapToPageDto(transactionRepository.findAllOrderedByDate(pageable));
         }
-        List<Transaction> all = transactionRepository.findAll(Sort.by(Sort.Direction.DESC, "date"));
-        List<Transaction> filtered = applyVoyageFilter(all, true);
-        return mapToPageDto(applyVoyageFilterPaginated(filtered, pageable));
+        return mapToPageDto(transactionRepository.findAllOrderedByDateExclureVoyageEnAttenteChargement(pageable));
+    }
+
+    @Override
+    public CurseurPageDTO<TransactionDTO> findJournalParCurseur(String curseur, int size, boolean exclureVoyageEnAttenteChargement) {
+        Curseur position = Curseur.decoder(curseur);
+        int taille = Math.max(size, 1);
+        // Une ligne de plus que demandé pour savoir s'il existe une suite
+        Pageable limite = PageRequest.of(0, taille + 1);
+        List<Transaction> lignes;
+        if (position == null) {
+            lignes = exclureVoyageEnAttenteChargement
+                ? transactionRepository.findPremieresLignesJournalExclureVoyageEnAttenteChargement(limite)
+                : transactionRepository.findPremieresLignesJournal(limite);
+        } else {
+            lignes = exclureVoyageEnAttenteChargement
+                ? transactionRepository.findLignesJournalApresExclureVoyageEnAttenteChargement(position.date(), position.id(), limite)
+                : transactionRepository.findLignesJournalApres(position.date(), position.id(), limite);
+        }
+        return CurseurPageDTO.depuis(lignes, taille, t -> new Curseur(t.getDate(), t.getId()), transactionMapper::toDTO);
     }
 
     @Override
@@ -565,8 +577,7 @@ public class TransactionServiceImpl implements TransactionService {
         if (!exclureVoyageEnAttenteChargement) {
             return mapToPageDto(transactionRepository.findByDate(startOfDay, pageable));
         }
-        List<Transaction> all = transactionRepository.findByDateAll(startOfDay);
-        return mapToPageDto(applyVoyageFilterPaginated(applyVoyageFilter(all, true), pageable));
+        return mapToPageDto(transactionRepository.findByDateExclureVoyageEnAttenteChargement(startOfDay, pageable));
     }
 
     @Override
@@ -577,14 +588,16 @@ public class TransactionServiceImpl implements TransactionService {
         if (!exclureVoyageEnAttenteChargement) {
             return mapToPageDto(transactionRepository.findByDateRange(startDateTime, endDateTime, pageable));
         }
-        List<Transaction> all = transactionRepository.findByDateRangeAll(startDateTime, endDateTime);
-        return mapToPageDto(applyVoyageFilterPaginated(applyVoyageFilter(all, true), pageable));
+        return mapToPageDto(transactionRepository.findByDateRangeExclureVoyageEnAttenteChargement(startDateTime, endDateTime, pageable));
     }
 
     @Override
     public List<TransactionDTO> findByDateAll(LocalDate date, boolean exclureVoyageEnAttenteChargement) {
         LocalDateTime startOfDay = date.atStartOfDay();
-        return applyVoyageFilter(transactionRepository.findByDateAll(startOfDay), exclureVoyageEnAttenteChargement).stream()
+        List<Transaction> list = exclureVoyageEnAttenteChargement
+            ? transactionRepository.findByDateAllExclureVoyageEnAttenteChargement(startOfDay)
+            : transactionRepository.findByDateAll(startOfDay);
+        return list.stream()
             .map(transactionMapper::toDTO)
             .collect(Collectors.toList());
     }
@@ -593,7 +606,10 @@ public class TransactionServiceImpl implements TransactionService {
     public List<TransactionDTO> findByDateRangeAll(LocalDate startDate, LocalDate endDate, boolean exclureVoyageEnAttenteChargement) {
         LocalDateTime startDateTime = startDate.atStartOfDay();
         LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
-        return applyVoyageFilter(transactionRepository.findByDateRangeAll(startDateTime, endDateTime), exclureVoyageEnAttenteChargement).stream()
+        List<Transaction> list = exclureVoyageEnAttenteChargement
+            ? transactionRepository.findByDateRangeAllExclureVoyageEnAttenteChargement(startDateTime, endDateTime)
+            : transactionRepository.findByDateRangeAll(startDateTime, endDateTime);
+        return list.stream()
             .map(transactionMapper::toDTO)
             .collect(Collectors.toList());
     }
@@ -716,13 +732,8 @@ public class TransactionServiceImpl implements TransactionService {
                     if (compte.getStatut() != CompteBancaire.StatutCompte.ACTIF) {
                         throw new RuntimeException("Le compte bancaire n'est pas actif");
                     }
-                    // Vérifier que le solde est suffisant
-                    if (compte.getSolde().compareTo(transaction.getMontant()) < 0) {
-                        throw new RuntimeException("Solde insuffisant dans le compte bancaire");
-                    }
-                    // Débiter le compte
-                    compte.setSolde(compte.getSolde().subtract(transaction.getMontant()));
-                    compteBancaireRepository.save(compte);
+                    // Débiter le compte (contrôle du solde suffisant dans le même UPDATE)
+                    soldeUpdater.debiter(compte, transaction.getMontant(), "Solde insuffisant dans le compte bancaire");
                 }
             }
         }
@@ -741,13 +752,8 @@ public class TransactionServiceImpl implements TransactionService {
                     if (caisse.getStatut() != Caisse.StatutCaisse.ACTIF) {
                         throw new RuntimeException("La caisse n'est pas active");
                     }
-                    // Vérifier que le solde est suffisant
-                    if (caisse.getSolde().compareTo(transaction.getMontant()) < 0) {
-                        throw new RuntimeException("Solde insuffisant dans la caisse");
-                    }
-                    // Débiter la caisse
-                    caisse.setSolde(caisse.getSolde().subtract(transaction.getMontant()));
-                    caisseRepository.save(caisse);
+                    // Débiter la caisse (contrôle du solde suffisant dans le même UPDATE)
+                    soldeUpdater.debiter(caisse, transaction.getMontant(), "Solde insuffisant dans la caisse");
                 }
             }
         }
@@ -769,19 +775,12 @@ public class TransactionServiceImpl implements TransactionService {
     @Override
     public TransactionFilterResultDTO filterByCustom(Transaction.TypeTransaction type, LocalDate date, LocalDate startDate, LocalDate endDate, int page, int size, boolean exclureVoyageEnAttenteChargement) {
         Pageable pageable = PageRequest.of(page, size);
-        CustomFilterQueries queries = resolveCustomFilterQueries(type, date, startDate, endDate);
+        CustomFilterQueries queries = exclureVoyageEnAttenteChargement
+            ? resolveCustomFilterQueriesExclureVoyageEnAttenteChargement(type, date, startDate, endDate)
+            : resolveCustomFilterQueries(type, date, startDate, endDate);
 
-        if (!exclureVoyageEnAttenteChargement) {
-            Page<Transaction> transactionPage = queries.pageLoader().apply(pageable);
-            BigDecimal totalMontant = Optional.ofNullable(queries.sumMontant().get()).orElse(BigDecimal.ZERO);
-            return buildFilterResultDTO(transactionPage, totalMontant);
-        }
-
-        List<Transaction> allFiltered = applyVoyageFilter(queries.allLoader().get(), true);
-        BigDecimal totalMontant = allFiltered.stream()
-            .map(Transaction::getMontant)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        Page<Transaction> transactionPage = applyVoyageFilterPaginated(allFiltered, pageable);
+        Page<Transaction> transactionPage = queries.pageLoader().apply(pageable);
+        BigDecimal totalMontant = Optional.ofNullable(queries.sumMontant().get()).orElse(BigDecimal.ZERO);
         return buildFilterResultDTO(transactionPage, totalMontant);
     }
 
@@ -801,8 +800,7 @@ public class TransactionServiceImpl implements TransactionService {
 
     private record CustomFilterQueries(
         Function<Pageable, Page<Transaction>> pageLoader,
-        Supplier<BigDecimal> sumMontant,
-        Supplier<List<Transaction>> allLoader
+        Supplier<BigDecimal> sumMontant
     ) {
     }
 
@@ -821,20 +819,17 @@ public class TransactionServiceImpl implements TransactionService {
                 LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
                 return new CustomFilterQueries(
                     p -> transactionRepository.findByTypeAndDateRange(type, startDateTime, endDateTime, p),
-                    () -> transactionRepository.sumMontantByTypeAndDateRange(type, startDateTime, endDateTime),
-                    () -> transactionRepository.findByTypeAndDateRange(type, startDateTime, endDateTime, Pageable.unpaged()).getContent());
+                    () -> transactionRepository.sumMontantByTypeAndDateRange(type, startDateTime, endDateTime));
             }
             if (useDate) {
                 LocalDateTime startOfDay = date.atStartOfDay();
                 return new CustomFilterQueries(
                     p -> transactionRepository.findByTypeAndDate(type, startOfDay, p),
-                    () -> transactionRepository.sumMontantByTypeAndDate(type, startOfDay),
-                    () -> transactionRepository.findByTypeAndDate(type, startOfDay, Pageable.unpaged()).getContent());
+                    () -> transactionRepository.sumMontantByTypeAndDate(type, startOfDay));
             }
             return new CustomFilterQueries(
                 p -> transactionRepository.findByType(type, p),
-                () -> transactionRepository.sumMontantByType(type),
-                () -> transactionRepository.findByType(type, Pageable.unpaged()).getContent());
+                () -> transactionRepository.sumMontantByType(type));
         }
 
         if (useDateRange) {
@@ -842,20 +837,64 @@ public class TransactionServiceImpl implements TransactionService {
             LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
             return new CustomFilterQueries(
                 p -> transactionRepository.findByDateRange(startDateTime, endDateTime, p),
-                () -> transactionRepository.sumMontantByDateRange(startDateTime, endDateTime),
-                () -> transactionRepository.findByDateRangeAll(startDateTime, endDateTime));
+                () -> transactionRepository.sumMontantByDateRange(startDateTime, endDateTime));
         }
         if (useDate) {
             LocalDateTime startOfDay = date.atStartOfDay();
             return new CustomFilterQueries(
                 p -> transactionRepository.findByDate(startOfDay, p),
-                () -> transactionRepository.sumMontantByDate(startOfDay),
-                () -> transactionRepository.findByDateAll(startOfDay));
+                () -> transactionRepository.sumMontantByDate(startOfDay));
         }
         return new CustomFilterQueries(
             transactionRepository::findAllOrderedByDate,
-            transactionRepository::sumMontantAll,
-            () -> transactionRepository.findAll(Sort.by(Sort.Direction.DESC, "date")));
+            transactionRepository::sumMontantAll);
+    }
+
+    /** Mêmes filtres que {@link #resolveCustomFilterQueries}, voyages en attente de chargement exclus en base. */
+    private CustomFilterQueries resolveCustomFilterQueriesExclureVoyageEnAttenteChargement(
+        Transaction.TypeTransaction type,
+        LocalDate date,
+        LocalDate startDate,
+        LocalDate endDate
+    ) {
+        boolean useDateRange = startDate != null && endDate != null;
+        boolean useDate = !useDateRange && date != null;
+
+        if (type != null) {
+            if (useDateRange) {
+                LocalDateTime startDateTime = startDate.atStartOfDay();
+                LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
+                return new CustomFilterQueries(
+                    p -> transactionRepository.findByTypeAndDateRangeExclureVoyageEnAttenteChargement(type, startDateTime, endDateTime, p),
+                    () -> transactionRepository.sumMontantByTypeAndDateRangeExclureVoyageEnAttenteChargement(type, startDateTime, endDateTime));
+            }
+            if (useDate) {
+                LocalDateTime startOfDay = date.atStartOfDay();
+                return new CustomFilterQueries(
+                    p -> transactionRepository.findByTypeAndDateExclureVoyageEnAttenteChargement(type, startOfDay, p),
+                    () -> transactionRepository.sumMontantByTypeAndDateExclureVoyageEnAttenteChargement(type, startOfDay));
+            }
+            return new CustomFilterQueries(
+                p -> transactionRepository.findByTypeExclureVoyageEnAttenteChargement(type, p),
+                () -> transactionRepository.sumMontantByTypeExclureVoyageEnAttenteChargement(type));
+        }
+
+        if (useDateRange) {
+            LocalDateTime startDateTime = startDate.atStartOfDay();
+            LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
+            return new CustomFilterQueries(
+                p -> transactionRepository.findByDateRangeExclureVoyageEnAttenteChargement(startDateTime, endDateTime, p),
+                () -> transactionRepository.sumMontantByDateRangeExclureVoyageEnAttenteChargement(startDateTime, endDateTime));
+        }
+        if (useDate) {
+            LocalDateTime startOfDay = date.atStartOfDay();
+            return new CustomFilterQueries(
+                p -> transactionRepository.findByDateExclureVoyageEnAttenteChargement(startOfDay, p),
+                () -> transactionRepository.sumMontantByDateExclureVoyageEnAttenteChargement(startOfDay));
+        }
+        return new CustomFilterQueries(
+            transactionRepository::findAllOrderedByDateExclureVoyageEnAttenteChargement,
+            transactionRepository::sumMontantAllExclureVoyageEnAttenteChargement);
     }
 
     private TransactionPageDTO mapToPageDto(Page<Transaction> transactionPage) {
@@ -872,7 +911,57 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public TransactionStatsDTO getStats(boolean exclureVoyageEnAttenteChargement) {
+        LocalDate now = LocalDate.now();
+        LocalDateTime debutMois = now.withDayOfMonth(1).atStartOfDay();
+        LocalDateTime debutMoisDernier = debutMois.minusMonths(1);
+        LocalDateTime finPeriode = now.plusDays(1).atStartOfDay();
+
+        // Un seul passage groupé par statut et période au lieu de charger toutes les transactions
+        List<TransactionStatsAgregatProjection> agregats = exclureVoyageEnAttenteChargement
+            ? transactionRepository.aggregateStatsGroupByStatutAndPeriodeExclureVoyageEnAttenteChargement(debutMoisDernier, debutMois, finPeriode)
+            : transactionRepository.aggregateStatsGroupByStatutAndPeriode(debutMoisDernier, debutMois, finPeriode);
+
+        long totalEffectuees = 0;
+        BigDecimal montantEffectuees = BigDecimal.ZERO;
+        long totalMoisDernier = 0;
+        long totalEnAttente = 0;
+        BigDecimal montantEnAttente = BigDecimal.ZERO;
+        long totalEchec = 0;
+        BigDecimal montantEchec = BigDecimal.ZERO;
+        long totalTransactions = 0;
+
+        for (TransactionStatsAgregatProjection a : agregats) {
+            long total = a.getTotal() != null ? a.getTotal() : 0L;
+            BigDecimal montant = a.getMontant() != null ? a.getMontant() : BigDecimal.ZERO;
+            totalTransactions += total;
+            if (a.getStatut() == Transaction.StatutTransaction.VALIDE) {
+                if ("MOIS".equals(a.getPeriode())) {
+                    totalEffectuees += total;
+                    montantEffectuees = montantEffectuees.add(montant);
+                } else if ("MOIS_DERNIER".equals(a.getPeriode())) {
+                    totalMoisDernier += total;
+                }
+            } else if (a.getStatut() == Transaction.StatutTransaction.EN_ATTENTE) {
+                totalEnAttente += total;
+                montantEnAttente = montantEnAttente.add(montant);
+            } else if (a.getStatut() == Transaction.StatutTransaction.REJETE
+                    || a.getStatut() == Transaction.StatutTransaction.ANNULE) {
+                totalEchec += total;
+                montantEchec = montantEchec.add(montant);
+            }
+        }
+
+        return construireStats(totalEffectuees, montantEffectuees, totalMoisDernier, totalEnAttente, montantEnAttente,
+            totalTransactions, totalEchec, montantEchec);
+    }
+
+    /**
+     * Ancien calcul en mémoire sur toutes les transactions, conservé pour comparer
+     * le résultat de {@link #getStats(boolean)} en test.
+     */
+    TransactionStatsDTO getStatsEnMemoire(boolean exclureVoyageEnAttenteChargement) {
         List<Transaction> allTransactions = applyVoyageFilter(transactionRepository.findAll(), exclureVoyageEnAttenteChargement);
         LocalDate now = LocalDate.now();
         LocalDate startOfMonth = now.withDayOfMonth(1);
@@ -886,17 +975,37 @@ public class TransactionServiceImpl implements TransactionService {
             .collect(Collectors.toList());
 
         // Transactions effectuées le mois dernier
-        List<Transaction> transactionsMoisDernier = allTransactions.stream()
+        long totalMoisDernier = allTransactions.stream()
             .filter(t -> t.getStatut() == Transaction.StatutTransaction.VALIDE)
             .filter(t -> t.getDate() != null && !t.getDate().toLocalDate().isBefore(startOfLastMonth) && !t.getDate().toLocalDate().isAfter(endOfLastMonth))
+            .count();
+
+        // Transactions en attente
+        List<Transaction> transactionsEnAttente = allTransactions.stream()
+            .filter(t -> t.getStatut() == Transaction.StatutTransaction.EN_ATTENTE)
+            .collect(Collectors.toList());
+
+        // Transactions en échec (REJETE ou ANNULE)
+        List<Transaction> transactionsEchec = allTransactions.stream()
+            .filter(t -> t.getStatut() == Transaction.StatutTransaction.REJETE ||
+                        t.getStatut() == Transaction.StatutTransaction.ANNULE)
             .collect(Collectors.toList());
 
-        long totalEffectuees = transactionsEffectuees.size();
-        BigDecimal montantEffectuees = transactionsEffectuees.stream()
+        return construireStats(transactionsEffectuees.size(), sommeMontants(transactionsEffectuees), totalMoisDernier,
+            transactionsEnAttente.size(), sommeMontants(transactionsEnAttente),
+            allTransactions.size(), transactionsEchec.size(), sommeMontants(transactionsEchec));
+    }
+
+    private BigDecimal sommeMontants(List<Transaction> transactions) {
+        return transactions.stream()
             .map(Transaction::getMontant)
+            .filter(Objects::nonNull)
             .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
 
-        long totalMoisDernier = transactionsMoisDernier.size();
+    private TransactionStatsDTO construireStats(long totalEffectuees, BigDecimal montantEffectuees, long totalMoisDernier,
+                                                long totalEnAttente, BigDecimal montantEnAttente, long totalTransactions,
+                                                long totalEchec, BigDecimal montantEchec) {
         String evolution = "0%";
         if (totalMoisDernier > 0) {
             double pourcentage = ((double)(totalEffectuees - totalMoisDernier) / totalMoisDernier) * 100;
@@ -908,39 +1017,18 @@ public class TransactionServiceImpl implements TransactionService {
             evolution = "+100%";
         }
 
-        // Transactions en attente
-        List<Transaction> transactionsEnAttente = allTransactions.stream()
-            .filter(t -> t.getStatut() == Transaction.StatutTransaction.EN_ATTENTE)
-            .collect(Collectors.toList());
-
-        long totalEnAttente = transactionsEnAttente.size();
-        BigDecimal montantEnAttente = transactionsEnAttente.stream()
-            .map(Transaction::getMontant)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
         // Pourcentage de transactions en attente
         String pourcentageEnAttente = "0%";
-        if (allTransactions.size() > 0) {
-            double pourcentage = ((double)totalEnAttente / allTransactions.size()) * 100;
+        if (totalTransactions > 0) {
+            double pourcentage = ((double)totalEnAttente / totalTransactions) * 100;
             pourcentageEnAttente = String.format("%.0f%%", pourcentage);
         }
 
-        // Transactions en échec (REJETE ou ANNULE)
-        List<Transaction> transactionsEchec = allTransactions.stream()
-            .filter(t -> t.getStatut() == Transaction.StatutTransaction.REJETE || 
-                        t.getStatut() == Transaction.StatutTransaction.ANNULE)
-            .collect(Collectors.toList());
-
-        long totalEchec = transactionsEchec.size();
-        BigDecimal montantEchec = transactionsEchec.stream()
-            .map(Transaction::getMontant)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
         boolean urgent = totalEchec > 0;
 
         // Créer le DTO
         TransactionStatsDTO stats = new TransactionStatsDTO();
-        
+
         TransactionStatsDTO.PaiementsEffectues paiementsEffectues = new TransactionStatsDTO.PaiementsEffectues();
         paiementsEffectues.setTotal(totalEffectuees);
         paiementsEffectues.setMontant(montantEffectuees);
@@ -965,38 +1053,9 @@ public class TransactionServiceImpl implements TransactionService {
 
     @Override
     public void recalculerSoldesDepuisTransactions() {
-        // Recalculer le solde de chaque compte bancaire à partir des transactions validées
-        for (CompteBancaire compte : compteBancaireRepository.findAll()) {
-            List<Transaction> transactions = transactionRepository.findByCompte(compte).stream()
-                .filter(t -> t.getStatut() == Transaction.StatutTransaction.VALIDE && t.getMontant() != null)
-                .collect(Collectors.toList());
-            BigDecimal solde = BigDecimal.ZERO;
-            for (Transaction t : transactions) {
-                if (isTransactionEntrante(t.getType())) {
-                    solde = solde.add(t.getMontant());
-                } else {
-                    solde = solde.subtract(t.getMontant());
-                }
-            }
-            compte.setSolde(solde);
-            compteBancaireRepository.save(compte);
-        }
-        // Recalculer le solde de chaque caisse à partir des transactions validées
-        for (Caisse caisse : caisseRepository.findAll()) {
-            List<Transaction> transactions = transactionRepository.findByCaisse(caisse).stream()
-                .filter(t -> t.getStatut() == Transaction.StatutTransaction.VALIDE && t.getMontant() != null)
-                .collect(Collectors.toList());
-            BigDecimal solde = BigDecimal.ZERO;
-            for (Transaction t : transactions) {
-                if (isTransactionEntrante(t.getType())) {
-                    solde = solde.add(t.getMontant());
-                } else {
-                    solde = solde.subtract(t.getMontant());
-                }
-            }
-            caisse.setSolde(solde);
-            caisseRepository.save(caisse);
-        }
+        // Soldes recalculés en base (somme signée des transactions validées), seuls les écarts sont réécrits,
+        // en arrière-plan : le résultat est consultable ensuite dans les points de contrôle
+        soldeReconciliationService.recalculerEnArrierePlan();
     }
 
     @Override
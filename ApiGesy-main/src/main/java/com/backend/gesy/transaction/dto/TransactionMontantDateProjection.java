@@ -0,0 +1,13 @@
+package com.backend.gesy.transaction.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ligne minimale d'une transaction pour les rapports : date et montant.
+ */
+public interface TransactionMontantDateProjection {
+    LocalDateTime getDate();
+
+    BigDecimal getMontant();
+}
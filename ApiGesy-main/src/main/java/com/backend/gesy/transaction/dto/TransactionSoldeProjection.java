@@ -0,0 +1,14 @@
+package com.backend.gesy.transaction.dto;
+
+import java.math.BigDecimal;
+
+/** Solde recalculé en base pour un compte bancaire ou une caisse (somme signée des transactions validées). */
+public interface TransactionSoldeProjection {
+    Long getCompteId();
+
+    BigDecimal getSolde();
+
+    Long getDernierTransactionId();
+
+    Long getNombreTransactions();
+}
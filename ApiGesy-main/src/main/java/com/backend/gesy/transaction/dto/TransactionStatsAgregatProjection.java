@@ -0,0 +1,16 @@
+package com.backend.gesy.transaction.dto;
+
+import com.backend.gesy.transaction.Transaction;
+
+import java.math.BigDecimal;
+
+/** Agrégat de transactions par statut et par période (MOIS, MOIS_DERNIER ou AUTRE). */
+public interface TransactionStatsAgregatProjection {
+    Transaction.StatutTransaction getStatut();
+
+    String getPeriode();
+
+    Long getTotal();
+
+    BigDecimal getMontant();
+}
@@ -0,0 +1,12 @@
+package com.backend.gesy.transaction.dto;
+
+import com.backend.gesy.transaction.Transaction;
+
+import java.math.BigDecimal;
+
+/** Projection d'agrégat : somme des montants par type de transaction. */
+public interface TransactionTypeMontantProjection {
+    Transaction.TypeTransaction getType();
+
+    BigDecimal getMontant();
+}
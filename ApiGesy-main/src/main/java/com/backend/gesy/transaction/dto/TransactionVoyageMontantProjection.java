@@ -0,0 +1,12 @@
+package com.backend.gesy.transaction.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Somme des montants des transactions rattachées à un voyage.
+ */
+public interface TransactionVoyageMontantProjection {
+    Long getVoyageId();
+
+    BigDecimal getMontant();
+}
@@ -0,0 +1,101 @@
+package com.backend.gesy.voyage;
+
+import com.backend.gesy.numerotation.NumerotationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Numéros de voyage ({@code VOY-YYYY-NNNN}) et de bon d'enlèvement ({@code NNNNN}, numérotation continue),
+ * distribués par blocs via {@link NumerotationService}. Les compteurs sont recalés au démarrage sur les
+ * numéros déjà présents, y compris ceux saisis manuellement.
+ */
+@Component
+@RequiredArgsConstructor
+@Order(20)
+@Slf4j
+public class NumeroVoyageGenerator implements CommandLineRunner {
+    /** Clé du compteur des bons d'enlèvement (numérotation continue, non annuelle). */
+    static final String CLE_BON_ENLEVEMENT = "BON-ENLEVEMENT";
+
+    private final NumerotationService numerotationService;
+    private final VoyageRepository voyageRepository;
+
+    @Override
+    public void run(String... args) {
+        String prefix = prefixeVoyage();
+        try {
+            numerotationService.recaler(prefix, pageable -> voyageRepository.findNumerosVoyageByPrefixe(prefix, pageable));
+        } catch (RuntimeException e) {
+            // Non bloquant : le compteur sera initialisé au premier numéro demandé
+            log.warn("Recalage du compteur de voyages {} impossible : {}", prefix, e.getMessage());
+        }
+        try {
+            numerotationService.recaler(CLE_BON_ENLEVEMENT, this::plusHautNumeroBonEnlevement);
+        } catch (RuntimeException e) {
+            log.warn("Recalage du compteur des bons d'enlèvement impossible : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Prochain numéro de voyage libre de l'année en cours.
+     */
+    public String prochainNumeroVoyage() {
+        String prefix = prefixeVoyage();
+        // Compteur annuel partagé entre instances ; la base n'est lue qu'à sa création
+        return numerotationService.prochainNumero(prefix, 4,
+                pageable -> voyageRepository.findNumerosVoyageByPrefixe(prefix, pageable),
+                voyageRepository::existsByNumeroVoyage);
+    }
+
+    /**
+     * Prochain numéro de bon d'enlèvement libre ; la vérification écarte les numéros saisis manuellement.
+     */
+    public String prochainNumeroBonEnlevement() {
+        return numerotationService.prochainNumero(CLE_BON_ENLEVEMENT, "", 5,
+                this::plusHautNumeroBonEnlevement, voyageRepository::existsByNumeroBonEnlevement);
+    }
+
+    private String prefixeVoyage() {
+        return "VOY-" + LocalDate.now().getYear() + "-";
+    }
+
+    private long plusHautNumeroBonEnlevement() {
+        List<String> derniersNumeros = voyageRepository.findLastNumeroBonEnlevement(PageRequest.of(0, 1));
+        if (derniersNumeros.isEmpty() || derniersNumeros.get(0) == null) {
+            // Aucun numéro utilisé : le compteur démarrera à 1
+            return 0;
+        }
+        return extraireNumeroBonEnlevement(derniersNumeros.get(0));
+    }
+
+    private long extraireNumeroBonEnlevement(String dernierNumero) {
+        if (dernierNumero.trim().isEmpty()) {
+            return 0;
+        }
+
+        try {
+            // Extraire le numéro (les 5 premiers caractères si le format est
+            // "00297-SFB/2025" ou juste "00297")
+            String numeroStr = dernierNumero;
+            if (dernierNumero.contains("-")) {
+                // Format: "00297-SFB/2025"
+                numeroStr = dernierNumero.substring(0, dernierNumero.indexOf("-"));
+            } else if (dernierNumero.length() > 5) {
+                // Prendre les 5 premiers caractères
+                numeroStr = dernierNumero.substring(0, 5);
+            }
+
+            return Integer.parseInt(numeroStr);
+        } catch (NumberFormatException e) {
+            // Format non reconnu : le compteur démarrera à 1
+            return 0;
+        }
+    }
+}
@@ -19,10 +19,23 @@ import java.util.List;
 
 @Entity
 @Table(name = "voyages")
+@NamedEntityGraph(name = Voyage.GRAPH_LISTE,
+        attributeNodes = {
+                @NamedAttributeNode("camion"),
+                @NamedAttributeNode("transitaire"),
+                @NamedAttributeNode(value = "axe", subgraph = "axe"),
+                @NamedAttributeNode("produit"),
+                @NamedAttributeNode("depot"),
+                @NamedAttributeNode("responsable")
+        },
+        subgraphs = @NamedSubgraph(name = "axe", attributeNodes = @NamedAttributeNode("pays")))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Voyage {
+    /** Plan de chargement des listes paginées : associations simples affichées, chargées par jointure. */
+    public static final String GRAPH_LISTE = "Voyage.liste";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -2,7 +2,9 @@ package com.backend.gesy.voyage;
 
 import com.backend.gesy.security.SecurityExpressions;
 import com.backend.gesy.voyage.dto.ReparationRemiseDepotDTO;
+import com.backend.gesy.voyage.dto.TransitionStatutResultDTO;
 import com.backend.gesy.voyage.dto.VoyageDTO;
+import com.backend.gesy.voyage.dto.VoyageListItemPageDto;
 import com.backend.gesy.voyage.dto.VoyagePageDto;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -39,6 +41,14 @@ public class VoyageController {
         return ResponseEntity.ok(voyageService.findVoyagesEnCours(page, size));
     }
 
+    /** Voyages en cours en lignes légères (colonnes du tableau uniquement) */
+    @GetMapping("/en-cours/liste")
+    public ResponseEntity<VoyageListItemPageDto> getVoyagesEnCoursListe(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(voyageService.findVoyagesEnCoursListe(page, size));
+    }
+
     /** Voyages en cours (non déchargés) avec au moins un client assigné — pour rapport PDF camions/clients */
     @GetMapping("/en-cours-avec-clients")
     public ResponseEntity<List<VoyageDTO>> getVoyagesEnCoursAvecClients() {
@@ -155,6 +165,13 @@ public class VoyageController {
         return ResponseEntity.ok(voyageService.updateStatutMultiple(voyageIds, statut));
     }
 
+    @PutMapping("/transition-statut")
+    public ResponseEntity<List<TransitionStatutResultDTO>> transitionStatutMultiple(
+            @RequestBody List<Long> voyageIds,
+            @RequestParam String statut) {
+        return ResponseEntity.ok(voyageService.transitionStatutMultiple(voyageIds, statut));
+    }
+
     @GetMapping("/transitaire/{transitaireId}/archives")
     public ResponseEntity<com.backend.gesy.voyage.dto.VoyagePageDto> getArchivedVoyagesByTransitaire(
             @PathVariable Long transitaireId,
@@ -226,6 +243,22 @@ public class VoyageController {
         return ResponseEntity.ok(voyageService.findArchivedVoyages(page, size));
     }
 
+    /** Voyages archivés en lignes légères (colonnes du tableau uniquement) */
+    @GetMapping("/archives/liste")
+    public ResponseEntity<VoyageListItemPageDto> getArchivedVoyagesListe(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(voyageService.findArchivedVoyagesListe(page, size));
+    }
+
+    /** Voyages archivés en lignes légères, par curseur : renvoyer {@code curseurSuivant} pour la suite */
+    @GetMapping("/archives/curseur")
+    public ResponseEntity<com.backend.gesy.pagination.CurseurPageDTO<com.backend.gesy.voyage.dto.VoyageListItemDTO>> getArchivedVoyagesParCurseur(
+            @RequestParam(required = false) String curseur,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(voyageService.findArchivedVoyagesParCurseur(curseur, size));
+    }
+
     @GetMapping("/archives/date")
     public ResponseEntity<com.backend.gesy.voyage.dto.VoyagePageDto> getArchivedVoyagesByDate(
             @RequestParam String date,
@@ -436,6 +469,23 @@ public class VoyageController {
                 .body(Map.of("message", msg));
     }
 
+    /** Marges de plusieurs voyages en un appel (corps : liste d'ids) */
+    @PostMapping("/marges")
+    public ResponseEntity<Map<Long, com.backend.gesy.voyage.dto.VoyageMargeDTO>> getVoyagesMarges(
+            @RequestBody List<Long> voyageIds) {
+        return ResponseEntity.ok(voyageService.calculateMarges(voyageIds));
+    }
+
+    /** Marges des voyages partis dans l'intervalle de dates (format yyyy-MM-dd) */
+    @GetMapping("/marges")
+    public ResponseEntity<Map<Long, com.backend.gesy.voyage.dto.VoyageMargeDTO>> getVoyagesMargesByDateRange(
+            @RequestParam String startDate,
+            @RequestParam String endDate) {
+        java.time.LocalDate start = java.time.LocalDate.parse(startDate);
+        java.time.LocalDate end = java.time.LocalDate.parse(endDate);
+        return ResponseEntity.ok(voyageService.calculateMargesByDateRange(start, end));
+    }
+
     @GetMapping("/{id}/marge")
     public ResponseEntity<com.backend.gesy.voyage.dto.VoyageMargeDTO> getVoyageMarge(@PathVariable Long id) {
         return ResponseEntity.ok(voyageService.calculateMarge(id));
@@ -458,8 +508,11 @@ public class VoyageController {
             @RequestParam Long fournisseurId,
             @RequestParam(required = false, defaultValue = "tous") String filterOption,
             @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate startDate,
-            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate endDate) {
-        return ResponseEntity.ok(voyageService.getCoutsTransport(fournisseurId, filterOption, startDate, endDate));
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) java.time.LocalDate endDate,
+            // Sans page ni size : toutes les lignes (écran des coûts sans pagination)
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(voyageService.getCoutsTransport(fournisseurId, filterOption, startDate, endDate, page, size));
     }
 
     @GetMapping("/charges/identifiant/{identifiant}")
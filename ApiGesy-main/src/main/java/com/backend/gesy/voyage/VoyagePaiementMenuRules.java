@@ -16,10 +16,9 @@ import java.util.stream.Stream;
  * Règle unique pour l'affichage dans le menu Paiements : exclure les voyages dont le camion
  * n'est pas encore chargé ({@link Voyage.StatutVoyage#EN_ATTENTE_CHARGEMENT}).
  * <p>
- * IMPORTANT – Hibernate (avec {@code @Converter(autoApply=true)} sur {@code StatutVoyage}) génère
- * des INNER JOINs implicites si le prédicat utilise {@code IS NOT NULL} avant un accès à un champ
- * navigué. La forme {@code (x IS NULL OR x.champ <> ...)} force un LEFT JOIN implicite et garantit
- * que les lignes dont la FK est null ne sont pas éliminées.
+ * Les prédicats JPQL passent par des sous-requêtes {@code NOT EXISTS} sur l'identifiant de la FK : une
+ * navigation {@code t.voyage.statut} dans le WHERE est rendue par Hibernate en INNER JOIN et éliminerait
+ * les transactions sans voyage ou sans facture.
  */
 public final class VoyagePaiementMenuRules {
 
@@ -29,21 +28,22 @@ public final class VoyagePaiementMenuRules {
     }
 
     /**
-     * Prédicat JPQL pour l'alias {@code t} (entité {@code Transaction}).
-     * Forme {@code IS NULL OR statut <>} : Hibernate génère un LEFT JOIN.
-     * La colonne {@code statut} est {@code NOT NULL}, donc pas besoin de {@code statut IS NULL}.
+     * Prédicat JPQL pour l'alias {@code t} (entité {@code Transaction}) : ni son voyage, ni le voyage
+     * de sa facture n'est en attente de chargement. Aucune jointure sur {@code t}.
      */
     public static final String JPQL_TRANSACTION_VISIBLE =
-        "((t.voyage IS NULL OR t.voyage.statut <> 'EN_ATTENTE_CHARGEMENT')"
-            + " AND (t.facture IS NULL OR t.facture.voyage IS NULL OR t.facture.voyage.statut <> 'EN_ATTENTE_CHARGEMENT'))";
+        "(NOT EXISTS (SELECT 1 FROM Voyage vx WHERE vx.id = t.voyage.id AND vx.statut = 'EN_ATTENTE_CHARGEMENT')"
+            + " AND NOT EXISTS (SELECT 1 FROM Facture fx JOIN fx.voyage fvx WHERE fx.id = t.facture.id"
+            + " AND fvx.statut = 'EN_ATTENTE_CHARGEMENT'))";
 
     /**
-     * Prédicat JPQL pour l'alias {@code p} (entité {@link Paiement}).
+     * Prédicat JPQL pour l'alias {@code p} (entité {@link Paiement}), transactions liées comprises.
      * Sous-requête via {@code INNER JOIN px.transactions} (plus fiable que {@code MEMBER OF}).
      */
     public static final String JPQL_PAIEMENT_VISIBLE =
-        "((p.voyage IS NULL OR p.voyage.statut <> 'EN_ATTENTE_CHARGEMENT')"
-            + " AND (p.facture IS NULL OR p.facture.voyage IS NULL OR p.facture.voyage.statut <> 'EN_ATTENTE_CHARGEMENT')"
+        "(NOT EXISTS (SELECT 1 FROM Voyage vx WHERE vx.id = p.voyage.id AND vx.statut = 'EN_ATTENTE_CHARGEMENT')"
+            + " AND NOT EXISTS (SELECT 1 FROM Facture fx JOIN fx.voyage fvx WHERE fx.id = p.facture.id"
+            + " AND fvx.statut = 'EN_ATTENTE_CHARGEMENT')"
             + " AND NOT EXISTS (SELECT t FROM Paiement px INNER JOIN px.transactions t WHERE px.id = p.id"
             + " AND t.voyage IS NOT NULL AND t.voyage.statut = 'EN_ATTENTE_CHARGEMENT'))";
 
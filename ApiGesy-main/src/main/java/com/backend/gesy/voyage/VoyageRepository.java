@@ -6,14 +6,24 @@ import com.backend.gesy.client.Client;
 import com.backend.gesy.depot.Depot;
 import com.backend.gesy.produit.Produit;
 import com.backend.gesy.transitaire.Transitaire;
+import com.backend.gesy.voyage.dto.CoutTransportLigneProjection;
+import com.backend.gesy.voyage.dto.CoutTransportTotauxProjection;
+import com.backend.gesy.voyage.dto.VoyageCamionStatutCountProjection;
+import com.backend.gesy.voyage.dto.VoyageListItemDTO;
+import com.backend.gesy.voyage.dto.VoyageMargeBaseProjection;
+import com.backend.gesy.voyage.dto.VoyageQuantiteParProduitProjection;
+import com.backend.gesy.voyage.dto.VoyageStatutCountProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +31,13 @@ import java.util.Optional;
 public interface VoyageRepository extends JpaRepository<Voyage, Long> {
        Optional<Voyage> findByNumeroVoyage(String numeroVoyage);
 
+       boolean existsByNumeroVoyage(String numeroVoyage);
+
+       // Numéros de voyage d'un préfixe (ex. "VOY-2026-"), le plus haut en premier (plus long, puis ordre lexical)
+       @Query("SELECT v.numeroVoyage FROM Voyage v WHERE v.numeroVoyage LIKE CONCAT(:prefixe, '%') " +
+                     "ORDER BY LENGTH(v.numeroVoyage) DESC, v.numeroVoyage DESC")
+       List<String> findNumerosVoyageByPrefixe(@Param("prefixe") String prefixe, Pageable pageable);
+
        List<Voyage> findByCamion(Camion camion);
 
        // Note: findByClient n'est plus utilisé car les clients sont maintenant via ClientVoyage
@@ -35,6 +52,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
        List<Voyage> findByAxe(Axe axe);
 
        // Pagination pour les voyages par axe avec tri par date décroissante
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT v FROM Voyage v WHERE v.axe = :axe ORDER BY v.dateDepart DESC, v.id DESC", countQuery = "SELECT COUNT(v) FROM Voyage v WHERE v.axe = :axe")
        Page<Voyage> findByAxePaginated(@Param("axe") Axe axe, Pageable pageable);
 
@@ -55,6 +73,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
 
        // Pagination pour les voyages archivés d'un transitaire (voyages où l'état
        // "Douane" est validé)
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT DISTINCT v FROM Voyage v " +
                      "JOIN v.etats e " +
                      "WHERE v.transitaire = :transitaire " +
@@ -69,6 +88,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
 
        // Pagination avec filtre par date pour les voyages archivés d'un transitaire
        // (voyages où l'état "Douane" est validé)
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT DISTINCT v FROM Voyage v " +
                      "JOIN v.etats e " +
                      "WHERE v.transitaire = :transitaire " +
@@ -91,6 +111,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
 
        // Pagination avec filtre par intervalle de dates pour les voyages archivés d'un
        // transitaire (voyages où l'état "Douane" est validé)
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT DISTINCT v FROM Voyage v " +
                      "JOIN v.etats e " +
                      "WHERE v.transitaire = :transitaire " +
@@ -112,16 +133,19 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
                      Pageable pageable);
 
        // Pagination pour tous les voyages archivés : uniquement statut DECHARGER
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT v FROM Voyage v WHERE v.statut = 'DECHARGER' " +
                      "ORDER BY COALESCE(v.dateCreation, v.dateDepart) DESC, v.id DESC",
                      countQuery = "SELECT COUNT(v) FROM Voyage v WHERE v.statut = 'DECHARGER'")
        Page<Voyage> findArchivedVoyages(Pageable pageable);
        
        // Voyages partiellement déchargés — tri par date de création
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query("SELECT v FROM Voyage v WHERE v.statut = 'PARTIELLEMENT_DECHARGER' ORDER BY COALESCE(v.dateCreation, v.dateDepart) DESC, v.id DESC")
        Page<Voyage> findVoyagesPartiellementDecharges(Pageable pageable);
        
        // Voyages en cours (non déchargés) : tous les voyages sauf DECHARGER
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT v FROM Voyage v WHERE v.statut <> 'DECHARGER' " +
                      "ORDER BY COALESCE(v.dateCreation, v.dateDepart) DESC, v.id DESC",
                      countQuery = "SELECT COUNT(v) FROM Voyage v WHERE v.statut <> 'DECHARGER'")
@@ -134,6 +158,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
        List<Voyage> findVoyagesEnCoursAvecClients();
 
        // Pagination avec filtre par date pour tous les voyages archivés : uniquement statut DECHARGER
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT v FROM Voyage v WHERE v.statut = 'DECHARGER' " +
                      "AND DATE(v.dateDepart) = DATE(:date) " +
                      "ORDER BY COALESCE(v.dateCreation, v.dateDepart) DESC, v.id DESC",
@@ -141,6 +166,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
        Page<Voyage> findArchivedVoyagesByDate(@Param("date") LocalDateTime date, Pageable pageable);
 
        // Pagination avec filtre par intervalle de dates pour tous les voyages archivés : uniquement statut DECHARGER
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT v FROM Voyage v WHERE v.statut = 'DECHARGER' " +
                      "AND v.dateDepart >= :startDate AND v.dateDepart <= :endDate " +
                      "ORDER BY COALESCE(v.dateCreation, v.dateDepart) DESC, v.id DESC",
@@ -159,6 +185,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
 
        // Trouver les voyages chargés d'un dépôt avec pagination (voyages où l'état
        // "Chargé" ou "Départ" est validé)
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT DISTINCT v FROM Voyage v " +
                      "JOIN v.etats e " +
                      "WHERE v.depot = :depot " +
@@ -172,6 +199,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
        Page<Voyage> findVoyagesChargesByDepot(@Param("depot") Depot depot, Pageable pageable);
 
        // Trouver les voyages chargés d'un dépôt avec filtre par date
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT DISTINCT v FROM Voyage v " +
                      "JOIN v.etats e " +
                      "WHERE v.depot = :depot " +
@@ -193,6 +221,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
                      Pageable pageable);
 
        // Trouver les voyages chargés d'un dépôt avec filtre par intervalle de dates
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT DISTINCT v FROM Voyage v " +
                      "JOIN v.etats e " +
                      "WHERE v.depot = :depot " +
@@ -238,6 +267,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
        List<Voyage> findVoyagesADeclarerByTransitaire(@Param("transitaire") Transitaire transitaire);
 
        /** Voyages en cours du transitaire : à partir de l'état CHARGE (exclut EN_ATTENTE_CHARGEMENT et DECHARGER). */
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT v FROM Voyage v WHERE v.transitaire = :transitaire " +
                      "AND v.statut NOT IN ('DECHARGER', 'EN_ATTENTE_CHARGEMENT') " +
                      "ORDER BY v.dateDepart DESC, v.id DESC",
@@ -246,6 +276,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
        Page<Voyage> findVoyagesEnCoursByTransitaire(@Param("transitaire") Transitaire transitaire, Pageable pageable);
 
        /** Voyages archivés du transitaire : uniquement statut DECHARGER. */
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT v FROM Voyage v WHERE v.transitaire = :transitaire " +
                      "AND v.statut = 'DECHARGER' " +
                      "ORDER BY v.dateDepart DESC, v.id DESC",
@@ -253,6 +284,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
                                    "AND v.statut = 'DECHARGER'")
        Page<Voyage> findVoyagesArchivesByTransitaire(@Param("transitaire") Transitaire transitaire, Pageable pageable);
 
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT v FROM Voyage v WHERE v.transitaire = :transitaire " +
                      "AND v.statut = 'DECHARGER' " +
                      "AND v.dateDepart IS NOT NULL AND v.dateDepart >= :startOfDay AND v.dateDepart < :endOfDay " +
@@ -266,6 +298,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
                      @Param("endOfDay") LocalDateTime endOfDay,
                      Pageable pageable);
 
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT v FROM Voyage v WHERE v.transitaire = :transitaire " +
                      "AND v.statut = 'DECHARGER' " +
                      "AND v.dateDepart IS NOT NULL AND v.dateDepart >= :startDate AND v.dateDepart <= :endDate " +
@@ -287,6 +320,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
        List<Voyage> findVoyagesPassesNonDeclares();
 
        // Trouver les voyages passés non déclarés avec pagination
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT v FROM Voyage v WHERE v.passager = 'passer_non_declarer' " +
                      "AND (v.declarer = false OR v.declarer IS NULL) " +
                      "ORDER BY v.id DESC", countQuery = "SELECT COUNT(v) FROM Voyage v WHERE v.passager = 'passer_non_declarer' "
@@ -297,6 +331,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
        // Trouver les voyages avec ClientVoyage mais sans facture (sans prix d'achat)
        // Un voyage a des clients s'il a des ClientVoyage
        // Un voyage a une facture s'il a au moins une facture dans la liste factures
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query(value = "SELECT DISTINCT v FROM Voyage v " +
                      "JOIN v.clientVoyages cv " +
                      "WHERE SIZE(v.clientVoyages) > 0 " +
@@ -309,6 +344,7 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
        Page<Voyage> findVoyagesAvecClientSansFacture(Pageable pageable);
 
        /** Voyages attribués (non cession) sans prix de transport — pour le comptable */
+       @EntityGraph(Voyage.GRAPH_LISTE)
        @Query("SELECT v FROM Voyage v WHERE v.cession = false AND (v.prixUnitaire IS NULL OR v.prixUnitaire <= 0) ORDER BY v.dateDepart DESC, v.id DESC")
        Page<Voyage> findVoyagesSansPrixTransport(Pageable pageable);
 
@@ -319,4 +355,194 @@ public interface VoyageRepository extends JpaRepository<Voyage, Long> {
                      "AND (v.statut IS NULL OR v.statut <> 'DECHARGER') " +
                      "AND EXISTS (SELECT 1 FROM EtatVoyage e WHERE e.voyage = v AND e.etat = 'Décharger' AND e.valider = true)")
        List<Voyage> findVoyagesToSyncStatutDecharger();
+
+       /** Nombre de voyages hors cession par statut (agrégat SQL, sans charger les entités). */
+       @Query("SELECT v.statut AS statut, COUNT(v) AS total FROM Voyage v " +
+                     "WHERE v.cession = false AND v.statut IS NOT NULL GROUP BY v.statut")
+       List<VoyageStatutCountProjection> countHorsCessionGroupByStatut();
+
+       /** Nombre de voyages par camion et par statut pour les camions d'un fournisseur (agrégat SQL). */
+       @Query("SELECT c.id AS camionId, v.statut AS statut, COUNT(v) AS total FROM Voyage v JOIN v.camion c " +
+                     "WHERE c.fournisseur.id = :fournisseurId GROUP BY c.id, v.statut")
+       List<VoyageCamionStatutCountProjection> countByFournisseurGroupByCamionAndStatut(
+                     @Param("fournisseurId") Long fournisseurId);
+
+       /** Voyages hors cession déchargés dont au moins une date (création, départ, arrivée) tombe dans [start, end]. */
+       @Query("SELECT COUNT(v) FROM Voyage v WHERE v.cession = false AND v.statut = 'DECHARGER' " +
+                     "AND ((v.dateCreation >= :start AND v.dateCreation <= :end) " +
+                     "OR (v.dateDepart >= :start AND v.dateDepart <= :end) " +
+                     "OR (v.dateArrivee >= :start AND v.dateArrivee <= :end))")
+       long countDechargesHorsCessionByDateWindow(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+       /** Voyages partis dans [start, end] et non encore déclarés. */
+       @Query("SELECT COUNT(v) FROM Voyage v WHERE v.dateDepart >= :start AND v.dateDepart <= :end " +
+                     "AND (v.declarer = false OR v.declarer IS NULL)")
+       long countNonDeclaresByDateDepartBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+       /** Derniers voyages partis (hors cession), du plus récent au plus ancien. */
+       List<Voyage> findTop5ByCessionFalseAndDateDepartIsNotNullOrderByDateDepartDesc();
+
+       long countByStatut(Voyage.StatutVoyage statut);
+
+       /**
+        * Voyages hors cession partis dans une période d'analyse [:debutN, :finN[, étiquetés par le numéro de la période
+        * (efficacité, camions actifs, jours de livraison) : une branche du UNION ALL groupé par période
+        * d'{@code AnalysePeriodeEngine}.
+        */
+       static String lignesActivitePeriode(int periode) {
+              return "SELECT " + periode + " AS periode, v.id AS id, " +
+                     "CASE WHEN v.statut = 'DECHARGER' THEN 1 ELSE 0 END AS decharge, " +
+                     "CASE WHEN v.statut = 'DECHARGER' AND v.dateArrivee IS NOT NULL THEN 1 ELSE 0 END AS livreDate, " +
+                     "CASE WHEN v.statut = 'DECHARGER' AND v.dateArrivee IS NOT NULL " +
+                     "THEN (CAST(v.dateArrivee AS LocalDate) - CAST(v.dateDepart AS LocalDate)) BY DAY ELSE 0 END AS joursLivraison, " +
+                     "v.camion.id AS camionId " +
+                     "FROM Voyage v " +
+                     "WHERE v.cession = false AND v.dateDepart >= :debut" + periode + " AND v.dateDepart < :fin" + periode;
+       }
+
+       /** Sélection commune des listes légères (une requête, jointures externes sur les associations affichées). */
+       String SELECT_LIST_ITEM = "SELECT new com.backend.gesy.voyage.dto.VoyageListItemDTO(" +
+                     "v.id, v.numeroVoyage, v.statut, v.dateCreation, v.dateDepart, v.dateArrivee, " +
+                     "c.id, c.immatriculation, t.nom, a.nom, p.nom, p.typeProduit, d.nom, v.quantite, " +
+                     "v.numeroBonEnlevement, v.cession, v.declarer, v.liberer) " +
+                     "FROM Voyage v LEFT JOIN v.camion c LEFT JOIN v.transitaire t LEFT JOIN v.axe a " +
+                     "LEFT JOIN v.produit p LEFT JOIN v.depot d ";
+
+       /** Voyages en cours (même périmètre et tri que {@link #findVoyagesEnCours(Pageable)}), en lignes légères. */
+       @Query(value = SELECT_LIST_ITEM + "WHERE v.statut <> 'DECHARGER' " +
+                     "ORDER BY COALESCE(v.dateCreation, v.dateDepart) DESC, v.id DESC",
+                     countQuery = "SELECT COUNT(v) FROM Voyage v WHERE v.statut <> 'DECHARGER'")
+       Page<VoyageListItemDTO> findVoyagesEnCoursListItems(Pageable pageable);
+
+       /** Voyages archivés (même périmètre et tri que {@link #findArchivedVoyages(Pageable)}), en lignes légères. */
+       @Query(value = SELECT_LIST_ITEM + "WHERE v.statut = 'DECHARGER' " +
+                     "ORDER BY COALESCE(v.dateCreation, v.dateDepart) DESC, v.id DESC",
+                     countQuery = "SELECT COUNT(v) FROM Voyage v WHERE v.statut = 'DECHARGER'")
+       Page<VoyageListItemDTO> findArchivedVoyagesListItems(Pageable pageable);
+
+       /**
+        * Clé de tri du curseur des archives : date de création, à défaut de départ, à défaut {@code :dateParDefaut}
+        * (jamais nulle, les voyages sans date sont listés en dernier sur toutes les bases).
+        */
+       String DATE_CURSEUR_ARCHIVE = "COALESCE(v.dateCreation, v.dateDepart, :dateParDefaut)";
+
+       /** Voyages archivés par curseur sur ({@link #DATE_CURSEUR_ARCHIVE}, id) : première page. */
+       @Query(SELECT_LIST_ITEM + "WHERE v.statut = 'DECHARGER' " +
+                     "ORDER BY " + DATE_CURSEUR_ARCHIVE + " DESC, v.id DESC")
+       List<VoyageListItemDTO> findArchivedVoyagesListItemsPremiers(@Param("dateParDefaut") LocalDateTime dateParDefaut,
+                                                                    Pageable pageable);
+
+       /** Voyages archivés strictement après le curseur (date, id), même tri. */
+       @Query(SELECT_LIST_ITEM + "WHERE v.statut = 'DECHARGER' AND (" + DATE_CURSEUR_ARCHIVE + " < :date " +
+                     "OR (" + DATE_CURSEUR_ARCHIVE + " = :date AND v.id < :id)) " +
+                     "ORDER BY " + DATE_CURSEUR_ARCHIVE + " DESC, v.id DESC")
+       List<VoyageListItemDTO> findArchivedVoyagesListItemsApres(@Param("date") LocalDateTime date, @Param("id") Long id,
+                                                                 @Param("dateParDefaut") LocalDateTime dateParDefaut,
+                                                                 Pageable pageable);
+
+       /** Colonnes de calcul de marge pour un lot de voyages. */
+       @Query("SELECT v.id AS voyageId, v.numeroVoyage AS numeroVoyage, v.quantite AS quantite, " +
+                     "v.prixUnitaire AS prixUnitaire, v.cession AS cession, p.id AS produitId " +
+                     "FROM Voyage v LEFT JOIN v.produit p WHERE v.id IN :ids")
+       List<VoyageMargeBaseProjection> findMargeBaseByIds(@Param("ids") Collection<Long> ids);
+
+       /** Colonnes de calcul de marge des voyages partis dans [startDate, endDate]. */
+       @Query("SELECT v.id AS voyageId, v.numeroVoyage AS numeroVoyage, v.quantite AS quantite, " +
+                     "v.prixUnitaire AS prixUnitaire, v.cession AS cession, p.id AS produitId " +
+                     "FROM Voyage v LEFT JOIN v.produit p " +
+                     "WHERE v.dateDepart >= :startDate AND v.dateDepart <= :endDate " +
+                     "ORDER BY v.dateDepart DESC, v.id DESC")
+       List<VoyageMargeBaseProjection> findMargeBaseByDateDepartRange(@Param("startDate") LocalDateTime startDate,
+                                                                      @Param("endDate") LocalDateTime endDate);
+
+       /** Paiements "coût transport" validés du voyage v (référence PAY-COU-VOY-xxx). */
+       String PAIEMENTS_COUT_TRANSPORT_VALIDES = "FROM Paiement p WHERE p.voyage = v " +
+                     "AND p.reference LIKE 'PAY-COU-VOY-%' AND p.statut = 'VALIDE'";
+
+       /** Montant des manquants du voyage v (manquant × prix d'achat de chaque client). */
+       String MONTANT_MANQUANT_VOYAGE = "(SELECT COALESCE(SUM(cv.manquant * cv.prixAchat), 0) " +
+                     "FROM ClientVoyage cv WHERE cv.voyage = v)";
+
+       /** Coût brut du voyage v (prix unitaire × quantité). */
+       String COUT_BRUT_VOYAGE = "(COALESCE(v.prixUnitaire, 0) * COALESCE(v.quantite, 0))";
+
+       /**
+        * Périmètre des coûts de transport d'un fournisseur (hors cession) : intervalle de départ
+        * [debut, fin[ optionnel et statut de paiement PAYE / NON_PAYE / TOUS.
+        */
+       String PERIMETRE_COUTS_TRANSPORT = "FROM Voyage v JOIN v.camion c " +
+                     "WHERE c.fournisseur.id = :fournisseurId AND v.cession = false " +
+                     "AND (:debut IS NULL OR v.dateDepart >= :debut) " +
+                     "AND (:fin IS NULL OR v.dateDepart < :fin) " +
+                     "AND (:statutPaiement = 'TOUS' " +
+                     "OR (:statutPaiement = 'PAYE' AND EXISTS (SELECT p.id " + PAIEMENTS_COUT_TRANSPORT_VALIDES + ")) " +
+                     "OR (:statutPaiement = 'NON_PAYE' AND NOT EXISTS (SELECT p.id " + PAIEMENTS_COUT_TRANSPORT_VALIDES + "))) ";
+
+       /** Coûts de transport d'un fournisseur, du départ le plus récent au plus ancien. */
+       @Query(value = "SELECT v.id AS id, v.numeroVoyage AS numeroVoyage, c.immatriculation AS camionImmatriculation, " +
+                     "v.dateDepart AS dateDepart, v.destination AS destination, v.quantite AS quantite, " +
+                     "v.prixUnitaire AS prixUnitaire, " + MONTANT_MANQUANT_VOYAGE + " AS montantManquant, " +
+                     "(SELECT COUNT(p) " + PAIEMENTS_COUT_TRANSPORT_VALIDES + ") AS paiementsValides, " +
+                     "(SELECT MAX(p.date) " + PAIEMENTS_COUT_TRANSPORT_VALIDES + ") AS datePaiement " +
+                     PERIMETRE_COUTS_TRANSPORT +
+                     "ORDER BY v.dateDepart DESC NULLS LAST, v.id DESC",
+                     countQuery = "SELECT COUNT(v) " + PERIMETRE_COUTS_TRANSPORT)
+       Page<CoutTransportLigneProjection> findCoutsTransport(@Param("fournisseurId") Long fournisseurId,
+                                                             @Param("debut") LocalDateTime debut,
+                                                             @Param("fin") LocalDateTime fin,
+                                                             @Param("statutPaiement") String statutPaiement,
+                                                             Pageable pageable);
+
+       /**
+        * Totaux de {@link #findCoutsTransport} sur tout le périmètre : coût réel (brut − manquants, jamais
+        * négatif), ventilé selon l'existence d'un paiement coût transport validé.
+        */
+       @Query("SELECT COALESCE(SUM(x.coutTotal), 0) AS totalCout, " +
+                     "COALESCE(SUM(CASE WHEN x.paye = 1 THEN x.coutTotal ELSE 0 END), 0) AS totalPaye, " +
+                     "COALESCE(SUM(CASE WHEN x.paye = 0 THEN x.coutTotal ELSE 0 END), 0) AS totalNonPaye, " +
+                     "COUNT(x.id) AS nombreVoyages " +
+                     "FROM (SELECT v.id AS id, " +
+                     "CASE WHEN EXISTS (SELECT p.id " + PAIEMENTS_COUT_TRANSPORT_VALIDES + ") THEN 1 ELSE 0 END AS paye, " +
+                     "CASE WHEN " + COUT_BRUT_VOYAGE + " > " + MONTANT_MANQUANT_VOYAGE +
+                     " THEN " + COUT_BRUT_VOYAGE + " - " + MONTANT_MANQUANT_VOYAGE + " ELSE 0 END AS coutTotal " +
+                     PERIMETRE_COUTS_TRANSPORT + ") x")
+       CoutTransportTotauxProjection sumCoutsTransport(@Param("fournisseurId") Long fournisseurId,
+                                                       @Param("debut") LocalDateTime debut,
+                                                       @Param("fin") LocalDateTime fin,
+                                                       @Param("statutPaiement") String statutPaiement);
+
+       // Déclaration / sortie douane multiples : voyages du lot chargés en une requête avec camion, axe, pays et produit
+       @EntityGraph(Voyage.GRAPH_LISTE)
+       @Query("SELECT v FROM Voyage v WHERE v.id IN :ids")
+       List<Voyage> findAllWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+       // Changement de statut par lot : seuls les voyages encore au statut précédent attendu sont modifiés
+       @Modifying(flushAutomatically = true, clearAutomatically = true)
+       @Query("UPDATE Voyage v SET v.statut = :statut WHERE v.id IN :ids AND v.statut = :statutPrecedent")
+       int updateStatutByIdIn(@Param("ids") Collection<Long> ids,
+                              @Param("statutPrecedent") Voyage.StatutVoyage statutPrecedent,
+                              @Param("statut") Voyage.StatutVoyage statut);
+
+       @Modifying(flushAutomatically = true, clearAutomatically = true)
+       @Query("UPDATE Voyage v SET v.dateDepart = :date WHERE v.id IN :ids")
+       int updateDateDepartByIdIn(@Param("ids") Collection<Long> ids, @Param("date") LocalDateTime date);
+
+       @Modifying(flushAutomatically = true, clearAutomatically = true)
+       @Query("UPDATE Voyage v SET v.dateArrivee = :date WHERE v.id IN :ids")
+       int updateDateArriveeByIdIn(@Param("ids") Collection<Long> ids, @Param("date") LocalDateTime date);
+
+       // Camions engagés (au moins un départ hors cession) sur [debut, fin)
+       @Query("SELECT COUNT(DISTINCT v.camion.id) FROM Voyage v " +
+                     "WHERE v.cession = false AND v.dateDepart >= :debut AND v.dateDepart < :fin")
+       long countCamionsDistinctsHorsCessionByDateDepartBetween(@Param("debut") LocalDateTime debut,
+                                                                @Param("fin") LocalDateTime fin);
+
+       // Stock en camion : litres des voyages non livrés (hors cession) par produit, partis avant :fin (ou sans date de départ)
+       @Query("SELECT p.id AS produitId, p.nom AS produitNom, p.typeProduit AS typeProduit, " +
+                     "COALESCE(SUM(v.quantite), 0) AS quantite " +
+                     "FROM Voyage v JOIN v.produit p " +
+                     "WHERE v.cession = false AND (v.statut IS NULL OR v.statut <> 'LIVRE') " +
+                     "AND (:fin IS NULL OR v.dateDepart IS NULL OR v.dateDepart < :fin) " +
+                     "GROUP BY p.id, p.nom, p.typeProduit")
+       List<VoyageQuantiteParProduitProjection> sumQuantiteNonLivreeGroupByProduit(@Param("fin") LocalDateTime fin);
 }
@@ -1,7 +1,10 @@
 package com.backend.gesy.voyage;
 
 import com.backend.gesy.voyage.dto.TransitaireStatsDTO;
+import com.backend.gesy.voyage.dto.TransitionStatutResultDTO;
 import com.backend.gesy.voyage.dto.VoyageDTO;
+import com.backend.gesy.voyage.dto.VoyageListItemDTO;
+import com.backend.gesy.voyage.dto.VoyageListItemPageDto;
 import com.backend.gesy.voyage.dto.VoyagePageDto;
 
 import java.time.LocalDate;
@@ -39,6 +42,8 @@ public interface VoyageService {
 
         List<VoyageDTO> updateStatutMultiple(List<Long> voyageIds, String statut);
 
+        List<TransitionStatutResultDTO> transitionStatutMultiple(List<Long> voyageIds, String statut);
+
         Long countCamionsChargesByDepotId(Long depotId);
 
         VoyageDTO save(VoyageDTO voyageDTO);
@@ -98,6 +103,12 @@ public interface VoyageService {
 
         com.backend.gesy.voyage.dto.VoyageMargeDTO calculateMarge(Long voyageId);
 
+        /** Marges d'un lot de voyages (ids inconnus ignorés), indexées par id dans l'ordre demandé */
+        java.util.Map<Long, com.backend.gesy.voyage.dto.VoyageMargeDTO> calculateMarges(java.util.Collection<Long> voyageIds);
+
+        /** Marges des voyages partis entre startDate et endDate (inclus), du plus récent au plus ancien */
+        java.util.Map<Long, com.backend.gesy.voyage.dto.VoyageMargeDTO> calculateMargesByDateRange(LocalDate startDate, LocalDate endDate);
+
         VoyageDTO assignerNumeroBonEnlevement(Long voyageId, String numeroBonEnlevement);
 
         VoyageDTO genererNumeroBonEnlevement(Long voyageId);
@@ -106,7 +117,9 @@ public interface VoyageService {
                         Long fournisseurId,
                         String filterOption,
                         java.time.LocalDate startDate,
-                        java.time.LocalDate endDate);
+                        java.time.LocalDate endDate,
+                        Integer page,
+                        Integer size);
 
         VoyagePageDto findVoyagesChargesByIdentifiant(
                         String identifiant,
@@ -151,6 +164,15 @@ public interface VoyageService {
         // Voyages en cours (non déchargés)
         VoyagePageDto findVoyagesEnCours(int page, int size);
 
+        /** Voyages en cours en lignes légères (une requête de projection + un COUNT par page) */
+        VoyageListItemPageDto findVoyagesEnCoursListe(int page, int size);
+
+        /** Voyages archivés en lignes légères (une requête de projection + un COUNT par page) */
+        VoyageListItemPageDto findArchivedVoyagesListe(int page, int size);
+
+        /** Voyages archivés en lignes légères, par curseur : {@code curseur} null pour la première page */
+        com.backend.gesy.pagination.CurseurPageDTO<VoyageListItemDTO> findArchivedVoyagesParCurseur(String curseur, int size);
+
         /** Voyages en cours (non déchargés) avec au moins un client assigné (pour rapport PDF camions/clients) */
         List<VoyageDTO> findVoyagesEnCoursAvecClients();
 
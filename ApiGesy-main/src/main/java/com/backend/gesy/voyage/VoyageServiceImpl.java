@@ -10,6 +10,7 @@ import com.backend.gesy.categoriedepense.CategorieDepenseService;
 import com.backend.gesy.compte.Compte;
 import com.backend.gesy.compte.CompteRepository;
 import com.backend.gesy.camion.CamionRepository;
+import com.backend.gesy.dashboard.DashboardChangeEvent;
 import com.backend.gesy.facture.LigneFacture;
 import com.backend.gesy.fournisseur.Fournisseur;
 import com.backend.gesy.fournisseur.FournisseurRepository;
@@ -31,21 +32,28 @@ import com.backend.gesy.transitaire.Transitaire;
 import com.backend.gesy.transitaire.TransitaireRepository;
 import com.backend.gesy.transaction.TransactionService;
 import com.backend.gesy.transaction.dto.TransactionDTO;
+import com.backend.gesy.stock.MouvementStock;
+import com.backend.gesy.stock.StockLedger;
 import com.backend.gesy.stock.StockRepository;
 import com.backend.gesy.stock.Stock;
-import com.backend.gesy.mouvement.MouvementService;
-import com.backend.gesy.mouvement.dto.MouvementDTO;
 import com.backend.gesy.facture.Facture;
 import com.backend.gesy.facture.FactureRepository;
 import com.backend.gesy.facture.FactureService;
 import com.backend.gesy.facture.dto.FactureDTO;
 import com.backend.gesy.facture.dto.LigneFactureDTO;
+import com.backend.gesy.facture.dto.LigneVenteVoyageProjection;
+import com.backend.gesy.transaction.dto.TransactionVoyageMontantProjection;
 import com.backend.gesy.voyage.dto.*;
 import com.backend.gesy.alerte.AlerteService;
 import com.backend.gesy.manquant.Manquant;
 import com.backend.gesy.manquant.ManquantRepository;
 import com.backend.gesy.mouvement.Mouvement;
+import com.backend.gesy.pagination.Curseur;
+import com.backend.gesy.pagination.CurseurPageDTO;
+import com.backend.gesy.pays.TarifPays;
+import com.backend.gesy.pays.TarifPaysCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -57,6 +65,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -91,7 +100,7 @@ public class VoyageServiceImpl implements VoyageService {
     @Autowired
     private StockRepository stockRepository;
     @Autowired
-    private MouvementService mouvementService;
+    private StockLedger stockLedger;
     @Autowired
     private TransactionRepository transactionRepository;
     @Autowired
@@ -121,6 +130,15 @@ public class VoyageServiceImpl implements VoyageService {
     private CategorieDepenseService categorieDepenseService;
     @Autowired
     private CategorieDepenseRepository categorieDepenseRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private NumeroVoyageGenerator numeroVoyageGenerator;
+    @Autowired
+    private TarifPaysCache tarifPaysCache;
+
+    /** Date de tri des voyages archivés sans date de création ni de départ (listés en dernier). */
+    private static final LocalDateTime DATE_CURSEUR_PAR_DEFAUT = LocalDateTime.of(1970, 1, 1, 0, 0);
 
     @Override
     public List<VoyageDTO> findAll() {
@@ -278,6 +296,119 @@ public class VoyageServiceImpl implements VoyageService {
         return voyagesUpdated;
     }
 
+    /** Transitions appliquées par lot en requêtes UPDATE : statut cible -> statut précédent attendu. */
+    private static final Map<Voyage.StatutVoyage, Voyage.StatutVoyage> TRANSITIONS_PAR_LOT = Map.of(
+            Voyage.StatutVoyage.DEPART, Voyage.StatutVoyage.CHARGE,
+            Voyage.StatutVoyage.ARRIVER, Voyage.StatutVoyage.DEPART,
+            Voyage.StatutVoyage.DOUANE, Voyage.StatutVoyage.ARRIVER);
+
+    @Override
+    public List<TransitionStatutResultDTO> transitionStatutMultiple(List<Long> voyageIds, String statut) {
+        if (voyageIds == null || voyageIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (statut == null) {
+            throw new RuntimeException("Le statut est requis");
+        }
+        Voyage.StatutVoyage cible = convertStatut(statut);
+        Voyage.StatutVoyage statutPrecedent = TRANSITIONS_PAR_LOT.get(cible);
+        if (statutPrecedent == null) {
+            // Étapes avec effets de bord (stock, clients, manquants) : machine à états voyage par voyage
+            return transitionStatutParVoyage(voyageIds, statut);
+        }
+
+        Compte compte = getCompteConnecte();
+        Map<Long, Voyage> voyagesParId = voyageRepository.findAllWithDetailsByIdIn(voyageIds).stream()
+                .collect(Collectors.toMap(Voyage::getId, Function.identity()));
+
+        // Validation en mémoire des transitions demandées
+        Map<Long, TransitionStatutResultDTO> resultats = new LinkedHashMap<>();
+        List<Voyage> retenus = new ArrayList<>();
+        for (Long voyageId : new LinkedHashSet<>(voyageIds)) {
+            Voyage voyage = voyagesParId.get(voyageId);
+            if (voyage == null) {
+                resultats.put(voyageId, new TransitionStatutResultDTO(voyageId, null, null, null, false,
+                        "Voyage non trouvé avec l'id: " + voyageId));
+                continue;
+            }
+            String ancienStatut = voyage.getStatut() != null ? voyage.getStatut().name() : null;
+            try {
+                ensureCompteIsResponsable(voyage, compte);
+                if (voyage.getStatut() != statutPrecedent) {
+                    throw new RuntimeException("Transition non autorisée : " + ancienStatut + " -> " + cible
+                            + " (statut attendu : " + statutPrecedent + ")");
+                }
+                retenus.add(voyage);
+                resultats.put(voyageId, new TransitionStatutResultDTO(voyageId, voyage.getNumeroVoyage(),
+                        ancienStatut, cible.name(), true, null));
+            } catch (RuntimeException e) {
+                resultats.put(voyageId, new TransitionStatutResultDTO(voyageId, voyage.getNumeroVoyage(),
+                        ancienStatut, ancienStatut, false, e.getMessage()));
+            }
+        }
+        if (retenus.isEmpty()) {
+            return new ArrayList<>(resultats.values());
+        }
+
+        List<Long> ids = retenus.stream().map(Voyage::getId).collect(Collectors.toList());
+        List<Long> camionIds = retenus.stream()
+                .map(Voyage::getCamion)
+                .filter(Objects::nonNull)
+                .map(Camion::getId)
+                .distinct()
+                .collect(Collectors.toList());
+
+        // États du voyage : validation (ou création) groupée
+        Map<Long, List<EtatVoyage>> etatsParVoyage = etatVoyageRepository.findByVoyageIdIn(ids).stream()
+                .collect(Collectors.groupingBy(e -> e.getVoyage().getId()));
+        List<EtatVoyage> etats = new ArrayList<>();
+        for (Voyage voyage : retenus) {
+            etats.add(preparerValidationEtat(voyage, cible.name(),
+                    etatsParVoyage.computeIfAbsent(voyage.getId(), id -> new ArrayList<>())));
+        }
+        etatVoyageRepository.saveAll(etats);
+
+        // Statut, date de l'étape et camions : une requête UPDATE chacun
+        LocalDateTime now = LocalDateTime.now();
+        int modifies = voyageRepository.updateStatutByIdIn(ids, statutPrecedent, cible);
+        if (modifies != ids.size()) {
+            throw new RuntimeException("Le statut de certains voyages a changé pendant la mise à jour, veuillez réessayer");
+        }
+        if (cible == Voyage.StatutVoyage.DEPART) {
+            voyageRepository.updateDateDepartByIdIn(ids, now);
+        } else if (cible == Voyage.StatutVoyage.ARRIVER) {
+            voyageRepository.updateDateArriveeByIdIn(ids, now);
+        }
+        if (!camionIds.isEmpty()) {
+            camionRepository.mettreEnRouteByIdIn(camionIds);
+        }
+
+        eventPublisher.publishEvent(new DashboardChangeEvent(DashboardChangeEvent.Source.VOYAGE));
+        return new ArrayList<>(resultats.values());
+    }
+
+    private List<TransitionStatutResultDTO> transitionStatutParVoyage(List<Long> voyageIds, String statut) {
+        List<TransitionStatutResultDTO> resultats = new ArrayList<>();
+        for (Long voyageId : new LinkedHashSet<>(voyageIds)) {
+            Voyage voyage = voyageRepository.findById(voyageId).orElse(null);
+            if (voyage == null) {
+                resultats.add(new TransitionStatutResultDTO(voyageId, null, null, null, false,
+                        "Voyage non trouvé avec l'id: " + voyageId));
+                continue;
+            }
+            String ancienStatut = voyage.getStatut() != null ? voyage.getStatut().name() : null;
+            try {
+                VoyageDTO voyageUpdated = updateStatut(voyageId, statut, null, null, null);
+                resultats.add(new TransitionStatutResultDTO(voyageId, voyage.getNumeroVoyage(),
+                        ancienStatut, voyageUpdated.getStatut(), true, null));
+            } catch (RuntimeException e) {
+                resultats.add(new TransitionStatutResultDTO(voyageId, voyage.getNumeroVoyage(),
+                        ancienStatut, ancienStatut, false, e.getMessage()));
+            }
+        }
+        return resultats;
+    }
+
     @Override
     public Long countCamionsChargesByDepotId(Long depotId) {
         Depot depot = depotRepository.findById(depotId)
@@ -318,7 +449,7 @@ public class VoyageServiceImpl implements VoyageService {
         }
 
         // Générer un numéro de voyage unique
-        String numeroVoyage = generateUniqueNumeroVoyage();
+        String numeroVoyage = numeroVoyageGenerator.prochainNumeroVoyage();
         voyage.setNumeroVoyage(numeroVoyage);
 
         voyage.setDateCreation(LocalDateTime.now());
@@ -930,6 +1061,7 @@ public class VoyageServiceImpl implements VoyageService {
             }
 
             voyageRepository.saveAndFlush(voyage);
+            eventPublisher.publishEvent(new DashboardChangeEvent(DashboardChangeEvent.Source.VOYAGE));
             // Recharger depuis la base pour garantir que le DTO reflète l'état persisté (et les collections lazy)
             Voyage refreshed = voyageRepository.findById(id)
                     .orElseThrow(() -> new RuntimeException("Voyage non trouvé après sauvegarde"));
@@ -1116,6 +1248,7 @@ public class VoyageServiceImpl implements VoyageService {
             }
 
             Voyage updatedVoyage = voyageRepository.save(voyage);
+            eventPublisher.publishEvent(new DashboardChangeEvent(DashboardChangeEvent.Source.VOYAGE));
             if (nouveauStatut == Voyage.StatutVoyage.LIVRE) {
                 alerteService.creerAlerte(
                         Alerte.TypeAlerte.VOYAGE_LIVRE,
@@ -1289,18 +1422,93 @@ public class VoyageServiceImpl implements VoyageService {
     @Override
     @Transactional(readOnly = true)
     public VoyageMargeDTO calculateMarge(Long voyageId) {
-        // Récupérer le voyage
-        Voyage voyage = voyageRepository.findById(voyageId)
-                .orElseThrow(() -> new RuntimeException("Voyage non trouvé avec l'id: " + voyageId));
+        VoyageMargeDTO margeDTO = calculateMarges(List.of(voyageId)).get(voyageId);
+        if (margeDTO == null) {
+            throw new RuntimeException("Voyage non trouvé avec l'id: " + voyageId);
+        }
+        return margeDTO;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, VoyageMargeDTO> calculateMarges(Collection<Long> voyageIds) {
+        Map<Long, VoyageMargeBaseProjection> bases = new HashMap<>();
+        for (List<Long> lot : decouperEnLots(new ArrayList<>(new LinkedHashSet<>(voyageIds)))) {
+            for (VoyageMargeBaseProjection base : voyageRepository.findMargeBaseByIds(lot)) {
+                bases.put(base.getVoyageId(), base);
+            }
+        }
+        // Conserver l'ordre de la demande
+        List<VoyageMargeBaseProjection> ordonnees = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(voyageIds)) {
+            if (bases.containsKey(id)) {
+                ordonnees.add(bases.get(id));
+            }
+        }
+        return calculerMarges(ordonnees);
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, VoyageMargeDTO> calculateMargesByDateRange(LocalDate startDate, LocalDate endDate) {
+        return calculerMarges(voyageRepository.findMargeBaseByDateDepartRange(
+                startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX)));
+    }
+
+    /** Taille maximale des listes IN (...) envoyées à la base. */
+    private static final int TAILLE_LOT_MARGES = 500;
+
+    private static List<List<Long>> decouperEnLots(List<Long> ids) {
+        List<List<Long>> lots = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += TAILLE_LOT_MARGES) {
+            lots.add(ids.subList(i, Math.min(i + TAILLE_LOT_MARGES, ids.size())));
+        }
+        return lots;
+    }
+
+    /**
+     * Calcule les marges d'un lot de voyages avec deux requêtes d'agrégat par tranche de
+     * {@value #TAILLE_LOT_MARGES} voyages : somme des transactions et lignes de la première facture.
+     */
+    private Map<Long, VoyageMargeDTO> calculerMarges(List<VoyageMargeBaseProjection> bases) {
+        List<Long> ids = bases.stream()
+                .filter(b -> !Boolean.TRUE.equals(b.getCession()))
+                .map(VoyageMargeBaseProjection::getVoyageId)
+                .collect(Collectors.toList());
+
+        Map<Long, BigDecimal> fraisParVoyage = new HashMap<>();
+        Map<Long, List<LigneVenteVoyageProjection>> lignesParVoyage = new HashMap<>();
+        for (List<Long> lot : decouperEnLots(ids)) {
+            for (TransactionVoyageMontantProjection frais : transactionRepository.sumMontantGroupByVoyageIds(lot)) {
+                fraisParVoyage.put(frais.getVoyageId(), frais.getMontant());
+            }
+            for (LigneVenteVoyageProjection ligne : factureRepository.findLignesPremiereFactureByVoyageIds(lot)) {
+                lignesParVoyage.computeIfAbsent(ligne.getVoyageId(), k -> new ArrayList<>()).add(ligne);
+            }
+        }
+
+        Map<Long, VoyageMargeDTO> marges = new LinkedHashMap<>();
+        for (VoyageMargeBaseProjection base : bases) {
+            marges.put(base.getVoyageId(), construireMarge(base,
+                    fraisParVoyage.getOrDefault(base.getVoyageId(), BigDecimal.ZERO),
+                    lignesParVoyage.get(base.getVoyageId())));
+        }
+        return marges;
+    }
+
+    /**
+     * @param lignesPremiereFacture lignes de la première facture du voyage, {@code null} si le voyage n'a pas de facture
+     */
+    private VoyageMargeDTO construireMarge(VoyageMargeBaseProjection voyage, BigDecimal fraisTotaux,
+                                          List<LigneVenteVoyageProjection> lignesPremiereFacture) {
         // Créer le DTO de marge
         VoyageMargeDTO margeDTO = new VoyageMargeDTO();
-        margeDTO.setVoyageId(voyage.getId());
+        margeDTO.setVoyageId(voyage.getVoyageId());
         margeDTO.setNumeroVoyage(voyage.getNumeroVoyage());
         margeDTO.setQuantite(voyage.getQuantite());
 
         // Voyage de type cession : pas de cout ni marge comptés
-        if (voyage.isCession()) {
+        if (Boolean.TRUE.equals(voyage.getCession())) {
             margeDTO.setPrixUnitaireAchat(BigDecimal.ZERO);
             margeDTO.setCoutVoyage(BigDecimal.ZERO);
             margeDTO.setFraisTotaux(BigDecimal.ZERO);
@@ -1322,15 +1530,7 @@ public class VoyageServiceImpl implements VoyageService {
                 ? voyage.getPrixUnitaire().multiply(BigDecimal.valueOf(voyage.getQuantite() != null ? voyage.getQuantite() : 0))
                 : BigDecimal.ZERO);
 
-        // Calculer les frais totaux (somme de toutes les transactions du voyage)
-        BigDecimal fraisTotaux = BigDecimal.ZERO;
-        if (voyage.getTransactions() != null) {
-            for (Transaction transaction : voyage.getTransactions()) {
-                if (transaction.getMontant() != null) {
-                    fraisTotaux = fraisTotaux.add(transaction.getMontant());
-                }
-            }
-        }
+        // Frais totaux : somme de toutes les transactions du voyage
         margeDTO.setFraisTotaux(fraisTotaux);
 
         // Calculer le coût réel total
@@ -1345,20 +1545,16 @@ public class VoyageServiceImpl implements VoyageService {
         }
         margeDTO.setCoutReelParLitre(coutReelParLitre);
 
-        // Récupérer la facture pour obtenir le prix de vente
-        // Utiliser la première facture si disponible
-        Facture facture = (voyage.getFactures() != null && !voyage.getFactures().isEmpty()) 
-                ? voyage.getFactures().get(0) : null;
+        // Prix de vente depuis la première facture du voyage
         BigDecimal prixVenteUnitaire = BigDecimal.ZERO;
         BigDecimal montantVenteTotal = BigDecimal.ZERO;
-        boolean hasFacture = false;
+        boolean hasFacture = lignesPremiereFacture != null;
 
-        if (facture != null && facture.getLignes() != null) {
-            hasFacture = true;
+        if (hasFacture) {
             // Trouver la ligne de facture correspondant au produit du voyage
-            for (LigneFacture ligne : facture.getLignes()) {
-                if (ligne.getProduit() != null && voyage.getProduit() != null &&
-                        ligne.getProduit().getId().equals(voyage.getProduit().getId())) {
+            for (LigneVenteVoyageProjection ligne : lignesPremiereFacture) {
+                if (ligne.getProduitId() != null && voyage.getProduitId() != null &&
+                        ligne.getProduitId().equals(voyage.getProduitId())) {
                     prixVenteUnitaire = ligne.getPrixUnitaire() != null ? ligne.getPrixUnitaire()
                             : BigDecimal.ZERO;
                     if (ligne.getQuantite() != null && prixVenteUnitaire.compareTo(BigDecimal.ZERO) > 0) {
@@ -1431,214 +1627,93 @@ public class VoyageServiceImpl implements VoyageService {
             return voyageMapper.toDTO(voyage);
         }
 
-        // Trouver le dernier numéro assigné
-        String dernierNumero = trouverDernierNumeroBonEnlevement();
-
-        // Générer le prochain numéro
-        String nouveauNumero = genererProchainNumero(dernierNumero);
-
-        // Vérifier l'unicité avant d'assigner
-        while (voyageRepository.existsByNumeroBonEnlevement(nouveauNumero)) {
-            nouveauNumero = genererProchainNumero(nouveauNumero);
-        }
-
+        // Prochain numéro du compteur partagé ; les numéros saisis manuellement sont écartés
+        String nouveauNumero = numeroVoyageGenerator.prochainNumeroBonEnlevement();
         voyage.setNumeroBonEnlevement(nouveauNumero);
         Voyage savedVoyage = voyageRepository.save(voyage);
         return voyageMapper.toDTO(savedVoyage);
     }
 
-    private String trouverDernierNumeroBonEnlevement() {
-        Pageable pageable = PageRequest.of(0, 1);
-        List<String> derniersNumeros = voyageRepository.findLastNumeroBonEnlevement(pageable);
-
-        if (derniersNumeros.isEmpty() || derniersNumeros.get(0) == null) {
-            return null;
-        }
-
-        return derniersNumeros.get(0);
-    }
-
-    private String genererProchainNumero(String dernierNumero) {
-        if (dernierNumero == null || dernierNumero.trim().isEmpty()) {
-            // Si aucun numéro n'existe, commencer à 1
-            return String.format("%05d", 1);
-        }
-
-        try {
-            // Extraire le numéro (les 5 premiers caractères si le format est
-            // "00297-SFB/2025" ou juste "00297")
-            String numeroStr = dernierNumero;
-            if (dernierNumero.contains("-")) {
-                // Format: "00297-SFB/2025"
-                numeroStr = dernierNumero.substring(0, dernierNumero.indexOf("-"));
-            } else if (dernierNumero.length() > 5) {
-                // Prendre les 5 premiers caractères
-                numeroStr = dernierNumero.substring(0, 5);
-            }
-
-            // Nettoyer le numéro (enlever les zéros non significatifs pour le parsing)
-            int numero = Integer.parseInt(numeroStr);
-            int prochainNumero = numero + 1;
-            return String.format("%05d", prochainNumero);
-        } catch (NumberFormatException e) {
-            // Si le format n'est pas valide, commencer à 1
-            return String.format("%05d", 1);
-        }
-    }
-
     @Override
     public CoutTransportResponseDTO getCoutsTransport(
             Long fournisseurId,
             String filterOption,
             LocalDate startDate,
-            LocalDate endDate) {
-
-        // Récupérer le fournisseur
-        Fournisseur fournisseur = fournisseurRepository.findById(fournisseurId)
-                .orElseThrow(() -> new RuntimeException("Fournisseur non trouvé avec l'id: " + fournisseurId));
-
-        // Récupérer les camions du fournisseur
-        List<Camion> camions = camionRepository.findByFournisseur(fournisseur);
+            LocalDate endDate,
+            Integer page,
+            Integer size) {
 
-        if (camions.isEmpty()) {
-            return new CoutTransportResponseDTO(
-                    new ArrayList<>(),
-                    new CoutTransportStatsDTO(
-                            BigDecimal.ZERO,
-                            BigDecimal.ZERO,
-                            BigDecimal.ZERO,
-                            0L));
+        if (!fournisseurRepository.existsById(fournisseurId)) {
+            throw new RuntimeException("Fournisseur non trouvé avec l'id: " + fournisseurId);
         }
 
-        // Récupérer tous les voyages de ces camions (hors cession : pas de cout)
-        List<Voyage> allVoyages = new ArrayList<>();
-        for (Camion camion : camions) {
-            voyageRepository.findByCamion(camion).stream()
-                    .filter(v -> !v.isCession())
-                    .forEach(allVoyages::add);
-        }
-
-        // Filtrer selon l'option
-        List<Voyage> filteredVoyages;
-
+        // "intervalle" filtre sur la date de départ, "paye" / "nonPaye" sur le paiement du coût transport
+        LocalDateTime debut = null;
+        LocalDateTime fin = null;
+        String statutPaiement = "TOUS";
         if ("intervalle".equals(filterOption) && startDate != null && endDate != null) {
-            // Filtrer par intervalle de dates
-            LocalDateTime startDateTime = startDate.atStartOfDay();
-            LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-            filteredVoyages = allVoyages.stream()
-                    .filter(v -> v.getDateDepart() != null
-                            && v.getDateDepart().isAfter(startDateTime.minusSeconds(1))
-                            && v.getDateDepart().isBefore(endDateTime.plusSeconds(1)))
-                    .collect(Collectors.toList());
-        } else {
-            // Filtrer selon le statut de paiement
-            filteredVoyages = allVoyages.stream()
-                    .filter(v -> {
-                        String statutPaiement = determineStatutPaiement(v);
-                        if ("nonPaye".equals(filterOption)) {
-                            return "NON_PAYE".equals(statutPaiement);
-                        } else if ("paye".equals(filterOption)) {
-                            return "PAYE".equals(statutPaiement);
-                        }
-                        return true; // Tous si aucune option spécifique
-                    })
-                    .collect(Collectors.toList());
-        }
-
-        // Transformer en DTO
-        List<CoutTransportDTO> coutsDTO = filteredVoyages.stream()
-                .map(v -> {
-                    // Coût brut du voyage (avant prise en compte des manquants)
-                    BigDecimal prixUnitaire = v.getPrixUnitaire() != null ? v.getPrixUnitaire() : BigDecimal.ZERO;
-                    double quantite = v.getQuantite() != null ? v.getQuantite() : 0.0;
-                    BigDecimal coutVoyage = prixUnitaire.multiply(BigDecimal.valueOf(quantite));
-
-                    // Somme des montants de manquants pour ce voyage
-                    BigDecimal manquantMontant = BigDecimal.ZERO;
-                    for (ClientVoyage cleint: v.getClientVoyages()){
-                        if (cleint.getPrixAchat() != null && cleint.getManquant()!=null) manquantMontant = manquantMontant.add(BigDecimal.valueOf(cleint.getManquant() * cleint.getPrixAchat().doubleValue()));
-                    }
-
-                    System.out.println("-------------------------------------------manquant******************");
-                    System.out.println("totalMontantManquant : "+ manquantMontant);
-                    System.out.println("-------------------------------------------manquant******************");
-
-                    // Coût total réel = coût brut - somme des manquants (jamais négatif)
-                    BigDecimal coutTotal = coutVoyage.subtract(manquantMontant);
-                    if (coutTotal.compareTo(BigDecimal.ZERO) < 0) {
-                        coutTotal = BigDecimal.ZERO;
-                    }
-
-                    String statutPaiement = determineStatutPaiement(v);
-                    LocalDateTime datePaiement = getDatePaiement(v);
-
-                    return new CoutTransportDTO(
-                            v.getId(),
-                            v.getNumeroVoyage(),
-                            v.getCamion() != null ? v.getCamion().getImmatriculation() : null,
-                            v.getDateDepart(),
-                            v.getDestination(),
-                            v.getQuantite(),
-                            v.getPrixUnitaire(),
-                            coutVoyage,
-                            BigDecimal.ZERO, // fraisTotaux non utilisés pour l'instant
-                            coutTotal,
-                            statutPaiement,
-                            datePaiement);
-                })
+            debut = startDate.atStartOfDay();
+            fin = endDate.plusDays(1).atStartOfDay();
+        } else if ("nonPaye".equals(filterOption)) {
+            statutPaiement = "NON_PAYE";
+        } else if ("paye".equals(filterOption)) {
+            statutPaiement = "PAYE";
+        }
+
+        // Pagination seulement si demandée : les clients qui n'envoient ni page ni size reçoivent toutes les lignes
+        Pageable pageable = page != null || size != null
+                ? PageRequest.of(page != null ? page : 0, size != null ? size : 10)
+                : Pageable.unpaged();
+        Page<CoutTransportLigneProjection> lignes = voyageRepository.findCoutsTransport(
+                fournisseurId, debut, fin, statutPaiement, pageable);
+        List<CoutTransportDTO> coutsDTO = lignes.getContent().stream()
+                .map(this::toCoutTransportDTO)
                 .collect(Collectors.toList());
 
-        coutsDTO.sort(Comparator
-                .comparing(CoutTransportDTO::getDateDepart, Comparator.nullsLast(Comparator.reverseOrder()))
-                .thenComparing(CoutTransportDTO::getId, Comparator.nullsLast(Comparator.reverseOrder())));
-
-        // Calculer les statistiques
-        BigDecimal totalCout = coutsDTO.stream()
-                .map(c -> c.getCoutTotal() != null ? c.getCoutTotal() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalNonPaye = coutsDTO.stream()
-                .filter(c -> "NON_PAYE".equals(c.getStatutPaiement()))
-                .map(c -> c.getCoutTotal() != null ? c.getCoutTotal() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalPaye = coutsDTO.stream()
-                .filter(c -> "PAYE".equals(c.getStatutPaiement()))
-                .map(c -> c.getCoutTotal() != null ? c.getCoutTotal() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
+        CoutTransportTotauxProjection totaux = voyageRepository.sumCoutsTransport(
+                fournisseurId, debut, fin, statutPaiement);
         CoutTransportStatsDTO stats = new CoutTransportStatsDTO(
-                totalCout,
-                totalNonPaye,
-                totalPaye,
-                (long) coutsDTO.size());
-
-        return new CoutTransportResponseDTO(coutsDTO, stats);
-    }
-
-    /**
-     * Détermine le statut de paiement d'un voyage en fonction des paiements liés.
-     *
-     * Règle métier demandée :
-     * - Si aucun paiement ou paiement non validé -> "EN_ATTENTE" (non payé)
-     * - Si au moins un paiement VALIDE          -> "PAYE"
-     */
-    private String determineStatutPaiement(Voyage voyage) {
-        if (voyage == null || voyage.getId() == null) {
-            return "NON_PAYE";
-        }
-
-        // Le coût de transport peut avoir plusieurs paiements (tentatives, régularisations, etc.)
-        // On se base sur les paiements "coût transport" (référence PAY-COU-VOY-xxx) pour éviter
-        // les NonUniqueResultException et coller au métier.
-        List<Paiement> paiements = paiementRepository.findCoutTransportByVoyageId(voyage.getId());
-        if (paiements == null || paiements.isEmpty()) {
-            return "NON_PAYE";
-        }
-
-        boolean hasValid = paiements.stream()
-                .anyMatch(p -> p != null && p.getStatut() == Paiement.StatutPaiement.VALIDE);
-        return hasValid ? "PAYE" : "NON_PAYE";
+                totaux.getTotalCout(),
+                totaux.getTotalNonPaye(),
+                totaux.getTotalPaye(),
+                totaux.getNombreVoyages());
+
+        return new CoutTransportResponseDTO(
+                coutsDTO,
+                stats,
+                lignes.getNumber(),
+                lignes.getTotalPages(),
+                lignes.getTotalElements(),
+                lignes.getSize());
+    }
+
+    private CoutTransportDTO toCoutTransportDTO(CoutTransportLigneProjection ligne) {
+        // Coût brut du voyage (avant prise en compte des manquants)
+        BigDecimal prixUnitaire = ligne.getPrixUnitaire() != null ? ligne.getPrixUnitaire() : BigDecimal.ZERO;
+        double quantite = ligne.getQuantite() != null ? ligne.getQuantite() : 0.0;
+        BigDecimal coutVoyage = prixUnitaire.multiply(BigDecimal.valueOf(quantite));
+
+        // Coût total réel = coût brut - somme des manquants (jamais négatif)
+        BigDecimal manquantMontant = ligne.getMontantManquant() != null ? ligne.getMontantManquant() : BigDecimal.ZERO;
+        BigDecimal coutTotal = coutVoyage.subtract(manquantMontant);
+        if (coutTotal.compareTo(BigDecimal.ZERO) < 0) {
+            coutTotal = BigDecimal.ZERO;
+        }
+
+        boolean paye = ligne.getPaiementsValides() != null && ligne.getPaiementsValides() > 0;
+        return new CoutTransportDTO(
+                ligne.getId(),
+                ligne.getNumeroVoyage(),
+                ligne.getCamionImmatriculation(),
+                ligne.getDateDepart(),
+                ligne.getDestination(),
+                ligne.getQuantite(),
+                ligne.getPrixUnitaire(),
+                coutVoyage,
+                BigDecimal.ZERO, // fraisTotaux non utilisés pour l'instant
+                coutTotal,
+                paye ? "PAYE" : "NON_PAYE",
+                ligne.getDatePaiement() != null ? ligne.getDatePaiement().atStartOfDay() : null);
     }
 
     private BigDecimal calculateFraisTotaux(Voyage voyage) {
@@ -1654,24 +1729,6 @@ public class VoyageServiceImpl implements VoyageService {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
-    private LocalDateTime getDatePaiement(Voyage voyage) {
-        if (voyage == null || voyage.getId() == null) {
-            return null;
-        }
-
-        // Date de paiement = date du dernier paiement "coût transport" validé (si présent)
-        List<Paiement> paiements = paiementRepository.findCoutTransportByVoyageId(voyage.getId());
-        if (paiements == null || paiements.isEmpty()) {
-            return null;
-        }
-
-        return paiements.stream()
-                .filter(p -> p != null && p.getStatut() == Paiement.StatutPaiement.VALIDE && p.getDate() != null)
-                .map(p -> p.getDate().atStartOfDay())
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
-    }
-
     @Override
     public VoyagePageDto findVoyagesChargesByIdentifiant(
             String identifiant,
@@ -1998,7 +2055,7 @@ public class VoyageServiceImpl implements VoyageService {
         }
         Stock stockCiterne = stockCiterneOpt.get();
         List<ClientVoyage> clientVoyages = clientVoyageRepository.findByVoyageId(voyage.getId());
-        double cumul = stockCiterne.getQuantite() != null ? stockCiterne.getQuantite() : 0.0;
+        List<MouvementStock> entrees = new ArrayList<>();
 
         for (ClientVoyage cv : clientVoyages) {
             if (cv.getStatut() != ClientVoyage.StatutLivraison.LIVRER) {
@@ -2007,28 +2064,15 @@ public class VoyageServiceImpl implements VoyageService {
             if (cv.getQuantite() == null || cv.getQuantite() <= 0) {
                 continue;
             }
-            double q = cv.getQuantite();
-            cumul += q;
             String desc = PREFIX_ANNULATION_TEST_DECHARGE + voyage.getNumeroVoyage();
             if (cv.getClient() != null) {
                 desc += " – client " + cv.getClient().getNom();
             }
-            enregistrerMouvementStockCiterne(stockCiterne, q, "ENTREE", desc);
+            entrees.add(MouvementStock.entree(stockCiterne, cv.getQuantite(), desc));
         }
 
-        stockCiterne.setQuantite(cumul);
-        stockCiterne.setDateDerniereMiseAJour(now);
-        stockRepository.save(stockCiterne);
-    }
-
-    private void enregistrerMouvementStockCiterne(Stock stockCiterne, double quantite, String typeMouvement, String description) {
-        MouvementDTO mouvementDTO = new MouvementDTO();
-        mouvementDTO.setStockId(stockCiterne.getId());
-        mouvementDTO.setTypeMouvement(typeMouvement);
-        mouvementDTO.setQuantite(quantite);
-        mouvementDTO.setUnite(stockCiterne.getUnite());
-        mouvementDTO.setDescription(description);
-        mouvementService.save(mouvementDTO);
+        // Toutes les livraisons réintégrées en un seul delta sur la citerne
+        stockLedger.enregistrer(now, entrees);
     }
 
     /**
@@ -2083,34 +2127,11 @@ public class VoyageServiceImpl implements VoyageService {
                             ", à remettre: " + quantiteARemettre);
         }
 
-        stockCiterne.setQuantite(quantiteCiterneActuelle - quantiteARemettre);
-        stockCiterne.setDateDerniereMiseAJour(now);
-        stockRepository.save(stockCiterne);
-
-        MouvementDTO mouvementSortieCiterneDTO = new MouvementDTO();
-        mouvementSortieCiterneDTO.setStockId(stockCiterne.getId());
-        mouvementSortieCiterneDTO.setTypeMouvement("SORTIE");
-        mouvementSortieCiterneDTO.setQuantite(quantiteARemettre);
-        mouvementSortieCiterneDTO.setUnite(stockCiterne.getUnite());
-        mouvementSortieCiterneDTO.setDescription("Annulation voyage " + numeroVoyage + " - Remise au dépôt");
-        mouvementService.save(mouvementSortieCiterneDTO);
-
-        Double quantiteDepotActuelle = stockDepot.getQuantite();
-        stockDepot.setQuantite((quantiteDepotActuelle != null ? quantiteDepotActuelle : 0.0) + quantiteARemettre);
-        stockDepot.setDateDerniereMiseAJour(now);
-        stockRepository.save(stockDepot);
-
-        Double capaciteUtilisee = depot.getCapaciteUtilisee() != null ? depot.getCapaciteUtilisee() : 0.0;
-        depot.setCapaciteUtilisee(capaciteUtilisee + quantiteARemettre);
-        depotRepository.save(depot);
-
-        MouvementDTO mouvementEntreeDepotDTO = new MouvementDTO();
-        mouvementEntreeDepotDTO.setStockId(stockDepot.getId());
-        mouvementEntreeDepotDTO.setTypeMouvement("ENTREE");
-        mouvementEntreeDepotDTO.setQuantite(quantiteARemettre);
-        mouvementEntreeDepotDTO.setUnite(stockDepot.getUnite());
-        mouvementEntreeDepotDTO.setDescription("Remise au dépôt " + depot.getNom() + " - Annulation voyage " + numeroVoyage);
-        mouvementService.save(mouvementEntreeDepotDTO);
+        stockLedger.enregistrer(now,
+                MouvementStock.sortie(stockCiterne, quantiteARemettre,
+                        "Annulation voyage " + numeroVoyage + " - Remise au dépôt"),
+                MouvementStock.entree(stockDepot, quantiteARemettre,
+                        "Remise au dépôt " + depot.getNom() + " - Annulation voyage " + numeroVoyage));
     }
 
     /**
@@ -2162,34 +2183,11 @@ public class VoyageServiceImpl implements VoyageService {
                             ", à remettre: " + quantiteARemettre);
         }
 
-        stockCiterne.setQuantite(quantiteCiterneActuelle - quantiteARemettre);
-        stockCiterne.setDateDerniereMiseAJour(now);
-        stockRepository.save(stockCiterne);
-
-        MouvementDTO mouvementSortieCiterneDTO = new MouvementDTO();
-        mouvementSortieCiterneDTO.setStockId(stockCiterne.getId());
-        mouvementSortieCiterneDTO.setTypeMouvement("SORTIE");
-        mouvementSortieCiterneDTO.setQuantite(quantiteARemettre);
-        mouvementSortieCiterneDTO.setUnite(stockCiterne.getUnite());
-        mouvementSortieCiterneDTO.setDescription("Annulation voyage " + numeroVoyage + " - Remise stock cession au dépôt");
-        mouvementService.save(mouvementSortieCiterneDTO);
-
-        double qCess = stockDepot.getQuantityCession() != null ? stockDepot.getQuantityCession() : 0.0;
-        stockDepot.setQuantityCession(qCess + quantiteARemettre);
-        stockDepot.setDateDerniereMiseAJour(now);
-        stockRepository.save(stockDepot);
-
-        Double capaciteUtilisee = depot.getCapaciteUtilisee() != null ? depot.getCapaciteUtilisee() : 0.0;
-        depot.setCapaciteUtilisee(capaciteUtilisee + quantiteARemettre);
-        depotRepository.save(depot);
-
-        MouvementDTO mouvementEntreeDepotDTO = new MouvementDTO();
-        mouvementEntreeDepotDTO.setStockId(stockDepot.getId());
-        mouvementEntreeDepotDTO.setTypeMouvement("ENTREE");
-        mouvementEntreeDepotDTO.setQuantite(quantiteARemettre);
-        mouvementEntreeDepotDTO.setUnite(stockDepot.getUnite());
-        mouvementEntreeDepotDTO.setDescription("Remise stock cession au dépôt " + depot.getNom() + " - Annulation voyage " + numeroVoyage);
-        mouvementService.save(mouvementEntreeDepotDTO);
+        stockLedger.enregistrer(now,
+                MouvementStock.sortie(stockCiterne, quantiteARemettre,
+                        "Annulation voyage " + numeroVoyage + " - Remise stock cession au dépôt"),
+                MouvementStock.entreeCession(stockDepot, quantiteARemettre,
+                        "Remise stock cession au dépôt " + depot.getNom() + " - Annulation voyage " + numeroVoyage));
     }
 
     /**
@@ -2201,67 +2199,11 @@ public class VoyageServiceImpl implements VoyageService {
                 || voyage.getQuantite() == null || voyage.getQuantite() <= 0) {
             return;
         }
-        double q = voyage.getQuantite();
         Stock stockDepot = stockRepository
                 .findByDepotIdAndProduitId(voyage.getDepot().getId(), voyage.getProduit().getId())
                 .orElseThrow(() -> new RuntimeException("Stock dépôt introuvable pour réintégration cession."));
-        double qCess = stockDepot.getQuantityCession() != null ? stockDepot.getQuantityCession() : 0.0;
-        stockDepot.setQuantityCession(qCess + q);
-        stockDepot.setDateDerniereMiseAJour(now);
-        stockRepository.save(stockDepot);
-
-        Depot depot = voyage.getDepot();
-        Double capaciteUtilisee = depot.getCapaciteUtilisee() != null ? depot.getCapaciteUtilisee() : 0.0;
-        depot.setCapaciteUtilisee(capaciteUtilisee + q);
-        depotRepository.save(depot);
-
-        MouvementDTO mouvementEntreeDTO = new MouvementDTO();
-        mouvementEntreeDTO.setStockId(stockDepot.getId());
-        mouvementEntreeDTO.setTypeMouvement("ENTREE");
-        mouvementEntreeDTO.setQuantite(q);
-        mouvementEntreeDTO.setUnite(stockDepot.getUnite());
-        mouvementEntreeDTO.setDescription("Réintégration stock cession (suppression voyage archivé " + voyage.getNumeroVoyage() + ")");
-        mouvementService.save(mouvementEntreeDTO);
-    }
-
-    /**
-     * Génère un numéro de voyage unique au format VOY-YYYY-NNNN
-     */
-    private String generateUniqueNumeroVoyage() {
-        String year = String.valueOf(LocalDateTime.now().getYear());
-        String prefix = "VOY-" + year + "-";
-
-        // Trouver le dernier numéro de voyage de l'année
-        List<Voyage> voyagesAnnee = voyageRepository.findAll().stream()
-                .filter(v -> v.getNumeroVoyage() != null && v.getNumeroVoyage().startsWith(prefix))
-                .toList();
-
-        int nextNumber = 1;
-        if (!voyagesAnnee.isEmpty()) {
-            // Extraire le numéro le plus élevé
-            int maxNumber = voyagesAnnee.stream()
-                    .mapToInt(v -> {
-                        try {
-                            String numStr = v.getNumeroVoyage().substring(prefix.length());
-                            return Integer.parseInt(numStr);
-                        } catch (NumberFormatException e) {
-                            return 0;
-                        }
-                    })
-                    .max()
-                    .orElse(0);
-            nextNumber = maxNumber + 1;
-        }
-
-        String numeroVoyage = prefix + String.format("%04d", nextNumber);
-
-        // Vérifier l'unicité (au cas où)
-        while (voyageRepository.findByNumeroVoyage(numeroVoyage).isPresent()) {
-            nextNumber++;
-            numeroVoyage = prefix + String.format("%04d", nextNumber);
-        }
-
-        return numeroVoyage;
+        stockLedger.enregistrer(now, MouvementStock.entreeCession(stockDepot, voyage.getQuantite(),
+                "Réintégration stock cession (suppression voyage archivé " + voyage.getNumeroVoyage() + ")"));
     }
 
     /**
@@ -2275,6 +2217,16 @@ public class VoyageServiceImpl implements VoyageService {
         if (camion == null || statutVoyage == null) {
             return;
         }
+        appliquerStatutCamionDepuisVoyage(camion, statutVoyage, voyage);
+
+        // Sauvegarder le camion avec le nouveau statut
+        camionRepository.save(camion);
+    }
+
+    /**
+     * Met à jour le statut du camion selon le statut du voyage, sans l'enregistrer.
+     */
+    private void appliquerStatutCamionDepuisVoyage(Camion camion, Voyage.StatutVoyage statutVoyage, Voyage voyage) {
 
         switch (statutVoyage) {
             case EN_ATTENTE_CHARGEMENT:
@@ -2336,9 +2288,6 @@ public class VoyageServiceImpl implements VoyageService {
                 }
                 break;
         }
-
-        // Sauvegarder le camion avec le nouveau statut
-        camionRepository.save(camion);
     }
 
     /**
@@ -2379,14 +2328,21 @@ public class VoyageServiceImpl implements VoyageService {
      * - Sinon : seul le responsable (logisticien) du voyage est autorisé.
      */
     private void ensureCurrentUserIsResponsable(Voyage voyage) {
+        ensureCompteIsResponsable(voyage, getCompteConnecte());
+    }
+
+    private Compte getCompteConnecte() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()
                 || !(authentication.getPrincipal() instanceof String)) {
             throw new RuntimeException("Non authentifié. Seul le logisticien responsable du voyage ou le Contrôleur peut mettre à jour le statut.");
         }
         String identifiant = (String) authentication.getPrincipal();
-        Compte compte = compteRepository.findByIdentifiant(identifiant)
+        return compteRepository.findByIdentifiant(identifiant)
                 .orElseThrow(() -> new RuntimeException("Compte non trouvé pour l'identifiant: " + identifiant));
+    }
+
+    private void ensureCompteIsResponsable(Voyage voyage, Compte compte) {
         // Admin ou Contrôleur : autorisés pour tous les voyages (attribution clients, manquants)
         boolean isAdminOrControleur = compte.getRoles() != null && compte.getRoles().stream()
                 .anyMatch(r -> r != null && ("Admin".equalsIgnoreCase(r.getNom()) || "Contrôleur".equals(r.getNom())));
@@ -2408,13 +2364,19 @@ public class VoyageServiceImpl implements VoyageService {
      * il est créé puis validé pour permettre le passage à DECHARGER.
      */
     private void validerEtat(Voyage voyage, String statut) {
+        etatVoyageRepository.save(
+                preparerValidationEtat(voyage, statut, new ArrayList<>(etatVoyageRepository.findByVoyageId(voyage.getId()))));
+    }
+
+    /**
+     * Valide, parmi les états déjà chargés du voyage, celui qui correspond au statut (créé s'il n'existe pas,
+     * ex: passage PARTIELLEMENT_DECHARGER -> DECHARGER). L'état retourné reste à enregistrer par l'appelant.
+     */
+    private EtatVoyage preparerValidationEtat(Voyage voyage, String statut, List<EtatVoyage> etats) {
         // Mapper le statut vers le texte de l'état
         String etatTexte = getEtatTexteFromStatut(statut);
 
-        // Trouver tous les états du voyage
-        List<EtatVoyage> etats = etatVoyageRepository.findByVoyageId(voyage.getId());
-
-        // Trouver l'état correspondant au texte, ou le créer s'il n'existe pas (ex: passage PARTIELLEMENT_DECHARGER -> DECHARGER)
+        // Trouver l'état correspondant au texte, ou le créer s'il n'existe pas
         EtatVoyage etatVoyage = etats.stream()
                 .filter(e -> e.getEtat().equals(etatTexte))
                 .findFirst()
@@ -2422,25 +2384,15 @@ public class VoyageServiceImpl implements VoyageService {
                     EtatVoyage nouveau = new EtatVoyage();
                     nouveau.setVoyage(voyage);
                     nouveau.setEtat(etatTexte);
-                    nouveau.setDateHeure(LocalDateTime.now());
-                    nouveau.setValider(false);
-                    return etatVoyageRepository.save(nouveau);
+                    etats.add(nouveau);
+                    return nouveau;
                 });
 
-        // Si l'état est déjà validé, on met juste à jour la date/heure sans lever
-        // d'exception
+        // Si l'état est déjà validé, on met juste à jour la date/heure sans lever d'exception.
         // Cela permet de gérer les cas où plusieurs statuts mappent vers le même état
-        if (Boolean.TRUE.equals(etatVoyage.getValider())) {
-            // Mettre à jour la date/heure même si déjà validé
-            etatVoyage.setDateHeure(LocalDateTime.now());
-            etatVoyageRepository.save(etatVoyage);
-            return; // Ne pas re-valider un état déjà validé
-        }
-
-        // Valider l'état et mettre à jour la date/heure
         etatVoyage.setValider(true);
         etatVoyage.setDateHeure(LocalDateTime.now());
-        etatVoyageRepository.save(etatVoyage);
+        return etatVoyage;
     }
 
     /**
@@ -2525,35 +2477,10 @@ public class VoyageServiceImpl implements VoyageService {
                     ", quantité demandée: " + quantiteARetirer);
         }
 
-        // Retirer la quantité du stock
-        Double nouvelleQuantite = quantiteActuelle - quantiteARetirer;
-        stock.setQuantite(nouvelleQuantite);
-        stock.setDateDerniereMiseAJour(LocalDateTime.now());
-        stockRepository.save(stock);
-
-        // Mettre à jour la capacité utilisée du dépôt
-        Depot depot = voyage.getDepot();
-        Double capaciteUtilisee = depot.getCapaciteUtilisee() != null ? depot.getCapaciteUtilisee() : 0.0;
-        depot.setCapaciteUtilisee(Math.max(0.0, capaciteUtilisee - quantiteARetirer));
-
-        // Mettre à jour le statut du dépôt si nécessaire
-        if (depot.getCapaciteUtilisee() < depot.getCapacite()) {
-            if (depot.getStatut() == Depot.StatutDepot.PLEIN) {
-                depot.setStatut(Depot.StatutDepot.ACTIF);
-            }
-        }
-
-        depotRepository.save(depot);
-
-        // Créer un mouvement de sortie
-        MouvementDTO mouvementDTO = new MouvementDTO();
-        mouvementDTO.setStockId(stock.getId());
-        mouvementDTO.setTypeMouvement("SORTIE");
-        mouvementDTO.setQuantite(quantiteARetirer);
-        mouvementDTO.setUnite(stock.getUnite());
-        mouvementDTO.setDescription("Sortie pour voyage " + voyage.getNumeroVoyage() +
-                " - " + voyage.getProduit().getNom() + " du dépôt " + depot.getNom());
-        mouvementService.save(mouvementDTO);
+        // Sortie du stock ; la capacité utilisée (et le statut PLEIN) du dépôt suit dans le même enregistrement
+        stockLedger.enregistrer(LocalDateTime.now(), MouvementStock.sortie(stock, quantiteARetirer,
+                "Sortie pour voyage " + voyage.getNumeroVoyage() +
+                        " - " + voyage.getProduit().getNom() + " du dépôt " + voyage.getDepot().getNom()));
     }
 
     /**
@@ -2592,23 +2519,6 @@ public class VoyageServiceImpl implements VoyageService {
                     ", quantité demandée: " + quantiteARetirer);
         }
 
-        // Retirer la quantité du stock du dépôt
-        stockDepot.setQuantite(quantiteActuelle - quantiteARetirer);
-        stockDepot.setDateDerniereMiseAJour(now);
-        stockRepository.save(stockDepot);
-
-        // Mettre à jour la capacité utilisée du dépôt
-        Depot depot = voyage.getDepot();
-        Double capaciteUtilisee = depot.getCapaciteUtilisee() != null ? depot.getCapaciteUtilisee() : 0.0;
-        depot.setCapaciteUtilisee(Math.max(0.0, capaciteUtilisee - quantiteARetirer));
-
-        if (depot.getCapaciteUtilisee() < depot.getCapacite()) {
-            if (depot.getStatut() == Depot.StatutDepot.PLEIN) {
-                depot.setStatut(Depot.StatutDepot.ACTIF);
-            }
-        }
-        depotRepository.save(depot);
-
         // Ajouter au stock citerne
         Stock stockCiterne = stockRepository.findByProduitIdAndCiterne(
                 voyage.getProduit().getId(),
@@ -2616,28 +2526,12 @@ public class VoyageServiceImpl implements VoyageService {
                 .orElseThrow(() -> new RuntimeException(
                         "Stock Citerne non trouvé pour le produit avec l'id: " + voyage.getProduit().getId()));
 
-        stockCiterne.setQuantite(stockCiterne.getQuantite() + quantiteARetirer);
-        stockCiterne.setDateDerniereMiseAJour(now);
-        stockRepository.save(stockCiterne);
-
-        // Créer un mouvement d'entrée pour le stock citerne
-        MouvementDTO mouvementEntreeDTO = new MouvementDTO();
-        mouvementEntreeDTO.setStockId(stockCiterne.getId());
-        mouvementEntreeDTO.setTypeMouvement("ENTREE");
-        mouvementEntreeDTO.setQuantite(quantiteARetirer);
-        mouvementEntreeDTO.setUnite(stockCiterne.getUnite());
-        mouvementEntreeDTO.setDescription("Entrée dans le stock citerne pour le voyage " + voyage.getNumeroVoyage());
-        mouvementService.save(mouvementEntreeDTO);
-
-        // Créer un mouvement de sortie pour le dépôt
-        MouvementDTO mouvementSortieDTO = new MouvementDTO();
-        mouvementSortieDTO.setStockId(stockDepot.getId());
-        mouvementSortieDTO.setTypeMouvement("SORTIE");
-        mouvementSortieDTO.setQuantite(quantiteARetirer);
-        mouvementSortieDTO.setUnite(stockDepot.getUnite());
-        mouvementSortieDTO
-                .setDescription("Sortie du dépôt " + depot.getNom() + " pour le voyage " + voyage.getNumeroVoyage());
-        mouvementService.save(mouvementSortieDTO);
+        // Transfert dépôt → citerne : entrée citerne, sortie dépôt et capacité du dépôt appliquées ensemble
+        stockLedger.enregistrer(now,
+                MouvementStock.entree(stockCiterne, quantiteARetirer,
+                        "Entrée dans le stock citerne pour le voyage " + voyage.getNumeroVoyage()),
+                MouvementStock.sortie(stockDepot, quantiteARetirer,
+                        "Sortie du dépôt " + voyage.getDepot().getNom() + " pour le voyage " + voyage.getNumeroVoyage()));
     }
 
     /**
@@ -2659,28 +2553,6 @@ public class VoyageServiceImpl implements VoyageService {
             throw new RuntimeException("Quantité cession insuffisante dans le dépôt. Disponible: " + qCess +
                     " L, demandée: " + quantiteARetirer + " L");
         }
-        stockDepot.setQuantityCession(Math.max(0.0, qCess - quantiteARetirer));
-        stockDepot.setDateDerniereMiseAJour(now);
-        stockRepository.save(stockDepot);
-
-        Depot depot = voyage.getDepot();
-        Double capaciteUtilisee = depot.getCapaciteUtilisee() != null ? depot.getCapaciteUtilisee() : 0.0;
-        depot.setCapaciteUtilisee(Math.max(0.0, capaciteUtilisee - quantiteARetirer));
-        if (depot.getCapaciteUtilisee() < depot.getCapacite()) {
-            if (depot.getStatut() == Depot.StatutDepot.PLEIN) {
-                depot.setStatut(Depot.StatutDepot.ACTIF);
-            }
-        }
-        depotRepository.save(depot);
-
-        MouvementDTO mouvementSortieDTO = new MouvementDTO();
-        mouvementSortieDTO.setStockId(stockDepot.getId());
-        mouvementSortieDTO.setTypeMouvement("SORTIE");
-        mouvementSortieDTO.setQuantite(quantiteARetirer);
-        mouvementSortieDTO.setUnite(stockDepot.getUnite());
-        mouvementSortieDTO.setDescription("Sortie stock cession du dépôt " + depot.getNom() + " pour le voyage "
-                + voyage.getNumeroVoyage());
-        mouvementService.save(mouvementSortieDTO);
 
         Stock stockCiterne = stockRepository.findByProduitIdAndCiterne(
                 voyage.getProduit().getId(),
@@ -2688,18 +2560,12 @@ public class VoyageServiceImpl implements VoyageService {
                 .orElseThrow(() -> new RuntimeException(
                         "Stock Citerne non trouvé pour le produit avec l'id: " + voyage.getProduit().getId()));
 
-        double qCiterne = stockCiterne.getQuantite() != null ? stockCiterne.getQuantite() : 0.0;
-        stockCiterne.setQuantite(qCiterne + quantiteARetirer);
-        stockCiterne.setDateDerniereMiseAJour(now);
-        stockRepository.save(stockCiterne);
-
-        MouvementDTO mouvementEntreeDTO = new MouvementDTO();
-        mouvementEntreeDTO.setStockId(stockCiterne.getId());
-        mouvementEntreeDTO.setTypeMouvement("ENTREE");
-        mouvementEntreeDTO.setQuantite(quantiteARetirer);
-        mouvementEntreeDTO.setUnite(stockCiterne.getUnite());
-        mouvementEntreeDTO.setDescription("Entrée citerne (cession) pour le voyage " + voyage.getNumeroVoyage());
-        mouvementService.save(mouvementEntreeDTO);
+        stockLedger.enregistrer(now,
+                MouvementStock.sortieCession(stockDepot, quantiteARetirer,
+                        "Sortie stock cession du dépôt " + voyage.getDepot().getNom() + " pour le voyage "
+                                + voyage.getNumeroVoyage()),
+                MouvementStock.entree(stockCiterne, quantiteARetirer,
+                        "Entrée citerne (cession) pour le voyage " + voyage.getNumeroVoyage()));
     }
 
     /**
@@ -2782,12 +2648,7 @@ public class VoyageServiceImpl implements VoyageService {
                             ", quantité demandée: " + quantiteARetirer);
         }
 
-        // Retirer la quantité du stock citerne
-        stockCiterne.setQuantite(quantiteActuelle - quantiteARetirer);
-        stockCiterne.setDateDerniereMiseAJour(now);
-        stockRepository.save(stockCiterne);
-
-        // Créer un mouvement de sortie
+        // Sortie du stock citerne (retrait atomique + mouvement)
         String description = "Sortie du stock citerne pour la livraison du voyage " + voyage.getNumeroVoyage();
         if (clientId != null && clientId > 0) {
             ClientVoyage clientVoyage = clientVoyageRepository
@@ -2798,14 +2659,17 @@ public class VoyageServiceImpl implements VoyageService {
             }
         }
 
-        enregistrerMouvementStockCiterne(stockCiterne, quantiteARetirer, "SORTIE", description);
+        stockLedger.enregistrer(now, MouvementStock.sortie(stockCiterne, quantiteARetirer, description));
     }
 
-    @Override
-    public VoyageDTO declarerVoyage(Long voyageId, Long compteId, Long caisseId) {
-        Voyage voyage = voyageRepository.findById(voyageId)
-                .orElseThrow(() -> new RuntimeException("Voyage non trouvé avec l'id: " + voyageId));
+    /** Frais de déclaration d'un voyage : tarif pays de l'axe appliqué aux litres déclarés. */
+    private record FraisDeclaration(BigDecimal fraisDouane, BigDecimal fraisT1, double litresDouane) {
+    }
 
+    /**
+     * Vérifie qu'un voyage peut être déclaré et calcule ses frais de douane et T1.
+     */
+    private FraisDeclaration calculerFraisDeclaration(Voyage voyage) {
         // Vérifier que le voyage est à la douane
         if (voyage.getDeclarer()) {
             throw new RuntimeException("Le voyage est dejà déclaré à la douane");
@@ -2817,25 +2681,116 @@ public class VoyageServiceImpl implements VoyageService {
             throw new RuntimeException("Le voyage n'a pas de camion associé");
         }
 
-        // Calcul des frais via le pays de l'axe du voyage
-        if (voyage.getAxe() == null || voyage.getAxe().getPays() == null) {
+        // Calcul des frais via le pays de l'axe du voyage (tarifs servis par le cache, sans lecture du pays)
+        TarifPays tarifAxe = voyage.getAxe() != null ? tarifPaysCache.tarifAxe(voyage.getAxe().getId()) : null;
+        if (tarifAxe == null) {
             throw new RuntimeException("L'axe du voyage n'a pas de pays configuré. Veuillez d'abord associer un pays à l'axe.");
         }
-        com.backend.gesy.pays.Pays paysAxe = voyage.getAxe().getPays();
         boolean isGasoil = voyage.getProduit() != null && voyage.getProduit().getTypeProduit() != null
                 && voyage.getProduit().getTypeProduit() == Produit.TypeProduit.GAZOLE;
 
         // Frais douane / T1 comptables : toujours tarif pays (même logique que hors cession).
         // Le tarif convenu avec le client (cession) sert uniquement à la facture auto Facturation.
-        BigDecimal fraisParLitre = isGasoil
-                ? (paysAxe.getFraisParLitreGasoil() != null ? paysAxe.getFraisParLitreGasoil() : BigDecimal.ZERO)
-                : (paysAxe.getFraisParLitre() != null ? paysAxe.getFraisParLitre() : BigDecimal.ZERO);
-        BigDecimal fraisT1 = paysAxe.getFraisT1() != null ? paysAxe.getFraisT1() : BigDecimal.ZERO;
+        BigDecimal fraisParLitre = tarifAxe.fraisParLitre(isGasoil);
+        BigDecimal fraisT1 = tarifAxe.fraisT1();
 
         // Frais douane entreprise = tarif pays au litre × litres du voyage (capacité camion en pratique)
         double litresDouane = camion.getCapacite() != null ? camion.getCapacite()
                 : (voyage.getQuantite() != null ? voyage.getQuantite() : 0.0);
         BigDecimal fraisDouane = fraisParLitre.multiply(BigDecimal.valueOf(litresDouane));
+        return new FraisDeclaration(fraisDouane, fraisT1, litresDouane);
+    }
+
+    /**
+     * Marque le voyage comme déclaré. Passage en RÉCEPTIONNÉ sauf cession déjà déchargée
+     * (sortie douane avant déclaration) : on conserve alors DECHARGER pour ne pas sortir l'archive
+     * ni créer d'incohérence camion/stock.
+     *
+     * @return le statut dont l'état doit être validé ("RECEPTIONNER" ou "DECHARGER")
+     */
+    private String appliquerDeclaration(Voyage voyage) {
+        boolean cessionDejaDecharge = voyage.isCession()
+                && voyage.getStatut() == Voyage.StatutVoyage.DECHARGER;
+        voyage.setDeclarer(true);
+        voyage.setPassager("passer_declarer");
+        if (cessionDejaDecharge) {
+            return "DECHARGER";
+        }
+        voyage.setStatut(Voyage.StatutVoyage.RECEPTIONNER);
+        return "RECEPTIONNER";
+    }
+
+    /**
+     * Transaction en attente (non validée) pour un frais de déclaration.
+     */
+    private Transaction construireTransactionFrais(Voyage voyage, Transaction.TypeTransaction type,
+            BigDecimal montant, String libelle) {
+        Transaction transaction = new Transaction();
+        transaction.setMontant(montant);
+        transaction.setDate(LocalDateTime.now());
+        transaction.setStatut(Transaction.StatutTransaction.EN_ATTENTE); // En attente
+        transaction.setType(type);
+        transaction.setDescription(libelle + " pour le voyage " + voyage.getNumeroVoyage() +
+                " - Camion " + voyage.getCamion().getImmatriculation());
+        transaction.setVoyage(voyage);
+        return transaction;
+    }
+
+    /**
+     * Paiement en attente rattaché à la transaction d'un frais de déclaration.
+     */
+    private Paiement construirePaiementFrais(Voyage voyage, Transaction transaction, String prefixeReference,
+            String libelle, CategorieDepense categorie) {
+        Paiement paiement = new Paiement();
+        paiement.setMontant(transaction.getMontant());
+        paiement.setDate(LocalDate.now());
+        paiement.setMethode(Paiement.MethodePaiement.VIREMENT);
+        paiement.setStatut(Paiement.StatutPaiement.EN_ATTENTE);
+        paiement.setReference(prefixeReference + voyage.getNumeroVoyage());
+        paiement.setNotes(libelle + " pour le voyage " + voyage.getNumeroVoyage());
+        paiement.getTransactions().add(transaction);
+        paiement.setVoyage(voyage);
+        if (categorie != null) {
+            paiement.setCategorieDepense(categorie);
+        }
+        return paiement;
+    }
+
+    /**
+     * Cession : facture client = tarif convenu au litre × litres uniquement (Facturation),
+     * indépendant du tarif pays.
+     */
+    private void creerFactureCessionSiApplicable(Voyage savedVoyage, double litresDouane) {
+        if (!savedVoyage.isCession()) {
+            return;
+        }
+        BigDecimal tarifConvenuClient = savedVoyage.getDroitDouaneParLitre();
+        if (tarifConvenuClient != null && tarifConvenuClient.compareTo(BigDecimal.ZERO) > 0) {
+            BigDecimal montantFactureClient = tarifConvenuClient.multiply(BigDecimal.valueOf(litresDouane));
+            if (montantFactureClient.compareTo(BigDecimal.ZERO) > 0) {
+                Voyage forFacture = voyageRepository.findById(savedVoyage.getId()).orElse(savedVoyage);
+                if (forFacture.getClientVoyages() != null) {
+                    forFacture.getClientVoyages().size();
+                }
+                Client clientFacture = null;
+                if (forFacture.getClientVoyages() != null && !forFacture.getClientVoyages().isEmpty()) {
+                    clientFacture = forFacture.getClientVoyages().iterator().next().getClient();
+                }
+                if (clientFacture != null) {
+                    factureService.createFactureAutoCessionDroitDouaneIfAbsent(
+                            forFacture, clientFacture, montantFactureClient, tarifConvenuClient, litresDouane);
+                }
+            }
+        }
+    }
+
+    @Override
+    public VoyageDTO declarerVoyage(Long voyageId, Long compteId, Long caisseId) {
+        Voyage voyage = voyageRepository.findById(voyageId)
+                .orElseThrow(() -> new RuntimeException("Voyage non trouvé avec l'id: " + voyageId));
+
+        FraisDeclaration frais = calculerFraisDeclaration(voyage);
+        Camion camion = voyage.getCamion();
 
         // Vérifier qu'on ne sélectionne pas les deux en même temps
         // if (compteId != null && caisseId != null) {
@@ -2843,22 +2798,12 @@ public class VoyageServiceImpl implements VoyageService {
         // soit une caisse, pas les deux");
         // }
 
-        // Déclaration : passage en RÉCEPTIONNÉ sauf cession déjà déchargée (sortie douane avant déclaration).
-        // Dans ce cas on conserve DECHARGER pour ne pas sortir l'archive ni incohérence camion/stock.
-        boolean cessionDejaDecharge = voyage.isCession()
-                && voyage.getStatut() == Voyage.StatutVoyage.DECHARGER;
-        voyage.setDeclarer(true);
-        voyage.setPassager("passer_declarer");
-        if (!cessionDejaDecharge) {
-            voyage.setStatut(Voyage.StatutVoyage.RECEPTIONNER);
+        String etatAValider = appliquerDeclaration(voyage);
+        if (voyage.getStatut() == Voyage.StatutVoyage.RECEPTIONNER) {
             updateCamionStatusFromVoyage(camion, voyage.getStatut(), voyage);
         }
         Voyage savedVoyage = voyageRepository.save(voyage);
-        if (!cessionDejaDecharge) {
-            validerEtat(voyage, "RECEPTIONNER");
-        } else {
-            validerEtat(voyage, "DECHARGER");
-        }
+        validerEtat(voyage, etatAValider);
         alerteService.creerAlerte(
                 Alerte.TypeAlerte.VOYAGE_DECLARE,
                 "Voyage déclaré à la douane : " + savedVoyage.getNumeroVoyage(),
@@ -2866,94 +2811,113 @@ public class VoyageServiceImpl implements VoyageService {
                 "Voyage", savedVoyage.getId(), "/voyages/" + savedVoyage.getId());
 
         // Créer les transactions en attente (non validées)
-        Transaction transactionFraisDouane = new Transaction();
-        transactionFraisDouane.setMontant(fraisDouane);
-        transactionFraisDouane.setDate(LocalDateTime.now());
-        transactionFraisDouane.setStatut(Transaction.StatutTransaction.EN_ATTENTE); // En attente
-        transactionFraisDouane.setType(Transaction.TypeTransaction.FRAIS_DOUANE);
-        transactionFraisDouane.setDescription("Frais de douane pour le voyage " + voyage.getNumeroVoyage() +
-                " - Camion " + camion.getImmatriculation());
-        transactionFraisDouane.setVoyage(savedVoyage);
-
-        Transaction transactionFraisT1 = new Transaction();
-        transactionFraisT1.setMontant(fraisT1);
-        transactionFraisT1.setDate(LocalDateTime.now());
-        transactionFraisT1.setStatut(Transaction.StatutTransaction.EN_ATTENTE); // En attente
-        transactionFraisT1.setType(Transaction.TypeTransaction.FRAIS_T1);
-        transactionFraisT1.setDescription("Frais T1 pour le voyage " + voyage.getNumeroVoyage() +
-                " - Camion " + camion.getImmatriculation());
-        transactionFraisT1.setVoyage(savedVoyage);
-
-        // Sauvegarder les transactions
-        transactionFraisDouane = transactionRepository.save(transactionFraisDouane);
+        Transaction transactionFraisDouane = transactionRepository.save(construireTransactionFrais(
+                savedVoyage, Transaction.TypeTransaction.FRAIS_DOUANE, frais.fraisDouane(), "Frais de douane"));
 
         // Créer deux paiements en attente : un pour les frais de douane, un pour le T1
-        Paiement paiementDouane = new Paiement();
-        paiementDouane.setMontant(fraisDouane);
-        paiementDouane.setDate(LocalDate.now());
-        paiementDouane.setMethode(Paiement.MethodePaiement.VIREMENT);
-        paiementDouane.setStatut(Paiement.StatutPaiement.EN_ATTENTE);
-        paiementDouane.setReference("PAY-DOUANE-" + voyage.getNumeroVoyage());
-        paiementDouane.setNotes("Frais de douane pour le voyage " + voyage.getNumeroVoyage());
-        paiementDouane.getTransactions().add(transactionFraisDouane);
-        paiementDouane.setVoyage(savedVoyage);
-        assignCategorieToPaiementIfPresent(paiementDouane, CategorieDepense.NOM_DROIT_DOUANE);
-
+        Paiement paiementDouane = construirePaiementFrais(savedVoyage, transactionFraisDouane, "PAY-DOUANE-",
+                "Frais de douane", resolveCategorie(CategorieDepense.NOM_DROIT_DOUANE));
         paiementRepository.save(paiementDouane);
 
-        transactionFraisT1 = transactionRepository.save(transactionFraisT1);
-        Paiement paiementT1 = new Paiement();
-        paiementT1.setMontant(fraisT1);
-        paiementT1.setDate(LocalDate.now());
-        paiementT1.setMethode(Paiement.MethodePaiement.VIREMENT);
-        paiementT1.setStatut(Paiement.StatutPaiement.EN_ATTENTE);
-        paiementT1.setReference("PAY-T1-" + voyage.getNumeroVoyage());
-        paiementT1.setNotes("Frais T1 pour le voyage " + voyage.getNumeroVoyage());
-        paiementT1.getTransactions().add(transactionFraisT1);
-        paiementT1.setVoyage(savedVoyage);
-        assignCategorieToPaiementIfPresent(paiementT1, CategorieDepense.NOM_FRAIS_T1);
+        Transaction transactionFraisT1 = transactionRepository.save(construireTransactionFrais(
+                savedVoyage, Transaction.TypeTransaction.FRAIS_T1, frais.fraisT1(), "Frais T1"));
+        Paiement paiementT1 = construirePaiementFrais(savedVoyage, transactionFraisT1, "PAY-T1-",
+                "Frais T1", resolveCategorie(CategorieDepense.NOM_FRAIS_T1));
         paiementRepository.save(paiementT1);
 
-        // Cession : facture client = tarif convenu au litre × litres uniquement (Facturation), indépendant du tarif pays.
-        if (savedVoyage.isCession()) {
-            BigDecimal tarifConvenuClient = savedVoyage.getDroitDouaneParLitre();
-            if (tarifConvenuClient != null && tarifConvenuClient.compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal montantFactureClient = tarifConvenuClient.multiply(BigDecimal.valueOf(litresDouane));
-                if (montantFactureClient.compareTo(BigDecimal.ZERO) > 0) {
-                    Voyage forFacture = voyageRepository.findById(savedVoyage.getId()).orElse(savedVoyage);
-                    if (forFacture.getClientVoyages() != null) {
-                        forFacture.getClientVoyages().size();
-                    }
-                    Client clientFacture = null;
-                    if (forFacture.getClientVoyages() != null && !forFacture.getClientVoyages().isEmpty()) {
-                        clientFacture = forFacture.getClientVoyages().iterator().next().getClient();
-                    }
-                    if (clientFacture != null) {
-                        factureService.createFactureAutoCessionDroitDouaneIfAbsent(
-                                forFacture, clientFacture, montantFactureClient, tarifConvenuClient, litresDouane);
-                    }
-                }
-            }
-        }
+        creerFactureCessionSiApplicable(savedVoyage, frais.litresDouane());
 
         return voyageMapper.toDTO(savedVoyage);
     }
 
     @Override
     public List<VoyageDTO> declarerVoyagesMultiple(List<Long> voyageIds, Long compteId, Long caisseId) {
-        List<VoyageDTO> voyagesDeclares = new ArrayList<>();
+        if (voyageIds == null || voyageIds.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-        for (Long voyageId : voyageIds) {
+        // Chargement groupé : voyages (camion, axe, pays, produit), états et catégories de dépense
+        Map<Long, Voyage> voyagesParId = voyageRepository.findAllWithDetailsByIdIn(voyageIds).stream()
+                .collect(Collectors.toMap(Voyage::getId, Function.identity()));
+        Map<Long, List<EtatVoyage>> etatsParVoyage = etatVoyageRepository.findByVoyageIdIn(voyagesParId.keySet()).stream()
+                .collect(Collectors.groupingBy(e -> e.getVoyage().getId()));
+        CategorieDepense categorieDouane = resolveCategorie(CategorieDepense.NOM_DROIT_DOUANE);
+        CategorieDepense categorieT1 = resolveCategorie(CategorieDepense.NOM_FRAIS_T1);
+
+        List<Voyage> voyagesDeclares = new ArrayList<>();
+        Map<Long, FraisDeclaration> fraisParVoyage = new HashMap<>();
+        Set<Camion> camions = new LinkedHashSet<>();
+        List<EtatVoyage> etatsModifies = new ArrayList<>();
+
+        for (Long voyageId : new LinkedHashSet<>(voyageIds)) {
             try {
-                VoyageDTO voyageDeclare = declarerVoyage(voyageId, compteId, caisseId);
-                voyagesDeclares.add(voyageDeclare);
+                Voyage voyage = voyagesParId.get(voyageId);
+                if (voyage == null) {
+                    throw new RuntimeException("Voyage non trouvé avec l'id: " + voyageId);
+                }
+                FraisDeclaration frais = calculerFraisDeclaration(voyage);
+                String etatAValider = appliquerDeclaration(voyage);
+                if (voyage.getStatut() == Voyage.StatutVoyage.RECEPTIONNER) {
+                    // RÉCEPTIONNÉ : le camion reste en route, aucune lecture supplémentaire nécessaire
+                    appliquerStatutCamionDepuisVoyage(voyage.getCamion(), voyage.getStatut(), voyage);
+                    camions.add(voyage.getCamion());
+                }
+                List<EtatVoyage> etats = etatsParVoyage.computeIfAbsent(voyage.getId(), id -> new ArrayList<>());
+                etatsModifies.add(preparerValidationEtat(voyage, etatAValider, etats));
+                fraisParVoyage.put(voyage.getId(), frais);
+                voyagesDeclares.add(voyage);
             } catch (RuntimeException e) {
                 // Log l'erreur mais continue avec les autres voyages
                 System.err.println("Erreur lors de la déclaration du voyage " + voyageId + ": " + e.getMessage());
             }
         }
+        if (voyagesDeclares.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        voyageRepository.saveAll(voyagesDeclares);
+        camionRepository.saveAll(camions);
+        etatVoyageRepository.saveAll(etatsModifies);
 
-        return voyagesDeclares;
+        // Transactions puis paiements en attente (deux par voyage : douane et T1)
+        List<Transaction> transactions = new ArrayList<>();
+        for (Voyage voyage : voyagesDeclares) {
+            FraisDeclaration frais = fraisParVoyage.get(voyage.getId());
+            transactions.add(construireTransactionFrais(voyage, Transaction.TypeTransaction.FRAIS_DOUANE,
+                    frais.fraisDouane(), "Frais de douane"));
+            transactions.add(construireTransactionFrais(voyage, Transaction.TypeTransaction.FRAIS_T1,
+                    frais.fraisT1(), "Frais T1"));
+        }
+        transactions = transactionRepository.saveAll(transactions);
+        List<Paiement> paiements = new ArrayList<>();
+        for (int i = 0; i < voyagesDeclares.size(); i++) {
+            Voyage voyage = voyagesDeclares.get(i);
+            paiements.add(construirePaiementFrais(voyage, transactions.get(2 * i), "PAY-DOUANE-",
+                    "Frais de douane", categorieDouane));
+            paiements.add(construirePaiementFrais(voyage, transactions.get(2 * i + 1), "PAY-T1-",
+                    "Frais T1", categorieT1));
+        }
+        paiementRepository.saveAll(paiements);
+
+        for (Voyage voyage : voyagesDeclares) {
+            creerFactureCessionSiApplicable(voyage, fraisParVoyage.get(voyage.getId()).litresDouane());
+        }
+
+        // Une seule alerte pour le lot
+        Voyage premier = voyagesDeclares.get(0);
+        boolean voyageUnique = voyagesDeclares.size() == 1;
+        alerteService.creerAlerte(
+                Alerte.TypeAlerte.VOYAGE_DECLARE,
+                voyageUnique
+                        ? "Voyage déclaré à la douane : " + premier.getNumeroVoyage()
+                        : voyagesDeclares.size() + " voyages déclarés à la douane : " + numerosVoyages(voyagesDeclares),
+                Alerte.PrioriteAlerte.MOYENNE,
+                "Voyage", voyageUnique ? premier.getId() : null,
+                voyageUnique ? "/voyages/" + premier.getId() : "/voyages");
+
+        return voyagesDeclares.stream()
+                .map(voyageMapper::toDTO)
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -2967,25 +2931,32 @@ public class VoyageServiceImpl implements VoyageService {
         return voyageMapper.toDTO(savedVoyage);
     }
 
-    @Override
-    public VoyageDTO libererVoyage(Long voyageId) {
-        Voyage voyage = voyageRepository.findById(voyageId)
-                .orElseThrow(() -> new RuntimeException("Voyage non trouvé avec l'id: " + voyageId));
+    /**
+     * Marque la sortie douane du voyage (retrait du stock citerne pour une cession non encore déchargée).
+     *
+     * @return le statut dont l'état doit être validé ("RECEPTIONNER" ou "DECHARGER")
+     */
+    private String appliquerLiberation(Voyage voyage, LocalDateTime now) {
         if (!Boolean.TRUE.equals(voyage.getDeclarer()) && !"passer_non_declarer".equals(voyage.getPassager())) {
             throw new RuntimeException(
                     "Déclarez le voyage en douane (ou marquez « passé non déclaré ») avant la sortie douane — y compris pour les cessions.");
         }
         voyage.setLiberer(true);
-        LocalDateTime now = LocalDateTime.now();
         if (voyage.isCession()) {
             if (voyage.getStatut() != Voyage.StatutVoyage.DECHARGER) {
                 retirerDuStockCiterne(voyage, null, now);
             }
             voyage.setStatut(Voyage.StatutVoyage.DECHARGER);
-            validerEtat(voyage, "DECHARGER");
-        } else {
-            validerEtat(voyage, "RECEPTIONNER");
+            return "DECHARGER";
         }
+        return "RECEPTIONNER";
+    }
+
+    @Override
+    public VoyageDTO libererVoyage(Long voyageId) {
+        Voyage voyage = voyageRepository.findById(voyageId)
+                .orElseThrow(() -> new RuntimeException("Voyage non trouvé avec l'id: " + voyageId));
+        validerEtat(voyage, appliquerLiberation(voyage, LocalDateTime.now()));
         Camion camion = voyage.getCamion();
         if (camion != null) {
             updateCamionStatusFromVoyage(camion, voyage.getStatut(), voyage);
@@ -3004,15 +2975,67 @@ public class VoyageServiceImpl implements VoyageService {
         if (voyageIds == null || voyageIds.isEmpty()) {
             return Collections.emptyList();
         }
-        List<VoyageDTO> result = new ArrayList<>();
-        for (Long voyageId : voyageIds) {
+
+        // Chargement groupé des voyages (avec camion) et de leurs états
+        Map<Long, Voyage> voyagesParId = voyageRepository.findAllWithDetailsByIdIn(voyageIds).stream()
+                .collect(Collectors.toMap(Voyage::getId, Function.identity()));
+        Map<Long, List<EtatVoyage>> etatsParVoyage = etatVoyageRepository.findByVoyageIdIn(voyagesParId.keySet()).stream()
+                .collect(Collectors.groupingBy(e -> e.getVoyage().getId()));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Voyage> voyagesLiberes = new ArrayList<>();
+        List<EtatVoyage> etatsModifies = new ArrayList<>();
+        for (Long voyageId : new LinkedHashSet<>(voyageIds)) {
             try {
-                result.add(libererVoyage(voyageId));
+                Voyage voyage = voyagesParId.get(voyageId);
+                if (voyage == null) {
+                    throw new RuntimeException("Voyage non trouvé avec l'id: " + voyageId);
+                }
+                String etatAValider = appliquerLiberation(voyage, now);
+                List<EtatVoyage> etats = etatsParVoyage.computeIfAbsent(voyage.getId(), id -> new ArrayList<>());
+                etatsModifies.add(preparerValidationEtat(voyage, etatAValider, etats));
+                voyagesLiberes.add(voyage);
             } catch (RuntimeException e) {
                 System.err.println("Erreur lors de la libération du voyage " + voyageId + ": " + e.getMessage());
             }
         }
-        return result;
+        if (voyagesLiberes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // États enregistrés avant le statut camion : la disponibilité après DECHARGER dépend de l'état validé
+        etatVoyageRepository.saveAll(etatsModifies);
+        Set<Camion> camions = new LinkedHashSet<>();
+        for (Voyage voyage : voyagesLiberes) {
+            if (voyage.getCamion() != null) {
+                appliquerStatutCamionDepuisVoyage(voyage.getCamion(), voyage.getStatut(), voyage);
+                camions.add(voyage.getCamion());
+            }
+        }
+        camionRepository.saveAll(camions);
+        voyageRepository.saveAll(voyagesLiberes);
+
+        // Une seule alerte pour le lot
+        Voyage premier = voyagesLiberes.get(0);
+        boolean voyageUnique = voyagesLiberes.size() == 1;
+        alerteService.creerAlerte(
+                Alerte.TypeAlerte.VOYAGE_LIBERE,
+                voyageUnique
+                        ? "Camion sortie de la douane : " + premier.getNumeroVoyage()
+                        : voyagesLiberes.size() + " camions sortis de la douane : " + numerosVoyages(voyagesLiberes),
+                Alerte.PrioriteAlerte.BASSE,
+                "Voyage", voyageUnique ? premier.getId() : null,
+                voyageUnique ? "/voyages/" + premier.getId() : "/voyages");
+
+        return voyagesLiberes.stream()
+                .map(voyageMapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    private String numerosVoyages(List<Voyage> voyages) {
+        return voyages.stream()
+                .map(Voyage::getNumeroVoyage)
+                .collect(Collectors.joining(", "));
     }
 
     @Override
@@ -3450,6 +3473,48 @@ public class VoyageServiceImpl implements VoyageService {
                 voyagePage.getSize());
     }
 
+    @Override
+    public VoyageListItemPageDto findVoyagesEnCoursListe(int page, int size) {
+        return toListItemPage(voyageRepository.findVoyagesEnCoursListItems(PageRequest.of(page, size)));
+    }
+
+    @Override
+    public VoyageListItemPageDto findArchivedVoyagesListe(int page, int size) {
+        return toListItemPage(voyageRepository.findArchivedVoyagesListItems(PageRequest.of(page, size)));
+    }
+
+    @Override
+    public CurseurPageDTO<VoyageListItemDTO> findArchivedVoyagesParCurseur(String curseur, int size) {
+        Curseur position = Curseur.decoder(curseur);
+        int taille = Math.max(size, 1);
+        // Une ligne de plus que demandé pour savoir s'il existe une suite
+        Pageable limite = PageRequest.of(0, taille + 1);
+        List<VoyageListItemDTO> lignes = position == null
+                ? voyageRepository.findArchivedVoyagesListItemsPremiers(DATE_CURSEUR_PAR_DEFAUT, limite)
+                : voyageRepository.findArchivedVoyagesListItemsApres(position.date(), position.id(),
+                        DATE_CURSEUR_PAR_DEFAUT, limite);
+        return CurseurPageDTO.depuis(lignes, taille,
+                v -> new Curseur(dateCurseurArchive(v), v.getId()),
+                Function.identity());
+    }
+
+    /** Même clé que {@link VoyageRepository#DATE_CURSEUR_ARCHIVE} : le jeton n'a jamais de date nulle. */
+    private static LocalDateTime dateCurseurArchive(VoyageListItemDTO voyage) {
+        if (voyage.getDateCreation() != null) {
+            return voyage.getDateCreation();
+        }
+        return voyage.getDateDepart() != null ? voyage.getDateDepart() : DATE_CURSEUR_PAR_DEFAUT;
+    }
+
+    private VoyageListItemPageDto toListItemPage(Page<VoyageListItemDTO> voyagePage) {
+        return new VoyageListItemPageDto(
+                voyagePage.getContent(),
+                voyagePage.getNumber(),
+                voyagePage.getTotalPages(),
+                voyagePage.getTotalElements(),
+                voyagePage.getSize());
+    }
+
     @Override
     public List<VoyageDTO> findVoyagesEnCoursAvecClients() {
         List<Voyage> voyages = voyageRepository.findVoyagesEnCoursAvecClients();
@@ -3503,14 +3568,18 @@ public class VoyageServiceImpl implements VoyageService {
 
     /** DRY : associe une catégorie de dépense au paiement si elle existe (transport, T1, douane). */
     private void assignCategorieToPaiementIfPresent(Paiement paiement, String nomCategorie) {
-        CategorieDepense cat = categorieDepenseRepository
-                .findById(categorieDepenseService.getOrCreateByName(nomCategorie).getId())
-                .orElse(null);
+        CategorieDepense cat = resolveCategorie(nomCategorie);
         if (cat != null) {
             paiement.setCategorieDepense(cat);
         }
     }
 
+    private CategorieDepense resolveCategorie(String nomCategorie) {
+        return categorieDepenseRepository
+                .findById(categorieDepenseService.getOrCreateByName(nomCategorie).getId())
+                .orElse(null);
+    }
+
     /**
      * Synchronise le statut des voyages déjà déclarés avec état "Décharger" validé :
      * met statut = DECHARGER pour que les listes Archives/En cours soient cohérentes (une seule source de vérité).
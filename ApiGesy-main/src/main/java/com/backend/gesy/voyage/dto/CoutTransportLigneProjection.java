@@ -0,0 +1,34 @@
+package com.backend.gesy.voyage.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Ligne de coût de transport calculée en base : colonnes du voyage, montant des manquants
+ * et paiements "coût transport" validés.
+ */
+public interface CoutTransportLigneProjection {
+    Long getId();
+
+    String getNumeroVoyage();
+
+    String getCamionImmatriculation();
+
+    LocalDateTime getDateDepart();
+
+    String getDestination();
+
+    Double getQuantite();
+
+    BigDecimal getPrixUnitaire();
+
+    /** Somme des manquant × prixAchat des clients du voyage */
+    BigDecimal getMontantManquant();
+
+    /** Nombre de paiements coût transport (PAY-COU-VOY-xxx) validés */
+    Long getPaiementsValides();
+
+    /** Date du dernier paiement coût transport validé */
+    LocalDate getDatePaiement();
+}
@@ -11,6 +11,11 @@ import java.util.List;
 @AllArgsConstructor
 public class CoutTransportResponseDTO {
     private List<CoutTransportDTO> couts;
+    /** Totaux sur l'ensemble des voyages filtrés (toutes pages confondues) */
     private CoutTransportStatsDTO stats;
+    private int currentPage;
+    private int totalPages;
+    private long totalElements;
+    private int size;
 }
 
@@ -0,0 +1,16 @@
+package com.backend.gesy.voyage.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Totaux des coûts de transport d'un fournisseur, calculés en base sur tout le périmètre filtré.
+ */
+public interface CoutTransportTotauxProjection {
+    BigDecimal getTotalCout();
+
+    BigDecimal getTotalPaye();
+
+    BigDecimal getTotalNonPaye();
+
+    Long getNombreVoyages();
+}
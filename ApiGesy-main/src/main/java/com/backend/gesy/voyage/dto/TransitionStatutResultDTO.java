@@ -0,0 +1,18 @@
+package com.backend.gesy.voyage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Résultat, pour un voyage, d'un changement de statut par lot. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransitionStatutResultDTO {
+    private Long voyageId;
+    private String numeroVoyage;
+    private String ancienStatut;
+    private String nouveauStatut;
+    private Boolean succes;
+    private String message;
+}
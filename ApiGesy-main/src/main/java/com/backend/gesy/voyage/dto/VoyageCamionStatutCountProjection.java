@@ -0,0 +1,12 @@
+package com.backend.gesy.voyage.dto;
+
+import com.backend.gesy.voyage.Voyage;
+
+/** Projection d'agrégat : nombre de voyages par camion et par statut. */
+public interface VoyageCamionStatutCountProjection {
+    Long getCamionId();
+
+    Voyage.StatutVoyage getStatut();
+
+    Long getTotal();
+}
@@ -0,0 +1,49 @@
+package com.backend.gesy.voyage.dto;
+
+import com.backend.gesy.produit.Produit;
+import com.backend.gesy.voyage.Voyage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ligne de liste de voyages : uniquement les colonnes affichées dans les tableaux, lues en une
+ * requête de projection (sans transactions, états, clients ni factures).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoyageListItemDTO {
+    private Long id;
+    private String numeroVoyage;
+    private String statut;
+    private LocalDateTime dateCreation;
+    private LocalDateTime dateDepart;
+    private LocalDateTime dateArrivee;
+    private Long camionId;
+    private String camionImmatriculation;
+    private String transitaireNom;
+    private String axeNom;
+    private String produitNom;
+    private String typeProduit;
+    private String depotNom;
+    private Double quantite;
+    private String numeroBonEnlevement;
+    private boolean cession;
+    private Boolean declarer;
+    private Boolean liberer;
+
+    /** Constructeur utilisé par les requêtes JPQL {@code SELECT new ...}. */
+    public VoyageListItemDTO(Long id, String numeroVoyage, Voyage.StatutVoyage statut,
+                             LocalDateTime dateCreation, LocalDateTime dateDepart, LocalDateTime dateArrivee,
+                             Long camionId, String camionImmatriculation, String transitaireNom, String axeNom,
+                             String produitNom, Produit.TypeProduit typeProduit, String depotNom, Double quantite,
+                             String numeroBonEnlevement, boolean cession, Boolean declarer, Boolean liberer) {
+        this(id, numeroVoyage, statut != null ? statut.name() : null, dateCreation, dateDepart, dateArrivee,
+                camionId, camionImmatriculation, transitaireNom, axeNom, produitNom,
+                typeProduit != null ? typeProduit.name() : null, depotNom, quantite, numeroBonEnlevement,
+                cession, declarer != null ? declarer : false, liberer != null ? liberer : false);
+    }
+}
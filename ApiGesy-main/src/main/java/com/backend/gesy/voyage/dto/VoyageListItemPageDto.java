@@ -0,0 +1,18 @@
+package com.backend.gesy.voyage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoyageListItemPageDto {
+    private List<VoyageListItemDTO> voyages;
+    private int currentPage;
+    private int totalPages;
+    private long totalElements;
+    private int size;
+}
@@ -0,0 +1,20 @@
+package com.backend.gesy.voyage.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Colonnes d'un voyage nécessaires au calcul de marge (sans charger transactions ni factures).
+ */
+public interface VoyageMargeBaseProjection {
+    Long getVoyageId();
+
+    String getNumeroVoyage();
+
+    Double getQuantite();
+
+    BigDecimal getPrixUnitaire();
+
+    Boolean getCession();
+
+    Long getProduitId();
+}
@@ -0,0 +1,14 @@
+package com.backend.gesy.voyage.dto;
+
+import com.backend.gesy.produit.Produit;
+
+/** Projection d'agrégat : litres transportés (voyages non livrés, hors cession) par produit. */
+public interface VoyageQuantiteParProduitProjection {
+    Long getProduitId();
+
+    String getProduitNom();
+
+    Produit.TypeProduit getTypeProduit();
+
+    Double getQuantite();
+}
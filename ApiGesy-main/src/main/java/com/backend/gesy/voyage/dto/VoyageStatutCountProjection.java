@@ -0,0 +1,10 @@
+package com.backend.gesy.voyage.dto;
+
+import com.backend.gesy.voyage.Voyage;
+
+/** Projection d'agrégat : nombre de voyages par statut (une ligne par statut présent en base). */
+public interface VoyageStatutCountProjection {
+    Voyage.StatutVoyage getStatut();
+
+    Long getTotal();
+}
@@ -0,0 +1,147 @@
+package com.backend.gesy.analyse;
+
+import com.backend.gesy.camion.Camion;
+import com.backend.gesy.camion.CamionRepository;
+import com.backend.gesy.client.Client;
+import com.backend.gesy.client.ClientRepository;
+import com.backend.gesy.facture.Facture;
+import com.backend.gesy.facture.FactureRepository;
+import com.backend.gesy.produit.Produit;
+import com.backend.gesy.produit.ProduitRepository;
+import com.backend.gesy.voyage.Voyage;
+import com.backend.gesy.voyage.VoyageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Agrégats par période d'analyse : une requête groupée par période et par entité, périodes qui se
+ * chevauchent comptées chacune entièrement, période sans donnée remplie à zéro.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class AnalysePeriodeEngineTest {
+
+    @Autowired
+    private AnalysePeriodeEngine analysePeriodeEngine;
+    @Autowired
+    private FactureRepository factureRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private VoyageRepository voyageRepository;
+    @Autowired
+    private CamionRepository camionRepository;
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Test
+    void chaquePeriodeEstAgregeeSurSesPropresDates() {
+        Client clientA = creerClient();
+        Client clientB = creerClient();
+        creerFacture(clientA, "100", LocalDate.of(1999, 3, 10), Facture.StatutFacture.PAYEE, LocalDate.of(1999, 3, 20));
+        creerFacture(clientA, "50", LocalDate.of(1999, 3, 25), Facture.StatutFacture.PARTIELLEMENT_PAYEE, null);
+        creerFacture(clientB, "30", LocalDate.of(1999, 3, 12), Facture.StatutFacture.PAYEE, null);
+        creerFacture(clientB, "999", LocalDate.of(1999, 3, 11), Facture.StatutFacture.EMISE, null);
+        creerFacture(clientB, "1000", LocalDate.of(1999, 2, 28), Facture.StatutFacture.PAYEE, null);
+
+        Camion camion1 = creerCamion();
+        Camion camion2 = creerCamion();
+        Produit produit = creerProduit();
+        creerVoyage(camion1, produit, Voyage.StatutVoyage.DECHARGER, LocalDate.of(1999, 3, 9), LocalDate.of(1999, 3, 12), false);
+        creerVoyage(camion1, produit, Voyage.StatutVoyage.CHARGE, LocalDate.of(1999, 3, 20), null, false);
+        creerVoyage(camion2, produit, Voyage.StatutVoyage.DECHARGER, LocalDate.of(1999, 3, 31), null, false);
+        creerVoyage(creerCamion(), produit, Voyage.StatutVoyage.DECHARGER, LocalDate.of(1999, 3, 10), null, true);
+
+        List<AgregatPeriode> agregats = analysePeriodeEngine.agreger(List.of(
+                new PeriodeAnalyse("mois", LocalDate.of(1999, 3, 1), LocalDate.of(1999, 3, 31)),
+                new PeriodeAnalyse("semaine", LocalDate.of(1999, 3, 8), LocalDate.of(1999, 3, 14)),
+                new PeriodeAnalyse("vide", LocalDate.of(1999, 6, 1), LocalDate.of(1999, 6, 30))));
+
+        AgregatPeriode mois = agregats.get(0);
+        assertThat(mois.getPeriode().libelle()).isEqualTo("mois");
+        assertThat(mois.getVentes()).isEqualByComparingTo("180");
+        assertThat(mois.getNombreFactures()).isEqualTo(3);
+        assertThat(mois.getFacturesPayeesATemps()).isEqualTo(1);
+        assertThat(mois.getNombreClients()).isEqualTo(2);
+        assertThat(mois.getVoyages()).isEqualTo(3);
+        assertThat(mois.getVoyagesDecharges()).isEqualTo(2);
+        assertThat(mois.getNombreCamions()).isEqualTo(2);
+        assertThat(mois.getTempsMoyenLivraison()).isEqualTo(3);
+
+        AgregatPeriode semaine = agregats.get(1);
+        assertThat(semaine.getVentes()).isEqualByComparingTo("130");
+        assertThat(semaine.getNombreFactures()).isEqualTo(2);
+        assertThat(semaine.getNombreClients()).isEqualTo(2);
+        assertThat(semaine.getVoyages()).isEqualTo(1);
+        assertThat(semaine.getNombreCamions()).isEqualTo(1);
+
+        AgregatPeriode vide = agregats.get(2);
+        assertThat(vide.getPeriode().libelle()).isEqualTo("vide");
+        assertThat(vide.getVentes()).isEqualByComparingTo("0");
+        assertThat(vide.getNombreFactures()).isZero();
+        assertThat(vide.getNombreClients()).isZero();
+        assertThat(vide.getVoyages()).isZero();
+        assertThat(vide.getTempsMoyenLivraison()).isZero();
+    }
+
+    private void creerFacture(Client client, String montant, LocalDate date, Facture.StatutFacture statut, LocalDate echeance) {
+        Facture facture = new Facture();
+        facture.setNumero("INV-TEST-" + System.nanoTime());
+        facture.setDate(date);
+        facture.setMontant(new BigDecimal(montant));
+        facture.setClient(client);
+        facture.setStatut(statut);
+        facture.setDateEcheance(echeance);
+        factureRepository.save(facture);
+    }
+
+    private void creerVoyage(Camion camion, Produit produit, Voyage.StatutVoyage statut, LocalDate depart,
+                             LocalDate arrivee, boolean cession) {
+        Voyage voyage = new Voyage();
+        voyage.setNumeroVoyage("VOY-TEST-" + System.nanoTime());
+        voyage.setCamion(camion);
+        voyage.setProduit(produit);
+        voyage.setStatut(statut);
+        voyage.setQuantite(45000.0);
+        voyage.setDateDepart(depart.atTime(8, 0));
+        voyage.setDateArrivee(arrivee != null ? arrivee.atTime(17, 0) : null);
+        voyage.setCession(cession);
+        voyageRepository.save(voyage);
+    }
+
+    private Camion creerCamion() {
+        Camion camion = new Camion();
+        camion.setImmatriculation("TEST-" + System.nanoTime());
+        camion.setType("Citerne");
+        camion.setCapacite(45000.0);
+        camion.setStatut(Camion.StatutCamion.DISPONIBLE);
+        return camionRepository.save(camion);
+    }
+
+    private Produit creerProduit() {
+        Produit produit = new Produit();
+        produit.setNom("Produit test " + System.nanoTime());
+        produit.setTypeProduit(Produit.TypeProduit.ESSENCE);
+        return produitRepository.save(produit);
+    }
+
+    private Client creerClient() {
+        Client client = new Client();
+        client.setNom("Client test");
+        client.setEmail("client" + System.nanoTime() + "@test.local");
+        client.setTelephone("0000000000");
+        client.setAdresse("Bamako");
+        client.setType(Client.TypeClient.ENTREPRISE);
+        return clientRepository.save(client);
+    }
+}
@@ -0,0 +1,94 @@
+package com.backend.gesy.dashboard;
+
+import com.backend.gesy.dashboard.dto.DashboardDTO;
+import com.backend.gesy.depot.Depot;
+import com.backend.gesy.depot.DepotRepository;
+import com.backend.gesy.produit.Produit;
+import com.backend.gesy.produit.ProduitRepository;
+import com.backend.gesy.stock.Stock;
+import com.backend.gesy.stock.StockRepository;
+import com.backend.gesy.stock.StockService;
+import com.backend.gesy.stock.dto.StockDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tableau de bord matérialisé : servi tel quel tant que rien ne change, puis seules les cartes touchées par
+ * une modification validée sont recalculées à la lecture suivante.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DashboardSnapshotTest {
+
+    @Autowired
+    private DashboardService dashboardService;
+    @Autowired
+    private DashboardSnapshot dashboardSnapshot;
+    @Autowired
+    private StockService stockService;
+    @Autowired
+    private StockRepository stockRepository;
+    @Autowired
+    private DepotRepository depotRepository;
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Test
+    void uneModificationDeStockInvalideEtRecalculeLaCarteStock() {
+        Produit produit = creerProduit();
+        Long stockId = creerStock(produit, 1000.0);
+        // Le stock a été créé sans événement : tout est invalidé pour partir d'un état connu
+        dashboardSnapshot.invaliderTout();
+
+        DashboardDTO avant = dashboardService.getDashboardStats();
+        assertThat(quantiteProduit(avant, produit)).isEqualTo(1000.0);
+        assertThat(dashboardService.getDashboardStats()).isSameAs(avant);
+
+        StockDTO modification = stockService.findById(stockId).orElseThrow();
+        modification.setQuantite(2500.0);
+        stockService.update(stockId, modification);
+
+        DashboardDTO apres = dashboardService.getDashboardStats();
+        assertThat(apres).isNotSameAs(avant);
+        assertThat(quantiteProduit(apres, produit)).isEqualTo(2500.0);
+        // Les cartes non concernées par un changement de stock sont reprises du tableau précédent
+        assertThat(apres.getCamionsActifs()).isSameAs(avant.getCamionsActifs());
+        assertThat(apres.getVoyagesStats()).isSameAs(avant.getVoyagesStats());
+        assertThat(dashboardService.getDashboardStats()).isSameAs(apres);
+    }
+
+    private Double quantiteProduit(DashboardDTO dashboard, Produit produit) {
+        return dashboard.getUnitesStock().getStocksParProduit().stream()
+                .filter(ligne -> produit.getId().equals(ligne.getProduitId()))
+                .findFirst().orElseThrow()
+                .getQuantiteTotaleValue();
+    }
+
+    private Produit creerProduit() {
+        Produit produit = new Produit();
+        produit.setNom("Produit test " + System.nanoTime());
+        produit.setTypeProduit(Produit.TypeProduit.GAZOLE);
+        return produitRepository.save(produit);
+    }
+
+    private Long creerStock(Produit produit, double quantite) {
+        Depot depot = new Depot();
+        depot.setNom("Dépôt test " + System.nanoTime());
+        depot.setAdresse("Zone industrielle");
+        depot.setCapacite(10000.0);
+        depot.setCapaciteUtilisee(quantite);
+        depot.setStatut(Depot.StatutDepot.ACTIF);
+        depotRepository.save(depot);
+
+        Stock stock = new Stock();
+        stock.setProduit(produit);
+        stock.setDepot(depot);
+        stock.setQuantite(quantite);
+        stock.setUnite("L");
+        return stockRepository.save(stock).getId();
+    }
+}
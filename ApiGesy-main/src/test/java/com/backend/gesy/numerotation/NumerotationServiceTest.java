@@ -0,0 +1,52 @@
+package com.backend.gesy.numerotation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recalage des compteurs de numérotation : création du compteur absent dans sa propre transaction,
+ * puis remontée au plus haut numéro existant sans jamais le faire redescendre.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class NumerotationServiceTest {
+
+    @Autowired
+    private NumerotationService numerotationService;
+    @Autowired
+    private CompteurNumeroRepository compteurNumeroRepository;
+
+    @Test
+    void leRecalageCreeLeCompteurPuisLeRemonte() {
+        String cle = "TEST-" + System.nanoTime();
+
+        numerotationService.recaler(cle, () -> 41);
+        assertThat(valeur(cle)).isEqualTo(41);
+        assertThat(numerotationService.prochainNumero(cle, "", 5, () -> 0, numero -> false)).isEqualTo("00042");
+
+        numerotationService.recaler(cle, () -> 100);
+        assertThat(numerotationService.prochain(cle, () -> 0)).isEqualTo(101);
+
+        numerotationService.recaler(cle, () -> 7);
+        assertThat(valeur(cle)).isGreaterThan(100);
+    }
+
+    @Test
+    void lesNumerosDejaPrisSontEcartes() {
+        String cle = "TEST-" + System.nanoTime();
+
+        String numero = numerotationService.prochainNumero(cle, "B-", 3, () -> 0, "B-001"::equals);
+
+        assertThat(numero).isEqualTo("B-002");
+    }
+
+    private long valeur(String cle) {
+        return compteurNumeroRepository.findAll().stream()
+                .filter(compteur -> compteur.getCle().equals(cle))
+                .findFirst().orElseThrow().getValeur();
+    }
+}
@@ -0,0 +1,89 @@
+package com.backend.gesy.pays;
+
+import com.backend.gesy.axe.AxeService;
+import com.backend.gesy.axe.dto.AxeDTO;
+import com.backend.gesy.pays.dto.PaysDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache des tarifs douaniers : rechargé après chaque modification validée, y compris quand la lecture
+ * suivante a lieu dans une transaction ouverte avant la modification (REPEATABLE READ, comme sous MySQL).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.hikari.transaction-isolation=TRANSACTION_REPEATABLE_READ",
+        "test.h2.base=tarifs"})
+class TarifPaysCacheTest {
+
+    @Autowired
+    private TarifPaysCache tarifPaysCache;
+    @Autowired
+    private PaysService paysService;
+    @Autowired
+    private PaysRepository paysRepository;
+    @Autowired
+    private AxeService axeService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void leTarifModifieEstServiAvecSonHistorique() {
+        PaysDTO pays = creerPays("100");
+        Long axeId = creerAxe(pays.getId());
+        assertThat(tarifPaysCache.tarifAxe(axeId).fraisParLitre()).isEqualByComparingTo("100");
+        LocalDateTime avantModification = LocalDateTime.now();
+
+        modifierFrais(pays.getId(), "150");
+
+        assertThat(tarifPaysCache.tarifAxe(axeId).fraisParLitre()).isEqualByComparingTo("150");
+        assertThat(tarifPaysCache.tarifAxeAu(axeId, avantModification).fraisParLitre()).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void leRechargementNeVoitPasLInstantaneDeLAppelant() {
+        PaysDTO pays = creerPays("100");
+        Long axeId = creerAxe(pays.getId());
+
+        BigDecimal servi = new TransactionTemplate(transactionManager).execute(statut -> {
+            // L'instantané de la transaction appelante est fixé avant la modification
+            paysRepository.findById(pays.getId()).orElseThrow();
+            CompletableFuture.runAsync(() -> modifierFrais(pays.getId(), "200")).join();
+            return tarifPaysCache.tarifAxe(axeId).fraisParLitre();
+        });
+
+        assertThat(servi).isEqualByComparingTo("200");
+    }
+
+    private PaysDTO creerPays(String fraisParLitre) {
+        PaysDTO dto = new PaysDTO();
+        dto.setNom("Pays test " + System.nanoTime());
+        dto.setFraisParLitre(new BigDecimal(fraisParLitre));
+        return paysService.save(dto);
+    }
+
+    private Long creerAxe(Long paysId) {
+        AxeDTO dto = new AxeDTO();
+        dto.setNom("Axe test " + System.nanoTime());
+        dto.setPaysId(paysId);
+        return axeService.save(dto).getId();
+    }
+
+    private void modifierFrais(Long paysId, String fraisParLitre) {
+        PaysDTO dto = new PaysDTO();
+        dto.setFraisParLitre(new BigDecimal(fraisParLitre));
+        paysService.update(paysId, dto);
+    }
+}
@@ -0,0 +1,138 @@
+package com.backend.gesy.solde;
+
+import com.backend.gesy.caisse.Caisse;
+import com.backend.gesy.caisse.CaisseRepository;
+import com.backend.gesy.solde.dto.EcartSoldeDTO;
+import com.backend.gesy.transaction.Transaction;
+import com.backend.gesy.transaction.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Points de contrôle des soldes : l'écart reste visible (cohérence avant correction) et la correction
+ * appliquée par le recalcul est enregistrée à part. Un mouvement en cours pendant le recalcul n'est
+ * jamais compté deux fois.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SoldeReconciliationServiceTest {
+
+    @Autowired
+    private SoldeReconciliationService soldeReconciliationService;
+    @Autowired
+    private SoldeCheckpointRepository soldeCheckpointRepository;
+    @Autowired
+    private CaisseRepository caisseRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private SoldeUpdater soldeUpdater;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void leCheckpointGardeLEcartEtLaCorrectionAppliquee() throws Exception {
+        Caisse caisse = creerCaisse("500");
+        creerTransaction(caisse, Transaction.TypeTransaction.DEPOT, "450");
+        creerTransaction(caisse, Transaction.TypeTransaction.RETRAIT, "150");
+
+        soldeReconciliationService.enregistrerCheckpoints();
+        SoldeCheckpoint controle = dernierCheckpoint(caisse);
+        assertThat(controle.isCoherent()).isFalse();
+        assertThat(controle.getCorrection()).isNull();
+        assertThat(controle.getSoldeEnregistre()).isEqualByComparingTo("500");
+        assertThat(controle.getSoldeCalcule()).isEqualByComparingTo("300");
+        assertThat(solde(caisse)).isEqualByComparingTo("500");
+
+        List<EcartSoldeDTO> ecarts = soldeReconciliationService.recalculerEnArrierePlan().get(30, TimeUnit.SECONDS);
+        assertThat(ecarts).filteredOn(e -> caisse.getId().equals(e.getCompteId()))
+                .singleElement().satisfies(e -> assertThat(e.getEcart()).isEqualByComparingTo("-200"));
+        SoldeCheckpoint recalcul = dernierCheckpoint(caisse);
+        assertThat(recalcul.isCoherent()).isFalse();
+        assertThat(recalcul.getCorrection()).isEqualByComparingTo("-200");
+        assertThat(solde(caisse)).isEqualByComparingTo("300");
+
+        soldeReconciliationService.enregistrerCheckpoints();
+        SoldeCheckpoint apres = dernierCheckpoint(caisse);
+        assertThat(apres.isCoherent()).isTrue();
+        assertThat(apres.getCorrection()).isNull();
+    }
+
+    @Test
+    void unDebitEnCoursPendantLeRecalculNEstPasCompteDeuxFois() throws Exception {
+        Caisse caisse = creerCaisse("300");
+        creerTransaction(caisse, Transaction.TypeTransaction.DEPOT, "300");
+        CountDownLatch debitEcrit = new CountDownLatch(1);
+        CountDownLatch valider = new CountDownLatch(1);
+
+        // Retrait écrit (solde débité, transaction enregistrée) mais pas encore validé
+        CompletableFuture<Void> retrait = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(statut -> {
+                    soldeUpdater.debiter(caisseRepository.findById(caisse.getId()).orElseThrow(),
+                            new BigDecimal("100"), "Solde insuffisant dans la caisse");
+                    creerTransaction(caisse, Transaction.TypeTransaction.RETRAIT, "100");
+                    debitEcrit.countDown();
+                    attendre(valider);
+                }));
+        assertThat(debitEcrit.await(30, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<List<EcartSoldeDTO>> recalcul =
+                CompletableFuture.supplyAsync(() -> soldeReconciliationService.recalculer());
+        Thread.sleep(500);
+        // Le recalcul attend le verrou de la caisse plutôt que de lire un solde et une somme décalés
+        assertThat(recalcul).isNotDone();
+
+        valider.countDown();
+        retrait.get(30, TimeUnit.SECONDS);
+        assertThat(recalcul.get(30, TimeUnit.SECONDS)).noneMatch(e -> caisse.getId().equals(e.getCompteId()));
+        assertThat(solde(caisse)).isEqualByComparingTo("200");
+    }
+
+    private static void attendre(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private SoldeCheckpoint dernierCheckpoint(Caisse caisse) {
+        return soldeCheckpointRepository
+                .findByNatureAndCompteIdOrderByIdDesc(SoldeCheckpoint.Nature.CAISSE, caisse.getId()).get(0);
+    }
+
+    private BigDecimal solde(Caisse caisse) {
+        return caisseRepository.findById(caisse.getId()).orElseThrow().getSolde();
+    }
+
+    private Caisse creerCaisse(String solde) {
+        Caisse caisse = new Caisse();
+        caisse.setNom("Caisse test " + System.nanoTime());
+        caisse.setSolde(new BigDecimal(solde));
+        caisse.setStatut(Caisse.StatutCaisse.ACTIF);
+        return caisseRepository.save(caisse);
+    }
+
+    private void creerTransaction(Caisse caisse, Transaction.TypeTransaction type, String montant) {
+        Transaction transaction = new Transaction();
+        transaction.setCaisse(caisse);
+        transaction.setType(type);
+        transaction.setMontant(new BigDecimal(montant));
+        transaction.setDate(LocalDateTime.now());
+        transaction.setStatut(Transaction.StatutTransaction.VALIDE);
+        transactionRepository.save(transaction);
+    }
+}
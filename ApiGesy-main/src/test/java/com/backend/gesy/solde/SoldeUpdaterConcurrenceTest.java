@@ -0,0 +1,194 @@
+package com.backend.gesy.solde;
+
+import com.backend.gesy.caisse.Caisse;
+import com.backend.gesy.caisse.CaisseRepository;
+import com.backend.gesy.comptebancaire.CompteBancaire;
+import com.backend.gesy.comptebancaire.CompteBancaireRepository;
+import com.backend.gesy.transaction.Transaction;
+import com.backend.gesy.transaction.TransactionRepository;
+import com.backend.gesy.transaction.TransactionService;
+import com.backend.gesy.transaction.dto.VirementRequestDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Virements, dépôts et retraits concurrents passés par {@link TransactionService#createTransactionLiee},
+ * débits et crédits mêlés sur un même compte, chacun dans sa propre transaction validée : le solde ne doit
+ * jamais devenir négatif ni perdre une mise à jour.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SoldeUpdaterConcurrenceTest {
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private CompteBancaireRepository compteBancaireRepository;
+    @Autowired
+    private CaisseRepository caisseRepository;
+
+    private final List<Long> comptesCrees = new ArrayList<>();
+    private final List<Long> caissesCreees = new ArrayList<>();
+
+    @AfterEach
+    void nettoyer() {
+        List<Transaction> transactions = transactionRepository.findAll().stream()
+                .filter(t -> (t.getCompte() != null && comptesCrees.contains(t.getCompte().getId()))
+                        || (t.getCaisse() != null && caissesCreees.contains(t.getCaisse().getId())))
+                .toList();
+        transactions.forEach(t -> t.setTransactionLiee(null));
+        transactionRepository.saveAllAndFlush(transactions);
+        transactionRepository.deleteAll(transactions);
+        compteBancaireRepository.deleteAllById(comptesCrees);
+        caisseRepository.deleteAllById(caissesCreees);
+    }
+
+    @Test
+    void deuxVirementsParallelesNeDepassentPasLeSolde() throws Exception {
+        Long source = creerCompte("100");
+        Long destination = creerCompte("0");
+
+        List<Boolean> resultats = executerEnParallele(List.of(
+                () -> virement(source, destination, "60"),
+                () -> virement(source, destination, "60")));
+
+        assertThat(resultats).containsExactlyInAnyOrder(true, false);
+        assertThat(soldeCompte(source)).isEqualByComparingTo("40");
+        assertThat(soldeCompte(destination)).isEqualByComparingTo("60");
+    }
+
+    @Test
+    void debitsEtCreditsMelesSurUnMemeCompteNePerdentAucuneMiseAJour() throws Exception {
+        Long compteA = creerCompte("1000");
+        Long compteB = creerCompte("1000");
+        Long caisse = creerCaisse("1000");
+
+        // A : 10 débits de 30 et 5 retraits de 40 ; 10 crédits de 20 et 5 dépôts de 10, lancés ensemble
+        List<Callable<Boolean>> operations = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            operations.add(() -> virement(compteA, compteB, "30"));
+            operations.add(() -> virement(compteB, compteA, "20"));
+        }
+        for (int i = 0; i < 5; i++) {
+            operations.add(() -> retrait(compteA, caisse, "40"));
+            operations.add(() -> depot(caisse, compteA, "10"));
+        }
+        Collections.shuffle(operations);
+
+        List<Boolean> resultats = executerEnParallele(operations);
+
+        assertThat(resultats).containsOnly(true);
+        assertThat(soldeCompte(compteA)).isEqualByComparingTo("750");
+        assertThat(soldeCompte(compteB)).isEqualByComparingTo("1100");
+        assertThat(soldeCaisse(caisse)).isEqualByComparingTo("1150");
+    }
+
+    private boolean virement(Long source, Long destination, String montant) {
+        VirementRequestDTO request = requete("VIREMENT", montant);
+        request.setCompteSourceId(source);
+        request.setCompteDestinationId(destination);
+        return executer(request);
+    }
+
+    private boolean depot(Long caisse, Long compte, String montant) {
+        VirementRequestDTO request = requete("DEPOT", montant);
+        request.setCaisseId(caisse);
+        request.setCompteDestinationId(compte);
+        return executer(request);
+    }
+
+    private boolean retrait(Long compte, Long caisse, String montant) {
+        VirementRequestDTO request = requete("RETRAIT", montant);
+        request.setCompteSourceId(compte);
+        request.setCaisseId(caisse);
+        return executer(request);
+    }
+
+    private VirementRequestDTO requete(String type, String montant) {
+        VirementRequestDTO request = new VirementRequestDTO();
+        request.setType(type);
+        request.setMontant(new BigDecimal(montant));
+        request.setStatut("VALIDE");
+        return request;
+    }
+
+    private boolean executer(VirementRequestDTO request) {
+        try {
+            transactionService.createTransactionLiee(request);
+            return true;
+        } catch (RuntimeException soldeInsuffisant) {
+            return false;
+        }
+    }
+
+    private Long creerCompte(String solde) {
+        CompteBancaire compte = new CompteBancaire();
+        compte.setNumero("TEST-" + System.nanoTime());
+        compte.setType(CompteBancaire.TypeCompte.BANQUE);
+        compte.setBanque("Banque test");
+        compte.setSolde(new BigDecimal(solde));
+        compte.setStatut(CompteBancaire.StatutCompte.ACTIF);
+        Long id = compteBancaireRepository.save(compte).getId();
+        comptesCrees.add(id);
+        return id;
+    }
+
+    private Long creerCaisse(String solde) {
+        Caisse caisse = new Caisse();
+        caisse.setNom("Caisse test " + System.nanoTime());
+        caisse.setSolde(new BigDecimal(solde));
+        caisse.setStatut(Caisse.StatutCaisse.ACTIF);
+        Long id = caisseRepository.save(caisse).getId();
+        caissesCreees.add(id);
+        return id;
+    }
+
+    private BigDecimal soldeCompte(Long compteId) {
+        return compteBancaireRepository.findById(compteId).orElseThrow().getSolde();
+    }
+
+    private BigDecimal soldeCaisse(Long caisseId) {
+        return caisseRepository.findById(caisseId).orElseThrow().getSolde();
+    }
+
+    /** Lance les opérations en même temps (départ commun) et renvoie leurs résultats dans l'ordre. */
+    private List<Boolean> executerEnParallele(List<Callable<Boolean>> operations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(operations.size());
+        CountDownLatch depart = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (Callable<Boolean> operation : operations) {
+                futures.add(executor.submit(() -> {
+                    depart.await();
+                    return operation.call();
+                }));
+            }
+            depart.countDown();
+            List<Boolean> resultats = new ArrayList<>();
+            for (Future<Boolean> future : futures) {
+                resultats.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return resultats;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.backend.gesy.stock;
+
+import com.backend.gesy.alerte.Alerte;
+import com.backend.gesy.alerte.AlerteRepository;
+import com.backend.gesy.alerte.AlerteService;
+import com.backend.gesy.depot.Depot;
+import com.backend.gesy.depot.DepotRepository;
+import com.backend.gesy.produit.Produit;
+import com.backend.gesy.produit.ProduitRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+/**
+ * Alerte de seuil minimum levée après commit des mouvements : une seule alerte par passage sous le seuil,
+ * réarmée seulement au-dessus du seuil majoré de la marge (10 % par défaut). Un échec de la surveillance
+ * n'atteint jamais l'appelant.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "test.h2.base=seuil")
+class SeuilStockWatcherTest {
+
+    @Autowired
+    private StockLedger stockLedger;
+    @Autowired
+    private StockRepository stockRepository;
+    @Autowired
+    private DepotRepository depotRepository;
+    @Autowired
+    private ProduitRepository produitRepository;
+    @Autowired
+    private AlerteRepository alerteRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @MockitoSpyBean
+    private AlerteService alerteService;
+
+    @Test
+    void uneAlerteParPassageSousLeSeuilAvecReamorcageAuDessusDeLaMarge() {
+        Long stockId = creerStock(200.0, 100.0);
+
+        mouvement(stockId, stock -> MouvementStock.sortie(stock, 120, "Chargement"));
+        assertThat(alertesStockFaible(stockId)).isEqualTo(1);
+
+        mouvement(stockId, stock -> MouvementStock.sortie(stock, 10, "Chargement"));
+        assertThat(alertesStockFaible(stockId)).isEqualTo(1);
+
+        // 105 : au-dessus du seuil mais sous la marge, l'alerte reste posée
+        mouvement(stockId, stock -> MouvementStock.entree(stock, 35, "Réception"));
+        mouvement(stockId, stock -> MouvementStock.sortie(stock, 10, "Chargement"));
+        assertThat(alertesStockFaible(stockId)).isEqualTo(1);
+
+        // 115 : au-dessus du seuil majoré, le passage suivant sous le seuil est de nouveau signalé
+        mouvement(stockId, stock -> MouvementStock.entree(stock, 20, "Réception"));
+        assertThat(stockRepository.findById(stockId).orElseThrow().getAlerteSeuil()).isFalse();
+        mouvement(stockId, stock -> MouvementStock.sortie(stock, 20, "Chargement"));
+        assertThat(alertesStockFaible(stockId)).isEqualTo(2);
+    }
+
+    @Test
+    void leSeuilAtteintSansEtreFranchiNeDeclenchePasDAlerte() {
+        Long stockId = creerStock(200.0, 100.0);
+
+        mouvement(stockId, stock -> MouvementStock.sortie(stock, 100, "Chargement"));
+        assertThat(alertesStockFaible(stockId)).isZero();
+
+        mouvement(stockId, stock -> MouvementStock.sortie(stock, 1, "Chargement"));
+        assertThat(alertesStockFaible(stockId)).isEqualTo(1);
+    }
+
+    @Test
+    void unEchecDeLAlerteNeRemontePasEtLaisseLeSeuilArme() {
+        Long stockId = creerStock(200.0, 100.0);
+        doThrow(new RuntimeException("Alertes indisponibles")).when(alerteService)
+                .creerAlerte(any(), anyString(), any(), anyString(), any(), anyString());
+
+        // Le mouvement est validé, l'échec de l'alerte annule seulement la transaction de surveillance
+        mouvement(stockId, stock -> MouvementStock.sortie(stock, 120, "Chargement"));
+        Stock apresEchec = stockRepository.findById(stockId).orElseThrow();
+        assertThat(apresEchec.getQuantite()).isEqualTo(80.0);
+        assertThat(apresEchec.getAlerteSeuil()).isNotEqualTo(Boolean.TRUE);
+
+        // Hors transaction, l'écouteur s'exécute dans le fil de l'appelant : rien ne doit lui parvenir
+        assertThatCode(() -> eventPublisher.publishEvent(new StockModifieEvent(Set.of(stockId))))
+                .doesNotThrowAnyException();
+
+        reset(alerteService);
+        mouvement(stockId, stock -> MouvementStock.sortie(stock, 10, "Chargement"));
+        assertThat(alertesStockFaible(stockId)).isEqualTo(1);
+    }
+
+    private void mouvement(Long stockId, Function<Stock, MouvementStock> mouvement) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(statut ->
+                stockLedger.enregistrer(LocalDateTime.now(),
+                        mouvement.apply(stockRepository.findById(stockId).orElseThrow())));
+    }
+
+    private long alertesStockFaible(Long stockId) {
+        return alerteRepository.findByType(Alerte.TypeAlerte.STOCK_FAIBLE).stream()
+                .filter(alerte -> stockId.equals(alerte.getEntiteId()))
+                .count();
+    }
+
+    private Long creerStock(double quantite, double seuilMinimum) {
+        Depot depot = new Depot();
+        depot.setNom("Dépôt test " + System.nanoTime());
+        depot.setAdresse("Zone industrielle");
+        depot.setCapacite(10000.0);
+        depot.setCapaciteUtilisee(quantite);
+        depot.setStatut(Depot.StatutDepot.ACTIF);
+        depotRepository.save(depot);
+
+        Produit produit = new Produit();
+        produit.setNom("Produit test " + System.nanoTime());
+        produit.setTypeProduit(Produit.TypeProduit.GAZOLE);
+        produitRepository.save(produit);
+
+        Stock stock = new Stock();
+        stock.setProduit(produit);
+        stock.setDepot(depot);
+        stock.setQuantite(quantite);
+        stock.setSeuilMinimum(seuilMinimum);
+        stock.setUnite("L");
+        return stockRepository.save(stock).getId();
+    }
+}
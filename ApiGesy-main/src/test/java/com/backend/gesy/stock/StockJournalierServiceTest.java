@@ -0,0 +1,115 @@
+package com.backend.gesy.stock;
+
+import com.backend.gesy.depot.Depot;
+import com.backend.gesy.depot.DepotRepository;
+import com.backend.gesy.mouvement.Mouvement;
+import com.backend.gesy.mouvement.MouvementRepository;
+import com.backend.gesy.mouvement.MouvementService;
+import com.backend.gesy.produit.Produit;
+import com.backend.gesy.produit.ProduitRepository;
+import com.backend.gesy.stock.dto.StockEvolutionDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Première clôture : remontée depuis la quantité actuelle avec les seuls mouvements du registre de stock
+ * (cession et saisies manuelles exclues), sans reconstituer de jour antérieur au début du registre.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class StockJournalierServiceTest {
+
+    @Autowired
+    private StockJournalierService stockJournalierService;
+    @Autowired
+    private StockLedger stockLedger;
+    @Autowired
+    private StockRepository stockRepository;
+    @Autowired
+    private DepotRepository depotRepository;
+    @Autowired
+    private ProduitRepository produitRepository;
+    @Autowired
+    private MouvementRepository mouvementRepository;
+    @Autowired
+    private MouvementService mouvementService;
+
+    @Test
+    void laPremiereClotureRemonteLesSeulsMouvementsDuRegistre() {
+        LocalDate aujourdhui = LocalDate.now();
+        Stock stock = creerStock(600.0);
+
+        stockLedger.enregistrer(aujourdhui.minusDays(3).atTime(9, 0), MouvementStock.entree(stock, 300, "Réception"));
+        stockLedger.enregistrer(aujourdhui.minusDays(2).atTime(9, 0), MouvementStock.entreeCession(stock, 50, "Cession"));
+        stockLedger.enregistrer(aujourdhui.minusDays(1).atTime(9, 0), MouvementStock.sortie(stock, 100, "Chargement"));
+        stockLedger.enregistrer(LocalDateTime.now(), MouvementStock.entree(stock, 200, "Réception"));
+        // Saisie manuelle hors registre : journalisée sans modifier le stock
+        mouvementManuel(stock, aujourdhui.minusDays(1).atTime(15, 0), 999.0);
+
+        stockJournalierService.cloturer();
+
+        List<StockEvolutionDTO> evolution = stockJournalierService.findEvolution(aujourdhui.minusDays(10),
+                aujourdhui, stock.getDepot().getId(), stock.getProduit().getId());
+        assertThat(evolution).extracting(StockEvolutionDTO::getJour)
+                .containsExactly(aujourdhui.minusDays(3), aujourdhui.minusDays(2), aujourdhui.minusDays(1));
+        assertThat(evolution).extracting(StockEvolutionDTO::getQuantite)
+                .containsExactly(900.0, 900.0, 800.0);
+    }
+
+    @Test
+    void unMouvementDuRegistreNePeutPasEtreSupprime() {
+        Stock stock = creerStock(100.0);
+        stockLedger.enregistrer(LocalDateTime.now(), MouvementStock.sortie(stock, 40, "Chargement"));
+        Long appliqueId = mouvementRepository.findByStockId(stock.getId()).get(0).getId();
+        Long manuelId = mouvementManuel(stock, LocalDateTime.now(), 10.0);
+
+        assertThatThrownBy(() -> mouvementService.deleteById(appliqueId))
+                .hasMessageContaining("ne peut pas être supprimé");
+        mouvementService.deleteById(manuelId);
+
+        assertThat(mouvementRepository.findByStockId(stock.getId()))
+                .extracting(Mouvement::getId).containsExactly(appliqueId);
+    }
+
+    private Long mouvementManuel(Stock stock, LocalDateTime date, double quantite) {
+        Mouvement mouvement = new Mouvement();
+        mouvement.setStock(stock);
+        mouvement.setTypeMouvement(Mouvement.TypeMouvement.ENTREE);
+        mouvement.setQuantite(quantite);
+        mouvement.setDateMouvement(date);
+        return mouvementRepository.save(mouvement).getId();
+    }
+
+    private Stock creerStock(double quantite) {
+        Depot depot = new Depot();
+        depot.setNom("Dépôt test " + System.nanoTime());
+        depot.setAdresse("Zone industrielle");
+        depot.setCapacite(10000.0);
+        depot.setCapaciteUtilisee(quantite);
+        depot.setStatut(Depot.StatutDepot.ACTIF);
+        depotRepository.save(depot);
+
+        Produit produit = new Produit();
+        produit.setNom("Produit test " + System.nanoTime());
+        produit.setTypeProduit(Produit.TypeProduit.ESSENCE);
+        produitRepository.save(produit);
+
+        Stock stock = new Stock();
+        stock.setProduit(produit);
+        stock.setDepot(depot);
+        stock.setQuantite(quantite);
+        stock.setUnite("L");
+        return stockRepository.save(stock);
+    }
+}
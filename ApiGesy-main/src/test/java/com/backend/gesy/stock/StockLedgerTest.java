@@ -0,0 +1,125 @@
+package com.backend.gesy.stock;
+
+import com.backend.gesy.depot.Depot;
+import com.backend.gesy.depot.DepotRepository;
+import com.backend.gesy.mouvement.Mouvement;
+import com.backend.gesy.mouvement.MouvementRepository;
+import com.backend.gesy.produit.Produit;
+import com.backend.gesy.produit.ProduitRepository;
+import com.backend.gesy.stock.dto.StockDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Journal de stock : variations appliquées par UPDATE relatifs, contrôle de quantité suffisante,
+ * capacité des dépôts et contrôle de version à la modification d'un stock.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class StockLedgerTest {
+
+    @Autowired
+    private StockLedger stockLedger;
+    @Autowired
+    private StockService stockService;
+    @Autowired
+    private StockRepository stockRepository;
+    @Autowired
+    private DepotRepository depotRepository;
+    @Autowired
+    private ProduitRepository produitRepository;
+    @Autowired
+    private MouvementRepository mouvementRepository;
+
+    @Test
+    void lesMouvementsSontCumulesEtJournalises() {
+        Depot depot = creerDepot(10000.0, 1000.0);
+        Stock stock = creerStock(depot, 1000.0);
+        long version = stock.getVersion();
+
+        stockLedger.enregistrer(LocalDateTime.now(),
+                MouvementStock.entree(stock, 500, "Réception"),
+                MouvementStock.sortie(stock, 200, "Chargement"));
+
+        assertThat(stock.getQuantite()).isEqualTo(1300.0);
+        assertThat(stock.getVersion()).isGreaterThan(version);
+        assertThat(depot.getCapaciteUtilisee()).isEqualTo(1300.0);
+        List<Mouvement> journal = mouvementRepository.findByStockId(stock.getId());
+        assertThat(journal).hasSize(2).allSatisfy(m -> assertThat(m.getCession()).isFalse());
+    }
+
+    @Test
+    void uneSortieSuperieureAuStockEstRefusee() {
+        Depot depot = creerDepot(10000.0, 100.0);
+        Stock stock = creerStock(depot, 100.0);
+
+        assertThatThrownBy(() -> stockLedger.enregistrer(LocalDateTime.now(),
+                MouvementStock.sortie(stock, 150, "Chargement")))
+                .hasMessageContaining("Quantité insuffisante");
+
+        assertThat(stockRepository.findById(stock.getId()).orElseThrow().getQuantite()).isEqualTo(100.0);
+    }
+
+    @Test
+    void uneModificationSurUneVersionPerimeeEstRefusee() {
+        Depot depot = creerDepot(10000.0, 500.0);
+        Stock stock = creerStock(depot, 500.0);
+        StockDTO affiche = stockService.findById(stock.getId()).orElseThrow();
+
+        stockLedger.enregistrer(LocalDateTime.now(), MouvementStock.sortie(stock, 50, "Chargement"));
+        affiche.setSeuilMinimum(10.0);
+
+        assertThatThrownBy(() -> stockService.update(stock.getId(), affiche))
+                .hasMessageContaining("modifié entre-temps");
+    }
+
+    @Test
+    void leChangementDeDepotTransfereLaCapacite() {
+        Depot ancien = creerDepot(10000.0, 800.0);
+        Depot nouveau = creerDepot(10000.0, 0.0);
+        Stock stock = creerStock(ancien, 800.0);
+        StockDTO dto = stockService.findById(stock.getId()).orElseThrow();
+        dto.setDepotId(nouveau.getId());
+        dto.setQuantite(900.0);
+
+        StockDTO modifie = stockService.update(stock.getId(), dto);
+
+        assertThat(modifie.getQuantite()).isEqualTo(900.0);
+        assertThat(depotRepository.findById(ancien.getId()).orElseThrow().getCapaciteUtilisee()).isEqualTo(0.0);
+        assertThat(depotRepository.findById(nouveau.getId()).orElseThrow().getCapaciteUtilisee()).isEqualTo(900.0);
+    }
+
+    private Depot creerDepot(double capacite, double capaciteUtilisee) {
+        Depot depot = new Depot();
+        depot.setNom("Dépôt test " + System.nanoTime());
+        depot.setAdresse("Zone industrielle");
+        depot.setCapacite(capacite);
+        depot.setCapaciteUtilisee(capaciteUtilisee);
+        depot.setStatut(Depot.StatutDepot.ACTIF);
+        return depotRepository.save(depot);
+    }
+
+    private Stock creerStock(Depot depot, double quantite) {
+        Produit produit = new Produit();
+        produit.setNom("Produit test " + System.nanoTime());
+        produit.setTypeProduit(Produit.TypeProduit.ESSENCE);
+        produitRepository.save(produit);
+
+        Stock stock = new Stock();
+        stock.setProduit(produit);
+        stock.setDepot(depot);
+        stock.setQuantite(quantite);
+        stock.setUnite("L");
+        return stockRepository.save(stock);
+    }
+}
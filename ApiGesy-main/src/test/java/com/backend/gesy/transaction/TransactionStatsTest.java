@@ -0,0 +1,95 @@
+package com.backend.gesy.transaction;
+
+import com.backend.gesy.camion.Camion;
+import com.backend.gesy.camion.CamionRepository;
+import com.backend.gesy.produit.Produit;
+import com.backend.gesy.produit.ProduitRepository;
+import com.backend.gesy.transaction.dto.TransactionStatsDTO;
+import com.backend.gesy.voyage.Voyage;
+import com.backend.gesy.voyage.VoyageRepository;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statistiques des transactions : l'agrégat groupé en base donne le même résultat que l'ancien calcul
+ * en mémoire, avec et sans le filtre du menu Paiements.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class TransactionStatsTest {
+
+    @Autowired
+    private TransactionServiceImpl transactionService;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private VoyageRepository voyageRepository;
+    @Autowired
+    private CamionRepository camionRepository;
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void lAgregatEnBaseCorrespondAuCalculEnMemoire(boolean exclureVoyageEnAttenteChargement) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        Voyage voyageEnAttente = creerVoyageEnAttente();
+        creerTransaction(Transaction.StatutTransaction.VALIDE, "100", maintenant, null);
+        creerTransaction(Transaction.StatutTransaction.VALIDE, "250", maintenant, voyageEnAttente);
+        creerTransaction(Transaction.StatutTransaction.VALIDE, "70", maintenant.minusMonths(1), null);
+        creerTransaction(Transaction.StatutTransaction.VALIDE, "30", maintenant.minusMonths(3), null);
+        creerTransaction(Transaction.StatutTransaction.EN_ATTENTE, "40", maintenant.minusMonths(2), null);
+        creerTransaction(Transaction.StatutTransaction.EN_ATTENTE, "15", maintenant, voyageEnAttente);
+        creerTransaction(Transaction.StatutTransaction.REJETE, "60", maintenant, null);
+        creerTransaction(Transaction.StatutTransaction.ANNULE, "5", maintenant.minusMonths(1), null);
+
+        TransactionStatsDTO agregat = transactionService.getStats(exclureVoyageEnAttenteChargement);
+        TransactionStatsDTO enMemoire = transactionService.getStatsEnMemoire(exclureVoyageEnAttenteChargement);
+
+        assertThat(agregat).usingRecursiveComparison()
+                .withComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+                .isEqualTo(enMemoire);
+    }
+
+    private void creerTransaction(Transaction.StatutTransaction statut, String montant, LocalDateTime date, Voyage voyage) {
+        Transaction transaction = new Transaction();
+        transaction.setType(Transaction.TypeTransaction.DEPOT);
+        transaction.setStatut(statut);
+        transaction.setMontant(new BigDecimal(montant));
+        transaction.setDate(date);
+        transaction.setVoyage(voyage);
+        transactionRepository.save(transaction);
+    }
+
+    private Voyage creerVoyageEnAttente() {
+        Camion camion = new Camion();
+        camion.setImmatriculation("TEST-" + System.nanoTime());
+        camion.setType("Citerne");
+        camion.setCapacite(45000.0);
+        camion.setStatut(Camion.StatutCamion.DISPONIBLE);
+        camionRepository.save(camion);
+
+        Produit produit = new Produit();
+        produit.setNom("Produit test " + System.nanoTime());
+        produit.setTypeProduit(Produit.TypeProduit.ESSENCE);
+        produitRepository.save(produit);
+
+        Voyage voyage = new Voyage();
+        voyage.setNumeroVoyage("VOY-TEST-" + System.nanoTime());
+        voyage.setCamion(camion);
+        voyage.setProduit(produit);
+        voyage.setStatut(Voyage.StatutVoyage.EN_ATTENTE_CHARGEMENT);
+        voyage.setQuantite(45000.0);
+        return voyageRepository.save(voyage);
+    }
+}
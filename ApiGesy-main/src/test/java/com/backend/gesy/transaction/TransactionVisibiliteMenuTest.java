@@ -0,0 +1,142 @@
+package com.backend.gesy.transaction;
+
+import com.backend.gesy.camion.Camion;
+import com.backend.gesy.camion.CamionRepository;
+import com.backend.gesy.client.Client;
+import com.backend.gesy.client.ClientRepository;
+import com.backend.gesy.facture.Facture;
+import com.backend.gesy.facture.FactureRepository;
+import com.backend.gesy.produit.Produit;
+import com.backend.gesy.produit.ProduitRepository;
+import com.backend.gesy.voyage.Voyage;
+import com.backend.gesy.voyage.VoyageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Filtre du menu Paiements : seules les transactions liées (directement ou par leur facture) à un voyage
+ * en attente de chargement sont masquées ; les transactions sans voyage ni facture restent visibles.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class TransactionVisibiliteMenuTest {
+    private static final LocalDateTime DATE = LocalDateTime.of(2001, 1, 15, 10, 0);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private VoyageRepository voyageRepository;
+    @Autowired
+    private FactureRepository factureRepository;
+    @Autowired
+    private CamionRepository camionRepository;
+    @Autowired
+    private ProduitRepository produitRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+
+    private Transaction simple;
+    private Transaction avecVoyage;
+    private Transaction avecFacture;
+    private Transaction avecVoyageEnAttente;
+    private Transaction avecFactureVoyageEnAttente;
+
+    @BeforeEach
+    void creerTransactions() {
+        Client client = creerClient();
+        Voyage voyageCharge = creerVoyage(Voyage.StatutVoyage.CHARGE);
+        Voyage voyageEnAttente = creerVoyage(Voyage.StatutVoyage.EN_ATTENTE_CHARGEMENT);
+
+        simple = creerTransaction("10", null, null);
+        avecVoyage = creerTransaction("20", voyageCharge, null);
+        avecFacture = creerTransaction("40", null, creerFacture(client, null));
+        avecVoyageEnAttente = creerTransaction("100", voyageEnAttente, null);
+        avecFactureVoyageEnAttente = creerTransaction("200", null, creerFacture(client, voyageEnAttente));
+    }
+
+    @Test
+    void lesTransactionsSansVoyageNiFactureRestentVisibles() {
+        assertThat(transactionRepository.findAllExclureVoyageEnAttenteChargement())
+                .contains(simple, avecVoyage, avecFacture)
+                .doesNotContain(avecVoyageEnAttente, avecFactureVoyageEnAttente);
+        assertThat(transactionRepository.findPremieresLignesJournalExclureVoyageEnAttenteChargement(PageRequest.of(0, 1000)))
+                .contains(simple, avecVoyage, avecFacture)
+                .doesNotContain(avecVoyageEnAttente, avecFactureVoyageEnAttente);
+    }
+
+    @Test
+    void lesTotauxComptentLesTransactionsSansVoyage() {
+        LocalDateTime debut = DATE.toLocalDate().atStartOfDay();
+        LocalDateTime fin = debut.plusDays(1);
+        assertThat(transactionRepository.sumMontantByDateRangeExclureVoyageEnAttenteChargement(debut, fin))
+                .isEqualByComparingTo("70");
+        assertThat(transactionRepository.findByDateRangeAllExclureVoyageEnAttenteChargement(debut, fin))
+                .containsExactlyInAnyOrder(simple, avecVoyage, avecFacture);
+    }
+
+    private Transaction creerTransaction(String montant, Voyage voyage, Facture facture) {
+        Transaction transaction = new Transaction();
+        transaction.setType(Transaction.TypeTransaction.DEPOT);
+        transaction.setMontant(new BigDecimal(montant));
+        transaction.setDate(DATE);
+        transaction.setStatut(Transaction.StatutTransaction.VALIDE);
+        transaction.setVoyage(voyage);
+        transaction.setFacture(facture);
+        return transactionRepository.save(transaction);
+    }
+
+    private Voyage creerVoyage(Voyage.StatutVoyage statut) {
+        Camion camion = new Camion();
+        camion.setImmatriculation("TEST-" + System.nanoTime());
+        camion.setType("Citerne");
+        camion.setCapacite(45000.0);
+        camion.setStatut(Camion.StatutCamion.DISPONIBLE);
+        camionRepository.save(camion);
+
+        Produit produit = new Produit();
+        produit.setNom("Produit test " + System.nanoTime());
+        produit.setTypeProduit(Produit.TypeProduit.ESSENCE);
+        produitRepository.save(produit);
+
+        Voyage voyage = new Voyage();
+        voyage.setNumeroVoyage("VOY-TEST-" + System.nanoTime());
+        voyage.setCamion(camion);
+        voyage.setProduit(produit);
+        voyage.setStatut(statut);
+        voyage.setQuantite(45000.0);
+        return voyageRepository.save(voyage);
+    }
+
+    private Facture creerFacture(Client client, Voyage voyage) {
+        Facture facture = new Facture();
+        facture.setNumero("INV-TEST-" + System.nanoTime());
+        facture.setDate(LocalDate.of(2001, 1, 15));
+        facture.setMontant(new BigDecimal("1000"));
+        facture.setClient(client);
+        facture.setStatut(Facture.StatutFacture.EMISE);
+        facture.setVoyage(voyage);
+        return factureRepository.save(facture);
+    }
+
+    private Client creerClient() {
+        Client client = new Client();
+        client.setNom("Client test");
+        client.setEmail("client" + System.nanoTime() + "@test.local");
+        client.setTelephone("0000000000");
+        client.setAdresse("Bamako");
+        client.setType(Client.TypeClient.ENTREPRISE);
+        return clientRepository.save(client);
+    }
+}
@@ -0,0 +1,82 @@
+package com.backend.gesy.voyage;
+
+import com.backend.gesy.camion.Camion;
+import com.backend.gesy.camion.CamionRepository;
+import com.backend.gesy.pagination.CurseurPageDTO;
+import com.backend.gesy.produit.Produit;
+import com.backend.gesy.produit.ProduitRepository;
+import com.backend.gesy.voyage.dto.VoyageListItemDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Curseur des voyages archivés : les voyages sans date de création ni de départ sont parcourus en dernier,
+ * avec un jeton valide, sans doublon ni omission.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class VoyageArchivesCurseurTest {
+
+    @Autowired
+    private VoyageService voyageService;
+    @Autowired
+    private VoyageRepository voyageRepository;
+    @Autowired
+    private CamionRepository camionRepository;
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Test
+    void lesVoyagesSansDateSontParcourusEnDernier() {
+        Long sansDate1 = creerVoyageArchive(null, null);
+        Long creeLe = creerVoyageArchive(LocalDateTime.of(2002, 1, 2, 8, 0), null);
+        Long sansDate2 = creerVoyageArchive(null, null);
+        Long partiLe = creerVoyageArchive(null, LocalDateTime.of(2002, 1, 1, 8, 0));
+
+        List<Long> parcourus = new ArrayList<>();
+        String curseur = null;
+        do {
+            CurseurPageDTO<VoyageListItemDTO> page = voyageService.findArchivedVoyagesParCurseur(curseur, 1);
+            page.getElements().forEach(v -> parcourus.add(v.getId()));
+            curseur = page.isHasNext() ? page.getCurseurSuivant() : null;
+        } while (curseur != null);
+
+        assertThat(parcourus).doesNotHaveDuplicates();
+        assertThat(parcourus.stream().filter(List.of(sansDate1, creeLe, sansDate2, partiLe)::contains))
+                .containsExactly(creeLe, partiLe, sansDate2, sansDate1);
+    }
+
+    private Long creerVoyageArchive(LocalDateTime dateCreation, LocalDateTime dateDepart) {
+        Camion camion = new Camion();
+        camion.setImmatriculation("TEST-" + System.nanoTime());
+        camion.setType("Citerne");
+        camion.setCapacite(45000.0);
+        camion.setStatut(Camion.StatutCamion.DISPONIBLE);
+        camionRepository.save(camion);
+
+        Produit produit = new Produit();
+        produit.setNom("Produit test " + System.nanoTime());
+        produit.setTypeProduit(Produit.TypeProduit.ESSENCE);
+        produitRepository.save(produit);
+
+        Voyage voyage = new Voyage();
+        voyage.setNumeroVoyage("VOY-TEST-" + System.nanoTime());
+        voyage.setCamion(camion);
+        voyage.setProduit(produit);
+        voyage.setStatut(Voyage.StatutVoyage.DECHARGER);
+        voyage.setQuantite(45000.0);
+        voyage.setDateCreation(dateCreation);
+        voyage.setDateDepart(dateDepart);
+        return voyageRepository.save(voyage).getId();
+    }
+}
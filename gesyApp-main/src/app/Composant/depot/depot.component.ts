@@ -692,7 +692,8 @@ export class DepotComponent implements OnInit {
       depotId: stock.depotId,
       seuilMinimum: stock.seuilMinimum,
       prixUnitaire: stock.prixUnitaire,
-      unite: stock.unite
+      unite: stock.unite,
+      version: stock.version
     };
 
     this.stocksService.updateStock(stock.id, stockToUpdate).subscribe({
@@ -17,6 +17,8 @@ export interface Stock {
   prixUnitaire?: number;
   unite?: string;
   dateDerniereMiseAJour?: string;
+  /** Version lue : renvoyée telle quelle à la mise à jour (refusée si le stock a changé entre-temps) */
+  version?: number;
 }
 
 export interface StockStats {